@@ -2,7 +2,7 @@ import { useEffect, useRef, useState } from "react";
 import { Button } from "@/components/ui/button";
 import { Home, RotateCcw } from "lucide-react";
 import { useToast } from "@/hooks/use-toast";
-import { Coordinate } from "@shared/schema";
+import { Coordinate, RouteLeg } from "@shared/schema";
 import L from "leaflet";
 
 interface MapViewProps {
@@ -16,8 +16,12 @@ interface MapViewProps {
   onMapClick?: (coordinates: Coordinate) => void;
   selectedPointId?: number;
   onMarkerClick: (pointId: number) => void;
+  // Makes markers draggable; called with the new position when a drag ends
+  onMarkerDrag?: (pointId: number, coordinates: Coordinate) => void;
   defaultCenter?: Coordinate;
   readOnly?: boolean;
+  // Walking legs from the server; without them points are joined by straight lines
+  route?: RouteLeg[];
 }
 
 export default function MapView({ 
@@ -25,14 +29,19 @@ export default function MapView({
   onMapClick,
   selectedPointId,
   onMarkerClick,
+  onMarkerDrag,
   defaultCenter = { lat: 48.8566, lng: 2.3522 }, // Default to Paris
-  readOnly = false
+  readOnly = false,
+  route
 }: MapViewProps) {
   const mapRef = useRef<L.Map | null>(null);
   const mapContainerRef = useRef<HTMLDivElement>(null);
   const markersRef = useRef<{[key: number]: L.Marker}>({});
   const { toast } = useToast();
   const [mapInitialized, setMapInitialized] = useState(false);
+  // Markers are created once, so their drag handler reads the latest callback from a ref
+  const onMarkerDragRef = useRef(onMarkerDrag);
+  onMarkerDragRef.current = onMarkerDrag;
 
   // Initialize map
   useEffect(() => {
@@ -44,8 +53,9 @@ export default function MapView({
       13
     );
 
-    // Add tile layer (OpenStreetMap)
-    L.tileLayer('https://{s}.tile.openstreetmap.org/{z}/{x}/{y}.png', {
+    // Add tile layer (OpenStreetMap via the server-side tile cache)
+    L.tileLayer('/api/tiles/{z}/{x}/{y}.png', {
+      maxZoom: 19,
       attribution: '&copy; <a href="https://www.openstreetmap.org/copyright">OpenStreetMap</a> contributors'
     }).addTo(map);
 
@@ -76,8 +86,8 @@ export default function MapView({
     const map = mapRef.current;
     const currentMarkerIds = new Set<number>();
 
-    // Create or update markers for points
-    points.forEach((point) => {
+    // Create or update markers for points (labels are positions, order is a sparse sort key)
+    points.forEach((point, index) => {
       const lat = parseFloat(point.latitude);
       const lng = parseFloat(point.longitude);
       
@@ -97,19 +107,23 @@ export default function MapView({
         const isSelected = point.id === selectedPointId;
         const icon = L.divIcon({
           className: `map-marker ${isSelected ? 'active' : ''}`,
-          html: `<div class="w-8 h-8 flex items-center justify-center rounded-full ${isSelected ? 'bg-amber-500' : 'bg-primary'} text-white text-xs font-bold border-2 border-white shadow-md transform ${isSelected ? 'scale-125' : ''}">${point.order || ''}</div>`,
+          html: `<div class="w-8 h-8 flex items-center justify-center rounded-full ${isSelected ? 'bg-amber-500' : 'bg-primary'} text-white text-xs font-bold border-2 border-white shadow-md transform ${isSelected ? 'scale-125' : ''}">${index + 1}</div>`,
           iconSize: [30, 30],
           iconAnchor: [15, 15]
         });
         
         // Create new marker
-        const marker = L.marker([lat, lng], { icon }).addTo(map);
+        const marker = L.marker([lat, lng], { icon, draggable: !readOnly && !!onMarkerDrag }).addTo(map);
         
         // Add popup and click handler
         marker.bindPopup(point.name);
         marker.on('click', () => {
           onMarkerClick(point.id);
         });
+        marker.on('dragend', () => {
+          const position = marker.getLatLng();
+          onMarkerDragRef.current?.(point.id, { lat: position.lat, lng: position.lng });
+        });
         
         // Store the marker reference
         markersRef.current[point.id] = marker;
@@ -118,7 +132,7 @@ export default function MapView({
       // Update icon style based on selection
       const icon = L.divIcon({
         className: `map-marker ${point.id === selectedPointId ? 'active' : ''}`,
-        html: `<div class="w-8 h-8 flex items-center justify-center rounded-full ${point.id === selectedPointId ? 'bg-amber-500' : 'bg-primary'} text-white text-xs font-bold border-2 border-white shadow-md transform ${point.id === selectedPointId ? 'scale-125' : ''}">${point.order || ''}</div>`,
+        html: `<div class="w-8 h-8 flex items-center justify-center rounded-full ${point.id === selectedPointId ? 'bg-amber-500' : 'bg-primary'} text-white text-xs font-bold border-2 border-white shadow-md transform ${point.id === selectedPointId ? 'scale-125' : ''}">${index + 1}</div>`,
         iconSize: [30, 30],
         iconAnchor: [15, 15]
       });
@@ -144,27 +158,39 @@ export default function MapView({
         }
       });
 
-      // Sort points by order
-      const sortedPoints = [...points].sort((a, b) => 
-        (a.order || 0) - (b.order || 0)
-      );
+      if (route && route.length > 0) {
+        // Routed legs follow the streets; legs without a route stay dashed
+        route.forEach((leg) => {
+          L.polyline(leg.path, {
+            color: '#4A90E2',
+            weight: leg.routed ? 4 : 3,
+            opacity: 0.7,
+            dashArray: leg.routed ? undefined : '5, 10'
+          }).addTo(map);
+        });
+      } else {
+        // Sort points by order
+        const sortedPoints = [...points].sort((a, b) => 
+          (a.order || 0) - (b.order || 0)
+        );
 
-      // Create line coordinates
-      const lineCoords = sortedPoints.map(point => [
-        parseFloat(point.latitude), 
-        parseFloat(point.longitude)
-      ] as [number, number]);
+        // Create line coordinates
+        const lineCoords = sortedPoints.map(point => [
+          parseFloat(point.latitude), 
+          parseFloat(point.longitude)
+        ] as [number, number]);
 
-      // Draw line
-      L.polyline(lineCoords, {
-        color: '#4A90E2',
-        weight: 3,
-        opacity: 0.7,
-        dashArray: '5, 10'
-      }).addTo(map);
+        // Draw line
+        L.polyline(lineCoords, {
+          color: '#4A90E2',
+          weight: 3,
+          opacity: 0.7,
+          dashArray: '5, 10'
+        }).addTo(map);
+      }
     }
 
-  }, [points, selectedPointId, mapInitialized]);
+  }, [points, selectedPointId, mapInitialized, route]);
 
   // Handle centering map
   const centerMap = () => {
@@ -2,9 +2,12 @@ import { PointOfInterest } from "@shared/schema";
 import { Button } from "@/components/ui/button";
 import { Edit, Trash2, Music, Video } from "lucide-react";
 import { Skeleton } from "@/components/ui/skeleton";
+import { blurhashToDataUrl } from "@/lib/blurhash";
 
 interface PointCardProps {
   point: PointOfInterest;
+  // 1-based position in the tour; order is a sparse sort key, not for display
+  position: number;
   isSelected: boolean;
   onEdit: () => void;
   onDelete: () => void;
@@ -14,12 +17,15 @@ interface PointCardProps {
 
 export default function PointCard({ 
   point, 
+  position,
   isSelected, 
   onEdit, 
   onDelete, 
   onSelect,
   isDeleting
 }: PointCardProps) {
+  const placeholder = point.photoPlaceholder ? blurhashToDataUrl(point.photoPlaceholder) : null;
+
   return (
     <div 
       className={`border rounded-md hover:shadow-md transition-shadow bg-white overflow-hidden ${
@@ -32,7 +38,7 @@ export default function PointCard({
       >
         <div className="flex items-center">
           <div className={`w-6 h-6 ${isSelected ? 'bg-amber-500' : 'bg-primary'} rounded-full flex items-center justify-center mr-3 text-white text-xs font-bold`}>
-            {point.order || '-'}
+            {position}
           </div>
           <span className="font-medium text-gray-900">{point.name}</span>
         </div>
@@ -73,10 +79,23 @@ export default function PointCard({
         <div className="p-3 border-b border-gray-100">
           {point.photoFilename && (
             <div className="mb-3">
-              <div className="aspect-w-16 aspect-h-9 rounded-md overflow-hidden bg-gray-200">
+              <div
+                className="rounded-md overflow-hidden bg-gray-200 bg-cover bg-center"
+                style={{
+                  // Reserve the final size and paint the blurred preview until the photo arrives
+                  aspectRatio: point.photoWidth && point.photoHeight
+                    ? `${point.photoWidth} / ${point.photoHeight}`
+                    : "16 / 9",
+                  backgroundImage: placeholder ? `url(${placeholder})` : undefined,
+                }}
+              >
                 <img 
                   src={`/api/media/photos/${point.photoFilename}`} 
                   alt={point.name} 
+                  width={point.photoWidth ?? undefined}
+                  height={point.photoHeight ?? undefined}
+                  loading="lazy"
+                  decoding="async"
                   className="object-cover w-full h-full"
                   onError={(e) => {
                     e.currentTarget.src = 'https://via.placeholder.com/640x360?text=No+Image';
@@ -8,6 +8,8 @@ import { Textarea } from "@/components/ui/textarea";
 import { Button } from "@/components/ui/button";
 import { Dialog, DialogContent, DialogHeader, DialogTitle, DialogDescription, DialogFooter } from "@/components/ui/dialog";
 import { apiRequest, queryClient } from "@/lib/queryClient";
+import { uploadResumable } from "@/lib/resumableUpload";
+import { diffPoint, patchPoint } from "@/lib/pointPatch";
 import { useToast } from "@/hooks/use-toast";
 import { Coordinate, PointOfInterest } from "@shared/schema";
 import { X, Upload, Music, Video } from "lucide-react";
@@ -21,7 +23,6 @@ const pointFormSchema = z.object({
   photoFilename: z.string().optional(),
   audioFilename: z.string().optional(),
   videoFilename: z.string().optional(),
-  order: z.number().optional(),
 });
 
 type PointFormData = z.infer<typeof pointFormSchema>;
@@ -73,7 +74,6 @@ export default function PointModal({
       photoFilename: point?.photoFilename || "",
       audioFilename: point?.audioFilename || "",
       videoFilename: point?.videoFilename || "",
-      order: point?.order || undefined,
     },
   });
 
@@ -131,23 +131,12 @@ export default function PointModal({
     if (!e.target.files || e.target.files.length === 0) return;
     
     const file = e.target.files[0];
-    const formData = new FormData();
-    formData.append("audio", file);
     
     setUploadingAudio(true);
     
     try {
-      const response = await fetch("/api/upload/audio", {
-        method: "POST",
-        body: formData,
-        credentials: "include",
-      });
-      
-      if (!response.ok) {
-        throw new Error("Failed to upload audio");
-      }
-      
-      const data = await response.json();
+      // Large media goes through resumable chunked uploads
+      const data = await uploadResumable("audio", file);
       form.setValue("audioFilename", data.filename);
       setAudioFile(file.name);
       
@@ -174,23 +163,12 @@ export default function PointModal({
     if (!e.target.files || e.target.files.length === 0) return;
     
     const file = e.target.files[0];
-    const formData = new FormData();
-    formData.append("video", file);
     
     setUploadingVideo(true);
     
     try {
-      const response = await fetch("/api/upload/video", {
-        method: "POST",
-        body: formData,
-        credentials: "include",
-      });
-      
-      if (!response.ok) {
-        throw new Error("Failed to upload video");
-      }
-      
-      const data = await response.json();
+      // Large media goes through resumable chunked uploads
+      const data = await uploadResumable("video", file);
       form.setValue("videoFilename", data.filename);
       setVideoFile(file.name);
       
@@ -217,24 +195,21 @@ export default function PointModal({
     setIsSaving(true);
     
     try {
-      const pointData = {
-        ...values,
-        tourId,
-      };
-      
-      let response;
-      
       if (point?.id) {
-        // Update existing point
-        response = await apiRequest("PUT", `/api/points/${point.id}`, pointData);
+        // Update existing point: only changed fields go out as a merge patch. The server
+        // acknowledges before the coalesced write lands, so the points are refreshed by
+        // the tour-changed event rather than here
+        await patchPoint(point.id, diffPoint(point, values));
       } else {
         // Create new point
-        response = await apiRequest("POST", `/api/tours/${tourId}/points`, pointData);
+        await apiRequest("POST", `/api/tours/${tourId}/points`, { ...values, tourId });
+
+        // Invalidate points query cache
+        queryClient.invalidateQueries({ queryKey: ['/api/tours', tourId, 'points'] });
+        queryClient.invalidateQueries({ queryKey: [`/api/tours/${tourId}/points`] });
+        queryClient.invalidateQueries({ queryKey: [`/api/tours/${tourId}/route`] });
       }
       
-      // Invalidate points query cache
-      queryClient.invalidateQueries({ queryKey: [`/api/tours/${tourId}/points`] });
-      
       toast({
         title: point?.id ? "Point Updated" : "Point Created",
         description: `Successfully ${point?.id ? "updated" : "created"} point "${values.name}"`,
@@ -330,26 +305,6 @@ export default function PointModal({
               />
             </div>
             
-            <FormField
-              control={form.control}
-              name="order"
-              render={({ field }) => (
-                <FormItem>
-                  <FormLabel>Order (Optional)</FormLabel>
-                  <FormControl>
-                    <Input 
-                      type="number" 
-                      placeholder="Point order in the tour" 
-                      {...field}
-                      onChange={(e) => field.onChange(e.target.value ? parseInt(e.target.value) : undefined)}
-                      value={field.value ?? ''}
-                    />
-                  </FormControl>
-                  <FormMessage />
-                </FormItem>
-              )}
-            />
-            
             <div className="space-y-2">
               <FormLabel>Photo</FormLabel>
               <div className="mt-1">
@@ -39,6 +39,7 @@ export default function PointsPanel({
         
         // Invalidate points query cache
         queryClient.invalidateQueries({ queryKey: [`/api/tours/${tourId}/points`] });
+        queryClient.invalidateQueries({ queryKey: [`/api/tours/${tourId}/route`] });
         
         toast({
           title: "Point Deleted",
@@ -81,10 +82,11 @@ export default function PointsPanel({
       <div className="flex-1 overflow-y-auto" style={{ maxHeight: 'calc(100vh - 400px)' }}>
         <div className="space-y-3">
           {points.length > 0 ? (
-            points.map((point) => (
+            points.map((point, index) => (
               <PointCard
                 key={point.id}
                 point={point}
+                position={index + 1}
                 isSelected={point.id === selectedPointId}
                 onEdit={() => onEditPoint(point)}
                 onDelete={() => handleDeletePoint(point.id)}
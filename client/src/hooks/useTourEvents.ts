@@ -0,0 +1,19 @@
+import { useEffect } from "react";
+import { queryClient } from "@/lib/queryClient";
+
+// Subscribes to server-sent change notifications for a tour and refreshes
+// cached tour and point queries instead of polling.
+export function useTourEvents(tourId: number | null) {
+  useEffect(() => {
+    if (!tourId) return;
+
+    const source = new EventSource(`/api/tours/${tourId}/events`);
+    source.addEventListener("tour-changed", () => {
+      queryClient.invalidateQueries({ queryKey: ['/api/tours', tourId] });
+      queryClient.invalidateQueries({ queryKey: [`/api/tours/${tourId}/points`] });
+      queryClient.invalidateQueries({ queryKey: [`/api/tours/${tourId}/route`] });
+    });
+
+    return () => source.close();
+  }, [tourId]);
+}
@@ -2,7 +2,9 @@ import { useState, useCallback } from "react";
 import { useQuery, useMutation } from "@tanstack/react-query";
 import { apiRequest, queryClient } from "@/lib/queryClient";
 import { Tour, PointOfInterest } from "@shared/schema";
+import { PointPatch, patchPoint } from "@/lib/pointPatch";
 import { useToast } from "@/hooks/use-toast";
+import { useTourEvents } from "@/hooks/useTourEvents";
 
 export function useTours() {
   const { toast } = useToast();
@@ -38,6 +40,9 @@ export function useTours() {
     },
   });
   
+  // Refresh the selected tour's points when the server reports a change
+  useTourEvents(selectedTourId);
+  
   // Create a new tour
   const createTourMutation = useMutation({
     mutationFn: async (tourData: Partial<Tour>) => {
@@ -84,14 +89,14 @@ export function useTours() {
     },
   });
   
-  // Update a point
+  // Update a point: only the changed fields are sent; the server coalesces bursts
+  // and answers 202 with a version before the write lands, so the points are
+  // refreshed by the tour-changed event (useTourEvents), not on the response
   const updatePointMutation = useMutation({
-    mutationFn: async ({ id, data }: { id: number; data: Partial<PointOfInterest> }) => {
-      const response = await apiRequest('PUT', `/api/points/${id}`, data);
-      return response.json();
+    mutationFn: async ({ id, data }: { id: number; data: PointPatch }) => {
+      return patchPoint(id, data);
     },
     onSuccess: () => {
-      queryClient.invalidateQueries({ queryKey: ['/api/tours', selectedTourId, 'points'] });
       toast({
         title: 'Success',
         description: 'Point updated successfully!',
@@ -0,0 +1,88 @@
+// Minimal BlurHash decoder: turns the placeholder string sent with a point
+// into a small data URL that is stretched under the photo while it loads.
+
+const BASE83 = "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz#$%*+,-.:;=?@[]^_{|}~";
+
+const cache = new Map<string, string>();
+
+function decode83(value: string): number {
+  let result = 0;
+  for (let i = 0; i < value.length; i++) {
+    result = result * 83 + BASE83.indexOf(value[i]);
+  }
+  return result;
+}
+
+function srgbToLinear(value: number): number {
+  const v = value / 255;
+  return v <= 0.04045 ? v / 12.92 : Math.pow((v + 0.055) / 1.055, 2.4);
+}
+
+function linearToSrgb(value: number): number {
+  const v = Math.max(0, Math.min(1, value));
+  return v <= 0.0031308
+    ? Math.round(v * 12.92 * 255)
+    : Math.round((1.055 * Math.pow(v, 1 / 2.4) - 0.055) * 255);
+}
+
+function signPow(value: number, exp: number): number {
+  return Math.sign(value) * Math.pow(Math.abs(value), exp);
+}
+
+// Returns a data URL with the decoded preview, or null for a malformed hash
+export function blurhashToDataUrl(hash: string, width = 32, height = 32): string | null {
+  const key = `${hash}:${width}x${height}`;
+  const cached = cache.get(key);
+  if (cached) return cached;
+
+  if (hash.length < 6) return null;
+  const sizeFlag = decode83(hash[0]);
+  const numX = (sizeFlag % 9) + 1;
+  const numY = Math.floor(sizeFlag / 9) + 1;
+  if (hash.length !== 4 + 2 * numX * numY) return null;
+
+  const maximumValue = (decode83(hash[1]) + 1) / 166;
+  const colors: number[][] = [];
+  const dc = decode83(hash.substring(2, 6));
+  colors.push([srgbToLinear(dc >> 16), srgbToLinear((dc >> 8) & 255), srgbToLinear(dc & 255)]);
+  for (let i = 1; i < numX * numY; i++) {
+    const value = decode83(hash.substring(4 + i * 2, 6 + i * 2));
+    colors.push([
+      signPow((Math.floor(value / (19 * 19)) - 9) / 9, 2) * maximumValue,
+      signPow(((Math.floor(value / 19) % 19) - 9) / 9, 2) * maximumValue,
+      signPow(((value % 19) - 9) / 9, 2) * maximumValue,
+    ]);
+  }
+
+  const canvas = document.createElement("canvas");
+  canvas.width = width;
+  canvas.height = height;
+  const context = canvas.getContext("2d");
+  if (!context) return null;
+  const image = context.createImageData(width, height);
+  for (let y = 0; y < height; y++) {
+    for (let x = 0; x < width; x++) {
+      let r = 0;
+      let g = 0;
+      let b = 0;
+      for (let j = 0; j < numY; j++) {
+        for (let i = 0; i < numX; i++) {
+          const basis = Math.cos((Math.PI * x * i) / width) * Math.cos((Math.PI * y * j) / height);
+          const color = colors[i + j * numX];
+          r += color[0] * basis;
+          g += color[1] * basis;
+          b += color[2] * basis;
+        }
+      }
+      const offset = 4 * (x + y * width);
+      image.data[offset] = linearToSrgb(r);
+      image.data[offset + 1] = linearToSrgb(g);
+      image.data[offset + 2] = linearToSrgb(b);
+      image.data[offset + 3] = 255;
+    }
+  }
+  context.putImageData(image, 0, 0);
+  const url = canvas.toDataURL();
+  cache.set(key, url);
+  return url;
+}
@@ -0,0 +1,49 @@
+import { apiRequest } from "@/lib/queryClient";
+import { PointOfInterest } from "@shared/schema";
+
+// Fields the server accepts in a point merge patch; anything else is rejected with 400
+const PATCHABLE_FIELDS = [
+  "name",
+  "description",
+  "latitude",
+  "longitude",
+  "photoFilename",
+  "audioFilename",
+  "videoFilename",
+] as const;
+
+type PatchableField = typeof PATCHABLE_FIELDS[number];
+
+export type PointPatch = { [K in PatchableField]?: string | null };
+
+// Server acknowledgement (202): the patch is accepted under this version but may not be written yet
+export interface PointPatchAck {
+  id: number;
+  version: number;
+}
+
+// Builds a merge patch with only the fields that differ from the stored point.
+// Empty strings clear optional fields, so they are sent as null.
+export function diffPoint(
+  original: PointOfInterest,
+  values: Partial<Record<PatchableField, string | null | undefined>>,
+): PointPatch {
+  const patch: PointPatch = {};
+  PATCHABLE_FIELDS.forEach((field) => {
+    if (!(field in values)) return;
+    const next = values[field] || null;
+    const current = original[field] || null;
+    if (next !== current) {
+      patch[field] = next;
+    }
+  });
+  return patch;
+}
+
+// Sends a point merge patch. Bursts are coalesced on the server, so callers should not
+// refetch on the response: the tour-changed event arrives once the write has landed.
+export async function patchPoint(id: number, patch: PointPatch): Promise<PointPatchAck | null> {
+  if (Object.keys(patch).length === 0) return null;
+  const response = await apiRequest("PATCH", `/api/points/${id}`, patch, "application/merge-patch+json");
+  return response.json();
+}
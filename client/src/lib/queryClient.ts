@@ -11,10 +11,11 @@ export async function apiRequest(
   method: string,
   url: string,
   data?: unknown | undefined,
+  contentType: string = "application/json",
 ): Promise<Response> {
   const res = await fetch(url, {
     method,
-    headers: data ? { "Content-Type": "application/json" } : {},
+    headers: data ? { "Content-Type": contentType } : {},
     body: data ? JSON.stringify(data) : undefined,
     credentials: "include",
   });
@@ -0,0 +1,128 @@
+// Resumable chunked uploads against /api/media/uploads (tus 1.0 subset).
+// A dropped connection only costs the chunk in flight: the upload URL is kept
+// in localStorage and the next attempt asks the server for its offset first.
+
+const TUS_VERSION = "1.0.0";
+const CHUNK_SIZE = 5 * 1024 * 1024;
+const MAX_RETRIES = 5;
+
+export type MediaKind = "photo" | "audio" | "video";
+
+export interface UploadResult {
+  filename: string;
+  path: string;
+}
+
+function storageKey(kind: MediaKind, file: File): string {
+  return `upload:${kind}:${file.name}:${file.size}:${file.lastModified}`;
+}
+
+function toBase64(bytes: Uint8Array): string {
+  let binary = "";
+  for (let i = 0; i < bytes.length; i++) binary += String.fromCharCode(bytes[i]);
+  return btoa(binary);
+}
+
+function encodeMetadata(values: Record<string, string>): string {
+  return Object.entries(values)
+    .map(([key, value]) => `${key} ${toBase64(new TextEncoder().encode(value))}`)
+    .join(",");
+}
+
+async function checksum(chunk: Blob): Promise<string> {
+  const digest = await crypto.subtle.digest("SHA-256", await chunk.arrayBuffer());
+  return `sha256 ${toBase64(new Uint8Array(digest))}`;
+}
+
+async function createUpload(kind: MediaKind, file: File): Promise<string> {
+  const res = await fetch("/api/media/uploads", {
+    method: "POST",
+    headers: {
+      "Tus-Resumable": TUS_VERSION,
+      "Upload-Length": String(file.size),
+      "Upload-Metadata": encodeMetadata({ type: kind, filename: file.name }),
+    },
+    credentials: "include",
+  });
+  const location = res.headers.get("Location");
+  if (!res.ok || !location) {
+    throw new Error(`${res.status}: failed to create upload`);
+  }
+  return location;
+}
+
+// Returns the committed offset, or null when the server no longer knows the upload
+async function currentOffset(url: string): Promise<number | null> {
+  const res = await fetch(url, {
+    method: "HEAD",
+    headers: { "Tus-Resumable": TUS_VERSION },
+    credentials: "include",
+  });
+  if (res.status === 404) return null;
+  if (!res.ok) throw new Error(`${res.status}: failed to query upload`);
+  return Number(res.headers.get("Upload-Offset"));
+}
+
+const delay = (ms: number) => new Promise((resolve) => setTimeout(resolve, ms));
+
+export async function uploadResumable(
+  kind: MediaKind,
+  file: File,
+  onProgress?: (fraction: number) => void,
+): Promise<UploadResult> {
+  const key = storageKey(kind, file);
+  let url = localStorage.getItem(key);
+  let offset = url ? await currentOffset(url) : null;
+  if (url === null || offset === null) {
+    url = await createUpload(kind, file);
+    localStorage.setItem(key, url);
+    offset = 0;
+  }
+
+  let failures = 0;
+  while (true) {
+    const chunk = file.slice(offset, Math.min(offset + CHUNK_SIZE, file.size));
+    try {
+      const res = await fetch(url, {
+        method: "PATCH",
+        headers: {
+          "Tus-Resumable": TUS_VERSION,
+          "Content-Type": "application/offset+octet-stream",
+          "Upload-Offset": String(offset),
+          "Upload-Checksum": await checksum(chunk),
+        },
+        body: chunk,
+        credentials: "include",
+      });
+      if (res.status === 200) {
+        localStorage.removeItem(key);
+        onProgress?.(1);
+        return (await res.json()) as UploadResult;
+      }
+      if (res.status === 204) {
+        offset = Number(res.headers.get("Upload-Offset"));
+        failures = 0;
+        onProgress?.(offset / file.size);
+        continue;
+      }
+      if (res.status === 404 || res.status === 400) {
+        localStorage.removeItem(key);
+        throw new Error(`${res.status}: ${await res.text()}`);
+      }
+      // 409 (offset moved), 460 (checksum mismatch) and 5xx: resync and retry
+      throw new RetryableError(`${res.status}`);
+    } catch (error) {
+      if (!(error instanceof RetryableError) && !(error instanceof TypeError)) throw error;
+      if (++failures > MAX_RETRIES) throw error;
+      await delay(500 * 2 ** failures);
+      const committed = await currentOffset(url);
+      if (committed === null) {
+        localStorage.removeItem(key);
+        throw new Error("Upload expired on the server");
+      }
+      offset = committed;
+    }
+  }
+}
+
+class RetryableError extends Error {}
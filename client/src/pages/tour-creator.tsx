@@ -6,8 +6,10 @@ import PointsPanel from "@/components/PointsPanel";
 import PointModal from "@/components/PointModal";
 import { useMap } from "@/hooks/useMap";
 import { useToast } from "@/hooks/use-toast";
+import { useTourEvents } from "@/hooks/useTourEvents";
 import { useQuery, useMutation } from "@tanstack/react-query";
 import { apiRequest, queryClient } from "@/lib/queryClient";
+import { patchPoint } from "@/lib/pointPatch";
 import { PointOfInterest, Coordinate } from "@shared/schema";
 import { Skeleton } from "@/components/ui/skeleton";
 
@@ -52,6 +54,9 @@ export default function TourCreator() {
     }
   });
   
+  // Live updates from other editors
+  useTourEvents(tourId);
+  
   // Finalize tour mutation
   const finalizeTourMutation = useMutation({
     mutationFn: async () => {
@@ -110,6 +115,25 @@ export default function TourCreator() {
     setSelectedPointId(pointId === selectedPointId ? undefined : pointId);
   };
   
+  const handleMarkerDrag = async (pointId: number, coordinates: Coordinate) => {
+    const latitude = coordinates.lat.toFixed(6);
+    const longitude = coordinates.lng.toFixed(6);
+    // Show the new position right away; the tour-changed event refetches once the write lands
+    queryClient.setQueryData<PointOfInterest[]>(['/api/tours', tourId, 'points'], (current) =>
+      current?.map((point) => point.id === pointId ? { ...point, latitude, longitude } : point)
+    );
+    try {
+      await patchPoint(pointId, { latitude, longitude });
+    } catch (error) {
+      queryClient.invalidateQueries({ queryKey: ['/api/tours', tourId, 'points'] });
+      toast({
+        title: 'Error',
+        description: `Failed to move point: ${(error as Error).message}`,
+        variant: 'destructive',
+      });
+    }
+  };
+  
   const handlePointSave = () => {
     // No additional logic needed, queries are invalidated in the modal
   };
@@ -174,6 +198,7 @@ export default function TourCreator() {
             points={points}
             onMapClick={handleMapClick}
             onMarkerClick={handlePointSelect}
+            onMarkerDrag={handleMarkerDrag}
             selectedPointId={selectedPointId}
           />
         </div>
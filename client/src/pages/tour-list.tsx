@@ -1,7 +1,7 @@
 import { useState } from "react";
 import { useLocation } from "wouter";
 import { useQuery } from "@tanstack/react-query";
-import { Tour } from "@shared/schema";
+import { TourSummary } from "@shared/schema";
 import { Card, CardContent, CardDescription, CardFooter, CardHeader, CardTitle } from "@/components/ui/card";
 import { Button } from "@/components/ui/button";
 import { MapPin, Edit, Map, Eye } from "lucide-react";
@@ -10,13 +10,15 @@ import { Skeleton } from "@/components/ui/skeleton";
 export default function TourList() {
   const [, setLocation] = useLocation();
   
-  // Query to fetch all tours
+  // Query to fetch all tours with stop counts and cover photos in one request
   const { 
     data: tours = [], 
     isLoading, 
     error 
-  } = useQuery<Tour[]>({
-    queryKey: ['/api/tours'],
+  } = useQuery<TourSummary[]>({
+    queryKey: ['/api/tours/summaries'],
+    // Counts and covers change with points edited elsewhere; refetch whenever the list is shown
+    staleTime: 0,
   });
 
   const handleCreateTour = () => {
@@ -91,6 +93,14 @@ export default function TourList() {
           <div className="grid grid-cols-1 md:grid-cols-2 lg:grid-cols-3 gap-6">
             {tours.map((tour) => (
               <Card key={tour.id} className="overflow-hidden hover:shadow-md transition-shadow">
+                {tour.coverPhoto && (
+                  <img
+                    src={`/api/media/photos/${tour.coverPhoto}`}
+                    alt={tour.name}
+                    loading="lazy"
+                    className="w-full h-40 object-cover"
+                  />
+                )}
                 <CardHeader className="pb-2">
                   <div className="flex justify-between items-start">
                     <CardTitle className="text-xl">{tour.name}</CardTitle>
@@ -98,6 +108,9 @@ export default function TourList() {
                   <CardDescription className="flex items-center text-sm">
                     <MapPin className="h-4 w-4 mr-1 text-gray-500" />
                     {tour.location}
+                    <span className="ml-auto text-gray-500">
+                      {tour.pointCount} {tour.pointCount === 1 ? "stop" : "stops"}
+                    </span>
                   </CardDescription>
                 </CardHeader>
                 <CardContent>
@@ -1,7 +1,7 @@
 import { useState, useEffect } from "react";
 import { useRoute, useLocation } from "wouter";
 import { useQuery } from "@tanstack/react-query";
-import { PointOfInterest, Tour } from "@shared/schema";
+import { PointOfInterest, Tour, TourRoute } from "@shared/schema";
 import { Card, CardContent, CardHeader, CardTitle } from "@/components/ui/card";
 import { Button } from "@/components/ui/button";
 import { Skeleton } from "@/components/ui/skeleton";
@@ -10,6 +10,7 @@ import MapView from "@/components/MapView";
 import PointModal from "@/components/PointModal";
 import PointCard from "@/components/PointCard";
 import { useToast } from "@/hooks/use-toast";
+import { useTourEvents } from "@/hooks/useTourEvents";
 import { apiRequest, queryClient } from "@/lib/queryClient";
 
 export default function TourView() {
@@ -56,6 +57,20 @@ export default function TourView() {
     }
   });
   
+  // Walking route between points; the map falls back to straight lines until it arrives
+  const { data: route } = useQuery<TourRoute>({
+    queryKey: [`/api/tours/${tourId}/route`],
+    enabled: !!tourId && points.length >= 2,
+    queryFn: async () => {
+      const response = await fetch(`/api/tours/${tourId}/route`, { credentials: 'include' });
+      if (!response.ok) throw new Error('Failed to fetch route');
+      return response.json();
+    }
+  });
+  
+  // Live updates from other editors
+  useTourEvents(tourId);
+  
   const handleGoBack = () => {
     setLocation("/tours");
   };
@@ -92,6 +107,7 @@ export default function TourView() {
         
         // Инвалидация кэша запросов точек
         queryClient.invalidateQueries({ queryKey: [`/api/tours/${tourId}/points`] });
+        queryClient.invalidateQueries({ queryKey: [`/api/tours/${tourId}/route`] });
         
         toast({
           title: "Точка удалена",
@@ -208,10 +224,11 @@ export default function TourView() {
               <CardContent>
                 <div className="space-y-3">
                   {points.length > 0 ? (
-                    points.map((point) => (
+                    points.map((point, index) => (
                       <PointCard
                         key={point.id}
                         point={point}
+                        position={index + 1}
                         isSelected={point.id === selectedPointId}
                         onEdit={() => handleEditPoint(point)}
                         onDelete={() => handleDeletePoint(point.id)}
@@ -235,6 +252,7 @@ export default function TourView() {
               onMarkerClick={handlePointSelect}
               selectedPointId={selectedPointId}
               readOnly
+              route={route?.legs}
             />
           </div>
         </div>
@@ -0,0 +1,44 @@
+#!/usr/bin/env bash
+# Распаковывает собранный jar в target/cds и создает архив CDS тренировочным запуском.
+#
+#   mvn -Pproduction package -DskipTests
+#   DATABASE_URL=... scripts/build-cds.sh
+#
+# CDS работает только с jar-файлами в classpath, а не с вложенными jar Spring Boot,
+# поэтому классы приложения упаковываются в отдельный application.jar с Class-Path
+# на lib/. Тренировочный запуск поднимает контекст и завершается после refresh
+# (spring.context.exit=onRefresh), так что база должна быть доступна.
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+
+PROFILES="${SPRING_PROFILES_ACTIVE:-prod}"
+JAR="$(ls target/travel-companion-*.jar | grep -v '\.original$' | head -n 1)"
+OUT="target/cds"
+
+rm -rf "$OUT"
+mkdir -p "$OUT/lib" "$OUT/exploded"
+unzip -q "$JAR" -d "$OUT/exploded"
+cp "$OUT"/exploded/BOOT-INF/lib/*.jar "$OUT/lib/"
+
+# Class-Path в манифесте: строки продолжения начинаются с пробела, второй пробел — разделитель
+{
+  echo "Main-Class: com.travelcompanion.TravelCompanionApplication"
+  printf "Class-Path:"
+  for lib in $(cd "$OUT" && ls lib/*.jar | sort); do
+    printf "\n  %s" "$lib"
+  done
+  printf "\n"
+} > "$OUT/MANIFEST.MF"
+jar --create --file "$OUT/application.jar" --manifest "$OUT/MANIFEST.MF" -C "$OUT/exploded/BOOT-INF/classes" .
+rm -rf "$OUT/exploded" "$OUT/MANIFEST.MF"
+
+echo "Тренировочный запуск для архива CDS (профили: $PROFILES)"
+(cd "$OUT" && java -XX:ArchiveClassesAtExit=application.jsa \
+  -Dspring.context.exit=onRefresh \
+  -Dspring.aot.enabled=true \
+  -jar application.jar --spring.profiles.active="$PROFILES")
+
+echo
+echo "Готово. Запуск:"
+echo "  cd $OUT && java -XX:SharedArchiveFile=application.jsa -Dspring.aot.enabled=true -jar application.jar --spring.profiles.active=$PROFILES"
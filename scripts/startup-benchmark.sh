@@ -0,0 +1,67 @@
+#!/usr/bin/env bash
+# Время от запуска процесса до первого успешного GET /api/tours.
+#
+#   scripts/startup-benchmark.sh [jar|aot|cds|native]...
+#
+# Переменные: RUNS (по умолчанию 5), PORT (5000), SPRING_PROFILES_ACTIVE (prod).
+# jar    — обычный запуск собранного jar
+# aot    — тот же jar с -Dspring.aot.enabled=true (сборка mvn -Pproduction package)
+# cds    — AOT + архив CDS из scripts/build-cds.sh
+# native — target/travel-companion (mvn -Pnative,production native:compile)
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+
+RUNS="${RUNS:-5}"
+PORT="${PORT:-5000}"
+PROFILES="${SPRING_PROFILES_ACTIVE:-prod}"
+MODES=("$@")
+if [ ${#MODES[@]} -eq 0 ]; then
+  MODES=(jar aot cds)
+fi
+JAR="$(ls target/travel-companion-*.jar | head -n 1)"
+ARGS=(--server.port="$PORT" --spring.profiles.active="$PROFILES")
+
+now_ms() {
+  date +%s%3N
+}
+
+# exec, чтобы $! указывал на сам процесс приложения
+start() {
+  case "$1" in
+    jar)    exec java -jar "$JAR" "${ARGS[@]}" ;;
+    aot)    exec java -Dspring.aot.enabled=true -jar "$JAR" "${ARGS[@]}" ;;
+    cds)    cd target/cds && exec java -XX:SharedArchiveFile=application.jsa -Dspring.aot.enabled=true \
+              -jar application.jar "${ARGS[@]}" ;;
+    native) exec target/travel-companion "${ARGS[@]}" ;;
+    *)      echo "Неизвестный режим: $1" >&2; exit 1 ;;
+  esac
+}
+
+measure() {
+  local mode="$1" begin pid elapsed
+  begin="$(now_ms)"
+  start "$mode" > "target/startup-$mode.log" 2>&1 &
+  pid=$!
+  until curl -sf -o /dev/null "http://localhost:$PORT/api/tours"; do
+    if ! kill -0 "$pid" 2>/dev/null; then
+      echo "Процесс завершился, см. target/startup-$mode.log" >&2
+      exit 1
+    fi
+    sleep 0.02
+  done
+  elapsed=$(( $(now_ms) - begin ))
+  kill "$pid"
+  wait "$pid" 2>/dev/null || true
+  echo "$elapsed"
+}
+
+for mode in "${MODES[@]}"; do
+  samples=()
+  for ((i = 0; i < RUNS; i++)); do
+    samples+=("$(measure "$mode")")
+  done
+  sorted=($(printf '%s\n' "${samples[@]}" | sort -n))
+  printf '%-7s min=%6d ms  median=%6d ms  max=%6d ms\n' \
+    "$mode" "${sorted[0]}" "${sorted[$((RUNS / 2))]}" "${sorted[$((RUNS - 1))]}"
+done
@@ -112,6 +112,9 @@ export class MemStorage implements IStorage {
       id,
       description: insertPoint.description || null,
       photoFilename: insertPoint.photoFilename || null,
+      photoWidth: null,
+      photoHeight: null,
+      photoPlaceholder: null,
       audioFilename: insertPoint.audioFilename || null,
       videoFilename: insertPoint.videoFilename || null,
       order: insertPoint.order || null
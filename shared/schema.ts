@@ -39,6 +39,10 @@ export const pointsOfInterest = pgTable("points_of_interest", {
   latitude: text("latitude").notNull(),
   longitude: text("longitude").notNull(),
   photoFilename: text("photo_filename"),
+  // Filled in by the server from the uploaded photo
+  photoWidth: integer("photo_width"),
+  photoHeight: integer("photo_height"),
+  photoPlaceholder: text("photo_placeholder"),
   audioFilename: text("audio_filename"),
   videoFilename: text("video_filename"),
   order: integer("order"),
@@ -73,3 +77,32 @@ export type PointOfInterest = typeof pointsOfInterest.$inferSelect;
 export type InsertPointOfInterest = z.infer<typeof insertPointOfInterestSchema>;
 
 export type Coordinate = z.infer<typeof coordinateSchema>;
+
+// Walking route between consecutive tour points (GET /api/tours/:id/route).
+// path is a list of [lat, lng]; routed is false when the leg is a straight line.
+export interface RouteLeg {
+  fromPointId: number;
+  toPointId: number;
+  routed: boolean;
+  distance: number;
+  duration: number;
+  path: Array<[number, number]>;
+}
+
+export interface TourRoute {
+  tourId: number;
+  distance: number;
+  duration: number;
+  legs: RouteLeg[];
+}
+
+// Tour list entry (GET /api/tours/summaries, GET /api/users/:id/tours)
+export interface TourSummary {
+  id: number;
+  name: string;
+  location: string;
+  description: string | null;
+  createdById: number | null;
+  pointCount: number;
+  coverPhoto: string | null;
+}
@@ -0,0 +1,224 @@
+package com.travelcompanion.benchmark;
+
+import com.travelcompanion.model.Media;
+import com.travelcompanion.service.FileStorageService;
+import com.travelcompanion.service.PointOrderService;
+import com.travelcompanion.storage.MediaStore;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.GradientPaint;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Генератор синтетических данных в масштабе продакшена.
+ *
+ * Пользователи, туры и точки вставляются пакетами через JDBC, минуя JPA и
+ * события. Туры распределены по городам неравномерно (первые города крупнее),
+ * точки тура лежат в радиусе нескольких километров от его центра. Медиа
+ * ссылаются на несколько общих файлов-заглушек, которые кладутся в хранилище
+ * вместе с метаданными, так что отдаются как обычные загруженные файлы.
+ * Нужен только для заполнения базы и замеров запросов.
+ */
+@Slf4j
+@Component
+@Profile({"seed", "benchmark"})
+@RequiredArgsConstructor
+public class DatasetGenerator {
+
+    public static final String PHOTO_PLACEHOLDER = "seed-placeholder.jpg";
+    public static final String AUDIO_PLACEHOLDER = "seed-placeholder.mp3";
+    public static final String VIDEO_PLACEHOLDER = "seed-placeholder.mp4";
+
+    private static final int BATCH_SIZE = 10_000;
+
+    private static final City[] CITIES = {
+            new City("Москва", 55.7539, 37.6208),
+            new City("Санкт-Петербург", 59.9398, 30.3146),
+            new City("Казань", 55.7963, 49.1088),
+            new City("Нижний Новгород", 56.3269, 44.0059),
+            new City("Екатеринбург", 56.8389, 60.6057),
+            new City("Новосибирск", 55.0302, 82.9204),
+            new City("Калининград", 54.7104, 20.4522),
+            new City("Сочи", 43.5855, 39.7231),
+            new City("Ярославль", 57.6261, 39.8845),
+            new City("Владивосток", 43.1155, 131.8855)
+    };
+
+    private final JdbcTemplate jdbcTemplate;
+    private final PasswordEncoder passwordEncoder;
+    private final MediaStore mediaStore;
+    private final FileStorageService fileStorageService;
+
+    public boolean isEmpty() {
+        Long count = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM tours", Long.class);
+        return count == null || count == 0;
+    }
+
+    /**
+     * Заполняет базу. При одном и том же {@code seed} данные повторяются.
+     */
+    public void generate(int users, int tours, int pointsPerTour, long seed) {
+        long started = System.nanoTime();
+        Random random = new Random(seed);
+        String runId = Long.toString(System.currentTimeMillis(), 36);
+        Media photo = storePlaceholders();
+
+        String password = passwordEncoder.encode("password");
+        List<Object[]> userRows = new ArrayList<>();
+        for (int i = 0; i < users; i++) {
+            userRows.add(new Object[]{"seed-" + runId + "-" + i, password});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO users (username, password) VALUES (?, ?)", userRows);
+        List<Long> userIds = jdbcTemplate.queryForList(
+                "SELECT id FROM users WHERE username LIKE ? ORDER BY id", Long.class, "seed-" + runId + "-%");
+
+        List<Object[]> tourRows = new ArrayList<>();
+        List<double[]> centers = new ArrayList<>();
+        for (int i = 0; i < tours; i++) {
+            City city = CITIES[skewedIndex(random, CITIES.length)];
+            centers.add(new double[]{
+                    jitter(random, city.latitude, 5_000),
+                    jitter(random, city.longitude, 5_000 / Math.cos(Math.toRadians(city.latitude)))});
+            tourRows.add(new Object[]{
+                    "Тур " + runId + "-" + i,
+                    city.name,
+                    "Сгенерированный тур по городу " + city.name,
+                    userIds.get(skewedIndex(random, userIds.size()))});
+            if (tourRows.size() >= BATCH_SIZE) {
+                insertTours(tourRows);
+            }
+        }
+        insertTours(tourRows);
+        List<Long> tourIds = jdbcTemplate.queryForList(
+                "SELECT id FROM tours WHERE name LIKE ? ORDER BY id", Long.class, "Тур " + runId + "-%");
+
+        List<Object[]> pointRows = new ArrayList<>();
+        for (int t = 0; t < tourIds.size(); t++) {
+            double[] center = centers.get(t);
+            double lonScale = 1 / Math.cos(Math.toRadians(center[0]));
+            for (int order = 1; order <= pointsPerTour; order++) {
+                boolean hasPhoto = random.nextDouble() < 0.7;
+                pointRows.add(new Object[]{
+                        tourIds.get(t),
+                        "Точка " + order,
+                        "Описание точки " + order,
+                        coordinate(jitter(random, center[0], 1_500)),
+                        coordinate(jitter(random, center[1], 1_500 * lonScale)),
+                        hasPhoto ? PHOTO_PLACEHOLDER : null,
+                        // Размеры и превью копируются в точку так же, как при обычном сохранении
+                        hasPhoto ? photo.getWidth() : null,
+                        hasPhoto ? photo.getHeight() : null,
+                        hasPhoto ? photo.getPlaceholder() : null,
+                        random.nextDouble() < 0.3 ? AUDIO_PLACEHOLDER : null,
+                        random.nextDouble() < 0.05 ? VIDEO_PLACEHOLDER : null,
+                        // Те же ключи с промежутками, что выдает PointOrderService
+                        order * PointOrderService.GAP});
+                if (pointRows.size() >= BATCH_SIZE) {
+                    insertPoints(pointRows);
+                }
+            }
+        }
+        insertPoints(pointRows);
+
+        log.info("Сгенерировано {} пользователей, {} туров, {} точек за {} мс",
+                users, tours, (long) tours * pointsPerTour, (System.nanoTime() - started) / 1_000_000);
+    }
+
+    private void insertTours(List<Object[]> rows) {
+        jdbcTemplate.batchUpdate(
+                "INSERT INTO tours (name, location, description, created_by_id) VALUES (?, ?, ?, ?)", rows);
+        rows.clear();
+    }
+
+    private void insertPoints(List<Object[]> rows) {
+        jdbcTemplate.batchUpdate(
+                "INSERT INTO points_of_interest (tour_id, name, description, latitude, longitude, "
+                        + "photo_filename, photo_width, photo_height, photo_placeholder, "
+                        + "audio_filename, video_filename, display_order) "
+                        + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)",
+                rows);
+        rows.clear();
+    }
+
+    /**
+     * Кладет заглушки в хранилище и записывает их метаданные. Возвращает метаданные фото.
+     */
+    private Media storePlaceholders() {
+        try {
+            Media photo = put("photo", PHOTO_PLACEHOLDER, placeholderImage(), "image/jpeg");
+            put("audio", AUDIO_PLACEHOLDER, new byte[64 * 1024], "audio/mpeg");
+            put("video", VIDEO_PLACEHOLDER, new byte[256 * 1024], "video/mp4");
+            return photo;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Не удалось сохранить медиа-заглушки", e);
+        }
+    }
+
+    private Media put(String type, String filename, byte[] content, String contentType) throws IOException {
+        String key = fileStorageService.key(type, filename);
+        if (!mediaStore.exists(key)) {
+            mediaStore.put(key, new ByteArrayInputStream(content), content.length, contentType);
+        }
+        // Строку в media заполняет разбор уже лежащего в хранилище файла
+        return fileStorageService.getMetadata(type, filename)
+                .orElseThrow(() -> new IllegalStateException("Нет метаданных заглушки " + key));
+    }
+
+    private byte[] placeholderImage() throws IOException {
+        BufferedImage image = new BufferedImage(640, 480, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = image.createGraphics();
+        graphics.setPaint(new GradientPaint(0, 0, new Color(0x3b82f6), 640, 480, new Color(0x10b981)));
+        graphics.fillRect(0, 0, 640, 480);
+        graphics.dispose();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "jpg", out);
+        return out.toByteArray();
+    }
+
+    /**
+     * Индекс с убывающей вероятностью: первые элементы выбираются чаще
+     */
+    private static int skewedIndex(Random random, int size) {
+        double u = random.nextDouble();
+        return Math.min(size - 1, (int) (size * u * u));
+    }
+
+    /**
+     * Смещение градуса широты на нормально распределенное расстояние в метрах
+     */
+    private static double jitter(Random random, double degrees, double sigmaMeters) {
+        return degrees + random.nextGaussian() * sigmaMeters / 111_320.0;
+    }
+
+    private static String coordinate(double value) {
+        return String.format(Locale.ROOT, "%.6f", value);
+    }
+
+    private static class City {
+        private final String name;
+        private final double latitude;
+        private final double longitude;
+
+        City(String name, double latitude, double longitude) {
+            this.name = name;
+            this.latitude = latitude;
+            this.longitude = longitude;
+        }
+    }
+}
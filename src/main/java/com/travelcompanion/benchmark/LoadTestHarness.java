@@ -0,0 +1,267 @@
+package com.travelcompanion.benchmark;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Нагрузочный тест работающего приложения смесью типичных запросов:
+ * список туров, просмотр тура с точками, правка точки и загрузка фото.
+ *
+ * Запуск после {@code mvn package} и старта приложения (например, с профилем seed):
+ * <pre>
+ * java -cp target/classes com.travelcompanion.benchmark.LoadTestHarness \
+ *     --url=http://localhost:5000 --threads=32 --duration=60 --warmup=10
+ * </pre>
+ * Веса операций задаются параметрами {@code --list}, {@code --view},
+ * {@code --edit}, {@code --media}. Зависимостей, кроме JDK, нет.
+ */
+public class LoadTestHarness {
+
+    private static final Pattern ID = Pattern.compile("\"id\"\\s*:\\s*(\\d+)");
+    private static final Pattern PHOTO = Pattern.compile("\"photoFilename\"\\s*:\\s*\"([^\"]+)\"");
+
+    private final String baseUrl;
+    private final HttpClient httpClient;
+    private final List<Long> tourIds = new ArrayList<>();
+    private final List<Long> pointIds = new ArrayList<>();
+    private final List<String> photos = new ArrayList<>();
+
+    private LoadTestHarness(String baseUrl, int threads) {
+        this.baseUrl = baseUrl;
+        this.httpClient = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(5))
+                .executor(Executors.newFixedThreadPool(Math.max(2, threads / 4)))
+                .build();
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parse(args);
+        int threads = Integer.parseInt(options.getOrDefault("threads", "32"));
+        long durationMillis = Long.parseLong(options.getOrDefault("duration", "60")) * 1000;
+        long warmupMillis = Long.parseLong(options.getOrDefault("warmup", "10")) * 1000;
+        Map<Operation, Integer> weights = new LinkedHashMap<>();
+        weights.put(Operation.TOUR_LIST, Integer.parseInt(options.getOrDefault("list", "20")));
+        weights.put(Operation.TOUR_VIEW, Integer.parseInt(options.getOrDefault("view", "50")));
+        weights.put(Operation.POINT_EDIT, Integer.parseInt(options.getOrDefault("edit", "5")));
+        weights.put(Operation.MEDIA_FETCH, Integer.parseInt(options.getOrDefault("media", "25")));
+
+        LoadTestHarness harness = new LoadTestHarness(options.getOrDefault("url", "http://localhost:5000"), threads);
+        harness.discover(Integer.parseInt(options.getOrDefault("sample-tours", "200")));
+        harness.run(threads, weights, warmupMillis, durationMillis);
+        System.exit(0);
+    }
+
+    /**
+     * Собирает идентификаторы туров, точек и имена фото для генерации запросов
+     */
+    private void discover(int sampleTours) throws Exception {
+        String tours = get("/api/tours").body();
+        Matcher tourMatcher = ID.matcher(tours);
+        while (tourMatcher.find()) {
+            tourIds.add(Long.parseLong(tourMatcher.group(1)));
+        }
+        if (tourIds.isEmpty()) {
+            throw new IllegalStateException("В приложении нет туров — запустите его с профилем seed");
+        }
+        for (int i = 0; i < Math.min(sampleTours, tourIds.size()); i++) {
+            Long tourId = tourIds.get(ThreadLocalRandom.current().nextInt(tourIds.size()));
+            String points = get("/api/tours/" + tourId + "/points").body();
+            Matcher pointMatcher = ID.matcher(points);
+            while (pointMatcher.find()) {
+                pointIds.add(Long.parseLong(pointMatcher.group(1)));
+            }
+            Matcher photoMatcher = PHOTO.matcher(points);
+            while (photoMatcher.find()) {
+                photos.add(photoMatcher.group(1));
+            }
+        }
+        System.out.printf(Locale.ROOT, "Найдено туров: %d, точек в выборке: %d, фото: %d%n",
+                tourIds.size(), pointIds.size(), photos.size());
+    }
+
+    private void run(int threads, Map<Operation, Integer> weights, long warmupMillis, long durationMillis)
+            throws Exception {
+        Operation[] wheel = weights.entrySet().stream()
+                .flatMap(e -> Collections.nCopies(e.getValue(), e.getKey()).stream())
+                .toArray(Operation[]::new);
+        long measureFrom = System.currentTimeMillis() + warmupMillis;
+        long deadline = measureFrom + durationMillis;
+
+        ExecutorService workers = Executors.newFixedThreadPool(threads);
+        List<Future<Map<Operation, Recorder>>> results = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            results.add(workers.submit(() -> {
+                Map<Operation, Recorder> recorders = new HashMap<>();
+                while (System.currentTimeMillis() < deadline) {
+                    Operation operation = wheel[ThreadLocalRandom.current().nextInt(wheel.length)];
+                    long start = System.nanoTime();
+                    boolean ok = execute(operation);
+                    long micros = (System.nanoTime() - start) / 1_000;
+                    if (System.currentTimeMillis() >= measureFrom) {
+                        recorders.computeIfAbsent(operation, o -> new Recorder()).record(micros, ok);
+                    }
+                }
+                return recorders;
+            }));
+        }
+
+        Map<Operation, Recorder> total = new LinkedHashMap<>();
+        for (Future<Map<Operation, Recorder>> result : results) {
+            result.get().forEach((operation, recorder) ->
+                    total.computeIfAbsent(operation, o -> new Recorder()).merge(recorder));
+        }
+        workers.shutdown();
+        report(total, durationMillis);
+    }
+
+    private boolean execute(Operation operation) {
+        try {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            switch (operation) {
+                case TOUR_LIST:
+                    return get("/api/tours").statusCode() == 200;
+                case TOUR_VIEW: {
+                    Long tourId = tourIds.get(random.nextInt(tourIds.size()));
+                    return get("/api/tours/" + tourId).statusCode() == 200
+                            && get("/api/tours/" + tourId + "/points").statusCode() == 200;
+                }
+                case POINT_EDIT: {
+                    if (pointIds.isEmpty()) {
+                        return false;
+                    }
+                    Long pointId = pointIds.get(random.nextInt(pointIds.size()));
+                    HttpResponse<String> point = get("/api/points/" + pointId);
+                    if (point.statusCode() != 200) {
+                        return false;
+                    }
+                    // Сохраняем точку без изменений: нагрузка та же, данные не портятся
+                    HttpRequest put = HttpRequest.newBuilder(URI.create(baseUrl + "/api/points/" + pointId))
+                            .timeout(Duration.ofSeconds(30))
+                            .header("Content-Type", "application/json")
+                            .PUT(HttpRequest.BodyPublishers.ofString(point.body()))
+                            .build();
+                    return httpClient.send(put, HttpResponse.BodyHandlers.discarding()).statusCode() == 200;
+                }
+                case MEDIA_FETCH: {
+                    if (photos.isEmpty()) {
+                        return false;
+                    }
+                    HttpRequest request = HttpRequest.newBuilder(
+                                    URI.create(baseUrl + "/api/media/photos/" + photos.get(random.nextInt(photos.size()))))
+                            .timeout(Duration.ofSeconds(30))
+                            .GET()
+                            .build();
+                    return httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() == 200;
+                }
+                default:
+                    return false;
+            }
+        } catch (Exception e) {
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            return false;
+        }
+    }
+
+    private HttpResponse<String> get(String path) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .timeout(Duration.ofSeconds(30))
+                .header("Accept", "application/json")
+                .GET()
+                .build();
+        return httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    private static void report(Map<Operation, Recorder> total, long durationMillis) {
+        double seconds = durationMillis / 1000.0;
+        long requests = 0;
+        System.out.println();
+        System.out.println("=== Результаты, задержка в мс ===");
+        System.out.printf(Locale.ROOT, "%-12s %9s %9s %8s %8s %8s %8s %7s%n",
+                "операция", "запросов", "в сек", "p50", "p95", "p99", "max", "ошибок");
+        for (Map.Entry<Operation, Recorder> entry : total.entrySet()) {
+            Recorder recorder = entry.getValue();
+            long[] samples = recorder.sorted();
+            requests += samples.length;
+            System.out.printf(Locale.ROOT, "%-12s %9d %9.1f %8.1f %8.1f %8.1f %8.1f %7d%n",
+                    entry.getKey().name().toLowerCase(Locale.ROOT), samples.length, samples.length / seconds,
+                    percentile(samples, 50), percentile(samples, 95), percentile(samples, 99),
+                    samples.length > 0 ? samples[samples.length - 1] / 1000.0 : 0, recorder.errors);
+        }
+        System.out.printf(Locale.ROOT, "Всего: %d операций, %.1f в секунду%n", requests, requests / seconds);
+    }
+
+    private static double percentile(long[] sorted, int percentile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(percentile / 100.0 * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))] / 1000.0;
+    }
+
+    private static Map<String, String> parse(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Ожидается --имя=значение: " + arg);
+            }
+            int separator = arg.indexOf('=');
+            options.put(arg.substring(2, separator), arg.substring(separator + 1));
+        }
+        return options;
+    }
+
+    private enum Operation {
+        TOUR_LIST, TOUR_VIEW, POINT_EDIT, MEDIA_FETCH
+    }
+
+    /**
+     * Задержки одного потока; объединяются после окончания теста
+     */
+    private static class Recorder {
+        private long[] samples = new long[1024];
+        private int size;
+        private long errors;
+
+        void record(long micros, boolean ok) {
+            if (!ok) {
+                errors++;
+            }
+            if (size == samples.length) {
+                samples = Arrays.copyOf(samples, size * 2);
+            }
+            samples[size++] = micros;
+        }
+
+        void merge(Recorder other) {
+            for (int i = 0; i < other.size; i++) {
+                record(other.samples[i], true);
+            }
+            errors += other.errors;
+        }
+
+        long[] sorted() {
+            long[] result = Arrays.copyOf(samples, size);
+            Arrays.sort(result);
+            return result;
+        }
+    }
+}
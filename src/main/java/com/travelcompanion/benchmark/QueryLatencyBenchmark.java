@@ -0,0 +1,172 @@
+package com.travelcompanion.benchmark;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Замер задержки основных запросов к PostgreSQL с индексами из миграций и без них.
+ *
+ * Запуск только на копии базы: имя базы нужно явно указать в
+ * {@code app.benchmark.database}, иначе замер не начнется. Если база пустая,
+ * сначала заполняется тестовыми данными. Фаза "без индексов" не трогает схему:
+ * в транзакции только для чтения планировщику запрещаются индексные сканы
+ * ({@code SET LOCAL enable_indexscan = off} и т.д.), блокировки таблиц не берутся.
+ */
+@Slf4j
+@Component
+@Profile("benchmark")
+@RequiredArgsConstructor
+public class QueryLatencyBenchmark implements CommandLineRunner {
+
+    private static final String[] NO_INDEX_SETTINGS = {
+            "SET LOCAL enable_indexscan = off",
+            "SET LOCAL enable_indexonlyscan = off",
+            "SET LOCAL enable_bitmapscan = off"
+    };
+
+    private static final String POINTS_BY_TOUR =
+            "SELECT id, name, latitude, longitude, display_order FROM points_of_interest WHERE tour_id = ? ORDER BY display_order";
+    private static final String TOURS_BY_USER =
+            "SELECT id, name, location FROM tours WHERE created_by_id = ?";
+    private static final String TOURS_BY_LOCATION =
+            "SELECT id, name FROM tours WHERE location = ?";
+
+    private final DataSource dataSource;
+    private final DatasetGenerator datasetGenerator;
+    private final JdbcTemplate jdbcTemplate;
+    private final ConfigurableApplicationContext context;
+
+    @Value("${app.benchmark.database:}")
+    private String database;
+
+    @Value("${app.benchmark.iterations:2000}")
+    private int iterations;
+
+    @Value("${app.benchmark.warmup:200}")
+    private int warmup;
+
+    @Value("${app.benchmark.users:200}")
+    private int users;
+
+    @Value("${app.benchmark.tours:5000}")
+    private int tours;
+
+    @Value("${app.benchmark.points-per-tour:30}")
+    private int pointsPerTour;
+
+    @Override
+    public void run(String... args) throws Exception {
+        String current = jdbcTemplate.queryForObject("SELECT current_database()", String.class);
+        if (database.isBlank() || !Objects.equals(database, current)) {
+            log.error("Замер запускается только на копии базы: задайте app.benchmark.database={} "
+                    + "для подключенной базы, если это действительно копия", current);
+            System.exit(SpringApplication.exit(context, () -> 1));
+            return;
+        }
+        seedIfEmpty();
+
+        long maxTourId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM tours", Long.class);
+        long maxUserId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM users", Long.class);
+        List<String> locations = jdbcTemplate.queryForList("SELECT DISTINCT location FROM tours", String.class);
+
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setReadOnly(true);
+            connection.setAutoCommit(false);
+
+            List<String> withIndexes = measureAll(connection, maxTourId, maxUserId, locations);
+            connection.commit();
+
+            // SET LOCAL действует до конца транзакции и не влияет на другие соединения
+            try (Statement statement = connection.createStatement()) {
+                for (String setting : NO_INDEX_SETTINGS) {
+                    statement.execute(setting);
+                }
+            }
+            List<String> withoutIndexes = measureAll(connection, maxTourId, maxUserId, locations);
+            connection.rollback();
+
+            log.info("Задержка запросов, мкс ({} итераций), с индексами:\n{}",
+                    iterations, String.join("\n", withIndexes));
+            log.info("Без индексов:\n{}", String.join("\n", withoutIndexes));
+        }
+
+        System.exit(SpringApplication.exit(context, () -> 0));
+    }
+
+    private List<String> measureAll(Connection connection, long maxTourId, long maxUserId,
+                                    List<String> locations) throws SQLException {
+        List<String> report = new ArrayList<>();
+        report.add(measure(connection, "points by tour  ", POINTS_BY_TOUR,
+                statement -> statement.setLong(1, randomId(maxTourId))));
+        report.add(measure(connection, "tours by user   ", TOURS_BY_USER,
+                statement -> statement.setLong(1, randomId(maxUserId))));
+        report.add(measure(connection, "tours by location", TOURS_BY_LOCATION,
+                statement -> statement.setString(1, locations.get(ThreadLocalRandom.current().nextInt(locations.size())))));
+        return report;
+    }
+
+    private String measure(Connection connection, String name, String sql, Binder binder) throws SQLException {
+        long[] samples = new long[iterations];
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            for (int i = 0; i < warmup + iterations; i++) {
+                binder.bind(statement);
+                long start = System.nanoTime();
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    while (resultSet.next()) {
+                        resultSet.getLong(1);
+                    }
+                }
+                if (i >= warmup) {
+                    samples[i - warmup] = (System.nanoTime() - start) / 1_000;
+                }
+            }
+        }
+        Arrays.sort(samples);
+        return String.format(Locale.ROOT, "%s  p50=%6d  p95=%6d  p99=%6d  max=%7d",
+                name, percentile(samples, 50), percentile(samples, 95), percentile(samples, 99),
+                samples[samples.length - 1]);
+    }
+
+    private long percentile(long[] sorted, int percentile) {
+        int index = (int) Math.ceil(percentile / 100.0 * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+    }
+
+    private long randomId(long max) {
+        return 1 + ThreadLocalRandom.current().nextLong(max);
+    }
+
+    private void seedIfEmpty() {
+        if (!datasetGenerator.isEmpty()) {
+            return;
+        }
+        log.info("Заполнение базы: {} пользователей, {} туров, {} точек на тур", users, tours, pointsPerTour);
+        datasetGenerator.generate(users, tours, pointsPerTour, 42);
+        jdbcTemplate.execute("ANALYZE");
+    }
+
+    @FunctionalInterface
+    private interface Binder {
+        void bind(PreparedStatement statement) throws SQLException;
+    }
+}
@@ -0,0 +1,48 @@
+package com.travelcompanion.benchmark;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+/**
+ * Заполняет базу синтетическими данными при старте с профилем {@code seed}.
+ *
+ * Приложение продолжает работать, так что по нему сразу можно запускать
+ * {@link LoadTestHarness}. Непустая база не трогается, если не задан
+ * {@code app.seed.append=true}.
+ */
+@Slf4j
+@Component
+@Profile("seed")
+@RequiredArgsConstructor
+public class SeedDataRunner implements CommandLineRunner {
+
+    private final DatasetGenerator datasetGenerator;
+
+    @Value("${app.seed.users:1000}")
+    private int users;
+
+    @Value("${app.seed.tours:20000}")
+    private int tours;
+
+    @Value("${app.seed.points-per-tour:25}")
+    private int pointsPerTour;
+
+    @Value("${app.seed.random-seed:42}")
+    private long randomSeed;
+
+    @Value("${app.seed.append:false}")
+    private boolean append;
+
+    @Override
+    public void run(String... args) {
+        if (!append && !datasetGenerator.isEmpty()) {
+            log.info("База уже содержит туры, генерация пропущена (app.seed.append=true для дозаписи)");
+            return;
+        }
+        datasetGenerator.generate(users, tours, pointsPerTour, randomSeed);
+    }
+}
@@ -0,0 +1,151 @@
+package com.travelcompanion.benchmark;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.travelcompanion.config.WireFormatConfig;
+import com.travelcompanion.dto.PointOfInterestDto;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Сравнение JSON, CBOR и Smile на ответе {@code GET /api/tours/{tourId}/points}:
+ * размер тела (в том числе после gzip) и время кодирования и разбора.
+ *
+ * Мапперы настраиваются так же, как в приложении ({@link WireFormatConfig}).
+ * Запуск после {@code mvn package}:
+ * <pre>
+ * java -cp target/classes:$(mvn -q dependency:build-classpath -Dmdep.outputFile=/dev/stdout) \
+ *     com.travelcompanion.benchmark.WireFormatBenchmark --points=50 --iterations=20000
+ * </pre>
+ */
+public class WireFormatBenchmark {
+
+    private static final TypeReference<List<PointOfInterestDto>> POINTS = new TypeReference<>() {
+    };
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parse(args);
+        int points = Integer.parseInt(options.getOrDefault("points", "50"));
+        int iterations = Integer.parseInt(options.getOrDefault("iterations", "20000"));
+        int warmup = Integer.parseInt(options.getOrDefault("warmup", "5000"));
+
+        Map<String, ObjectMapper> mappers = new LinkedHashMap<>();
+        mappers.put("json", Jackson2ObjectMapperBuilder.json().build());
+        mappers.put("cbor", WireFormatConfig.binaryMapper(Jackson2ObjectMapperBuilder.json(), new CBORFactory()));
+        mappers.put("smile", WireFormatConfig.binaryMapper(Jackson2ObjectMapperBuilder.json(), new SmileFactory()));
+
+        List<PointOfInterestDto> payload = generate(points);
+        System.out.printf(Locale.ROOT, "Точек в ответе: %d, итераций: %d (прогрев %d)%n%n", points, iterations, warmup);
+        System.out.printf(Locale.ROOT, "%-6s %9s %9s %12s %12s %12s %12s%n",
+                "формат", "байт", "gzip", "запись p50", "запись p99", "разбор p50", "разбор p99");
+        for (Map.Entry<String, ObjectMapper> entry : mappers.entrySet()) {
+            ObjectMapper mapper = entry.getValue();
+            byte[] encoded = mapper.writeValueAsBytes(payload);
+            verify(entry.getKey(), payload, mapper.readValue(encoded, POINTS));
+
+            for (int i = 0; i < warmup; i++) {
+                mapper.readValue(mapper.writeValueAsBytes(payload), POINTS);
+            }
+            long[] encodeNanos = new long[iterations];
+            long[] decodeNanos = new long[iterations];
+            for (int i = 0; i < iterations; i++) {
+                long start = System.nanoTime();
+                byte[] bytes = mapper.writeValueAsBytes(payload);
+                long encodedAt = System.nanoTime();
+                mapper.readValue(bytes, POINTS);
+                decodeNanos[i] = System.nanoTime() - encodedAt;
+                encodeNanos[i] = encodedAt - start;
+            }
+            Arrays.sort(encodeNanos);
+            Arrays.sort(decodeNanos);
+            System.out.printf(Locale.ROOT, "%-6s %9d %9d %10.1fмкс %10.1fмкс %10.1fмкс %10.1fмкс%n",
+                    entry.getKey(), encoded.length, gzip(encoded).length,
+                    percentile(encodeNanos, 0.50), percentile(encodeNanos, 0.99),
+                    percentile(decodeNanos, 0.50), percentile(decodeNanos, 0.99));
+        }
+    }
+
+    /**
+     * Точки, похожие на данные seed-профиля: координаты строками с 6 знаками,
+     * у части точек есть фото с превью и аудио
+     */
+    private static List<PointOfInterestDto> generate(int count) {
+        Random random = new Random(42);
+        List<PointOfInterestDto> points = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            PointOfInterestDto point = new PointOfInterestDto();
+            point.setId(100_000L + i);
+            point.setTourId(5_000L);
+            point.setName("Точка маршрута " + (i + 1));
+            point.setDescription("Описание достопримечательности номер " + (i + 1)
+                    + ", которое гид показывает рядом с картой.");
+            point.setLatitude(String.format(Locale.ROOT, "%.6f", 55.0 + random.nextDouble()));
+            point.setLongitude(String.format(Locale.ROOT, "%.6f", 37.0 + random.nextDouble()));
+            if (random.nextInt(3) > 0) {
+                point.setPhotoFilename(Long.toHexString(random.nextLong()) + ".jpg");
+                point.setPhotoWidth(4032);
+                point.setPhotoHeight(3024);
+                point.setPhotoPlaceholder("LEHV6nWB2yk8pyo0adR*.7kCMdnj");
+            }
+            if (random.nextBoolean()) {
+                point.setAudioFilename(Long.toHexString(random.nextLong()) + ".mp3");
+            }
+            point.setOrder(i);
+            point.setRevision((long) random.nextInt(20));
+            points.add(point);
+        }
+        return points;
+    }
+
+    private static void verify(String format, List<PointOfInterestDto> expected, List<PointOfInterestDto> actual) {
+        for (int i = 0; i < expected.size(); i++) {
+            PointOfInterestDto a = expected.get(i);
+            PointOfInterestDto b = actual.get(i);
+            // Координаты сравниваются как числа: при разборе CBOR/Smile хвостовые нули не сохраняются
+            boolean same = Double.parseDouble(a.getLatitude()) == Double.parseDouble(b.getLatitude())
+                    && Double.parseDouble(a.getLongitude()) == Double.parseDouble(b.getLongitude());
+            b.setLatitude(a.getLatitude());
+            b.setLongitude(a.getLongitude());
+            if (!same || !a.equals(b)) {
+                throw new IllegalStateException("Формат " + format + " искажает точку " + a.getId());
+            }
+        }
+    }
+
+    private static byte[] gzip(byte[] data) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(data);
+        }
+        return out.toByteArray();
+    }
+
+    private static double percentile(long[] sorted, double p) {
+        return sorted[Math.min(sorted.length - 1, (int) (sorted.length * p))] / 1_000.0;
+    }
+
+    private static Map<String, String> parse(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Ожидается --имя=значение: " + arg);
+            }
+            int separator = arg.indexOf('=');
+            options.put(arg.substring(2, separator), arg.substring(separator + 1));
+        }
+        return options;
+    }
+}
@@ -0,0 +1,31 @@
+package com.travelcompanion.cache;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Окно после инвалидации, в течение которого ключ нельзя снова положить в кэш.
+ *
+ * Без реплик достаточно {@code app.cache.fence-ms}: окно закрывает чтения,
+ * начатые до коммита. Чтение с реплики может вернуть состояние до правки, пока
+ * ее отставание не больше {@code app.datasource.replica.max-lag-ms} и очередная
+ * проверка (раз в {@code health-check-ms}) ее не исключила. Кэш общий для всех
+ * клиентов и не доходит до маршрутизации соединений, поэтому с репликами окно не
+ * короче суммы этих интервалов — иначе устаревшее чтение заполнит кэш на весь TTL.
+ */
+@Component
+public class CacheFence {
+
+    private final long millis;
+
+    public CacheFence(@Value("${app.cache.fence-ms:2000}") long fenceMillis,
+                      @Value("${app.datasource.replica.urls:}") String replicaUrls,
+                      @Value("${app.datasource.replica.max-lag-ms:10000}") long maxLagMillis,
+                      @Value("${app.datasource.replica.health-check-ms:5000}") long healthCheckMillis) {
+        this.millis = replicaUrls.isBlank() ? fenceMillis : Math.max(fenceMillis, maxLagMillis + healthCheckMillis);
+    }
+
+    public long getMillis() {
+        return millis;
+    }
+}
@@ -0,0 +1,19 @@
+package com.travelcompanion.cache;
+
+/**
+ * Имена кэшей результатов сервисов туров, точек, геозон, маршрутов и метаданных медиа
+ */
+public final class CacheNames {
+
+    public static final String TOURS = "tours";
+    public static final String TOUR_LIST = "tourList";
+    public static final String TOUR_SUMMARIES = "tourSummaries";
+    public static final String TOUR_POINTS = "tourPoints";
+    public static final String MEDIA = "media";
+    public static final String MEDIA_SEEK_INDEX = "mediaSeekIndex";
+    public static final String GEOFENCE = "geofence";
+    public static final String ROUTES = "routes";
+
+    private CacheNames() {
+    }
+}
@@ -0,0 +1,183 @@
+package com.travelcompanion.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+
+/**
+ * Канал инвалидации кэшей между узлами приложения через PostgreSQL LISTEN/NOTIFY.
+ *
+ * Каждый узел держит одно выделенное соединение с LISTEN на канал и
+ * рассылает сообщения через pg_notify. Свои сообщения узел отбрасывает по
+ * идентификатору. После переподключения подписчики получают "*" — за время
+ * разрыва сообщения могли потеряться. На других СУБД (H2) канал работает
+ * только внутри узла.
+ */
+@Slf4j
+@Component
+public class ClusterInvalidationBus implements SmartLifecycle {
+
+    public static final String ALL = "*";
+
+    private static final Pattern CHANNEL_NAME = Pattern.compile("[a-z_][a-z0-9_]*");
+
+    private final DataSource dataSource;
+    private final JdbcTemplate jdbcTemplate;
+    private final String channel;
+    private final long pollMillis;
+    private final String nodeId = UUID.randomUUID().toString();
+    private final List<Consumer<String>> subscribers = new CopyOnWriteArrayList<>();
+    private final ExecutorService publisher = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "cache-invalidation-publisher");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private volatile boolean running;
+    private volatile boolean clustered;
+    private Thread listener;
+
+    public ClusterInvalidationBus(DataSource dataSource,
+                                  @Value("${app.cache.invalidation.channel:tc_cache_invalidation}") String channel,
+                                  @Value("${app.cache.invalidation.poll-ms:500}") long pollMillis) {
+        if (!CHANNEL_NAME.matcher(channel).matches()) {
+            throw new IllegalArgumentException("Недопустимое имя канала: " + channel);
+        }
+        this.dataSource = dataSource;
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.channel = channel;
+        this.pollMillis = pollMillis;
+    }
+
+    /**
+     * Подписывает обработчик на сообщения от других узлов
+     */
+    public void subscribe(Consumer<String> subscriber) {
+        subscribers.add(subscriber);
+    }
+
+    /**
+     * Рассылает сообщение другим узлам. Выполняется в отдельном потоке,
+     * чтобы не попасть в уже завершенную транзакцию вызывающего кода.
+     */
+    public void broadcast(String message) {
+        if (!clustered) {
+            return;
+        }
+        publisher.execute(() -> {
+            try {
+                jdbcTemplate.queryForList("SELECT pg_notify(?, ?)", channel, nodeId + "|" + message);
+            } catch (RuntimeException e) {
+                log.warn("Не удалось отправить инвалидацию '{}': {}", message, e.getMessage());
+            }
+        });
+    }
+
+    @Override
+    public void start() {
+        clustered = isPostgres();
+        running = true;
+        if (!clustered) {
+            log.info("Инвалидация кэшей между узлами отключена: база данных не PostgreSQL");
+            return;
+        }
+        listener = new Thread(this::listen, "cache-invalidation-listener");
+        listener.setDaemon(true);
+        listener.start();
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (listener != null) {
+            listener.interrupt();
+        }
+        publisher.shutdown();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void listen() {
+        long backoff = pollMillis;
+        while (running) {
+            try (Connection connection = dataSource.getConnection()) {
+                connection.setAutoCommit(true);
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + channel);
+                }
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                // За время переподключения сообщения могли потеряться
+                deliver(ALL);
+                backoff = pollMillis;
+
+                while (running) {
+                    PGNotification[] notifications = pgConnection.getNotifications((int) pollMillis);
+                    if (notifications == null) {
+                        continue;
+                    }
+                    for (PGNotification notification : notifications) {
+                        receive(notification.getParameter());
+                    }
+                }
+            } catch (SQLException e) {
+                if (!running) {
+                    return;
+                }
+                log.warn("Соединение канала инвалидации потеряно: {}", e.getMessage());
+                try {
+                    Thread.sleep(backoff);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                backoff = Math.min(backoff * 2, 30_000);
+            }
+        }
+    }
+
+    private void receive(String payload) {
+        int separator = payload.indexOf('|');
+        if (separator < 0 || payload.substring(0, separator).equals(nodeId)) {
+            return;
+        }
+        deliver(payload.substring(separator + 1));
+    }
+
+    private void deliver(String message) {
+        for (Consumer<String> subscriber : subscribers) {
+            try {
+                subscriber.accept(message);
+            } catch (RuntimeException e) {
+                log.warn("Ошибка обработки инвалидации '{}': {}", message, e.getMessage());
+            }
+        }
+    }
+
+    private boolean isPostgres() {
+        try (Connection connection = dataSource.getConnection()) {
+            return "PostgreSQL".equalsIgnoreCase(connection.getMetaData().getDatabaseProductName());
+        } catch (SQLException e) {
+            log.warn("Не удалось определить тип базы данных: {}", e.getMessage());
+            return false;
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package com.travelcompanion.cache;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.SimpleValueWrapper;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Локальный кэш узла с ограниченным временем жизни записей.
+ *
+ * TTL ограничивает устаревание, даже если сообщение об инвалидации от другого
+ * узла потерялось. После инвалидации ключ на {@code fenceMillis} закрыт для
+ * записи: так загрузка, начатая до изменения, не вернет в кэш старое значение.
+ */
+public class NearCache implements Cache {
+
+    private final String name;
+    private final long ttlMillis;
+    private final long fenceMillis;
+    private final int maxEntries;
+
+    private final Map<Object, Entry> store = new ConcurrentHashMap<>();
+    private final Map<Object, Long> fences = new ConcurrentHashMap<>();
+    private volatile long clearedAt;
+
+    public NearCache(String name, long ttlMillis, long fenceMillis, int maxEntries) {
+        this.name = name;
+        this.ttlMillis = ttlMillis;
+        this.fenceMillis = fenceMillis;
+        this.maxEntries = maxEntries;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return store;
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        Entry entry = store.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.expiresAt < System.currentTimeMillis()) {
+            store.remove(key, entry);
+            return null;
+        }
+        return new SimpleValueWrapper(entry.value);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Class<T> type) {
+        ValueWrapper wrapper = get(key);
+        return wrapper != null ? (T) wrapper.get() : null;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        ValueWrapper wrapper = get(key);
+        if (wrapper != null) {
+            return (T) wrapper.get();
+        }
+        try {
+            T value = valueLoader.call();
+            put(key, value);
+            return value;
+        } catch (Exception e) {
+            throw new ValueRetrievalException(key, valueLoader, e);
+        }
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        long now = System.currentTimeMillis();
+        Long fencedAt = fences.get(key);
+        if ((fencedAt != null && now - fencedAt < fenceMillis) || now - clearedAt < fenceMillis) {
+            return;
+        }
+        if (store.size() >= maxEntries) {
+            shrink(now);
+        }
+        store.put(key, new Entry(value, now + ttlMillis));
+    }
+
+    @Override
+    public void evict(Object key) {
+        fences.put(key, System.currentTimeMillis());
+        store.remove(key);
+        pruneFences();
+    }
+
+    @Override
+    public void clear() {
+        clearedAt = System.currentTimeMillis();
+        store.clear();
+        fences.clear();
+    }
+
+    public int size() {
+        return store.size();
+    }
+
+    /**
+     * Удаляет просроченные записи, а если их мало — произвольную десятую часть
+     */
+    private void shrink(long now) {
+        store.entrySet().removeIf(e -> e.getValue().expiresAt < now);
+        int excess = store.size() - maxEntries * 9 / 10;
+        Iterator<Object> keys = store.keySet().iterator();
+        while (excess-- > 0 && keys.hasNext()) {
+            keys.next();
+            keys.remove();
+        }
+    }
+
+    private void pruneFences() {
+        if (fences.size() > maxEntries) {
+            long threshold = System.currentTimeMillis() - fenceMillis;
+            fences.values().removeIf(fencedAt -> fencedAt < threshold);
+        }
+    }
+
+    private static class Entry {
+        private final Object value;
+        private final long expiresAt;
+
+        Entry(Object value, long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
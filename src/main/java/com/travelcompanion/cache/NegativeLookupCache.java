@@ -0,0 +1,124 @@
+package com.travelcompanion.cache;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Кэш идентификаторов, которых нет в базе.
+ *
+ * Повторные запросы к удаленным или несуществующим турам, точкам и
+ * пользователям в течение {@code app.cache.negative.ttl-ms} не доходят до базы.
+ * Создание объекта снимает отметку на всех узлах и на окно {@link CacheFence}
+ * запрещает ставить ее снова, чтобы промах, прочитанный до коммита или с
+ * отстающей реплики, не спрятал новый объект.
+ */
+@Component
+public class NegativeLookupCache {
+
+    public static final String TOUR = "tour";
+    public static final String POINT = "point";
+    public static final String USER = "user";
+
+    private static final String MISSING_PREFIX = "missing:";
+
+    private final ClusterInvalidationBus invalidationBus;
+    private final long ttlMillis;
+    private final long fenceMillis;
+    private final int maxEntries;
+
+    private final Map<String, Map<Long, Long>> missing = new ConcurrentHashMap<>();
+    private final Map<String, Map<Long, Long>> created = new ConcurrentHashMap<>();
+
+    public NegativeLookupCache(ClusterInvalidationBus invalidationBus,
+                               @Value("${app.cache.negative.ttl-ms:30000}") long ttlMillis,
+                               CacheFence cacheFence,
+                               @Value("${app.cache.negative.max-entries:100000}") int maxEntries) {
+        this.invalidationBus = invalidationBus;
+        this.ttlMillis = ttlMillis;
+        this.fenceMillis = cacheFence.getMillis();
+        this.maxEntries = maxEntries;
+        invalidationBus.subscribe(this::onRemoteInvalidation);
+    }
+
+    /**
+     * Загружает объект, если он не отмечен как отсутствующий; пустой результат отмечается
+     */
+    public <T> Optional<T> find(String kind, Long id, Supplier<Optional<T>> loader) {
+        if (id == null) {
+            return loader.get();
+        }
+        Map<Long, Long> ids = missing(kind);
+        Long expiresAt = ids.get(id);
+        long now = System.currentTimeMillis();
+        if (expiresAt != null) {
+            if (expiresAt > now) {
+                return Optional.empty();
+            }
+            ids.remove(id, expiresAt);
+        }
+
+        Optional<T> result = loader.get();
+        if (result.isEmpty()) {
+            markMissing(kind, id, now);
+        }
+        return result;
+    }
+
+    /**
+     * Снимает отметку после создания объекта на этом и остальных узлах
+     */
+    public void forget(String kind, Long id) {
+        forgetLocally(kind, id);
+        invalidationBus.broadcast(MISSING_PREFIX + kind + ":" + id);
+    }
+
+    private void markMissing(String kind, Long id, long now) {
+        Long createdAt = created(kind).get(id);
+        if (createdAt != null && now - createdAt < fenceMillis) {
+            return;
+        }
+        Map<Long, Long> ids = missing(kind);
+        if (ids.size() >= maxEntries) {
+            ids.values().removeIf(expiresAt -> expiresAt <= now);
+            if (ids.size() >= maxEntries) {
+                // Перебор огромного числа идентификаторов не должен съедать память
+                return;
+            }
+        }
+        ids.put(id, now + ttlMillis);
+    }
+
+    private void forgetLocally(String kind, Long id) {
+        long now = System.currentTimeMillis();
+        Map<Long, Long> fences = created(kind);
+        fences.put(id, now);
+        missing(kind).remove(id);
+        if (fences.size() > 1000) {
+            fences.values().removeIf(createdAt -> now - createdAt >= fenceMillis);
+        }
+    }
+
+    private void onRemoteInvalidation(String message) {
+        if (ClusterInvalidationBus.ALL.equals(message)) {
+            missing.clear();
+        } else if (message.startsWith(MISSING_PREFIX)) {
+            String[] parts = message.substring(MISSING_PREFIX.length()).split(":");
+            if (parts.length == 2) {
+                forgetLocally(parts[0], Long.valueOf(parts[1]));
+            }
+        }
+    }
+
+    private Map<Long, Long> missing(String kind) {
+        return missing.computeIfAbsent(kind, k -> new ConcurrentHashMap<>());
+    }
+
+    private Map<Long, Long> created(String kind) {
+        return created.computeIfAbsent(kind, k -> new ConcurrentHashMap<>());
+    }
+}
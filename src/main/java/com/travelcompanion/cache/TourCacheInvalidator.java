@@ -0,0 +1,91 @@
+package com.travelcompanion.cache;
+
+import com.travelcompanion.event.TourChangedEvent;
+import com.travelcompanion.event.ToursDeletedEvent;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Сбрасывает закэшированные туры и точки после коммита изменений
+ * и рассылает инвалидацию остальным узлам.
+ */
+@Component
+public class TourCacheInvalidator {
+
+    private static final String TOUR_PREFIX = "tour:";
+    private static final String TOURS_PREFIX = "tours:";
+
+    // Сообщение pg_notify ограничено 8000 байт — большие пачки делим
+    private static final int IDS_PER_MESSAGE = 300;
+
+    private final CacheManager cacheManager;
+    private final ClusterInvalidationBus invalidationBus;
+
+    public TourCacheInvalidator(CacheManager cacheManager, ClusterInvalidationBus invalidationBus) {
+        this.cacheManager = cacheManager;
+        this.invalidationBus = invalidationBus;
+        invalidationBus.subscribe(this::onRemoteInvalidation);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTourChanged(TourChangedEvent event) {
+        evictTour(event.getTourId());
+        invalidationBus.broadcast(TOUR_PREFIX + event.getTourId());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onToursDeleted(ToursDeletedEvent event) {
+        List<Long> tourIds = event.getTourIds();
+        tourIds.forEach(this::evictTourEntries);
+        clearLists();
+        for (int from = 0; from < tourIds.size(); from += IDS_PER_MESSAGE) {
+            List<Long> chunk = tourIds.subList(from, Math.min(from + IDS_PER_MESSAGE, tourIds.size()));
+            invalidationBus.broadcast(TOURS_PREFIX + chunk.stream().map(String::valueOf)
+                    .reduce((a, b) -> a + "," + b).orElse(""));
+        }
+    }
+
+    private void onRemoteInvalidation(String message) {
+        if (ClusterInvalidationBus.ALL.equals(message)) {
+            cacheManager.getCacheNames().forEach(name -> cache(name).clear());
+        } else if (message.startsWith(TOUR_PREFIX)) {
+            evictTour(Long.valueOf(message.substring(TOUR_PREFIX.length())));
+        } else if (message.startsWith(TOURS_PREFIX)) {
+            Arrays.stream(message.substring(TOURS_PREFIX.length()).split(","))
+                    .map(Long::valueOf)
+                    .forEach(this::evictTourEntries);
+            clearLists();
+        }
+    }
+
+    private void evictTour(Long tourId) {
+        evictTourEntries(tourId);
+        clearLists();
+    }
+
+    // Списки зависят и от точек (число точек, обложка), поэтому сбрасываются при любом изменении
+    private void clearLists() {
+        cache(CacheNames.TOUR_LIST).clear();
+        cache(CacheNames.TOUR_SUMMARIES).clear();
+    }
+
+    private void evictTourEntries(Long tourId) {
+        cache(CacheNames.TOURS).evict(tourId);
+        cache(CacheNames.TOUR_POINTS).evict(tourId);
+        cache(CacheNames.GEOFENCE).evict(tourId);
+        cache(CacheNames.ROUTES).evict(tourId);
+    }
+
+    private Cache cache(String name) {
+        Cache cache = cacheManager.getCache(name);
+        if (cache == null) {
+            throw new IllegalStateException("Кэш не настроен: " + name);
+        }
+        return cache;
+    }
+}
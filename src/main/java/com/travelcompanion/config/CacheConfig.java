@@ -0,0 +1,42 @@
+package com.travelcompanion.config;
+
+import com.travelcompanion.cache.CacheFence;
+import com.travelcompanion.cache.CacheNames;
+import com.travelcompanion.cache.NearCache;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.support.SimpleCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import java.util.List;
+
+@Configuration
+// Кэш проверяется раньше, чем открывается транзакция, чтобы попадание не занимало соединение
+@EnableCaching(order = Ordered.HIGHEST_PRECEDENCE)
+public class CacheConfig {
+
+    @Bean
+    public CacheManager cacheManager(@Value("${app.cache.ttl-ms:30000}") long ttlMillis,
+                                     CacheFence cacheFence,
+                                     @Value("${app.cache.max-entries:10000}") int maxEntries,
+                                     @Value("${app.cache.media.ttl-ms:3600000}") long mediaTtlMillis,
+                                     @Value("${app.cache.media.max-entries:50000}") int mediaMaxEntries,
+                                     @Value("${app.cache.media.seek-index.max-entries:1000}") int seekIndexMaxEntries) {
+        long fenceMillis = cacheFence.getMillis();
+        SimpleCacheManager cacheManager = new SimpleCacheManager();
+        cacheManager.setCaches(List.of(
+                new NearCache(CacheNames.TOURS, ttlMillis, fenceMillis, maxEntries),
+                new NearCache(CacheNames.TOUR_LIST, ttlMillis, fenceMillis, 1),
+                new NearCache(CacheNames.TOUR_SUMMARIES, ttlMillis, fenceMillis, 1),
+                new NearCache(CacheNames.TOUR_POINTS, ttlMillis, fenceMillis, maxEntries),
+                new NearCache(CacheNames.GEOFENCE, ttlMillis, fenceMillis, maxEntries),
+                new NearCache(CacheNames.ROUTES, ttlMillis, fenceMillis, maxEntries),
+                // Метаданные файла не меняются после загрузки, поэтому живут дольше
+                new NearCache(CacheNames.MEDIA, mediaTtlMillis, fenceMillis, mediaMaxEntries),
+                new NearCache(CacheNames.MEDIA_SEEK_INDEX, mediaTtlMillis, fenceMillis, seekIndexMaxEntries)));
+        return cacheManager;
+    }
+}
@@ -52,7 +52,6 @@ public class DevDataInitializer {
             point1.setDescription("Главная площадь Москвы");
             point1.setLatitude("55.7539");
             point1.setLongitude("37.6208");
-            point1.setOrder(1);
             pointOfInterestService.createPoint(point1);
 
             PointOfInterestDto point2 = new PointOfInterestDto();
@@ -61,7 +60,6 @@ public class DevDataInitializer {
             point2.setDescription("Православный храм на Красной площади");
             point2.setLatitude("55.7525");
             point2.setLongitude("37.6231");
-            point2.setOrder(2);
             pointOfInterestService.createPoint(point2);
 
             PointOfInterestDto point3 = new PointOfInterestDto();
@@ -70,7 +68,6 @@ public class DevDataInitializer {
             point3.setDescription("Главный универсальный магазин");
             point3.setLatitude("55.7546");
             point3.setLongitude("37.6215");
-            point3.setOrder(3);
             pointOfInterestService.createPoint(point3);
 
             System.out.println("Тестовые данные успешно инициализированы!");
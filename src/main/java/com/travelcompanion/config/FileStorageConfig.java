@@ -1,5 +1,9 @@
 package com.travelcompanion.config;
 
+import com.travelcompanion.storage.CachingMediaStore;
+import com.travelcompanion.storage.LocalMediaStore;
+import com.travelcompanion.storage.MediaStore;
+import com.travelcompanion.storage.S3MediaStore;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.core.env.Environment;
@@ -33,4 +37,26 @@ public class FileStorageConfig {
         
         return uploadDir;
     }
-} 
\ No newline at end of file
+
+    @Bean
+    public MediaStore mediaStore(Environment env, String uploadDirectory) throws IOException {
+        String type = env.getProperty("app.storage.type", "local");
+        if (!"s3".equals(type)) {
+            return new LocalMediaStore(Paths.get(uploadDirectory));
+        }
+
+        // S3-совместимое хранилище с локальным кэшем чтения, чтобы узлы приложения не зависели от общего диска
+        S3MediaStore remote = new S3MediaStore(
+                env.getProperty("app.storage.s3.endpoint"),
+                env.getProperty("app.storage.s3.region", "us-east-1"),
+                env.getRequiredProperty("app.storage.s3.bucket"),
+                env.getRequiredProperty("app.storage.s3.access-key"),
+                env.getRequiredProperty("app.storage.s3.secret-key"),
+                env.getProperty("app.storage.s3.part-size", Integer.class, 8 * 1024 * 1024),
+                env.getProperty("app.storage.s3.upload-concurrency", Integer.class, 4));
+
+        long cacheBytes = env.getProperty("app.storage.cache.max-size-mb", Long.class, 2048L) * 1024 * 1024;
+        Path cacheDir = Paths.get(env.getProperty("app.storage.cache.dir", uploadDirectory + "-cache"));
+        return new CachingMediaStore(remote, cacheDir, cacheBytes);
+    }
+}
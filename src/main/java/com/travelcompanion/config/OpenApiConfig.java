@@ -8,7 +8,10 @@ import io.swagger.v3.oas.models.security.SecurityRequirement;
 import io.swagger.v3.oas.models.security.SecurityScheme;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
 
+// Описание API нужно только при первом запросе к /v3/api-docs, не при старте
+@Lazy
 @Configuration
 public class OpenApiConfig {
     
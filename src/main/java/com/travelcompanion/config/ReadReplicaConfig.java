@@ -0,0 +1,82 @@
+package com.travelcompanion.config;
+
+import com.travelcompanion.datasource.ReadYourWritesFilter;
+import com.travelcompanion.datasource.ReplicaRoutingDataSource;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.flyway.FlywayDataSource;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Чтение с реплик: включается, только если задан {@code app.datasource.replica.urls}.
+ *
+ * Основной пул собирается из {@code spring.datasource.*} как обычно, пулы
+ * реплик копируют его настройки (учетные данные, размер, свойства драйвера)
+ * с другим адресом. Flyway и все записи работают с основной базой.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "app.datasource.replica", name = "urls")
+public class ReadReplicaConfig {
+
+    @Bean
+    @FlywayDataSource
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    @Bean
+    public ReplicaRoutingDataSource replicaRoutingDataSource(
+            @Qualifier("primaryDataSource") HikariDataSource primary,
+            @Value("${app.datasource.replica.urls}") List<String> urls,
+            @Value("${app.datasource.replica.pool-size:0}") int poolSize,
+            @Value("${app.datasource.replica.connection-timeout-ms:1000}") long connectionTimeoutMillis,
+            @Value("${app.datasource.replica.health-check-ms:5000}") long healthCheckMillis,
+            @Value("${app.datasource.replica.max-lag-ms:10000}") long maxLagMillis) {
+        List<HikariDataSource> replicas = new ArrayList<>();
+        for (int i = 0; i < urls.size(); i++) {
+            HikariConfig config = new HikariConfig();
+            primary.copyStateTo(config);
+            config.setJdbcUrl(urls.get(i).trim());
+            config.setPoolName(primary.getPoolName() + "-replica-" + (i + 1));
+            config.setReadOnly(true);
+            // Недоступная реплика не должна мешать запуску и надолго задерживать запросы
+            config.setInitializationFailTimeout(-1);
+            config.setConnectionTimeout(connectionTimeoutMillis);
+            if (poolSize > 0) {
+                config.setMaximumPoolSize(poolSize);
+                config.setMinimumIdle(poolSize);
+            }
+            replicas.add(new HikariDataSource(config));
+        }
+        return new ReplicaRoutingDataSource(primary, replicas, healthCheckMillis, maxLagMillis);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(ReplicaRoutingDataSource routingDataSource) {
+        LazyConnectionDataSourceProxy proxy = new LazyConnectionDataSourceProxy(routingDataSource);
+        // Значения по умолчанию заданы явно, чтобы прокси не брал соединение при запуске
+        proxy.setDefaultAutoCommit(true);
+        proxy.setDefaultTransactionIsolation(Connection.TRANSACTION_READ_COMMITTED);
+        return proxy;
+    }
+
+    @Bean
+    public ReadYourWritesFilter readYourWritesFilter(@Value("${app.datasource.replica.sticky-ms:5000}") long stickyMillis) {
+        return new ReadYourWritesFilter(stickyMillis);
+    }
+}
@@ -30,8 +30,12 @@ public class SecurityConfig {
                 // Публичные эндпоинты для API
                 .requestMatchers("/api/users/register").permitAll()
                 .requestMatchers("/api/media/**").permitAll()
+                .requestMatchers("/api/tiles/**").permitAll()
                 .requestMatchers("/api/tours").permitAll()
+                .requestMatchers("/api/tours/summaries").permitAll()
                 .requestMatchers("/api/tours/*/points").permitAll()
+                .requestMatchers("/api/tours/*/route").permitAll()
+                .requestMatchers("/api/tours/*/events").permitAll()
                 .requestMatchers("/h2-console/**").permitAll()
                 .requestMatchers("/swagger-ui/**", "/v3/api-docs/**").permitAll()
                 
@@ -52,8 +56,10 @@ public class SecurityConfig {
     public CorsConfigurationSource corsConfigurationSource() {
         CorsConfiguration configuration = new CorsConfiguration();
         configuration.setAllowedOrigins(List.of("*")); // Разрешаем запросы с любого источника
-        configuration.setAllowedMethods(Arrays.asList("GET", "POST", "PUT", "DELETE", "OPTIONS"));
+        configuration.setAllowedMethods(Arrays.asList("GET", "HEAD", "POST", "PUT", "PATCH", "DELETE", "OPTIONS"));
         configuration.setAllowedHeaders(List.of("*"));
+        // Заголовки возобновляемой загрузки должны быть видны клиенту из браузера
+        configuration.setExposedHeaders(List.of("Location", "Tus-Resumable", "Upload-Offset", "Upload-Length", "X-Audio-Start-Ms"));
         configuration.setAllowCredentials(false);
         configuration.setMaxAge(3600L);
         
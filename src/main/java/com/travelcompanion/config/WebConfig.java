@@ -1,8 +1,12 @@
 package com.travelcompanion.config;
 
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.CacheControl;
 import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import org.springframework.web.servlet.resource.EncodedResourceResolver;
+
+import java.util.concurrent.TimeUnit;
 
 @Configuration
 public class WebConfig implements WebMvcConfigurer {
@@ -10,18 +14,30 @@ public class WebConfig implements WebMvcConfigurer {
     // Конфигурация статических ресурсов
     @Override
     public void addResourceHandlers(ResourceHandlerRegistry registry) {
-        // Обрабатываем все статические ресурсы
+        // Файлы сборки Vite содержат хэш в имени, поэтому кэшируются навсегда.
+        // EncodedResourceResolver отдает заранее сжатые .br/.gz по Accept-Encoding
         registry.addResourceHandler("/assets/**")
                 .addResourceLocations("classpath:/static/public/assets/")
-                .setCachePeriod(3600); // Кэширование на 1 час
-                
+                .setCacheControl(CacheControl.maxAge(365, TimeUnit.DAYS).cachePublic().immutable())
+                .resourceChain(true)
+                .addResolver(new EncodedResourceResolver());
+
+        // index.html ссылается на актуальные хэши — браузер должен перепроверять его
+        registry.addResourceHandler("/public/index.html")
+                .addResourceLocations("classpath:/static/public/")
+                .setCacheControl(CacheControl.maxAge(60, TimeUnit.SECONDS).mustRevalidate())
+                .resourceChain(true)
+                .addResolver(new EncodedResourceResolver());
+
         registry.addResourceHandler("/public/**")
                 .addResourceLocations("classpath:/static/public/")
-                .setCachePeriod(3600);
-                
+                .setCachePeriod(3600)
+                .resourceChain(true)
+                .addResolver(new EncodedResourceResolver());
+
         // Обрабатываем корневые статические ресурсы
         registry.addResourceHandler("/*.js", "/*.css", "/*.map", "/*.html", "/*.ico", "/*.json", "/*.png", "/*.svg")
                 .addResourceLocations("classpath:/static/")
                 .setCachePeriod(3600);
     }
-} 
\ No newline at end of file
+}
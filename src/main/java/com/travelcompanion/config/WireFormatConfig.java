@@ -0,0 +1,97 @@
+package com.travelcompanion.config;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.travelcompanion.dto.PointOfInterestDto;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+
+/**
+ * Бинарные форматы ответов API: CBOR ({@code application/cbor}) и Smile
+ * ({@code application/x-jackson-smile}) по заголовку Accept.
+ *
+ * Конвертеры заменяют стандартные конвертеры Spring MVC на их местах в списке,
+ * поэтому JSON остается форматом по умолчанию для {@code Accept: *}{@code /*}.
+ * Маппер строится тем же билдером, что и JSON (с настройками Spring Boot), и
+ * дополнительно передает координаты точек числами, а не строками.
+ */
+@Configuration
+public class WireFormatConfig {
+
+    @Bean
+    public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2CborHttpMessageConverter(binaryMapper(builder, new CBORFactory()));
+    }
+
+    @Bean
+    public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2SmileHttpMessageConverter(binaryMapper(builder, new SmileFactory()));
+    }
+
+    /**
+     * Маппер для бинарного формата; используется также бенчмарком форматов
+     */
+    public static ObjectMapper binaryMapper(Jackson2ObjectMapperBuilder builder, JsonFactory factory) {
+        return builder.factory(factory)
+                .mixIn(PointOfInterestDto.class, NumericCoordinates.class)
+                .build();
+    }
+
+    /**
+     * Координаты точки числами: в базе и JSON они строки, в бинарных форматах
+     * число занимает 9 байт вместо 10–20 и не требует разбора текста
+     */
+    abstract static class NumericCoordinates {
+
+        @JsonSerialize(using = CoordinateSerializer.class)
+        @JsonDeserialize(using = CoordinateDeserializer.class)
+        abstract String getLatitude();
+
+        @JsonSerialize(using = CoordinateSerializer.class)
+        @JsonDeserialize(using = CoordinateDeserializer.class)
+        abstract String getLongitude();
+    }
+
+    static class CoordinateSerializer extends JsonSerializer<String> {
+        @Override
+        public void serialize(String value, JsonGenerator gen, SerializerProvider serializers) throws IOException {
+            double coordinate;
+            try {
+                coordinate = Double.parseDouble(value);
+            } catch (NumberFormatException e) {
+                // Старые записи могут хранить координаты не числом — отдаем как есть
+                gen.writeString(value);
+                return;
+            }
+            gen.writeNumber(coordinate);
+        }
+    }
+
+    static class CoordinateDeserializer extends JsonDeserializer<String> {
+        @Override
+        public String deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+            if (p.hasToken(JsonToken.VALUE_NUMBER_FLOAT) || p.hasToken(JsonToken.VALUE_NUMBER_INT)) {
+                // Без экспоненты: 1.0E-5 в базе должно выглядеть как 0.00001
+                return BigDecimal.valueOf(p.getDoubleValue()).stripTrailingZeros().toPlainString();
+            }
+            return p.getValueAsString();
+        }
+    }
+}
@@ -1,26 +1,40 @@
 package com.travelcompanion.controller;
 
+import com.travelcompanion.exception.ResourceNotFoundException;
+import com.travelcompanion.model.Media;
+import com.travelcompanion.service.AudioSeekService;
 import com.travelcompanion.service.FileStorageService;
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
 import org.springframework.core.io.Resource;
-import org.springframework.core.io.UrlResource;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
 import java.nio.file.Path;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 
 @RestController
 @RequestMapping("/api/media")
 @RequiredArgsConstructor
 public class FileController {
     
+    private static final String AUDIO_START = "X-Audio-Start-Ms";
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
     private final FileStorageService fileStorageService;
+    private final AudioSeekService audioSeekService;
     
     @PostMapping("/upload/photo")
     public ResponseEntity<Map<String, String>> uploadPhoto(@RequestParam("photo") MultipartFile file) throws IOException {
@@ -84,46 +98,100 @@ public class FileController {
     
     @GetMapping("/photos/{filename}")
     public ResponseEntity<Resource> getPhoto(@PathVariable String filename) throws IOException {
-        Path filePath = fileStorageService.getPhotoPath(filename);
-        Resource resource = new UrlResource(filePath.toUri());
-        
-        if (resource.exists() && resource.isReadable()) {
-            return ResponseEntity.ok()
-                    .contentType(MediaType.IMAGE_JPEG)
-                    .header(HttpHeaders.CONTENT_DISPOSITION, "inline; filename=\"" + resource.getFilename() + "\"")
-                    .body(resource);
-        } else {
-            throw new RuntimeException("Не удалось найти файл: " + filename);
-        }
+        Media media = metadata("photo", filename);
+        return headers(media).body(fileStorageService.resource(media));
     }
-    
+
+    /**
+     * Аудио целиком или, с параметром t, с начала кадра не позже t секунд.
+     * Фактическое время начала приходит в заголовке X-Audio-Start-Ms.
+     */
     @GetMapping("/audio/{filename}")
-    public ResponseEntity<Resource> getAudio(@PathVariable String filename) throws IOException {
-        Path filePath = fileStorageService.getAudioPath(filename);
-        Resource resource = new UrlResource(filePath.toUri());
-        
-        if (resource.exists() && resource.isReadable()) {
-            return ResponseEntity.ok()
-                    .contentType(MediaType.parseMediaType("audio/mpeg"))
-                    .header(HttpHeaders.CONTENT_DISPOSITION, "inline; filename=\"" + resource.getFilename() + "\"")
-                    .body(resource);
-        } else {
-            throw new RuntimeException("Не удалось найти файл: " + filename);
+    public ResponseEntity<Resource> getAudio(@PathVariable String filename,
+                                             @RequestParam(value = "t", required = false) Double seconds,
+                                             HttpServletRequest request,
+                                             WebRequest webRequest) throws IOException {
+        Media media = metadata("audio", filename);
+        Optional<AudioSeekService.SeekPoint> seek = seconds != null
+                ? audioSeekService.seek(media, seconds)
+                : Optional.empty();
+        if (seek.isEmpty()) {
+            return headers(media).body(fileStorageService.resource(media));
         }
+
+        // 304 отвечаем до атрибутов sendfile: иначе Tomcat отправит файл вместо пустого ответа
+        String etag = "\"" + media.getSha256() + "-" + seek.get().getStartMillis() + "\"";
+        if (webRequest.checkNotModified(etag)) {
+            return null;
+        }
+
+        long offset = seek.get().getOffset();
+        long length = media.getSizeBytes() - offset;
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(media.getContentType()))
+                .eTag(etag)
+                .lastModified(media.getCreatedAt())
+                .cacheControl(CacheControl.maxAge(365, TimeUnit.DAYS).cachePublic().immutable())
+                .header(AUDIO_START, String.valueOf(seek.get().getStartMillis()))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "inline; filename=\"" + media.getFilename() + "\"")
+                .contentLength(length);
+
+        // Локальный файл Tomcat отдает через sendfile, минуя копирование в пространство JVM.
+        // С заголовком Range ответ 206 собирает Spring по Resource, поэтому sendfile только для полного тела
+        Optional<Path> local = fileStorageService.localPath("audio", filename);
+        if (local.isPresent()
+                && request.getHeader(HttpHeaders.RANGE) == null
+                && Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            request.setAttribute(SENDFILE_FILENAME, local.get().toString());
+            request.setAttribute(SENDFILE_START, offset);
+            request.setAttribute(SENDFILE_END, media.getSizeBytes());
+            return response.build();
+        }
+        return response.body(fileStorageService.resource(media, offset));
     }
-    
+
     @GetMapping("/videos/{filename}")
     public ResponseEntity<Resource> getVideo(@PathVariable String filename) throws IOException {
-        Path filePath = fileStorageService.getVideoPath(filename);
-        Resource resource = new UrlResource(filePath.toUri());
-        
-        if (resource.exists() && resource.isReadable()) {
-            return ResponseEntity.ok()
-                    .contentType(MediaType.parseMediaType("video/mp4"))
-                    .header(HttpHeaders.CONTENT_DISPOSITION, "inline; filename=\"" + resource.getFilename() + "\"")
-                    .body(resource);
-        } else {
-            throw new RuntimeException("Не удалось найти файл: " + filename);
-        }
+        Media media = metadata("video", filename);
+        return headers(media).body(fileStorageService.resource(media));
+    }
+
+    // HEAD отвечает по метаданным и не открывает файл
+    @RequestMapping(value = "/photos/{filename}", method = RequestMethod.HEAD)
+    public ResponseEntity<Void> headPhoto(@PathVariable String filename) throws IOException {
+        Media media = metadata("photo", filename);
+        return headers(media).contentLength(media.getSizeBytes()).build();
+    }
+
+    @RequestMapping(value = "/audio/{filename}", method = RequestMethod.HEAD)
+    public ResponseEntity<Void> headAudio(@PathVariable String filename) throws IOException {
+        Media media = metadata("audio", filename);
+        return headers(media).contentLength(media.getSizeBytes()).build();
+    }
+
+    @RequestMapping(value = "/videos/{filename}", method = RequestMethod.HEAD)
+    public ResponseEntity<Void> headVideo(@PathVariable String filename) throws IOException {
+        Media media = metadata("video", filename);
+        return headers(media).contentLength(media.getSizeBytes()).build();
+    }
+
+    private Media metadata(String type, String filename) throws IOException {
+        return fileStorageService.getMetadata(type, filename)
+                .orElseThrow(() -> new ResourceNotFoundException("Не удалось найти файл: " + filename));
+    }
+
+    /**
+     * Заголовки ответа из метаданных. Имена файлов уникальны и содержимое под
+     * ними не меняется, поэтому ответ кэшируется навсегда; по ETag Spring сам
+     * отвечает 304 на If-None-Match.
+     */
+    private ResponseEntity.BodyBuilder headers(Media media) {
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(media.getContentType()))
+                .eTag("\"" + media.getSha256() + "\"")
+                .lastModified(media.getCreatedAt())
+                .cacheControl(CacheControl.maxAge(365, TimeUnit.DAYS).cachePublic().immutable())
+                .header(HttpHeaders.ACCEPT_RANGES, "bytes")
+                .header(HttpHeaders.CONTENT_DISPOSITION, "inline; filename=\"" + media.getFilename() + "\"");
     }
-} 
\ No newline at end of file
+}
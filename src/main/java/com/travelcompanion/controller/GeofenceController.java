@@ -0,0 +1,44 @@
+package com.travelcompanion.controller;
+
+import com.travelcompanion.dto.GeofenceEventDto;
+import com.travelcompanion.dto.GeofenceSessionDto;
+import com.travelcompanion.dto.PositionBatchDto;
+import com.travelcompanion.service.GeofenceService;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api")
+@RequiredArgsConstructor
+public class GeofenceController {
+
+    private final GeofenceService geofenceService;
+
+    // Начало прогулки по туру: POST /api/tours/{tourId}/geofence/sessions
+    @PostMapping("/tours/{tourId}/geofence/sessions")
+    public ResponseEntity<GeofenceSessionDto> createSession(@PathVariable Long tourId) {
+        return new ResponseEntity<>(geofenceService.createSession(tourId), HttpStatus.CREATED);
+    }
+
+    /**
+     * Пачка позиций клиента. В ответе — входы в зоны точек и выходы из них,
+     * подтвержденные этой пачкой, в порядке времени позиций.
+     */
+    @PostMapping("/geofence/sessions/{sessionId}/positions")
+    public ResponseEntity<List<GeofenceEventDto>> ingestPositions(
+            @PathVariable String sessionId,
+            @Valid @RequestBody PositionBatchDto batch) {
+        return ResponseEntity.ok(geofenceService.ingest(sessionId, batch.getPositions()));
+    }
+
+    @DeleteMapping("/geofence/sessions/{sessionId}")
+    public ResponseEntity<Void> closeSession(@PathVariable String sessionId) {
+        geofenceService.closeSession(sessionId);
+        return ResponseEntity.noContent().build();
+    }
+}
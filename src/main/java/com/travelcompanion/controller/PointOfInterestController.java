@@ -1,8 +1,12 @@
 package com.travelcompanion.controller;
 
+import com.travelcompanion.dto.MovePointRequest;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.travelcompanion.dto.PointOfInterestDto;
+import com.travelcompanion.dto.PointPatchAckDto;
 import com.travelcompanion.model.PointOfInterest;
 import com.travelcompanion.service.PointOfInterestService;
+import com.travelcompanion.service.PointWriteCoalescer;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
@@ -16,6 +20,7 @@ import java.util.List;
 public class PointOfInterestController {
 
     private final PointOfInterestService pointOfInterestService;
+    private final PointWriteCoalescer pointWriteCoalescer;
 
     @GetMapping("/tours/{tourId}/points")
     public ResponseEntity<List<PointOfInterestDto>> getPointsByTourId(@PathVariable Long tourId) {
@@ -48,6 +53,25 @@ public class PointOfInterestController {
         return ResponseEntity.ok(updatedPoint);
     }
 
+    // JSON Merge Patch (RFC 7386): отсутствующие поля не меняются, null очищает поле
+    @PatchMapping(value = "/points/{id}", consumes = "application/merge-patch+json")
+    public ResponseEntity<PointPatchAckDto> patchPoint(
+            @PathVariable Long id,
+            @RequestBody JsonNode patch) {
+
+        long version = pointWriteCoalescer.submit(id, patch);
+        return ResponseEntity.accepted().body(new PointPatchAckDto(id, version));
+    }
+
+    @PostMapping("/points/{id}/move")
+    public ResponseEntity<PointOfInterestDto> movePoint(
+            @PathVariable Long id,
+            @RequestBody MovePointRequest request) {
+
+        PointOfInterestDto movedPoint = pointOfInterestService.movePoint(id, request.getAfterId());
+        return ResponseEntity.ok(movedPoint);
+    }
+
     @DeleteMapping("/points/{id}")
     public ResponseEntity<Void> deletePoint(@PathVariable Long id) {
         pointOfInterestService.deletePoint(id);
@@ -1,8 +1,13 @@
 package com.travelcompanion.controller;
 
 import com.travelcompanion.dto.TourDto;
+import com.travelcompanion.dto.TourRouteDto;
+import com.travelcompanion.dto.TourSummaryDto;
+import com.travelcompanion.dto.TrendingTourDto;
 import com.travelcompanion.model.Tour;
+import com.travelcompanion.service.RoutingService;
 import com.travelcompanion.service.TourService;
+import com.travelcompanion.service.TourViewService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
@@ -17,6 +22,8 @@ import java.util.List;
 public class TourController {
 
     private final TourService tourService;
+    private final TourViewService tourViewService;
+    private final RoutingService routingService;
 
     @GetMapping
     public ResponseEntity<List<TourDto>> getAllTours() {  // Изменили возвращаемый тип
@@ -24,12 +31,34 @@ public class TourController {
         return ResponseEntity.ok(tours);
     }
 
+    // Список туров с числом точек и обложкой: GET /api/tours/summaries
+    @GetMapping("/summaries")
+    public ResponseEntity<List<TourSummaryDto>> getTourSummaries() {
+        return ResponseEntity.ok(tourService.getTourSummaries());
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<TourDto> getTourById(@PathVariable Long id) {  // Также изменили здесь
         TourDto tour = tourService.getTourById(id);
+        // Считаем здесь, а не в сервисе: чтение тура обычно обслуживает кэш
+        tourViewService.recordView(id);
         return ResponseEntity.ok(tour);
     }
 
+    // Пешеходный маршрут по точкам тура: GET /api/tours/{id}/route
+    @GetMapping("/{id}/route")
+    public ResponseEntity<TourRouteDto> getTourRoute(@PathVariable Long id) {
+        return ResponseEntity.ok(routingService.getTourRoute(id));
+    }
+
+    // Популярные туры: GET /api/tours/trending?window=1h&limit=10
+    @GetMapping("/trending")
+    public ResponseEntity<List<TrendingTourDto>> getTrendingTours(
+            @RequestParam(defaultValue = "1h") String window,
+            @RequestParam(defaultValue = "10") int limit) {
+        return ResponseEntity.ok(tourViewService.getTrending(window, limit));
+    }
+
     @PostMapping
     public ResponseEntity<TourDto> createTour(@Valid @RequestBody TourDto tourDto) {
         TourDto createdTour = tourService.createTour(tourDto);
@@ -50,4 +79,11 @@ public class TourController {
         tourService.deleteTour(id);
         return ResponseEntity.noContent().build();
     }
+
+    // Удаление нескольких туров: DELETE /api/tours?ids=1,2,3
+    @DeleteMapping(params = "ids")
+    public ResponseEntity<Void> deleteTours(@RequestParam List<Long> ids) {
+        tourService.deleteTours(ids);
+        return ResponseEntity.noContent().build();
+    }
 }
\ No newline at end of file
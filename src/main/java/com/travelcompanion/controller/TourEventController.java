@@ -0,0 +1,27 @@
+package com.travelcompanion.controller;
+
+import com.travelcompanion.event.TourEventHub;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+@RestController
+@RequestMapping("/api/tours")
+@RequiredArgsConstructor
+public class TourEventController {
+
+    private final TourEventHub tourEventHub;
+
+    /**
+     * Поток изменений тура (Server-Sent Events). Клиент получает событие
+     * "tour-changed" и перечитывает тур и его точки.
+     */
+    @GetMapping(value = "/{tourId}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter subscribe(@PathVariable Long tourId) {
+        return tourEventHub.subscribe(tourId);
+    }
+}
@@ -0,0 +1,142 @@
+package com.travelcompanion.controller;
+
+import com.travelcompanion.model.UploadSession;
+import com.travelcompanion.service.ResumableUploadService;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Возобновляемая загрузка медиафайлов по протоколу tus 1.0 (расширения
+ * creation, termination, checksum).
+ *
+ * POST создает загрузку (Upload-Length, Upload-Metadata с ключами type и
+ * filename), PATCH с Content-Type application/offset+octet-stream дописывает
+ * часть с Upload-Offset, HEAD возвращает принятое смещение.
+ */
+@RestController
+@RequestMapping("/api/media/uploads")
+@RequiredArgsConstructor
+public class UploadController {
+
+    private static final String TUS_RESUMABLE = "Tus-Resumable";
+    private static final String TUS_VERSION = "1.0.0";
+    private static final String UPLOAD_OFFSET = "Upload-Offset";
+    private static final String UPLOAD_LENGTH = "Upload-Length";
+
+    private final ResumableUploadService resumableUploadService;
+
+    @RequestMapping(method = RequestMethod.OPTIONS)
+    public ResponseEntity<Void> options() {
+        return ResponseEntity.noContent()
+                .header(TUS_RESUMABLE, TUS_VERSION)
+                .header("Tus-Version", TUS_VERSION)
+                .header("Tus-Extension", "creation,termination,checksum")
+                .header("Tus-Checksum-Algorithm", "sha1,sha256,md5")
+                .header("Tus-Max-Size", String.valueOf(resumableUploadService.getMaxSize()))
+                .build();
+    }
+
+    @PostMapping
+    public ResponseEntity<Void> create(@RequestHeader(UPLOAD_LENGTH) long length,
+                                       @RequestHeader(value = "Upload-Metadata", required = false) String metadata,
+                                       @RequestParam(value = "type", required = false) String type) throws IOException {
+        Map<String, String> values = parseMetadata(metadata);
+        String mediaType = type != null ? type : values.get("type");
+        if (mediaType == null) {
+            throw new IllegalArgumentException("Не указан тип медиа");
+        }
+
+        UploadSession session = resumableUploadService.create(mediaType, length, values.get("filename"));
+        return ResponseEntity.created(URI.create("/api/media/uploads/" + session.getId()))
+                .header(TUS_RESUMABLE, TUS_VERSION)
+                .header(UPLOAD_OFFSET, "0")
+                .build();
+    }
+
+    @RequestMapping(value = "/{id}", method = RequestMethod.HEAD)
+    public ResponseEntity<Void> status(@PathVariable String id) {
+        UploadSession session = resumableUploadService.get(id);
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noStore())
+                .header(TUS_RESUMABLE, TUS_VERSION)
+                .header(UPLOAD_OFFSET, String.valueOf(session.getUploadOffset()))
+                .header(UPLOAD_LENGTH, String.valueOf(session.getUploadLength()))
+                .build();
+    }
+
+    /**
+     * Принимает часть файла. Пока файл не получен целиком — 204; после последней
+     * части — 200 с именем файла, как у обычной загрузки.
+     */
+    @PatchMapping(value = "/{id}", consumes = "application/offset+octet-stream")
+    public ResponseEntity<Map<String, String>> append(@PathVariable String id,
+                                                      @RequestHeader(UPLOAD_OFFSET) long offset,
+                                                      @RequestHeader(value = "Upload-Checksum", required = false) String checksum,
+                                                      HttpServletRequest request) throws IOException {
+        ResumableUploadService.ChunkResult result =
+                resumableUploadService.append(id, offset, request.getInputStream(), checksum);
+        String uploadOffset = String.valueOf(result.getSession().getUploadOffset());
+        if (result.getFilename() == null) {
+            return ResponseEntity.noContent()
+                    .header(TUS_RESUMABLE, TUS_VERSION)
+                    .header(UPLOAD_OFFSET, uploadOffset)
+                    .build();
+        }
+
+        Map<String, String> body = new HashMap<>();
+        body.put("filename", result.getFilename());
+        body.put("path", mediaPath(result.getSession().getMediaType()) + result.getFilename());
+        return ResponseEntity.ok()
+                .header(TUS_RESUMABLE, TUS_VERSION)
+                .header(UPLOAD_OFFSET, uploadOffset)
+                .body(body);
+    }
+
+    @DeleteMapping("/{id}")
+    public ResponseEntity<Void> terminate(@PathVariable String id) throws IOException {
+        resumableUploadService.terminate(id);
+        return ResponseEntity.noContent()
+                .header(TUS_RESUMABLE, TUS_VERSION)
+                .build();
+    }
+
+    /**
+     * Разбирает Upload-Metadata: пары "ключ значение-в-base64" через запятую
+     */
+    private Map<String, String> parseMetadata(String header) {
+        Map<String, String> values = new HashMap<>();
+        if (header == null || header.isBlank()) {
+            return values;
+        }
+        for (String pair : header.split(",")) {
+            String[] parts = pair.trim().split(" ", 2);
+            String value = parts.length == 2
+                    ? new String(Base64.getDecoder().decode(parts[1].trim()), StandardCharsets.UTF_8)
+                    : "";
+            values.put(parts[0], value);
+        }
+        return values;
+    }
+
+    private String mediaPath(String type) {
+        switch (type) {
+            case "photo":
+                return "/api/media/photos/";
+            case "video":
+                return "/api/media/videos/";
+            default:
+                return "/api/media/audio/";
+        }
+    }
+}
@@ -1,7 +1,9 @@
 package com.travelcompanion.controller;
 
+import com.travelcompanion.dto.TourSummaryDto;
 import com.travelcompanion.dto.UserDto;
 import com.travelcompanion.dto.UserResponseDto;
+import com.travelcompanion.service.TourService;
 import com.travelcompanion.service.UserService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
@@ -9,6 +11,8 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.List;
+
 
 @RestController
 @RequestMapping("/api/users")
@@ -16,6 +20,7 @@ import org.springframework.web.bind.annotation.*;
 public class UserController {
 
     private final UserService userService;
+    private final TourService tourService;
 
     @PostMapping("/register")
     public ResponseEntity<UserResponseDto> registerUser(@Valid @RequestBody UserDto userDto) {
@@ -32,4 +37,10 @@ public class UserController {
         UserResponseDto user = userService.getUserById(id);
         return ResponseEntity.ok(user);
     }
-}
\ No newline at end of file
+
+    // Туры пользователя в виде списка: GET /api/users/{id}/tours
+    @GetMapping("/{id}/tours")
+    public ResponseEntity<List<TourSummaryDto>> getUserTours(@PathVariable Long id) {
+        return ResponseEntity.ok(tourService.getTourSummariesByUser(id));
+    }
+}
@@ -0,0 +1,27 @@
+package com.travelcompanion.datasource;
+
+/**
+ * Закрепление чтения текущего потока за основной базой.
+ *
+ * Пока клиент недавно что-то изменил, его чтения идут в основную базу, чтобы
+ * он не увидел на отстающей реплике состояние до своей же правки.
+ */
+public final class ReadYourWrites {
+
+    private static final ThreadLocal<Boolean> PINNED = new ThreadLocal<>();
+
+    private ReadYourWrites() {
+    }
+
+    public static void pin() {
+        PINNED.set(Boolean.TRUE);
+    }
+
+    public static void clear() {
+        PINNED.remove();
+    }
+
+    public static boolean isPinned() {
+        return PINNED.get() != null;
+    }
+}
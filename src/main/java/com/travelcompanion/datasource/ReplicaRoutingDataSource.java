@@ -0,0 +1,168 @@
+package com.travelcompanion.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * Источник соединений, отправляющий транзакции {@code readOnly = true} на реплики.
+ *
+ * Решение принимается при получении соединения, поэтому источник должен
+ * стоять за LazyConnectionDataSourceProxy: иначе транзакция берет соединение
+ * раньше, чем становится известен ее признак readOnly. Реплики выбираются по
+ * кругу среди здоровых; фоновая проверка исключает недоступные и отстающие
+ * больше {@code maxLagMillis}. Если здоровых реплик нет, реплика не дала
+ * соединение или запрос закреплен за основной базой ({@link ReadYourWrites}),
+ * соединение берется из основной базы.
+ */
+@Slf4j
+public class ReplicaRoutingDataSource extends AbstractDataSource implements InitializingBean, DisposableBean {
+
+    // Отставание считается только когда реплика не догнала принятый WAL: при простое
+    // основной базы время последней примененной транзакции не меняется
+    private static final String POSTGRES_LAG =
+            "SELECT CASE WHEN NOT pg_is_in_recovery() OR pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() "
+            + "THEN 0 ELSE EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()) * 1000 END";
+
+    private final DataSource primary;
+    private final List<Replica> replicas;
+    private final long healthCheckMillis;
+    private final long maxLagMillis;
+    private final AtomicInteger next = new AtomicInteger();
+    private ScheduledExecutorService healthChecker;
+
+    public ReplicaRoutingDataSource(DataSource primary, List<HikariDataSource> replicas,
+                                    long healthCheckMillis, long maxLagMillis) {
+        this.primary = primary;
+        this.replicas = replicas.stream().map(Replica::new).collect(Collectors.toList());
+        this.healthCheckMillis = healthCheckMillis;
+        this.maxLagMillis = maxLagMillis;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        Replica replica = TransactionSynchronizationManager.isCurrentTransactionReadOnly() && !ReadYourWrites.isPinned()
+                ? chooseReplica() : null;
+        if (replica != null) {
+            try {
+                return replica.dataSource.getConnection();
+            } catch (SQLException e) {
+                replica.markDown(e.getMessage());
+            }
+        }
+        return primary.getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        // Явные учетные данные бывают только у служебных операций — им нужна основная база
+        return primary.getConnection(username, password);
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        healthChecker = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "replica-health-check");
+            thread.setDaemon(true);
+            return thread;
+        });
+        healthChecker.scheduleWithFixedDelay(this::checkHealth, 0, healthCheckMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void destroy() {
+        if (healthChecker != null) {
+            healthChecker.shutdownNow();
+        }
+        replicas.forEach(replica -> replica.dataSource.close());
+    }
+
+    /**
+     * Число реплик, которые сейчас принимают чтение
+     */
+    public long getHealthyReplicaCount() {
+        return replicas.stream().filter(replica -> replica.healthy).count();
+    }
+
+    private Replica chooseReplica() {
+        int size = replicas.size();
+        int start = Math.floorMod(next.getAndIncrement(), size);
+        for (int i = 0; i < size; i++) {
+            Replica replica = replicas.get((start + i) % size);
+            if (replica.healthy) {
+                return replica;
+            }
+        }
+        return null;
+    }
+
+    private void checkHealth() {
+        for (Replica replica : replicas) {
+            try (Connection connection = replica.dataSource.getConnection()) {
+                long lag = lagMillis(connection);
+                if (lag > maxLagMillis) {
+                    replica.markDown("отставание " + lag + " мс");
+                } else {
+                    replica.markUp();
+                }
+            } catch (SQLException | RuntimeException e) {
+                replica.markDown(e.getMessage());
+            }
+        }
+    }
+
+    private long lagMillis(Connection connection) throws SQLException {
+        if (!"PostgreSQL".equalsIgnoreCase(connection.getMetaData().getDatabaseProductName())) {
+            // У H2 нет репликации — достаточно, что соединение рабочее
+            if (!connection.isValid(2)) {
+                throw new SQLException("Соединение не прошло проверку");
+            }
+            return 0;
+        }
+        try (Statement statement = connection.createStatement();
+             ResultSet result = statement.executeQuery(POSTGRES_LAG)) {
+            result.next();
+            // null — реплика еще не применила ни одной транзакции
+            double lag = result.getDouble(1);
+            return result.wasNull() ? Long.MAX_VALUE : (long) lag;
+        }
+    }
+
+    private static class Replica {
+        private final HikariDataSource dataSource;
+        private volatile boolean healthy;
+
+        Replica(HikariDataSource dataSource) {
+            this.dataSource = dataSource;
+        }
+
+        void markUp() {
+            if (!healthy) {
+                log.info("Реплика {} принимает чтение", dataSource.getPoolName());
+            }
+            healthy = true;
+        }
+
+        void markDown(String reason) {
+            if (healthy) {
+                log.warn("Реплика {} исключена из чтения: {}", dataSource.getPoolName(), reason);
+            }
+            healthy = false;
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.travelcompanion.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Вход в зону точки или выход из нее; timestamp — время позиции, подтвердившей переход,
+ * distance — расстояние до точки в метрах (для выхода не заполняется)
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class GeofenceEventDto {
+
+    public enum Type {
+        ENTER, EXIT
+    }
+
+    private Type type;
+    private Long pointId;
+    private long timestamp;
+    private Double distance;
+}
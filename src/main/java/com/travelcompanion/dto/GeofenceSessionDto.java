@@ -0,0 +1,18 @@
+package com.travelcompanion.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Сессия отслеживания позиций на туре и радиусы зон точек в метрах
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class GeofenceSessionDto {
+    private String id;
+    private Long tourId;
+    private double enterRadius;
+    private double exitRadius;
+}
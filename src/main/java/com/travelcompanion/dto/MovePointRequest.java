@@ -0,0 +1,15 @@
+package com.travelcompanion.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Новое место точки в туре: после точки {@code afterId}, или первой, если он не указан
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MovePointRequest {
+    private Long afterId;
+}
@@ -27,10 +27,19 @@ public class PointOfInterestDto {
     private String longitude;
     
     private String photoFilename;
+
+    // Заполняются сервером по загруженному фото
+    private Integer photoWidth;
+
+    private Integer photoHeight;
+
+    private String photoPlaceholder;
     
     private String audioFilename;
     
     private String videoFilename;
     
     private Integer order;
+
+    private Long revision;
 } 
\ No newline at end of file
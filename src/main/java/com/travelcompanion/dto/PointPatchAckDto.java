@@ -0,0 +1,16 @@
+package com.travelcompanion.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Подтверждение принятой правки точки: версия появится в поле revision после записи
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PointPatchAckDto {
+    private Long id;
+    private long version;
+}
@@ -0,0 +1,20 @@
+package com.travelcompanion.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Пачка позиций, накопленных клиентом с прошлой отправки
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PositionBatchDto {
+    @NotEmpty(message = "Пачка позиций не может быть пустой")
+    private List<@Valid PositionDto> positions;
+}
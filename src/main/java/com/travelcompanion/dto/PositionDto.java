@@ -0,0 +1,31 @@
+package com.travelcompanion.dto;
+
+import jakarta.validation.constraints.DecimalMax;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Позиция клиента: координаты, точность в метрах и время замера (мс с эпохи)
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PositionDto {
+    @NotNull(message = "Широта должна быть указана")
+    @DecimalMin(value = "-90", message = "Широта должна быть от -90 до 90")
+    @DecimalMax(value = "90", message = "Широта должна быть от -90 до 90")
+    private Double lat;
+
+    @NotNull(message = "Долгота должна быть указана")
+    @DecimalMin(value = "-180", message = "Долгота должна быть от -180 до 180")
+    @DecimalMax(value = "180", message = "Долгота должна быть от -180 до 180")
+    private Double lng;
+
+    private Double accuracy;
+
+    @NotNull(message = "Время замера должно быть указано")
+    private Long timestamp;
+}
@@ -0,0 +1,24 @@
+package com.travelcompanion.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Пешеходный участок между соседними точками тура. path — ломаная из пар
+ * [широта, долгота]; routed = false, если граф не загружен или путь по нему
+ * не найден и участок — прямая между точками. distance в метрах, duration в секундах.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RouteLegDto {
+    private Long fromPointId;
+    private Long toPointId;
+    private boolean routed;
+    private double distance;
+    private long duration;
+    private List<double[]> path;
+}
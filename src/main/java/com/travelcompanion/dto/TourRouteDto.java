@@ -0,0 +1,20 @@
+package com.travelcompanion.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Пешеходный маршрут по точкам тура в их порядке: сумма участков в метрах и секундах
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TourRouteDto {
+    private Long tourId;
+    private double distance;
+    private long duration;
+    private List<RouteLegDto> legs;
+}
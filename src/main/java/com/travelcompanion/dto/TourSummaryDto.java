@@ -0,0 +1,21 @@
+package com.travelcompanion.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Тур в списке: поля тура, число точек и обложка — фото первой по порядку точки, у которой оно есть
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TourSummaryDto {
+    private Long id;
+    private String name;
+    private String location;
+    private String description;
+    private Long createdById;
+    private Long pointCount;
+    private String coverPhoto;
+}
@@ -0,0 +1,19 @@
+package com.travelcompanion.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Тур в списке популярных: оценка просмотров за окно и всего за все время
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TrendingTourDto {
+    private Long id;
+    private String name;
+    private String location;
+    private long views;
+    private long totalViews;
+}
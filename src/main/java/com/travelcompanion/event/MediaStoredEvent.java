@@ -0,0 +1,15 @@
+package com.travelcompanion.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * Новый медиафайл сохранен в хранилище вместе с метаданными.
+ * По нему запускается фоновая обработка файла.
+ */
+@Data
+@AllArgsConstructor
+public class MediaStoredEvent {
+    private String mediaType;
+    private String filename;
+}
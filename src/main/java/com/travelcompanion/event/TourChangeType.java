@@ -0,0 +1,14 @@
+package com.travelcompanion.event;
+
+/**
+ * Тип изменения тура или его точек интереса
+ */
+public enum TourChangeType {
+    TOUR_CREATED,
+    TOUR_UPDATED,
+    TOUR_DELETED,
+    POINT_CREATED,
+    POINT_UPDATED,
+    POINT_DELETED,
+    POINTS_REORDERED
+}
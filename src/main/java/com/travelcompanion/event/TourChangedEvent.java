@@ -0,0 +1,24 @@
+package com.travelcompanion.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * Событие изменения тура, публикуется сервисами внутри транзакции.
+ * Слушатели получают его после коммита.
+ */
+@Data
+@AllArgsConstructor
+public class TourChangedEvent {
+    private Long tourId;
+    private TourChangeType type;
+    private Long pointId;
+
+    public static TourChangedEvent tour(Long tourId, TourChangeType type) {
+        return new TourChangedEvent(tourId, type, null);
+    }
+
+    public static TourChangedEvent point(Long tourId, TourChangeType type, Long pointId) {
+        return new TourChangedEvent(tourId, type, pointId);
+    }
+}
@@ -0,0 +1,256 @@
+package com.travelcompanion.event;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Рассылка изменений тура подключенным SSE-клиентам.
+ *
+ * Подписчик не занимает поток: SseEmitter работает поверх асинхронного запроса
+ * сервлета, потоки нужны только на время записи. События за окно
+ * {@code app.events.coalesce-ms} сливаются в одно сообщение на тур. У каждого
+ * подписчика есть ровно один слот для неотправленного сообщения, поэтому память
+ * не растет; клиент, который не успевает читать, отключается.
+ */
+@Slf4j
+@Component
+public class TourEventHub {
+
+    private static final String EVENT_NAME = "tour-changed";
+
+    private final Map<Long, Set<Subscriber>> subscribers = new ConcurrentHashMap<>();
+    private final Map<Long, PendingChange> pending = new ConcurrentHashMap<>();
+    private final AtomicLong sequence = new AtomicLong();
+    private final ThreadPoolExecutor sender;
+
+    @Value("${app.events.emitter-timeout-ms:1800000}")
+    private long emitterTimeoutMs;
+
+    @Value("${app.events.max-lagged-flushes:20}")
+    private int maxLaggedFlushes;
+
+    public TourEventHub(@Value("${app.events.sender-threads:4}") int senderThreads,
+                        @Value("${app.events.sender-queue:10000}") int senderQueue) {
+        AtomicInteger counter = new AtomicInteger();
+        this.sender = new ThreadPoolExecutor(senderThreads, senderThreads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(senderQueue),
+                r -> {
+                    Thread thread = new Thread(r, "tour-events-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    /**
+     * Регистрирует нового подписчика на изменения тура
+     */
+    public SseEmitter subscribe(Long tourId) {
+        SseEmitter emitter = new SseEmitter(emitterTimeoutMs);
+        Subscriber subscriber = new Subscriber(tourId, emitter);
+
+        subscribers.computeIfAbsent(tourId, id -> ConcurrentHashMap.newKeySet()).add(subscriber);
+        emitter.onCompletion(() -> remove(subscriber));
+        emitter.onTimeout(() -> remove(subscriber));
+        emitter.onError(e -> remove(subscriber));
+
+        // Первое сообщение сразу фиксирует ответ, чтобы прокси не держали его в буфере
+        subscriber.offer(SseEmitter.event().comment("subscribed"), false);
+        dispatch(subscriber);
+        return emitter;
+    }
+
+    public int getSubscriberCount() {
+        return subscribers.values().stream().mapToInt(Set::size).sum();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTourChanged(TourChangedEvent event) {
+        if (event.getTourId() == null || !subscribers.containsKey(event.getTourId())) {
+            return;
+        }
+        pending.compute(event.getTourId(), (id, change) -> {
+            PendingChange merged = change != null ? change : new PendingChange();
+            merged.add(event);
+            return merged;
+        });
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onToursDeleted(ToursDeletedEvent event) {
+        event.getTourIds().forEach(id -> onTourChanged(TourChangedEvent.tour(id, TourChangeType.TOUR_DELETED)));
+    }
+
+    /**
+     * Отправляет накопленные изменения, по одному сообщению на тур
+     */
+    @Scheduled(fixedDelayString = "${app.events.coalesce-ms:250}")
+    public void flush() {
+        for (Long tourId : pending.keySet()) {
+            PendingChange change = pending.remove(tourId);
+            Set<Subscriber> tourSubscribers = subscribers.get(tourId);
+            if (change == null || tourSubscribers == null) {
+                continue;
+            }
+
+            Map<String, Object> payload = change.toPayload(tourId, sequence.incrementAndGet());
+            for (Subscriber subscriber : tourSubscribers) {
+                // Сообщение об удалении тура последнее: после его отправки соединение закрывается
+                subscriber.offer(SseEmitter.event()
+                        .id(String.valueOf(payload.get("sequence")))
+                        .name(EVENT_NAME)
+                        .data(payload, MediaType.APPLICATION_JSON), change.isTourDeleted());
+                dispatch(subscriber);
+            }
+        }
+    }
+
+    /**
+     * Периодический комментарий, чтобы обнаруживать оборванные соединения
+     */
+    @Scheduled(fixedDelayString = "${app.events.heartbeat-ms:30000}")
+    public void heartbeat() {
+        subscribers.values().forEach(tourSubscribers -> tourSubscribers.forEach(subscriber -> {
+            // Не вытесняем неотправленное изменение служебным сообщением
+            if (subscriber.slot.compareAndSet(null, new Message(SseEmitter.event().comment("ping"), false))) {
+                dispatch(subscriber);
+            }
+        }));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        sender.shutdownNow();
+        subscribers.values().forEach(tourSubscribers -> tourSubscribers.forEach(subscriber -> subscriber.emitter.complete()));
+        subscribers.clear();
+    }
+
+    private void dispatch(Subscriber subscriber) {
+        if (!subscriber.sending.compareAndSet(false, true)) {
+            // Предыдущая запись еще идет — сообщение осталось в слоте и уйдет следом
+            if (subscriber.laggedFlushes.incrementAndGet() > maxLaggedFlushes) {
+                drop(subscriber, "отстает от потока событий");
+            }
+            return;
+        }
+        try {
+            sender.execute(() -> drain(subscriber));
+        } catch (RejectedExecutionException e) {
+            subscriber.sending.set(false);
+            drop(subscriber, "очередь отправки переполнена");
+        }
+    }
+
+    private void drain(Subscriber subscriber) {
+        try {
+            Message message;
+            while ((message = subscriber.slot.getAndSet(null)) != null) {
+                subscriber.emitter.send(message.event);
+                subscriber.laggedFlushes.set(0);
+                if (message.last) {
+                    subscriber.closed = true;
+                    subscriber.emitter.complete();
+                    break;
+                }
+            }
+        } catch (IOException | IllegalStateException e) {
+            remove(subscriber);
+            subscriber.emitter.completeWithError(e);
+        } finally {
+            subscriber.sending.set(false);
+        }
+        // Сообщение могло прийти между последней проверкой слота и сбросом флага
+        if (subscriber.slot.get() != null && !subscriber.closed) {
+            dispatch(subscriber);
+        }
+    }
+
+    private void drop(Subscriber subscriber, String reason) {
+        log.debug("Отключен подписчик тура {}: {}", subscriber.tourId, reason);
+        remove(subscriber);
+        subscriber.emitter.complete();
+    }
+
+    private void remove(Subscriber subscriber) {
+        subscribers.computeIfPresent(subscriber.tourId, (id, set) -> {
+            set.remove(subscriber);
+            return set.isEmpty() ? null : set;
+        });
+    }
+
+    private static class Subscriber {
+        private final Long tourId;
+        private final SseEmitter emitter;
+        private final AtomicReference<Message> slot = new AtomicReference<>();
+        private final AtomicBoolean sending = new AtomicBoolean();
+        private final AtomicInteger laggedFlushes = new AtomicInteger();
+        private volatile boolean closed;
+
+        Subscriber(Long tourId, SseEmitter emitter) {
+            this.tourId = tourId;
+            this.emitter = emitter;
+        }
+
+        void offer(SseEmitter.SseEventBuilder event, boolean last) {
+            // Новое сообщение вытесняет неотправленное: клиент все равно перечитывает тур целиком.
+            // Последнее сообщение не вытесняется — флаг закрытия лежит в слоте вместе с ним
+            slot.updateAndGet(current -> current != null && current.last ? current : new Message(event, last));
+        }
+    }
+
+    private static class Message {
+        private final SseEmitter.SseEventBuilder event;
+        private final boolean last;
+
+        Message(SseEmitter.SseEventBuilder event, boolean last) {
+            this.event = event;
+            this.last = last;
+        }
+    }
+
+    private static class PendingChange {
+        private final Set<TourChangeType> types = EnumSet.noneOf(TourChangeType.class);
+        private final Set<Long> pointIds = new TreeSet<>();
+
+        void add(TourChangedEvent event) {
+            types.add(event.getType());
+            if (event.getPointId() != null) {
+                pointIds.add(event.getPointId());
+            }
+        }
+
+        boolean isTourDeleted() {
+            return types.contains(TourChangeType.TOUR_DELETED);
+        }
+
+        Map<String, Object> toPayload(Long tourId, long sequence) {
+            Map<String, Object> payload = new LinkedHashMap<>();
+            payload.put("sequence", sequence);
+            payload.put("tourId", tourId);
+            payload.put("types", types);
+            payload.put("pointIds", pointIds);
+            return payload;
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.travelcompanion.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * Удаление одного или нескольких туров одной операцией. Публикуется вместо
+ * отдельных событий TOUR_DELETED, чтобы кэши и очистка медиа срабатывали
+ * один раз на всю пачку.
+ */
+@Data
+@AllArgsConstructor
+public class ToursDeletedEvent {
+    private List<Long> tourIds;
+}
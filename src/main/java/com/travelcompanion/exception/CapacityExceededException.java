@@ -0,0 +1,12 @@
+package com.travelcompanion.exception;
+
+/**
+ * Исчерпан лимит ресурсов узла (например, активных сессий). Отдается клиенту
+ * как 503: запрос можно повторить позже.
+ */
+public class CapacityExceededException extends RuntimeException {
+
+    public CapacityExceededException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,12 @@
+package com.travelcompanion.exception;
+
+/**
+ * Контрольная сумма принятой части загрузки не совпала с заявленной.
+ * Часть отбрасывается, клиент отправляет ее повторно.
+ */
+public class ChecksumMismatchException extends RuntimeException {
+
+    public ChecksumMismatchException(String message) {
+        super(message);
+    }
+}
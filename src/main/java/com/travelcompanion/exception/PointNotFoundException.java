@@ -0,0 +1,8 @@
+package com.travelcompanion.exception;
+
+public class PointNotFoundException extends ResourceNotFoundException {
+
+    public PointNotFoundException(Long id) {
+        super("Точка интереса не найдена: " + id);
+    }
+}
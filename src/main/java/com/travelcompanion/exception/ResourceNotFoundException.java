@@ -0,0 +1,14 @@
+package com.travelcompanion.exception;
+
+/**
+ * Запрошенный объект не существует. Отдается клиенту как 404.
+ *
+ * Стек вызовов не заполняется: такие исключения ожидаемы и частые
+ * (устаревшие ссылки, перебор идентификаторов), а трасса им не нужна.
+ */
+public class ResourceNotFoundException extends RuntimeException {
+
+    public ResourceNotFoundException(String message) {
+        super(message, null, false, false);
+    }
+}
@@ -0,0 +1,8 @@
+package com.travelcompanion.exception;
+
+public class TourNotFoundException extends ResourceNotFoundException {
+
+    public TourNotFoundException(Long id) {
+        super("Тур не найден: " + id);
+    }
+}
@@ -0,0 +1,12 @@
+package com.travelcompanion.exception;
+
+/**
+ * Часть загрузки пришла не с того смещения или параллельно другой части.
+ * Отдается клиенту как 409: ему нужно запросить текущее смещение и продолжить с него.
+ */
+public class UploadConflictException extends RuntimeException {
+
+    public UploadConflictException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,12 @@
+package com.travelcompanion.exception;
+
+public class UserNotFoundException extends ResourceNotFoundException {
+
+    public UserNotFoundException(Long id) {
+        super("Пользователь не найден: " + id);
+    }
+
+    public UserNotFoundException(String username) {
+        super("Пользователь не найден: " + username);
+    }
+}
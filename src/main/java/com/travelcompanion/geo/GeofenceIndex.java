@@ -0,0 +1,152 @@
+package com.travelcompanion.geo;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Сеточный индекс точек тура для проверки «рядом ли позиция с точкой».
+ *
+ * Координаты переводятся в метры локальной равнопромежуточной проекцией с
+ * центром в середине тура — на масштабе города погрешность доли процента.
+ * Сторона ячейки равна наибольшему радиусу запроса, так что запрос смотрит
+ * не больше 3x3 ячеек независимо от числа точек в туре.
+ */
+public final class GeofenceIndex {
+
+    private static final double METERS_PER_DEGREE = 111_320.0;
+
+    private final double originLat;
+    private final double originLng;
+    private final double lngScale;
+    private final double cellSize;
+    private final long[] ids;
+    private final double[] xs;
+    private final double[] ys;
+    private final Map<Long, int[]> cells;
+
+    private GeofenceIndex(double originLat, double originLng, double cellSize,
+                          long[] ids, double[] xs, double[] ys, Map<Long, int[]> cells) {
+        this.originLat = originLat;
+        this.originLng = originLng;
+        this.lngScale = Math.cos(Math.toRadians(originLat));
+        this.cellSize = cellSize;
+        this.ids = ids;
+        this.xs = xs;
+        this.ys = ys;
+        this.cells = cells;
+    }
+
+    /**
+     * Строит индекс по точкам (id, широта, долгота); cellSize — наибольший радиус запроса в метрах
+     */
+    public static GeofenceIndex build(List<Location> locations, double cellSize) {
+        if (cellSize <= 0) {
+            throw new IllegalArgumentException("Размер ячейки должен быть положительным");
+        }
+        double minLat = 90, maxLat = -90, minLng = 180, maxLng = -180;
+        for (Location location : locations) {
+            minLat = Math.min(minLat, location.lat);
+            maxLat = Math.max(maxLat, location.lat);
+            minLng = Math.min(minLng, location.lng);
+            maxLng = Math.max(maxLng, location.lng);
+        }
+        double originLat = locations.isEmpty() ? 0 : (minLat + maxLat) / 2;
+        double originLng = locations.isEmpty() ? 0 : (minLng + maxLng) / 2;
+
+        int count = locations.size();
+        long[] ids = new long[count];
+        double[] xs = new double[count];
+        double[] ys = new double[count];
+        Map<Long, List<Integer>> grouped = new HashMap<>();
+        GeofenceIndex projection = new GeofenceIndex(originLat, originLng, cellSize, null, null, null, null);
+        for (int i = 0; i < count; i++) {
+            Location location = locations.get(i);
+            ids[i] = location.id;
+            xs[i] = projection.x(location.lng);
+            ys[i] = projection.y(location.lat);
+            grouped.computeIfAbsent(projection.cell(xs[i], ys[i]), c -> new ArrayList<>()).add(i);
+        }
+        Map<Long, int[]> cells = new HashMap<>(grouped.size() * 2);
+        grouped.forEach((cell, members) -> cells.put(cell, members.stream().mapToInt(Integer::intValue).toArray()));
+        return new GeofenceIndex(originLat, originLng, cellSize, ids, xs, ys, cells);
+    }
+
+    /**
+     * Вызывает visitor для каждой точки не дальше radius метров от позиции
+     */
+    public void within(double lat, double lng, double radius, Visitor visitor) {
+        if (radius > cellSize) {
+            throw new IllegalArgumentException("Радиус больше размера ячейки индекса: " + radius);
+        }
+        double x = x(lng);
+        double y = y(lat);
+        long cx = (long) Math.floor(x / cellSize);
+        long cy = (long) Math.floor(y / cellSize);
+        double limit = radius * radius;
+        for (long i = cx - 1; i <= cx + 1; i++) {
+            for (long j = cy - 1; j <= cy + 1; j++) {
+                int[] members = cells.get(key(i, j));
+                if (members == null) {
+                    continue;
+                }
+                for (int member : members) {
+                    double dx = xs[member] - x;
+                    double dy = ys[member] - y;
+                    double squared = dx * dx + dy * dy;
+                    if (squared <= limit) {
+                        visitor.visit(ids[member], Math.sqrt(squared));
+                    }
+                }
+            }
+        }
+    }
+
+    public int size() {
+        return ids.length;
+    }
+
+    private double x(double lng) {
+        // Переход через 180-й меридиан: разница долгот берется кратчайшая
+        double delta = lng - originLng;
+        if (delta > 180) {
+            delta -= 360;
+        } else if (delta < -180) {
+            delta += 360;
+        }
+        return delta * lngScale * METERS_PER_DEGREE;
+    }
+
+    private double y(double lat) {
+        return (lat - originLat) * METERS_PER_DEGREE;
+    }
+
+    private long cell(double x, double y) {
+        return key((long) Math.floor(x / cellSize), (long) Math.floor(y / cellSize));
+    }
+
+    private static long key(long cx, long cy) {
+        return (cx << 32) ^ (cy & 0xFFFFFFFFL);
+    }
+
+    @FunctionalInterface
+    public interface Visitor {
+        void visit(long id, double distanceMeters);
+    }
+
+    /**
+     * Точка тура для индекса
+     */
+    public static final class Location {
+        private final long id;
+        private final double lat;
+        private final double lng;
+
+        public Location(long id, double lat, double lng) {
+            this.id = id;
+            this.lat = lat;
+            this.lng = lng;
+        }
+    }
+}
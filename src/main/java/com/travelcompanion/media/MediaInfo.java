@@ -0,0 +1,17 @@
+package com.travelcompanion.media;
+
+import lombok.Data;
+
+/**
+ * Параметры файла, определенные {@link MediaProbe}
+ */
+@Data
+public class MediaInfo {
+    private String contentType;
+    private long size;
+    private String sha256;
+    private Integer width;
+    private Integer height;
+    private Long durationMillis;
+    private String placeholder;
+}
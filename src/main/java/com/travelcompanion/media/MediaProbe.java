@@ -0,0 +1,230 @@
+package com.travelcompanion.media;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Iterator;
+
+/**
+ * Определение типа и параметров загруженного файла по его содержимому.
+ *
+ * MIME-тип определяется по сигнатуре, а не по заголовку клиента. Для
+ * изображений читается только заголовок (размеры без декодирования), для
+ * MP4/MOV — блоки moov/mvhd/tkhd, для MP3 — первый кадр и заголовок Xing.
+ */
+public final class MediaProbe {
+
+    public static final String OCTET_STREAM = "application/octet-stream";
+
+    private static final int HEADER_SIZE = 64;
+
+    private MediaProbe() {
+    }
+
+    public static MediaInfo probe(Path file) throws IOException {
+        MediaInfo info = new MediaInfo();
+        info.setSize(Files.size(file));
+        info.setSha256(sha256(file));
+
+        byte[] header = readHeader(file);
+        info.setContentType(sniff(header));
+
+        String contentType = info.getContentType();
+        if (contentType.startsWith("image/")) {
+            readImageSize(file, info);
+        } else if (contentType.equals("video/mp4") || contentType.equals("audio/mp4")
+                || contentType.equals("video/quicktime")) {
+            readMp4Header(file, info);
+        } else if (contentType.equals("audio/mpeg")) {
+            info.setDurationMillis(Mp3Frames.estimateDurationMillis(file));
+        }
+        return info;
+    }
+
+    /**
+     * MIME-тип по первым байтам файла или {@link #OCTET_STREAM}
+     */
+    public static String sniff(byte[] h) {
+        if (startsWith(h, 0, 0xFF, 0xD8, 0xFF)) {
+            return "image/jpeg";
+        }
+        if (startsWith(h, 0, 0x89, 'P', 'N', 'G')) {
+            return "image/png";
+        }
+        if (ascii(h, 0, "GIF8")) {
+            return "image/gif";
+        }
+        if (ascii(h, 0, "RIFF") && ascii(h, 8, "WEBP")) {
+            return "image/webp";
+        }
+        if (ascii(h, 0, "RIFF") && ascii(h, 8, "WAVE")) {
+            return "audio/wav";
+        }
+        if (ascii(h, 0, "OggS")) {
+            return "audio/ogg";
+        }
+        if (ascii(h, 0, "fLaC")) {
+            return "audio/flac";
+        }
+        if (ascii(h, 0, "ID3") || (h.length > 1 && (h[0] & 0xFF) == 0xFF && (h[1] & 0xE0) == 0xE0)) {
+            return "audio/mpeg";
+        }
+        if (startsWith(h, 0, 0x1A, 0x45, 0xDF, 0xA3)) {
+            return "video/webm";
+        }
+        if (ascii(h, 4, "ftyp")) {
+            String brand = h.length >= 12 ? new String(h, 8, 4, StandardCharsets.US_ASCII) : "";
+            switch (brand) {
+                case "heic":
+                case "heix":
+                case "mif1":
+                    return "image/heic";
+                case "qt  ":
+                    return "video/quicktime";
+                case "M4A ":
+                case "M4B ":
+                    return "audio/mp4";
+                default:
+                    return "video/mp4";
+            }
+        }
+        return OCTET_STREAM;
+    }
+
+    private static void readImageSize(Path file, MediaInfo info) throws IOException {
+        try (ImageInputStream in = ImageIO.createImageInputStream(file.toFile())) {
+            if (in == null) {
+                return;
+            }
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(in);
+            if (!readers.hasNext()) {
+                return;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(in, true, true);
+                info.setWidth(reader.getWidth(0));
+                info.setHeight(reader.getHeight(0));
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    /**
+     * Длительность из mvhd и размеры первой видеодорожки из tkhd
+     */
+    private static void readMp4Header(Path file, MediaInfo info) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            Mp4Boxes.Box moov = Mp4Boxes.find(channel, 0, channel.size(), "moov");
+            if (moov == null || moov.getPayloadSize() > 64L * 1024 * 1024) {
+                return;
+            }
+            ByteBuffer payload = Mp4Boxes.read(channel, moov.getPayloadOffset(), (int) moov.getPayloadSize());
+            for (Mp4Boxes.Box box : Mp4Boxes.children(payload)) {
+                if (box.is("mvhd")) {
+                    readMvhd(payload, box, info);
+                } else if (box.is("trak") && info.getWidth() == null) {
+                    ByteBuffer trak = Mp4Boxes.payload(payload, box);
+                    for (Mp4Boxes.Box child : Mp4Boxes.children(trak)) {
+                        if (child.is("tkhd")) {
+                            readTkhd(trak, child, info);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    private static void readMvhd(ByteBuffer buffer, Mp4Boxes.Box mvhd, MediaInfo info) {
+        int at = (int) mvhd.getPayloadOffset();
+        if (mvhd.getPayloadSize() < 1) {
+            return;
+        }
+        int version = buffer.get(at) & 0xFF;
+        // Длительность кончается на 32-м байте в версии 1 и на 20-м в версии 0
+        if (mvhd.getPayloadSize() < (version == 1 ? 32 : 20)) {
+            return;
+        }
+        long timescale;
+        long duration;
+        if (version == 1) {
+            timescale = Integer.toUnsignedLong(buffer.getInt(at + 20));
+            duration = buffer.getLong(at + 24);
+        } else {
+            timescale = Integer.toUnsignedLong(buffer.getInt(at + 12));
+            duration = Integer.toUnsignedLong(buffer.getInt(at + 16));
+        }
+        if (timescale > 0) {
+            info.setDurationMillis(duration * 1000 / timescale);
+        }
+    }
+
+    private static void readTkhd(ByteBuffer buffer, Mp4Boxes.Box tkhd, MediaInfo info) {
+        int at = (int) tkhd.getPayloadOffset();
+        if (tkhd.getPayloadSize() < 1) {
+            return;
+        }
+        int version = buffer.get(at) & 0xFF;
+        int sizeAt = at + (version == 1 ? 88 : 76);
+        if (sizeAt + 8 > tkhd.getPayloadOffset() + tkhd.getPayloadSize()) {
+            return;
+        }
+        // Ширина и высота в формате 16.16
+        int width = buffer.getInt(sizeAt) >>> 16;
+        int height = buffer.getInt(sizeAt + 4) >>> 16;
+        if (width > 0 && height > 0) {
+            info.setWidth(width);
+            info.setHeight(height);
+        }
+    }
+
+    private static String sha256(Path file) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        try (InputStream in = new DigestInputStream(Files.newInputStream(file), digest)) {
+            in.transferTo(OutputStream.nullOutputStream());
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private static byte[] readHeader(Path file) throws IOException {
+        try (InputStream in = Files.newInputStream(file)) {
+            return in.readNBytes(HEADER_SIZE);
+        }
+    }
+
+    private static boolean startsWith(byte[] bytes, int offset, int... expected) {
+        if (bytes.length < offset + expected.length) {
+            return false;
+        }
+        for (int i = 0; i < expected.length; i++) {
+            if ((bytes[offset + i] & 0xFF) != expected[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean ascii(byte[] bytes, int offset, String expected) {
+        return bytes.length >= offset + expected.length()
+                && new String(bytes, offset, expected.length(), StandardCharsets.US_ASCII).equals(expected);
+    }
+}
@@ -0,0 +1,223 @@
+package com.travelcompanion.media;
+
+import lombok.Data;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.PushbackInputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Разбор заголовков кадров MPEG Audio Layer III.
+ *
+ * Длительность берется из заголовка Xing/Info или VBRI в первом кадре, а
+ * если его нет, файл считается CBR и длительность оценивается по битрейту.
+ * Для перемотки по времени строится таблица смещений кадров
+ * ({@link #seekIndex}) полным проходом по файлу — она точна и для VBR.
+ */
+public final class Mp3Frames {
+
+    private static final int[] BITRATES_V1 = {0, 32, 40, 48, 56, 64, 80, 96, 112, 128, 160, 192, 224, 256, 320};
+    private static final int[] BITRATES_V2 = {0, 8, 16, 24, 32, 40, 48, 56, 64, 80, 96, 112, 128, 144, 160};
+    private static final int[] SAMPLE_RATES_V1 = {44100, 48000, 32000};
+
+    // Сколько байт после тегов просматривать в поисках первого кадра
+    private static final int SYNC_SEARCH_LIMIT = 64 * 1024;
+
+    // Самый длинный кадр Layer III: 320 кбит/с при 32 кГц с заполнением
+    private static final int MAX_FRAME_SIZE = 1441;
+
+    private Mp3Frames() {
+    }
+
+    /**
+     * Длительность в миллисекундах или null, если кадры не найдены
+     */
+    public static Long estimateDurationMillis(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long start = audioStart(channel);
+            if (start >= size) {
+                return null;
+            }
+            ByteBuffer head = ByteBuffer.allocate((int) Math.min(SYNC_SEARCH_LIMIT, size - start));
+            channel.read(head, start);
+            byte[] bytes = head.array();
+            int length = head.position();
+
+            for (int at = 0; at + 4 <= length; at++) {
+                Frame frame = Frame.parse(bytes, at);
+                if (frame == null) {
+                    continue;
+                }
+                // Совпадение с синхрословом случайно, если следующий кадр не на месте
+                int next = at + frame.getLength();
+                if (next + 4 <= length && Frame.parse(bytes, next) == null) {
+                    continue;
+                }
+                Long frames = vbrFrameCount(bytes, at, length, frame);
+                if (frames != null) {
+                    return frames * frame.getSamplesPerFrame() * 1000 / frame.getSampleRate();
+                }
+                long audioBytes = size - start - at - (hasId3v1(channel, size) ? 128 : 0);
+                return audioBytes * 8 / frame.getBitrateKbps();
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Смещения кадров с шагом intervalMillis: элемент i — начало первого кадра,
+     * который начинается не раньше i * intervalMillis. Служебный кадр Xing/Info
+     * в отсчет времени не входит. Пустой массив, если кадров нет.
+     */
+    public static long[] seekIndex(Path file, int intervalMillis) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long position = audioStart(channel);
+            if (position >= size) {
+                return new long[0];
+            }
+            channel.position(position);
+            PushbackInputStream in = new PushbackInputStream(
+                    new BufferedInputStream(Channels.newInputStream(channel), SYNC_SEARCH_LIMIT), 3);
+
+            long[] offsets = new long[64];
+            int count = 0;
+            double elapsedMillis = 0;
+            boolean first = true;
+            byte[] frameBytes = new byte[MAX_FRAME_SIZE];
+            while (true) {
+                int read = in.readNBytes(frameBytes, 0, 4);
+                if (read < 4) {
+                    break;
+                }
+                Frame frame = Frame.parse(frameBytes, 0);
+                if (frame == null || frame.getLength() > MAX_FRAME_SIZE) {
+                    // Не кадр: сдвигаемся на байт и ищем синхрослово дальше
+                    in.unread(frameBytes, 1, 3);
+                    position++;
+                    continue;
+                }
+                int body = in.readNBytes(frameBytes, 4, frame.getLength() - 4);
+                if (body < frame.getLength() - 4) {
+                    break;
+                }
+                boolean vbrHeader = first && vbrFrameCount(frameBytes, 0, frame.getLength(), frame) != null;
+                first = false;
+                if (!vbrHeader) {
+                    if (elapsedMillis >= (double) count * intervalMillis) {
+                        if (count == offsets.length) {
+                            offsets = Arrays.copyOf(offsets, count * 2);
+                        }
+                        offsets[count++] = position;
+                    }
+                    elapsedMillis += frame.getSamplesPerFrame() * 1000.0 / frame.getSampleRate();
+                }
+                position += frame.getLength();
+            }
+            return Arrays.copyOf(offsets, count);
+        }
+    }
+
+    /**
+     * Смещение первого байта после тега ID3v2 (или 0, если тега нет)
+     */
+    public static long audioStart(FileChannel channel) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(10);
+        channel.read(header, 0);
+        byte[] h = header.array();
+        if (header.position() < 10 || h[0] != 'I' || h[1] != 'D' || h[2] != '3') {
+            return 0;
+        }
+        // Размер тега записан в 4 байтах по 7 бит
+        long size = ((h[6] & 0x7F) << 21) | ((h[7] & 0x7F) << 14) | ((h[8] & 0x7F) << 7) | (h[9] & 0x7F);
+        boolean footer = (h[5] & 0x10) != 0;
+        return 10 + size + (footer ? 10 : 0);
+    }
+
+    private static Long vbrFrameCount(byte[] bytes, int frameAt, int length, Frame frame) {
+        int xing = frameAt + 4 + frame.getSideInfoSize();
+        if (xing + 12 <= length) {
+            String tag = new String(bytes, xing, 4, StandardCharsets.US_ASCII);
+            if (tag.equals("Xing") || tag.equals("Info")) {
+                int flags = readInt(bytes, xing + 4);
+                if ((flags & 1) != 0) {
+                    return Integer.toUnsignedLong(readInt(bytes, xing + 8));
+                }
+            }
+        }
+        int vbri = frameAt + 36;
+        if (vbri + 18 <= length && new String(bytes, vbri, 4, StandardCharsets.US_ASCII).equals("VBRI")) {
+            return Integer.toUnsignedLong(readInt(bytes, vbri + 14));
+        }
+        return null;
+    }
+
+    private static boolean hasId3v1(FileChannel channel, long size) throws IOException {
+        if (size < 128) {
+            return false;
+        }
+        ByteBuffer tag = ByteBuffer.allocate(3);
+        channel.read(tag, size - 128);
+        return new String(tag.array(), StandardCharsets.US_ASCII).equals("TAG");
+    }
+
+    private static int readInt(byte[] bytes, int at) {
+        return ((bytes[at] & 0xFF) << 24) | ((bytes[at + 1] & 0xFF) << 16)
+                | ((bytes[at + 2] & 0xFF) << 8) | (bytes[at + 3] & 0xFF);
+    }
+
+    /**
+     * Заголовок одного кадра Layer III
+     */
+    @Data
+    public static class Frame {
+        private boolean mpeg1;
+        private int bitrateKbps;
+        private int sampleRate;
+        private int samplesPerFrame;
+        private int length;
+        private int sideInfoSize;
+
+        /**
+         * Разбирает 4 байта заголовка кадра или возвращает null, если это не кадр Layer III
+         */
+        public static Frame parse(byte[] bytes, int at) {
+            if (at + 4 > bytes.length) {
+                return null;
+            }
+            int b1 = bytes[at + 1] & 0xFF;
+            int b2 = bytes[at + 2] & 0xFF;
+            int b3 = bytes[at + 3] & 0xFF;
+            if ((bytes[at] & 0xFF) != 0xFF || (b1 & 0xE0) != 0xE0) {
+                return null;
+            }
+            int version = (b1 >> 3) & 0x03;
+            int layer = (b1 >> 1) & 0x03;
+            int bitrateIndex = b2 >> 4;
+            int sampleRateIndex = (b2 >> 2) & 0x03;
+            if (version == 1 || layer != 1 || bitrateIndex == 0 || bitrateIndex == 15 || sampleRateIndex == 3) {
+                return null;
+            }
+
+            Frame frame = new Frame();
+            frame.mpeg1 = version == 3;
+            boolean mono = (b3 >> 6) == 3;
+            frame.bitrateKbps = (frame.mpeg1 ? BITRATES_V1 : BITRATES_V2)[bitrateIndex];
+            // MPEG-2 — половина частот MPEG-1, MPEG-2.5 — четверть
+            frame.sampleRate = SAMPLE_RATES_V1[sampleRateIndex] >> (version == 3 ? 0 : version == 2 ? 1 : 2);
+            frame.samplesPerFrame = frame.mpeg1 ? 1152 : 576;
+            int padding = (b2 >> 1) & 0x01;
+            frame.length = frame.samplesPerFrame / 8 * frame.bitrateKbps * 1000 / frame.sampleRate + padding;
+            frame.sideInfoSize = frame.mpeg1 ? (mono ? 17 : 32) : (mono ? 9 : 17);
+            return frame;
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package com.travelcompanion.media;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Разбор блоков (box/atom) контейнеров ISO BMFF: MP4, M4A, MOV.
+ *
+ * Блок начинается с 32-битного размера и четырехбуквенного типа; размер 1
+ * означает, что за типом следует 64-битный размер, 0 — блок до конца файла.
+ */
+public final class Mp4Boxes {
+
+    private Mp4Boxes() {
+    }
+
+    /**
+     * Ищет блок верхнего уровня указанного типа на участке файла
+     */
+    public static Box find(FileChannel channel, long from, long to, String type) throws IOException {
+        for (Box box : list(channel, from, to)) {
+            if (box.is(type)) {
+                return box;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Перечисляет блоки верхнего уровня на участке файла, читая только заголовки
+     */
+    public static List<Box> list(FileChannel channel, long from, long to) throws IOException {
+        List<Box> boxes = new ArrayList<>();
+        ByteBuffer header = ByteBuffer.allocate(16);
+        long position = from;
+        while (position + 8 <= to) {
+            header.clear().limit((int) Math.min(16, to - position));
+            readFully(channel, header, position);
+            header.flip();
+            long size = Integer.toUnsignedLong(header.getInt(0));
+            String type = type(header, 4);
+            int headerSize = 8;
+            if (size == 1) {
+                if (header.limit() < 16) {
+                    break;
+                }
+                size = header.getLong(8);
+                headerSize = 16;
+            } else if (size == 0) {
+                size = to - position;
+            }
+            if (size < headerSize || position + size > to) {
+                // Поврежденный или обрезанный файл: дальше разбирать нечего
+                break;
+            }
+            boxes.add(new Box(type, position, headerSize, size));
+            position += size;
+        }
+        return boxes;
+    }
+
+    /**
+     * Перечисляет вложенные блоки в буфере; смещения считаются от начала буфера
+     */
+    public static List<Box> children(ByteBuffer buffer) {
+        List<Box> boxes = new ArrayList<>();
+        int position = 0;
+        int end = buffer.limit();
+        while (position + 8 <= end) {
+            long size = Integer.toUnsignedLong(buffer.getInt(position));
+            String type = type(buffer, position + 4);
+            int headerSize = 8;
+            if (size == 1) {
+                if (position + 16 > end) {
+                    break;
+                }
+                size = buffer.getLong(position + 8);
+                headerSize = 16;
+            } else if (size == 0) {
+                size = end - position;
+            }
+            if (size < headerSize || position + size > end) {
+                break;
+            }
+            boxes.add(new Box(type, position, headerSize, size));
+            position += (int) size;
+        }
+        return boxes;
+    }
+
+    /**
+     * Содержимое блока как отдельный буфер с нулевым началом
+     */
+    public static ByteBuffer payload(ByteBuffer buffer, Box box) {
+        return buffer.duplicate()
+                .position((int) box.getPayloadOffset())
+                .limit((int) (box.getPayloadOffset() + box.getPayloadSize()))
+                .slice();
+    }
+
+    public static ByteBuffer read(FileChannel channel, long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        readFully(channel, buffer, position);
+        return buffer.flip();
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position);
+            if (read < 0) {
+                throw new EOFException("Неожиданный конец файла на позиции " + position);
+            }
+            position += read;
+        }
+    }
+
+    private static String type(ByteBuffer buffer, int at) {
+        byte[] type = new byte[4];
+        for (int i = 0; i < 4; i++) {
+            type[i] = buffer.get(at + i);
+        }
+        return new String(type, StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * Заголовок блока: тип, смещение начала, длина заголовка и полный размер
+     */
+    @Data
+    @AllArgsConstructor
+    public static class Box {
+        private String type;
+        private long offset;
+        private int headerSize;
+        private long size;
+
+        public boolean is(String type) {
+            return this.type.equals(type);
+        }
+
+        public long getPayloadOffset() {
+            return offset + headerSize;
+        }
+
+        public long getPayloadSize() {
+            return size - headerSize;
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package com.travelcompanion.media;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Перенос блока moov в начало MP4/MOV ("faststart").
+ *
+ * Телефоны пишут moov после данных (mdat), и браузеру приходится скачать
+ * почти весь файл, прежде чем начать воспроизведение. Перестановка не
+ * перекодирует видео: moov ставится перед первым mdat, а смещения чанков в
+ * таблицах stco/co64, указывающие на сдвинутые данные, увеличиваются на
+ * размер moov. Размер файла не меняется.
+ */
+public final class Mp4Faststart {
+
+    // Блоки, внутри которых могут лежать таблицы смещений чанков
+    private static final Set<String> CONTAINERS = Set.of("moov", "trak", "mdia", "minf", "stbl", "edts", "dinf", "mvex");
+
+    private static final long MAX_MOOV_SIZE = 64L * 1024 * 1024;
+
+    private Mp4Faststart() {
+    }
+
+    /**
+     * Записывает в target файл с moov в начале. Возвращает false и ничего не
+     * пишет, если файл уже подготовлен или его структура не поддерживается.
+     */
+    public static boolean rewrite(Path source, Path target) throws IOException {
+        try (FileChannel in = FileChannel.open(source, StandardOpenOption.READ)) {
+            List<Mp4Boxes.Box> boxes = Mp4Boxes.list(in, 0, in.size());
+            Mp4Boxes.Box moov = null;
+            Mp4Boxes.Box firstMdat = null;
+            long parsed = 0;
+            for (Mp4Boxes.Box box : boxes) {
+                parsed = box.getOffset() + box.getSize();
+                if (box.is("moov")) {
+                    moov = box;
+                } else if (box.is("mdat") && firstMdat == null) {
+                    firstMdat = box;
+                } else if (box.is("moof")) {
+                    // Фрагментированный MP4 воспроизводится потоково и без перестановки
+                    return false;
+                }
+            }
+            if (parsed != in.size() || moov == null || firstMdat == null
+                    || moov.getOffset() < firstMdat.getOffset() || moov.getSize() > MAX_MOOV_SIZE) {
+                return false;
+            }
+
+            ByteBuffer moovBytes = Mp4Boxes.read(in, moov.getOffset(), (int) moov.getSize());
+            if (!shiftChunkOffsets(moovBytes, firstMdat.getOffset(), moov.getOffset(), moov.getSize())) {
+                return false;
+            }
+
+            try (FileChannel out = FileChannel.open(target, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                // Блоки до первого mdat (ftyp и т.п.) остаются на месте, за ними — moov
+                copy(in, 0, firstMdat.getOffset(), out);
+                while (moovBytes.hasRemaining()) {
+                    out.write(moovBytes);
+                }
+                copy(in, firstMdat.getOffset(), moov.getOffset() - firstMdat.getOffset(), out);
+                long tail = moov.getOffset() + moov.getSize();
+                copy(in, tail, in.size() - tail, out);
+                out.force(false);
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Сдвигает смещения чанков, попадающие в [from, moovOffset), на размер moov.
+     * Возвращает false, если moov сжат или смещение не помещается в stco.
+     */
+    private static boolean shiftChunkOffsets(ByteBuffer moov, long from, long moovOffset, long shift) {
+        List<Mp4Boxes.Box> root = Mp4Boxes.children(moov);
+        if (root.isEmpty()) {
+            return false;
+        }
+        return shiftIn(Mp4Boxes.payload(moov, root.get(0)), from, moovOffset, shift);
+    }
+
+    private static boolean shiftIn(ByteBuffer container, long from, long moovOffset, long shift) {
+        for (Mp4Boxes.Box box : Mp4Boxes.children(container)) {
+            ByteBuffer payload = Mp4Boxes.payload(container, box);
+            if (box.is("cmov")) {
+                return false;
+            } else if (CONTAINERS.contains(box.getType())) {
+                if (!shiftIn(payload, from, moovOffset, shift)) {
+                    return false;
+                }
+            } else if (box.is("stco") || box.is("co64")) {
+                boolean wide = box.is("co64");
+                int entrySize = wide ? 8 : 4;
+                // Полный блок: версия и флаги, затем число записей; таблица должна уместиться в блок
+                if (payload.limit() < 8) {
+                    return false;
+                }
+                long count = Integer.toUnsignedLong(payload.getInt(4));
+                if (8 + count * entrySize > payload.limit()) {
+                    return false;
+                }
+                for (int i = 0; i < count; i++) {
+                    int at = 8 + i * entrySize;
+                    long offset = wide ? payload.getLong(at) : Integer.toUnsignedLong(payload.getInt(at));
+                    if (offset < from || offset >= moovOffset) {
+                        continue;
+                    }
+                    long shifted = offset + shift;
+                    if (wide) {
+                        payload.putLong(at, shifted);
+                    } else if (shifted > 0xFFFFFFFFL) {
+                        return false;
+                    } else {
+                        payload.putInt(at, (int) shifted);
+                    }
+                }
+            }
+        }
+        return true;
+    }
+
+    private static void copy(FileChannel in, long position, long count, FileChannel out) throws IOException {
+        long done = 0;
+        while (done < count) {
+            done += in.transferTo(position + done, count - done, out);
+        }
+    }
+}
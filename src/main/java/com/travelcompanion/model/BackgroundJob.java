@@ -0,0 +1,70 @@
+package com.travelcompanion.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * Фоновая задача в очереди: тип определяет обработчик, payload — его параметр
+ * (обычно имя файла). Выполненные задачи удаляются, неудачные после всех
+ * попыток остаются со статусом FAILED и текстом последней ошибки; срок их
+ * хранения отсчитывается от failed_at.
+ */
+@Entity
+@Table(name = "background_jobs")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BackgroundJob {
+
+    public enum Status {
+        PENDING, RUNNING, FAILED
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "job_type", nullable = false, length = 64)
+    private String jobType;
+
+    @Column(nullable = false, length = 1024)
+    private String payload;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private Status status;
+
+    @Column(nullable = false)
+    private int attempts;
+
+    @Column(name = "run_at", nullable = false)
+    private Instant runAt;
+
+    @Column(name = "locked_by", length = 128)
+    private String lockedBy;
+
+    @Column(name = "locked_until")
+    private Instant lockedUntil;
+
+    @Column(name = "last_error", length = 1024)
+    private String lastError;
+
+    @Column(name = "failed_at")
+    private Instant failedAt;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+
+    public BackgroundJob(String jobType, String payload) {
+        Instant now = Instant.now();
+        this.jobType = jobType;
+        this.payload = payload;
+        this.status = Status.PENDING;
+        this.runAt = now;
+        this.createdAt = now;
+    }
+}
@@ -0,0 +1,52 @@
+package com.travelcompanion.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * Метаданные загруженного медиафайла, определенные по его содержимому.
+ * Заполняются при загрузке и используются при отдаче вместо обращения к хранилищу.
+ */
+@Entity
+@Table(name = "media", uniqueConstraints = @UniqueConstraint(
+        name = "uk_media_type_filename", columnNames = {"media_type", "filename"}))
+@Data
+@NoArgsConstructor
+public class Media {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "media_type", nullable = false, length = 16)
+    private String mediaType;
+
+    @Column(nullable = false)
+    private String filename;
+
+    @Column(name = "content_type", nullable = false, length = 100)
+    private String contentType;
+
+    @Column(name = "size_bytes", nullable = false)
+    private long sizeBytes;
+
+    @Column(nullable = false, length = 64)
+    private String sha256;
+
+    private Integer width;
+
+    private Integer height;
+
+    @Column(name = "duration_millis")
+    private Long durationMillis;
+
+    // BlurHash-превью изображения
+    @Column(length = 100)
+    private String placeholder;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+}
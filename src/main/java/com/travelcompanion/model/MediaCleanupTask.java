@@ -0,0 +1,47 @@
+package com.travelcompanion.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * Запись outbox-таблицы: файл, который нужно удалить после коммита транзакции,
+ * удалившей ссылающуюся на него точку или тур.
+ */
+@Entity
+@Table(name = "media_cleanup_outbox")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MediaCleanupTask {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private String filename;
+
+    @Column(name = "media_type", nullable = false, length = 16)
+    private String mediaType;
+
+    @Column(nullable = false)
+    private int attempts;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+
+    @Column(name = "next_attempt_at", nullable = false)
+    private Instant nextAttemptAt;
+
+    public MediaCleanupTask(String filename, String mediaType) {
+        Instant now = Instant.now();
+        this.filename = filename;
+        this.mediaType = mediaType;
+        this.createdAt = now;
+        this.nextAttemptAt = now;
+    }
+}
@@ -0,0 +1,43 @@
+package com.travelcompanion.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Таблица смещений кадров аудиофайла: элемент i — байт, с которого
+ * начинается воспроизведение с момента i * intervalMillis.
+ * Смещения хранятся упакованными 64-битными числами.
+ */
+@Entity
+@Table(name = "media_seek_index")
+@Data
+@NoArgsConstructor
+public class MediaSeekIndex {
+
+    @Id
+    @Column(name = "media_id")
+    private Long mediaId;
+
+    @Column(name = "interval_millis", nullable = false)
+    private int intervalMillis;
+
+    @Column(name = "frame_offsets", nullable = false, length = 16 * 1024 * 1024)
+    private byte[] frameOffsets;
+
+    public MediaSeekIndex(Long mediaId, int intervalMillis, long[] offsets) {
+        ByteBuffer packed = ByteBuffer.allocate(offsets.length * Long.BYTES);
+        packed.asLongBuffer().put(offsets);
+        this.mediaId = mediaId;
+        this.intervalMillis = intervalMillis;
+        this.frameOffsets = packed.array();
+    }
+
+    public long[] offsets() {
+        long[] offsets = new long[frameOffsets.length / Long.BYTES];
+        ByteBuffer.wrap(frameOffsets).asLongBuffer().get(offsets);
+        return offsets;
+    }
+}
@@ -6,8 +6,10 @@ import jakarta.validation.constraints.NotNull;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.DynamicUpdate;
 
 @Entity
+@DynamicUpdate
 @Table(name = "points_of_interest")
 @Data
 @NoArgsConstructor
@@ -39,10 +41,21 @@ public class PointOfInterest {
 
     private String photoFilename;
 
+    // Размеры и превью фото копируются из метаданных файла, чтобы список точек отдавался одним запросом
+    private Integer photoWidth;
+
+    private Integer photoHeight;
+
+    @Column(length = 100)
+    private String photoPlaceholder;
+
     private String audioFilename;
 
     private String videoFilename;
 
     @Column(name = "display_order")
     private Integer order;
+
+    // Номер последней примененной правки, растет с каждым изменением точки
+    private Long revision;
 } 
\ No newline at end of file
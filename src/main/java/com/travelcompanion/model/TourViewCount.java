@@ -0,0 +1,28 @@
+package com.travelcompanion.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * Накопленное число просмотров тура. Строки пишутся пачками из счетчиков
+ * в памяти (TourViewService), а не при каждом просмотре.
+ */
+@Entity
+@Table(name = "tour_views")
+@Data
+@NoArgsConstructor
+public class TourViewCount {
+
+    @Id
+    @Column(name = "tour_id")
+    private Long tourId;
+
+    @Column(name = "view_count", nullable = false)
+    private long viewCount;
+
+    @Column(name = "updated_at", nullable = false)
+    private Instant updatedAt;
+}
@@ -0,0 +1,41 @@
+package com.travelcompanion.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * Возобновляемая загрузка файла частями. Смещение сохраняется только после
+ * того, как принятая часть записана на диск, поэтому клиент может продолжить
+ * загрузку с него даже после перезапуска сервера.
+ */
+@Entity
+@Table(name = "upload_sessions")
+@Data
+@NoArgsConstructor
+public class UploadSession {
+
+    @Id
+    @Column(length = 36)
+    private String id;
+
+    @Column(name = "media_type", nullable = false, length = 16)
+    private String mediaType;
+
+    @Column(name = "original_filename")
+    private String originalFilename;
+
+    @Column(name = "upload_length", nullable = false)
+    private long uploadLength;
+
+    @Column(name = "upload_offset", nullable = false)
+    private long uploadOffset;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+
+    @Column(name = "expires_at", nullable = false)
+    private Instant expiresAt;
+}
@@ -0,0 +1,9 @@
+package com.travelcompanion.repository;
+
+import com.travelcompanion.model.BackgroundJob;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface BackgroundJobRepository extends JpaRepository<BackgroundJob, Long> {
+}
@@ -0,0 +1,37 @@
+package com.travelcompanion.repository;
+
+import com.travelcompanion.model.MediaCleanupTask;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface MediaCleanupTaskRepository extends JpaRepository<MediaCleanupTask, Long> {
+    List<MediaCleanupTask> findByNextAttemptAtBeforeOrderByIdAsc(Instant now, Pageable pageable);
+
+    // Файлы точек переносятся в outbox одним INSERT ... SELECT, без загрузки точек
+    @Modifying(flushAutomatically = true)
+    @Query("insert into MediaCleanupTask (filename, mediaType, attempts, createdAt, nextAttemptAt) "
+            + "select p.photoFilename, 'photo', 0, :now, :now from PointOfInterest p "
+            + "where p.tour.id in :tourIds and p.photoFilename is not null")
+    int enqueuePhotosOfTours(@Param("tourIds") Collection<Long> tourIds, @Param("now") Instant now);
+
+    @Modifying(flushAutomatically = true)
+    @Query("insert into MediaCleanupTask (filename, mediaType, attempts, createdAt, nextAttemptAt) "
+            + "select p.audioFilename, 'audio', 0, :now, :now from PointOfInterest p "
+            + "where p.tour.id in :tourIds and p.audioFilename is not null")
+    int enqueueAudioOfTours(@Param("tourIds") Collection<Long> tourIds, @Param("now") Instant now);
+
+    @Modifying(flushAutomatically = true)
+    @Query("insert into MediaCleanupTask (filename, mediaType, attempts, createdAt, nextAttemptAt) "
+            + "select p.videoFilename, 'video', 0, :now, :now from PointOfInterest p "
+            + "where p.tour.id in :tourIds and p.videoFilename is not null")
+    int enqueueVideosOfTours(@Param("tourIds") Collection<Long> tourIds, @Param("now") Instant now);
+}
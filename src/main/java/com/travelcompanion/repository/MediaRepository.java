@@ -0,0 +1,21 @@
+package com.travelcompanion.repository;
+
+import com.travelcompanion.model.Media;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Optional;
+
+@Repository
+public interface MediaRepository extends JpaRepository<Media, Long> {
+    Optional<Media> findByMediaTypeAndFilename(String mediaType, String filename);
+
+    @Transactional
+    @Modifying
+    @Query("delete from Media m where m.mediaType = :mediaType and m.filename = :filename")
+    int deleteByMediaTypeAndFilename(@Param("mediaType") String mediaType, @Param("filename") String filename);
+}
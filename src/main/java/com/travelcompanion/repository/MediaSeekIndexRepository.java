@@ -0,0 +1,20 @@
+package com.travelcompanion.repository;
+
+import com.travelcompanion.model.MediaSeekIndex;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+@Repository
+public interface MediaSeekIndexRepository extends JpaRepository<MediaSeekIndex, Long> {
+
+    // На H2 внешний ключ создается без каскада, поэтому индекс удаляется явно
+    @Transactional
+    @Modifying
+    @Query("delete from MediaSeekIndex s where s.mediaId in "
+            + "(select m.id from Media m where m.mediaType = :mediaType and m.filename = :filename)")
+    int deleteByMedia(@Param("mediaType") String mediaType, @Param("filename") String filename);
+}
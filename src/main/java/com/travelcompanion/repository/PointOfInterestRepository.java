@@ -3,13 +3,44 @@ package com.travelcompanion.repository;
 import com.travelcompanion.model.PointOfInterest;
 import com.travelcompanion.model.Tour;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface PointOfInterestRepository extends JpaRepository<PointOfInterest, Long> {
     List<PointOfInterest> findByTourOrderByOrderAsc(Tour tour);
     List<PointOfInterest> findByTourIdOrderByOrderAsc(Long tourId);
-    void deleteByTourId(Long tourId);
+    List<PointOfInterest> findByTourId(Long tourId);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("delete from PointOfInterest p where p.tour.id in :tourIds")
+    int deleteAllByTourIds(@Param("tourIds") Collection<Long> tourIds);
+
+    Optional<PointOfInterest> findFirstByTourIdAndIdNotOrderByOrderAsc(Long tourId, Long id);
+    Optional<PointOfInterest> findFirstByTourIdAndIdNotAndOrderGreaterThanOrderByOrderAsc(Long tourId, Long id, Integer order);
+
+    @Query("select coalesce(p.revision, 0) from PointOfInterest p where p.id = :id")
+    Optional<Long> findRevisionById(@Param("id") Long id);
+
+    @Query("select max(p.order) from PointOfInterest p where p.tour.id = :tourId")
+    Integer findMaxOrderByTourId(@Param("tourId") Long tourId);
+
+    boolean existsByPhotoFilename(String photoFilename);
+    boolean existsByAudioFilename(String audioFilename);
+    boolean existsByVideoFilename(String videoFilename);
+
+    @Query("select distinct p.photoFilename from PointOfInterest p where p.photoFilename is not null")
+    List<String> findAllPhotoFilenames();
+
+    @Query("select distinct p.audioFilename from PointOfInterest p where p.audioFilename is not null")
+    List<String> findAllAudioFilenames();
+
+    @Query("select distinct p.videoFilename from PointOfInterest p where p.videoFilename is not null")
+    List<String> findAllVideoFilenames();
 } 
\ No newline at end of file
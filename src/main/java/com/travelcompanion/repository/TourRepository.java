@@ -1,13 +1,52 @@
 package com.travelcompanion.repository;
 
+import com.travelcompanion.dto.TourSummaryDto;
 import com.travelcompanion.model.Tour;
 import com.travelcompanion.model.User;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface TourRepository extends JpaRepository<Tour, Long> {
     List<Tour> findByCreatedBy(User createdBy);
+
+    // Список туров одним запросом без загрузки сущностей: число точек группировкой,
+    // обложка — подзапросом по индексу (tour_id, display_order)
+    String SUMMARY_SELECT = "select new com.travelcompanion.dto.TourSummaryDto("
+            + "t.id, t.name, t.location, t.description, t.createdBy.id, count(p.id), "
+            + "(select c.photoFilename from PointOfInterest c where c.tour = t and c.photoFilename is not null "
+            + "order by c.order, c.id limit 1)) "
+            + "from Tour t left join PointOfInterest p on p.tour = t ";
+    String SUMMARY_GROUP = "group by t.id, t.name, t.location, t.description, t.createdBy.id order by t.id";
+
+    @Query(SUMMARY_SELECT + SUMMARY_GROUP)
+    List<TourSummaryDto> findAllSummaries();
+
+    @Query(SUMMARY_SELECT + "where t.createdBy.id = :userId " + SUMMARY_GROUP)
+    List<TourSummaryDto> findSummariesByCreatedById(@Param("userId") Long userId);
+
+    @Query("select t.id from Tour t order by t.id")
+    List<Long> findAllIds();
+
+    @Query("select t.id from Tour t where t.id in :ids")
+    List<Long> findExistingIds(@Param("ids") Collection<Long> ids);
+
+    // Точки удаляются отдельным запросом до туров: в схеме H2 от Hibernate нет ON DELETE CASCADE
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("delete from Tour t where t.id in :ids")
+    int deleteAllByIds(@Param("ids") Collection<Long> ids);
+
+    // Блокировка строки тура сериализует изменения порядка его точек
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select t from Tour t where t.id = :id")
+    Optional<Tour> findByIdForUpdate(@Param("id") Long id);
 } 
\ No newline at end of file
@@ -0,0 +1,21 @@
+package com.travelcompanion.repository;
+
+import com.travelcompanion.model.TourViewCount;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+
+@Repository
+public interface TourViewCountRepository extends JpaRepository<TourViewCount, Long> {
+
+    // На H2 таблица создается без внешнего ключа, поэтому строки удаляются явно
+    @Transactional
+    @Modifying
+    @Query("delete from TourViewCount v where v.tourId in :tourIds")
+    int deleteByTourIds(@Param("tourIds") Collection<Long> tourIds);
+}
@@ -0,0 +1,25 @@
+package com.travelcompanion.repository;
+
+import com.travelcompanion.model.UploadSession;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.List;
+
+@Repository
+public interface UploadSessionRepository extends JpaRepository<UploadSession, String> {
+    List<UploadSession> findByExpiresAtBefore(Instant now);
+
+    // Смещение продвигается, только если его не успел изменить другой запрос
+    @Transactional
+    @Modifying
+    @Query("update UploadSession s set s.uploadOffset = :next, s.expiresAt = :expiresAt "
+            + "where s.id = :id and s.uploadOffset = :current")
+    int advance(@Param("id") String id, @Param("current") long current, @Param("next") long next,
+                @Param("expiresAt") Instant expiresAt);
+}
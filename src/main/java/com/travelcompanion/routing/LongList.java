@@ -0,0 +1,35 @@
+package com.travelcompanion.routing;
+
+import java.util.Arrays;
+
+/**
+ * Растущий массив long без упаковки в объекты — для миллионов идентификаторов при импорте
+ */
+final class LongList {
+
+    private long[] values;
+    private int size;
+
+    LongList(int capacity) {
+        this.values = new long[Math.max(1, capacity)];
+    }
+
+    void add(long value) {
+        if (size == values.length) {
+            values = Arrays.copyOf(values, values.length * 2);
+        }
+        values[size++] = value;
+    }
+
+    long get(int index) {
+        return values[index];
+    }
+
+    int size() {
+        return size;
+    }
+
+    long[] toArray() {
+        return Arrays.copyOf(values, size);
+    }
+}
@@ -0,0 +1,333 @@
+package com.travelcompanion.routing;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Сборка пешеходного графа из выгрузки OSM PBF в файл для {@link WalkingGraph}.
+ *
+ * Два прохода по выгрузке: сначала линии, по которым можно идти пешком
+ * (ребра между соседними точками линии), затем координаты только нужных
+ * точек. Мелкие изолированные компоненты (дорожки внутри дворов, обрезанные
+ * края выгрузки) отбрасываются, чтобы к ним не «прилипали» точки тура.
+ * Вершины упорядочиваются по ячейкам сетки: соседние вершины лежат в файле
+ * рядом, а сетка для поиска ближайшей вершины — это просто диапазоны.
+ *
+ * Запуск отдельно от приложения:
+ * <pre>
+ * java -cp target/classes:... com.travelcompanion.routing.OsmGraphImporter city.osm.pbf walking.graph
+ * </pre>
+ */
+@Slf4j
+public final class OsmGraphImporter {
+
+    static final int MAGIC = 0x54435747;
+    static final int VERSION = 1;
+    // Сторона ячейки сетки — 0.002° (около 220 м по широте)
+    static final int CELL_SIZE_E7 = 20_000;
+    static final int HEADER_SIZE = 32;
+
+    static final int CELLS_PER_AXIS = 1 << 15;
+    private static final int MIN_COMPONENT_NODES = 200;
+
+    private static final Set<String> WALKABLE = Set.of(
+            "footway", "pedestrian", "path", "steps", "living_street", "residential", "service",
+            "unclassified", "road", "track", "cycleway", "bridleway", "corridor", "platform",
+            "tertiary", "tertiary_link", "secondary", "secondary_link", "primary", "primary_link");
+    private static final Set<String> FORBIDDEN = Set.of("no", "private", "use_sidepath");
+
+    private OsmGraphImporter() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("Использование: OsmGraphImporter <выгрузка.osm.pbf> <граф>");
+            System.exit(2);
+        }
+        importGraph(Path.of(args[0]), Path.of(args[1]));
+    }
+
+    /**
+     * Строит граф и атомарно записывает его в target
+     */
+    public static void importGraph(Path pbf, Path target) throws IOException {
+        long started = System.currentTimeMillis();
+
+        // Проход 1: ребра пешеходных линий как пары идентификаторов точек OSM
+        LongList from = new LongList(1 << 20);
+        LongList to = new LongList(1 << 20);
+        PbfReader.read(pbf, new PbfReader.Handler() {
+            @Override
+            public boolean wantsWays() {
+                return true;
+            }
+
+            @Override
+            public void way(long id, long[] refs, Map<String, String> tags) {
+                if (!walkable(tags)) {
+                    return;
+                }
+                for (int i = 1; i < refs.length; i++) {
+                    if (refs[i - 1] != refs[i]) {
+                        from.add(refs[i - 1]);
+                        to.add(refs[i]);
+                    }
+                }
+            }
+        });
+        long[] osmIds = uniqueNodeIds(from, to);
+
+        // Проход 2: координаты только тех точек, что попали в ребра
+        int[] lat = new int[osmIds.length];
+        int[] lon = new int[osmIds.length];
+        BitSet located = new BitSet(osmIds.length);
+        PbfReader.read(pbf, new PbfReader.Handler() {
+            @Override
+            public boolean wantsNodes() {
+                return true;
+            }
+
+            @Override
+            public void node(long id, double latitude, double longitude) {
+                int index = Arrays.binarySearch(osmIds, id);
+                if (index >= 0) {
+                    lat[index] = (int) Math.round(latitude * 1e7);
+                    lon[index] = (int) Math.round(longitude * 1e7);
+                    located.set(index);
+                }
+            }
+        });
+
+        // Ребра в индексах вершин; ребра к точкам за краем выгрузки отбрасываются
+        int[] edgeFrom = new int[from.size()];
+        int[] edgeTo = new int[from.size()];
+        int edges = 0;
+        for (int i = 0; i < from.size(); i++) {
+            int u = Arrays.binarySearch(osmIds, from.get(i));
+            int v = Arrays.binarySearch(osmIds, to.get(i));
+            if (located.get(u) && located.get(v)) {
+                edgeFrom[edges] = u;
+                edgeTo[edges] = v;
+                edges++;
+            }
+        }
+
+        boolean[] keep = largeComponents(osmIds.length, edgeFrom, edgeTo, edges);
+        write(target, lat, lon, keep, edgeFrom, edgeTo, edges);
+        log.info("Пешеходный граф из {} построен за {} с", pbf.getFileName(),
+                (System.currentTimeMillis() - started) / 1000);
+    }
+
+    static boolean walkable(Map<String, String> tags) {
+        String foot = tags.get("foot");
+        if (foot != null && FORBIDDEN.contains(foot)) {
+            return false;
+        }
+        if ("yes".equals(foot) || "designated".equals(foot) || "permissive".equals(foot)) {
+            return tags.containsKey("highway");
+        }
+        String access = tags.get("access");
+        if ("no".equals(access) || "private".equals(access)) {
+            return false;
+        }
+        return WALKABLE.contains(tags.get("highway"));
+    }
+
+    private static long[] uniqueNodeIds(LongList from, LongList to) {
+        long[] ids = new long[from.size() * 2];
+        for (int i = 0; i < from.size(); i++) {
+            ids[2 * i] = from.get(i);
+            ids[2 * i + 1] = to.get(i);
+        }
+        Arrays.sort(ids);
+        int unique = 0;
+        for (int i = 0; i < ids.length; i++) {
+            if (i == 0 || ids[i] != ids[i - 1]) {
+                ids[unique++] = ids[i];
+            }
+        }
+        return Arrays.copyOf(ids, unique);
+    }
+
+    /**
+     * Вершины компонент связности не меньше MIN_COMPONENT_NODES; самая большая остается всегда
+     */
+    private static boolean[] largeComponents(int nodes, int[] edgeFrom, int[] edgeTo, int edges) {
+        int[] parent = new int[nodes];
+        for (int i = 0; i < nodes; i++) {
+            parent[i] = i;
+        }
+        for (int i = 0; i < edges; i++) {
+            int a = find(parent, edgeFrom[i]);
+            int b = find(parent, edgeTo[i]);
+            if (a != b) {
+                parent[a] = b;
+            }
+        }
+        int[] size = new int[nodes];
+        int largest = -1;
+        for (int i = 0; i < nodes; i++) {
+            int root = find(parent, i);
+            size[root]++;
+            if (largest < 0 || size[root] > size[largest]) {
+                largest = root;
+            }
+        }
+        boolean[] keep = new boolean[nodes];
+        int dropped = 0;
+        for (int i = 0; i < nodes; i++) {
+            int root = find(parent, i);
+            keep[i] = root == largest || size[root] >= MIN_COMPONENT_NODES;
+            if (!keep[i]) {
+                dropped++;
+            }
+        }
+        log.info("Вершин графа: {}, в мелких компонентах отброшено: {}", nodes - dropped, dropped);
+        return keep;
+    }
+
+    private static int find(int[] parent, int node) {
+        while (parent[node] != node) {
+            parent[node] = parent[parent[node]];
+            node = parent[node];
+        }
+        return node;
+    }
+
+    private static void write(Path target, int[] lat, int[] lon, boolean[] keep,
+                              int[] edgeFrom, int[] edgeTo, int edges) throws IOException {
+        int cellOriginLat = Integer.MAX_VALUE;
+        int cellOriginLon = Integer.MAX_VALUE;
+        int kept = 0;
+        for (int i = 0; i < keep.length; i++) {
+            if (keep[i]) {
+                cellOriginLat = Math.min(cellOriginLat, Math.floorDiv(lat[i], CELL_SIZE_E7));
+                cellOriginLon = Math.min(cellOriginLon, Math.floorDiv(lon[i], CELL_SIZE_E7));
+                kept++;
+            }
+        }
+        if (kept == 0) {
+            throw new IOException("В выгрузке нет пешеходных дорог");
+        }
+
+        // Порядок вершин — по ячейкам сетки: ключ ячейки в старших 32 битах, старый индекс в младших
+        long[] order = new long[kept];
+        int position = 0;
+        for (int i = 0; i < keep.length; i++) {
+            if (keep[i]) {
+                int row = Math.floorDiv(lat[i], CELL_SIZE_E7) - cellOriginLat;
+                int column = Math.floorDiv(lon[i], CELL_SIZE_E7) - cellOriginLon;
+                if (row >= CELLS_PER_AXIS || column >= CELLS_PER_AXIS) {
+                    throw new IOException("Выгрузка слишком велика по площади для одного графа");
+                }
+                order[position++] = ((long) (row * CELLS_PER_AXIS + column) << 32) | i;
+            }
+        }
+        Arrays.sort(order);
+        int[] index = new int[keep.length];
+        Arrays.fill(index, -1);
+        int[] nodeLat = new int[kept];
+        int[] nodeLon = new int[kept];
+        IntList cellKeys = new IntList(1024);
+        IntList cellStarts = new IntList(1024);
+        for (int n = 0; n < kept; n++) {
+            int old = (int) order[n];
+            int cell = (int) (order[n] >>> 32);
+            index[old] = n;
+            nodeLat[n] = lat[old];
+            nodeLon[n] = lon[old];
+            if (cellKeys.size() == 0 || cellKeys.get(cellKeys.size() - 1) != cell) {
+                cellKeys.add(cell);
+                cellStarts.add(n);
+            }
+        }
+        cellStarts.add(kept);
+
+        // Смежность в формате CSR: ребра вершины n — targets[offsets[n]..offsets[n + 1])
+        int[] offsets = new int[kept + 1];
+        int directed = 0;
+        for (int e = 0; e < edges; e++) {
+            int u = index[edgeFrom[e]];
+            int v = index[edgeTo[e]];
+            if (u >= 0 && v >= 0) {
+                offsets[u + 1]++;
+                offsets[v + 1]++;
+                directed += 2;
+            }
+        }
+        for (int n = 0; n < kept; n++) {
+            offsets[n + 1] += offsets[n];
+        }
+        int[] fill = Arrays.copyOf(offsets, kept);
+        int[] targets = new int[directed];
+        int[] lengths = new int[directed];
+        for (int e = 0; e < edges; e++) {
+            int u = index[edgeFrom[e]];
+            int v = index[edgeTo[e]];
+            if (u >= 0 && v >= 0) {
+                // Дециметры с округлением вверх: длина не меньше эвристики A*
+                int length = Math.max(1, (int) Math.ceil(
+                        WalkingGraph.distance(nodeLat[u], nodeLon[u], nodeLat[v], nodeLon[v]) * 10));
+                targets[fill[u]] = v;
+                lengths[fill[u]++] = length;
+                targets[fill[v]] = u;
+                lengths[fill[v]++] = length;
+            }
+        }
+
+        Path temp = Files.createTempFile(target.toAbsolutePath().getParent(), "graph-", ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+                header.putInt(MAGIC).putInt(VERSION).putInt(kept).putInt(directed)
+                        .putInt(cellKeys.size()).putInt(CELL_SIZE_E7).putInt(cellOriginLat).putInt(cellOriginLon);
+                header.flip();
+                writeFully(channel, header);
+                writeInts(channel, nodeLat, kept);
+                writeInts(channel, nodeLon, kept);
+                writeInts(channel, offsets, kept + 1);
+                writeInts(channel, targets, directed);
+                writeInts(channel, lengths, directed);
+                writeInts(channel, cellKeys.toArray(), cellKeys.size());
+                writeInts(channel, cellStarts.toArray(), cellStarts.size());
+                channel.force(true);
+            }
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+        log.info("Граф записан в {}: {} вершин, {} ребер, {} ячеек", target, kept, directed / 2, cellKeys.size());
+    }
+
+    private static void writeInts(FileChannel channel, int[] values, int count) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(1 << 16).order(ByteOrder.LITTLE_ENDIAN);
+        for (int i = 0; i < count; i++) {
+            if (buffer.remaining() < Integer.BYTES) {
+                buffer.flip();
+                writeFully(channel, buffer);
+                buffer.clear();
+            }
+            buffer.putInt(values[i]);
+        }
+        buffer.flip();
+        writeFully(channel, buffer);
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+}
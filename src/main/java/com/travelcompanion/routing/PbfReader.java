@@ -0,0 +1,351 @@
+package com.travelcompanion.routing;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Потоковое чтение выгрузки OpenStreetMap в формате PBF.
+ *
+ * Файл — последовательность блоков: длина заголовка, BlobHeader, Blob со
+ * сжатым zlib PrimitiveBlock. Разбираются только точки (обычные и Dense) с
+ * координатами и линии с тегами и ссылками на точки; отношения и
+ * метаданные правок пропускаются.
+ */
+public final class PbfReader {
+
+    private static final int MAX_HEADER_SIZE = 64 * 1024;
+    private static final int MAX_BLOB_SIZE = 32 * 1024 * 1024;
+    private static final Set<String> SUPPORTED_FEATURES = Set.of("OsmSchema-V0.6", "DenseNodes");
+
+    private PbfReader() {
+    }
+
+    /**
+     * Получатель объектов выгрузки; ненужные ему типы блоков не разбираются
+     */
+    public interface Handler {
+
+        default boolean wantsNodes() {
+            return false;
+        }
+
+        default boolean wantsWays() {
+            return false;
+        }
+
+        default void node(long id, double lat, double lon) {
+        }
+
+        default void way(long id, long[] refs, Map<String, String> tags) {
+        }
+    }
+
+    public static void read(Path file, Handler handler) throws IOException {
+        try (InputStream stream = Files.newInputStream(file);
+             DataInputStream in = new DataInputStream(new BufferedInputStream(stream, 1 << 16))) {
+            Inflater inflater = new Inflater();
+            try {
+                while (true) {
+                    int headerSize;
+                    try {
+                        headerSize = in.readInt();
+                    } catch (EOFException e) {
+                        return;
+                    }
+                    if (headerSize <= 0 || headerSize > MAX_HEADER_SIZE) {
+                        throw new IOException("Неверный размер заголовка блока PBF: " + headerSize);
+                    }
+                    ProtoReader header = new ProtoReader(readFully(in, headerSize));
+                    String type = null;
+                    long dataSize = -1;
+                    while (header.hasNext()) {
+                        int tag = header.readTag();
+                        if (tag >>> 3 == 1) {
+                            type = header.readString();
+                        } else if (tag >>> 3 == 3) {
+                            dataSize = header.readVarint();
+                        } else {
+                            header.skip(tag & 7);
+                        }
+                    }
+                    if (type == null || dataSize < 0 || dataSize > MAX_BLOB_SIZE) {
+                        throw new IOException("Неверный заголовок блока PBF");
+                    }
+                    byte[] blob = readFully(in, (int) dataSize);
+                    if ("OSMHeader".equals(type)) {
+                        checkFeatures(new ProtoReader(unpack(blob, inflater)));
+                    } else if ("OSMData".equals(type) && (handler.wantsNodes() || handler.wantsWays())) {
+                        readPrimitiveBlock(new ProtoReader(unpack(blob, inflater)), handler);
+                    }
+                }
+            } finally {
+                inflater.end();
+            }
+        }
+    }
+
+    private static byte[] readFully(DataInputStream in, int size) throws IOException {
+        byte[] bytes = new byte[size];
+        in.readFully(bytes);
+        return bytes;
+    }
+
+    private static byte[] unpack(byte[] blob, Inflater inflater) throws IOException {
+        ProtoReader reader = new ProtoReader(blob);
+        byte[] raw = null;
+        byte[] zlib = null;
+        long rawSize = -1;
+        while (reader.hasNext()) {
+            int tag = reader.readTag();
+            switch (tag >>> 3) {
+                case 1:
+                    raw = reader.readBytes();
+                    break;
+                case 2:
+                    rawSize = reader.readVarint();
+                    break;
+                case 3:
+                    zlib = reader.readBytes();
+                    break;
+                default:
+                    reader.skip(tag & 7);
+            }
+        }
+        if (raw != null) {
+            return raw;
+        }
+        if (zlib == null || rawSize < 0 || rawSize > MAX_BLOB_SIZE) {
+            throw new IOException("Блок PBF сжат неподдерживаемым способом (нужен zlib)");
+        }
+        byte[] data = new byte[(int) rawSize];
+        inflater.reset();
+        inflater.setInput(zlib);
+        try {
+            int done = 0;
+            while (done < data.length) {
+                int inflated = inflater.inflate(data, done, data.length - done);
+                if (inflated == 0 && (inflater.finished() || inflater.needsInput())) {
+                    break;
+                }
+                done += inflated;
+            }
+            if (done != data.length) {
+                throw new IOException("Размер распакованного блока PBF не совпал с заявленным");
+            }
+        } catch (DataFormatException e) {
+            throw new IOException("Поврежденный блок PBF", e);
+        }
+        return data;
+    }
+
+    private static void checkFeatures(ProtoReader header) throws IOException {
+        while (header.hasNext()) {
+            int tag = header.readTag();
+            if (tag >>> 3 == 4) {
+                String feature = header.readString();
+                if (!SUPPORTED_FEATURES.contains(feature)) {
+                    throw new IOException("Выгрузка требует неподдерживаемую возможность: " + feature);
+                }
+            } else {
+                header.skip(tag & 7);
+            }
+        }
+    }
+
+    private static void readPrimitiveBlock(ProtoReader block, Handler handler) {
+        List<String> strings = new ArrayList<>();
+        List<ProtoReader> groups = new ArrayList<>();
+        long granularity = 100;
+        long latOffset = 0;
+        long lonOffset = 0;
+        while (block.hasNext()) {
+            int tag = block.readTag();
+            switch (tag >>> 3) {
+                case 1: {
+                    ProtoReader table = block.readMessage();
+                    while (table.hasNext()) {
+                        int entry = table.readTag();
+                        if (entry >>> 3 == 1) {
+                            strings.add(table.readString());
+                        } else {
+                            table.skip(entry & 7);
+                        }
+                    }
+                    break;
+                }
+                case 2:
+                    groups.add(block.readMessage());
+                    break;
+                case 17:
+                    granularity = block.readVarint();
+                    break;
+                case 19:
+                    latOffset = block.readVarint();
+                    break;
+                case 20:
+                    lonOffset = block.readVarint();
+                    break;
+                default:
+                    block.skip(tag & 7);
+            }
+        }
+
+        Coordinates coordinates = new Coordinates(granularity, latOffset, lonOffset);
+        for (ProtoReader group : groups) {
+            while (group.hasNext()) {
+                int tag = group.readTag();
+                int field = tag >>> 3;
+                if (field == 1 && handler.wantsNodes()) {
+                    readNode(group.readMessage(), coordinates, handler);
+                } else if (field == 2 && handler.wantsNodes()) {
+                    readDenseNodes(group.readMessage(), coordinates, handler);
+                } else if (field == 3 && handler.wantsWays()) {
+                    readWay(group.readMessage(), strings, handler);
+                } else {
+                    group.skip(tag & 7);
+                }
+            }
+        }
+    }
+
+    private static void readNode(ProtoReader node, Coordinates coordinates, Handler handler) {
+        long id = 0;
+        long lat = 0;
+        long lon = 0;
+        while (node.hasNext()) {
+            int tag = node.readTag();
+            switch (tag >>> 3) {
+                case 1:
+                    id = node.readSignedVarint();
+                    break;
+                case 8:
+                    lat = node.readSignedVarint();
+                    break;
+                case 9:
+                    lon = node.readSignedVarint();
+                    break;
+                default:
+                    node.skip(tag & 7);
+            }
+        }
+        handler.node(id, coordinates.lat(lat), coordinates.lon(lon));
+    }
+
+    private static void readDenseNodes(ProtoReader dense, Coordinates coordinates, Handler handler) {
+        ProtoReader ids = null;
+        ProtoReader lats = null;
+        ProtoReader lons = null;
+        while (dense.hasNext()) {
+            int tag = dense.readTag();
+            switch (tag >>> 3) {
+                case 1:
+                    ids = dense.readMessage();
+                    break;
+                case 8:
+                    lats = dense.readMessage();
+                    break;
+                case 9:
+                    lons = dense.readMessage();
+                    break;
+                default:
+                    dense.skip(tag & 7);
+            }
+        }
+        if (ids == null || lats == null || lons == null) {
+            return;
+        }
+        // Три упакованных массива одинаковой длины, значения закодированы разностями
+        long id = 0;
+        long lat = 0;
+        long lon = 0;
+        while (ids.hasNext()) {
+            id += ids.readSignedVarint();
+            lat += lats.readSignedVarint();
+            lon += lons.readSignedVarint();
+            handler.node(id, coordinates.lat(lat), coordinates.lon(lon));
+        }
+    }
+
+    private static void readWay(ProtoReader way, List<String> strings, Handler handler) {
+        long id = 0;
+        ProtoReader keys = null;
+        ProtoReader values = null;
+        ProtoReader refs = null;
+        while (way.hasNext()) {
+            int tag = way.readTag();
+            switch (tag >>> 3) {
+                case 1:
+                    id = way.readVarint();
+                    break;
+                case 2:
+                    keys = way.readMessage();
+                    break;
+                case 3:
+                    values = way.readMessage();
+                    break;
+                case 8:
+                    refs = way.readMessage();
+                    break;
+                default:
+                    way.skip(tag & 7);
+            }
+        }
+        Map<String, String> tags = new HashMap<>();
+        if (keys != null && values != null) {
+            while (keys.hasNext() && values.hasNext()) {
+                tags.put(string(strings, keys.readVarint()), string(strings, values.readVarint()));
+            }
+        }
+        LongList nodes = new LongList(16);
+        if (refs != null) {
+            long ref = 0;
+            while (refs.hasNext()) {
+                ref += refs.readSignedVarint();
+                nodes.add(ref);
+            }
+        }
+        handler.way(id, nodes.toArray(), tags);
+    }
+
+    private static String string(List<String> strings, long index) {
+        if (index < 0 || index >= strings.size()) {
+            throw new IllegalArgumentException("Ссылка за пределы таблицы строк блока: " + index);
+        }
+        return strings.get((int) index);
+    }
+
+    /**
+     * Перевод координат блока из единиц granularity в градусы
+     */
+    private static final class Coordinates {
+        private final long granularity;
+        private final long latOffset;
+        private final long lonOffset;
+
+        Coordinates(long granularity, long latOffset, long lonOffset) {
+            this.granularity = granularity;
+            this.latOffset = latOffset;
+            this.lonOffset = lonOffset;
+        }
+
+        double lat(long value) {
+            return 1e-9 * (latOffset + granularity * value);
+        }
+
+        double lon(long value) {
+            return 1e-9 * (lonOffset + granularity * value);
+        }
+    }
+}
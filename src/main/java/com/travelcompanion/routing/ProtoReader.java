@@ -0,0 +1,122 @@
+package com.travelcompanion.routing;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Минимальный разбор protobuf поверх массива байт: ровно то, что нужно для
+ * блоков OSM PBF, без сгенерированных классов и зависимостей.
+ */
+final class ProtoReader {
+
+    static final int VARINT = 0;
+    static final int FIXED64 = 1;
+    static final int LENGTH_DELIMITED = 2;
+    static final int FIXED32 = 5;
+
+    private final byte[] buffer;
+    private final int limit;
+    private int position;
+
+    ProtoReader(byte[] buffer, int offset, int length) {
+        if (offset < 0 || length < 0 || offset + length > buffer.length) {
+            throw new IllegalArgumentException("Сообщение выходит за границы буфера");
+        }
+        this.buffer = buffer;
+        this.position = offset;
+        this.limit = offset + length;
+    }
+
+    ProtoReader(byte[] buffer) {
+        this(buffer, 0, buffer.length);
+    }
+
+    boolean hasNext() {
+        return position < limit;
+    }
+
+    /**
+     * Ключ следующего поля: номер поля в старших битах, тип значения в младших трех
+     */
+    int readTag() {
+        return (int) readVarint();
+    }
+
+    long readVarint() {
+        long result = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            if (position >= limit) {
+                throw new IllegalArgumentException("Обрыв varint");
+            }
+            byte b = buffer[position++];
+            result |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return result;
+            }
+        }
+        throw new IllegalArgumentException("Слишком длинный varint");
+    }
+
+    /**
+     * sint32/sint64 в кодировке ZigZag
+     */
+    long readSignedVarint() {
+        long value = readVarint();
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    ProtoReader readMessage() {
+        int length = readLength();
+        ProtoReader message = new ProtoReader(buffer, position, length);
+        position += length;
+        return message;
+    }
+
+    String readString() {
+        int length = readLength();
+        String value = new String(buffer, position, length, StandardCharsets.UTF_8);
+        position += length;
+        return value;
+    }
+
+    byte[] readBytes() {
+        int length = readLength();
+        byte[] value = new byte[length];
+        System.arraycopy(buffer, position, value, 0, length);
+        position += length;
+        return value;
+    }
+
+    void skip(int wireType) {
+        switch (wireType) {
+            case VARINT:
+                readVarint();
+                break;
+            case FIXED64:
+                advance(8);
+                break;
+            case LENGTH_DELIMITED:
+                advance(readLength());
+                break;
+            case FIXED32:
+                advance(4);
+                break;
+            default:
+                throw new IllegalArgumentException("Неподдерживаемый тип поля protobuf: " + wireType);
+        }
+    }
+
+    private int readLength() {
+        long length = readVarint();
+        if (length < 0 || length > limit - position) {
+            throw new IllegalArgumentException("Длина поля выходит за границы сообщения");
+        }
+        return (int) length;
+    }
+
+    private void advance(int bytes) {
+        if (bytes > limit - position) {
+            throw new IllegalArgumentException("Поле выходит за границы сообщения");
+        }
+        position += bytes;
+    }
+}
@@ -0,0 +1,352 @@
+package com.travelcompanion.routing;
+
+import com.travelcompanion.exception.CapacityExceededException;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Пешеходный граф, отображенный в память из файла {@link OsmGraphImporter}.
+ *
+ * Все данные — примитивные массивы в файле (координаты в 1e-7 градуса,
+ * смежность CSR, длины ребер в дециметрах), в куче лежат только рабочие
+ * массивы поиска. Кратчайший путь ищется A* с эвристикой по расстоянию на
+ * сфере; на масштабе города это единицы миллисекунд. Рабочих массивов не
+ * больше maxConcurrent: при нехватке запрос отклоняется, а не ждет.
+ */
+public final class WalkingGraph {
+
+    private static final double EARTH_RADIUS = 6_371_000.0;
+
+    private final int nodeCount;
+    private final int cellSize;
+    private final int cellOriginLat;
+    private final int cellOriginLon;
+    private final IntBuffer lat;
+    private final IntBuffer lon;
+    private final IntBuffer offsets;
+    private final IntBuffer targets;
+    private final IntBuffer lengths;
+    private final IntBuffer cellKeys;
+    private final IntBuffer cellStarts;
+    private final int maxSettled;
+    private final Semaphore permits;
+    private final Queue<Workspace> workspaces = new ConcurrentLinkedQueue<>();
+
+    private WalkingGraph(MappedByteBuffer buffer, int maxConcurrent, int maxSettled) throws IOException {
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        if (buffer.getInt(0) != OsmGraphImporter.MAGIC) {
+            throw new IOException("Файл не является пешеходным графом");
+        }
+        if (buffer.getInt(4) != OsmGraphImporter.VERSION) {
+            throw new IOException("Неподдерживаемая версия файла графа: " + buffer.getInt(4));
+        }
+        this.nodeCount = buffer.getInt(8);
+        int edgeCount = buffer.getInt(12);
+        int cellCount = buffer.getInt(16);
+        this.cellSize = buffer.getInt(20);
+        this.cellOriginLat = buffer.getInt(24);
+        this.cellOriginLon = buffer.getInt(28);
+        long expected = OsmGraphImporter.HEADER_SIZE
+                + 4L * (3L * nodeCount + 1 + 2L * edgeCount + 2L * cellCount + 1);
+        if (buffer.capacity() != expected) {
+            throw new IOException("Файл графа обрезан или поврежден");
+        }
+        IntBuffer ints = buffer.position(OsmGraphImporter.HEADER_SIZE).slice().order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+        int position = 0;
+        this.lat = ints.slice(position, nodeCount);
+        this.lon = ints.slice(position += nodeCount, nodeCount);
+        this.offsets = ints.slice(position += nodeCount, nodeCount + 1);
+        this.targets = ints.slice(position += nodeCount + 1, edgeCount);
+        this.lengths = ints.slice(position += edgeCount, edgeCount);
+        this.cellKeys = ints.slice(position += edgeCount, cellCount);
+        this.cellStarts = ints.slice(position + cellCount, cellCount + 1);
+        this.maxSettled = maxSettled;
+        this.permits = new Semaphore(maxConcurrent);
+    }
+
+    /**
+     * Открывает файл графа; данные читаются с диска по мере обращения
+     */
+    public static WalkingGraph open(Path file, int maxConcurrent, int maxSettled) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Файл графа больше 2 ГБ — разделите выгрузку на районы");
+            }
+            return new WalkingGraph(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()),
+                    maxConcurrent, maxSettled);
+        }
+    }
+
+    public int getNodeCount() {
+        return nodeCount;
+    }
+
+    public double latitude(int node) {
+        return lat.get(node) / 1e7;
+    }
+
+    public double longitude(int node) {
+        return lon.get(node) / 1e7;
+    }
+
+    /**
+     * Ближайшая вершина не дальше maxMeters от точки или -1
+     */
+    public int nearest(double latitude, double longitude, double maxMeters) {
+        int pointLat = (int) Math.round(latitude * 1e7);
+        int pointLon = (int) Math.round(longitude * 1e7);
+        double cellMeters = Math.toRadians(cellSize / 1e7) * EARTH_RADIUS;
+        int rows = (int) Math.ceil(maxMeters / cellMeters);
+        int columns = (int) Math.ceil(maxMeters / (cellMeters * Math.max(0.01, Math.cos(Math.toRadians(latitude)))));
+        int row = Math.floorDiv(pointLat, cellSize) - cellOriginLat;
+        int column = Math.floorDiv(pointLon, cellSize) - cellOriginLon;
+
+        int best = -1;
+        double bestDistance = maxMeters;
+        for (int r = Math.max(0, row - rows); r <= Math.min(OsmGraphImporter.CELLS_PER_AXIS - 1, row + rows); r++) {
+            for (int c = Math.max(0, column - columns); c <= Math.min(OsmGraphImporter.CELLS_PER_AXIS - 1, column + columns); c++) {
+                int cell = findCell(r * OsmGraphImporter.CELLS_PER_AXIS + c);
+                if (cell < 0) {
+                    continue;
+                }
+                for (int node = cellStarts.get(cell); node < cellStarts.get(cell + 1); node++) {
+                    double d = distance(pointLat, pointLon, lat.get(node), lon.get(node));
+                    if (d <= bestDistance) {
+                        bestDistance = d;
+                        best = node;
+                    }
+                }
+            }
+        }
+        return best;
+    }
+
+    private int findCell(int key) {
+        int low = 0;
+        int high = cellKeys.limit() - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int value = cellKeys.get(middle);
+            if (value < key) {
+                low = middle + 1;
+            } else if (value > key) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Кратчайший пешеходный путь между вершинами или null, если путь не найден
+     * в пределах maxSettled просмотренных вершин
+     *
+     * @throws CapacityExceededException если все рабочие массивы заняты
+     */
+    public Route route(int source, int target) {
+        if (!permits.tryAcquire()) {
+            throw new CapacityExceededException("Все вычислители маршрутов заняты, повторите позже");
+        }
+        Workspace workspace = workspaces.poll();
+        try {
+            if (workspace == null) {
+                workspace = new Workspace(nodeCount);
+            }
+            return search(workspace, source, target);
+        } finally {
+            if (workspace != null) {
+                workspaces.offer(workspace);
+            }
+            permits.release();
+        }
+    }
+
+    private Route search(Workspace w, int source, int target) {
+        w.reset();
+        int targetLat = lat.get(target);
+        int targetLon = lon.get(target);
+        w.update(source, 0, -1);
+        w.push(source, heuristic(source, targetLat, targetLon));
+        int settled = 0;
+        while (w.heapSize > 0) {
+            int node = w.pop();
+            if (w.closed[node] == w.version) {
+                continue;
+            }
+            w.closed[node] = w.version;
+            if (node == target) {
+                return w.path(source, target);
+            }
+            if (++settled > maxSettled) {
+                return null;
+            }
+            float distance = w.cost[node];
+            for (int e = offsets.get(node), end = offsets.get(node + 1); e < end; e++) {
+                int next = targets.get(e);
+                if (w.closed[next] == w.version) {
+                    continue;
+                }
+                float candidate = distance + lengths.get(e);
+                if (w.seen[next] != w.version || candidate < w.cost[next]) {
+                    w.update(next, candidate, node);
+                    w.push(next, candidate + heuristic(next, targetLat, targetLon));
+                }
+            }
+        }
+        return null;
+    }
+
+    // Расстояние по сфере в дециметрах: длины ребер округлены вверх, поэтому оценка не завышает
+    private float heuristic(int node, int targetLat, int targetLon) {
+        return (float) (distance(lat.get(node), lon.get(node), targetLat, targetLon) * 10);
+    }
+
+    /**
+     * Расстояние в метрах между точками с координатами в 1e-7 градуса
+     */
+    static double distance(int lat1, int lon1, int lat2, int lon2) {
+        return distance(lat1 / 1e7, lon1 / 1e7, lat2 / 1e7, lon2 / 1e7);
+    }
+
+    /**
+     * Расстояние в метрах по сфере между точками с координатами в градусах
+     */
+    public static double distance(double lat1, double lon1, double lat2, double lon2) {
+        double phi1 = Math.toRadians(lat1);
+        double phi2 = Math.toRadians(lat2);
+        double dPhi = phi2 - phi1;
+        double dLambda = Math.toRadians(lon2 - lon1);
+        double a = Math.sin(dPhi / 2) * Math.sin(dPhi / 2)
+                + Math.cos(phi1) * Math.cos(phi2) * Math.sin(dLambda / 2) * Math.sin(dLambda / 2);
+        return 2 * EARTH_RADIUS * Math.asin(Math.min(1, Math.sqrt(a)));
+    }
+
+    /**
+     * Найденный путь: вершины по порядку и длина в метрах
+     */
+    public static final class Route {
+        private final int[] nodes;
+        private final double meters;
+
+        Route(int[] nodes, double meters) {
+            this.nodes = nodes;
+            this.meters = meters;
+        }
+
+        public int[] getNodes() {
+            return nodes;
+        }
+
+        public double getMeters() {
+            return meters;
+        }
+    }
+
+    /**
+     * Рабочие массивы одного поиска. Вместо очистки между поисками значения
+     * помечаются номером поиска: стоимость вершины действительна, только если
+     * seen совпадает с текущим version.
+     */
+    private static final class Workspace {
+        private final float[] cost;
+        private final int[] previous;
+        private final int[] seen;
+        private final int[] closed;
+        private int version;
+        private int[] heapNodes = new int[1024];
+        private float[] heapKeys = new float[1024];
+        private int heapSize;
+
+        Workspace(int nodeCount) {
+            this.cost = new float[nodeCount];
+            this.previous = new int[nodeCount];
+            this.seen = new int[nodeCount];
+            this.closed = new int[nodeCount];
+        }
+
+        void reset() {
+            heapSize = 0;
+            if (++version == Integer.MAX_VALUE) {
+                Arrays.fill(seen, 0);
+                Arrays.fill(closed, 0);
+                version = 1;
+            }
+        }
+
+        void update(int node, float value, int from) {
+            seen[node] = version;
+            cost[node] = value;
+            previous[node] = from;
+        }
+
+        // Двоичная куча с повторными вставками: устаревшие записи отсекаются по closed
+        void push(int node, float key) {
+            if (heapSize == heapNodes.length) {
+                heapNodes = Arrays.copyOf(heapNodes, heapSize * 2);
+                heapKeys = Arrays.copyOf(heapKeys, heapSize * 2);
+            }
+            int i = heapSize++;
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (heapKeys[parent] <= key) {
+                    break;
+                }
+                heapNodes[i] = heapNodes[parent];
+                heapKeys[i] = heapKeys[parent];
+                i = parent;
+            }
+            heapNodes[i] = node;
+            heapKeys[i] = key;
+        }
+
+        int pop() {
+            int top = heapNodes[0];
+            int lastNode = heapNodes[--heapSize];
+            float lastKey = heapKeys[heapSize];
+            int i = 0;
+            while (true) {
+                int child = 2 * i + 1;
+                if (child >= heapSize) {
+                    break;
+                }
+                if (child + 1 < heapSize && heapKeys[child + 1] < heapKeys[child]) {
+                    child++;
+                }
+                if (heapKeys[child] >= lastKey) {
+                    break;
+                }
+                heapNodes[i] = heapNodes[child];
+                heapKeys[i] = heapKeys[child];
+                i = child;
+            }
+            heapNodes[i] = lastNode;
+            heapKeys[i] = lastKey;
+            return top;
+        }
+
+        Route path(int source, int target) {
+            int length = 1;
+            for (int node = target; node != source; node = previous[node]) {
+                length++;
+            }
+            int[] nodes = new int[length];
+            int node = target;
+            for (int i = length - 1; i >= 0; i--) {
+                nodes[i] = node;
+                node = previous[node];
+            }
+            return new Route(nodes, cost[target] / 10.0);
+        }
+    }
+}
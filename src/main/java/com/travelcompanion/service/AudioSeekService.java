@@ -0,0 +1,159 @@
+package com.travelcompanion.service;
+
+import com.travelcompanion.cache.CacheNames;
+import com.travelcompanion.event.MediaStoredEvent;
+import com.travelcompanion.media.Mp3Frames;
+import com.travelcompanion.model.Media;
+import com.travelcompanion.model.MediaSeekIndex;
+import com.travelcompanion.repository.MediaSeekIndexRepository;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.util.Optional;
+
+/**
+ * Перемотка аудиогидов по времени.
+ *
+ * Для MP3 после загрузки фоновой задачей строится таблица смещений кадров с
+ * шагом {@code app.media.audio.seek-interval-ms}; по ней время переводится в
+ * байт начала кадра, и отдача начинается с него без чтения файла с начала.
+ * Для файлов, загруженных раньше, таблица строится при первой перемотке.
+ */
+@Slf4j
+@Service
+public class AudioSeekService implements JobHandler {
+
+    public static final String JOB_TYPE = "audio-seek-index";
+
+    private static final String MP3 = "audio/mpeg";
+
+    private final FileStorageService fileStorageService;
+    private final MediaSeekIndexRepository seekIndexRepository;
+    private final Cache indexCache;
+    private final JobQueueService jobQueueService;
+    private final int intervalMillis;
+    private final int threads;
+
+    public AudioSeekService(FileStorageService fileStorageService,
+                            MediaSeekIndexRepository seekIndexRepository,
+                            CacheManager cacheManager,
+                            JobQueueService jobQueueService,
+                            @Value("${app.media.audio.seek-interval-ms:1000}") int intervalMillis,
+                            @Value("${app.media.audio.index-threads:1}") int threads) {
+        this.fileStorageService = fileStorageService;
+        this.seekIndexRepository = seekIndexRepository;
+        this.indexCache = cacheManager.getCache(CacheNames.MEDIA_SEEK_INDEX);
+        if (indexCache == null) {
+            throw new IllegalStateException("Кэш не настроен: " + CacheNames.MEDIA_SEEK_INDEX);
+        }
+        this.jobQueueService = jobQueueService;
+        this.intervalMillis = intervalMillis;
+        this.threads = threads;
+    }
+
+    /**
+     * Ставит постройку таблицы в очередь сразу после загрузки, чтобы первая перемотка не ждала прохода по файлу
+     */
+    @EventListener
+    public void onMediaStored(MediaStoredEvent event) {
+        if (!"audio".equals(event.getMediaType())) {
+            return;
+        }
+        try {
+            jobQueueService.enqueue(JOB_TYPE, event.getFilename());
+        } catch (RuntimeException e) {
+            // Файл уже сохранен, загрузка не должна падать: таблица построится при первой перемотке
+            log.warn("Не удалось поставить в очередь таблицу перемотки для {}: {}", event.getFilename(), e.getMessage());
+        }
+    }
+
+    @Override
+    public String getJobType() {
+        return JOB_TYPE;
+    }
+
+    @Override
+    public int getConcurrency() {
+        return threads;
+    }
+
+    @Override
+    public void handle(String filename) throws IOException {
+        // Файл могли удалить до обработки; если таблица уже есть, повтор ее только читает
+        fileStorageService.getMetadata("audio", filename)
+                .filter(media -> MP3.equals(media.getContentType()))
+                .ifPresent(this::loadIndex);
+    }
+
+    /**
+     * Точка начала воспроизведения не позже указанного времени или пусто,
+     * если формат файла не поддерживает перемотку
+     */
+    public Optional<SeekPoint> seek(Media media, double seconds) {
+        if (!MP3.equals(media.getContentType())) {
+            return Optional.empty();
+        }
+        SeekTable table = loadIndex(media);
+        if (table.offsets.length == 0) {
+            return Optional.empty();
+        }
+        long index = (long) Math.floor(Math.max(0, seconds) * 1000 / table.intervalMillis);
+        int slot = (int) Math.min(index, table.offsets.length - 1);
+        return Optional.of(new SeekPoint(table.offsets[slot], (long) slot * table.intervalMillis));
+    }
+
+    private SeekTable loadIndex(Media media) {
+        Cache.ValueWrapper cached = indexCache.get(media.getId());
+        if (cached != null) {
+            return (SeekTable) cached.get();
+        }
+        MediaSeekIndex index = seekIndexRepository.findById(media.getId())
+                .orElseGet(() -> build(media));
+        SeekTable table = new SeekTable(index.getIntervalMillis(), index.offsets());
+        indexCache.put(media.getId(), table);
+        return table;
+    }
+
+    private MediaSeekIndex build(Media media) {
+        long[] offsets;
+        try {
+            offsets = fileStorageService.withLocalFile(media.getMediaType(), media.getFilename(),
+                    file -> Mp3Frames.seekIndex(file, intervalMillis));
+        } catch (IOException e) {
+            throw new IllegalStateException("Не удалось прочитать аудиофайл " + media.getFilename(), e);
+        }
+        log.debug("Таблица перемотки для {}: {} точек", media.getFilename(), offsets.length);
+        // Одновременная постройка на двух узлах дает одинаковый результат, последняя запись не вредит
+        return seekIndexRepository.save(new MediaSeekIndex(media.getId(), intervalMillis, offsets));
+    }
+
+    /**
+     * Распакованная таблица смещений в кэше
+     */
+    private static class SeekTable {
+        private final int intervalMillis;
+        private final long[] offsets;
+
+        SeekTable(int intervalMillis, long[] offsets) {
+            this.intervalMillis = intervalMillis;
+            this.offsets = offsets;
+        }
+    }
+
+    /**
+     * Смещение первого отдаваемого байта и фактическое время начала в миллисекундах
+     */
+    @Data
+    @AllArgsConstructor
+    public static class SeekPoint {
+        private long offset;
+        private long startMillis;
+    }
+}
@@ -1,125 +1,394 @@
 package com.travelcompanion.service;
 
+import com.travelcompanion.cache.CacheNames;
+import com.travelcompanion.cache.ClusterInvalidationBus;
+import com.travelcompanion.event.MediaStoredEvent;
+import com.travelcompanion.media.MediaInfo;
+import com.travelcompanion.media.MediaProbe;
+import com.travelcompanion.media.Mp4Faststart;
+import com.travelcompanion.model.Media;
+import com.travelcompanion.repository.MediaRepository;
+import com.travelcompanion.repository.MediaSeekIndexRepository;
+import com.travelcompanion.storage.MediaStore;
+import com.travelcompanion.storage.SizedResource;
+import com.travelcompanion.storage.StoredObject;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.io.Resource;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
 
+@Slf4j
 @Service
 public class FileStorageService {
-    
-    private final String uploadDir;
-    private final Path photosPath;
-    private final Path audioPath;
-    private final Path videoPath;
-    
-    // Инициализация директорий при создании сервиса
+
+    private static final String MEDIA_PREFIX = "media:";
+
+    private final MediaStore mediaStore;
+    private final MediaRepository mediaRepository;
+    private final MediaSeekIndexRepository seekIndexRepository;
+    private final ClusterInvalidationBus invalidationBus;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ImagePreviewService imagePreviewService;
+    private final Cache metadataCache;
+
+    // Хранилище выбирается в FileStorageConfig (локальный диск или S3)
     @Autowired
-    public FileStorageService(String uploadDirectory) throws IOException {
-        this.uploadDir = uploadDirectory;
-        
-        Path baseDir = Paths.get(uploadDir);
-        this.photosPath = baseDir.resolve("photos");
-        this.audioPath = baseDir.resolve("audio");
-        this.videoPath = baseDir.resolve("videos");
-        
-        // Директории уже должны быть созданы в FileStorageConfig
-    }
-    
+    public FileStorageService(MediaStore mediaStore,
+                              MediaRepository mediaRepository,
+                              MediaSeekIndexRepository seekIndexRepository,
+                              CacheManager cacheManager,
+                              ClusterInvalidationBus invalidationBus,
+                              ApplicationEventPublisher eventPublisher,
+                              ImagePreviewService imagePreviewService) {
+        this.mediaStore = mediaStore;
+        this.mediaRepository = mediaRepository;
+        this.seekIndexRepository = seekIndexRepository;
+        this.invalidationBus = invalidationBus;
+        this.eventPublisher = eventPublisher;
+        this.imagePreviewService = imagePreviewService;
+        this.metadataCache = cacheManager.getCache(CacheNames.MEDIA);
+        if (metadataCache == null) {
+            throw new IllegalStateException("Кэш не настроен: " + CacheNames.MEDIA);
+        }
+        invalidationBus.subscribe(this::onRemoteInvalidation);
+    }
+
     /**
      * Сохраняет фото и возвращает имя файла
      */
     public String savePhoto(MultipartFile file) throws IOException {
-        return saveFile(file, photosPath);
+        return saveFile(file, "photo");
     }
-    
+
     /**
      * Сохраняет аудио и возвращает имя файла
      */
     public String saveAudio(MultipartFile file) throws IOException {
-        return saveFile(file, audioPath);
+        return saveFile(file, "audio");
     }
-    
+
     /**
      * Сохраняет видео и возвращает имя файла
      */
     public String saveVideo(MultipartFile file) throws IOException {
-        return saveFile(file, videoPath);
+        return saveFile(file, "video");
+    }
+
+    /**
+     * Общий метод для сохранения файла в хранилище
+     */
+    private String saveFile(MultipartFile file, String type) throws IOException {
+        Path upload = Files.createTempFile("upload-", ".tmp");
+        try {
+            try (InputStream in = file.getInputStream()) {
+                Files.copy(in, upload, StandardCopyOption.REPLACE_EXISTING);
+            }
+            return storeFile(upload, type, file.getOriginalFilename());
+        } finally {
+            Files.deleteIfExists(upload);
+        }
     }
-    
+
     /**
-     * Общий метод для сохранения файла в указанную директорию
+     * Сохраняет полностью полученный локальный файл и возвращает его имя в хранилище.
+     * Тип содержимого определяется по самому файлу, метаданные записываются в таблицу media.
+     * Видео с moov в конце сначала переписывается (faststart): файл отдается с
+     * Cache-Control: immutable, поэтому под опубликованным именем байты не меняются.
      */
-    private String saveFile(MultipartFile file, Path directory) throws IOException {
+    public String storeFile(Path source, String type, String originalFilename) throws IOException {
+        Path prepared = "video".equals(type) ? faststart(source, originalFilename) : null;
+        try {
+            return store(prepared != null ? prepared : source, type, originalFilename);
+        } finally {
+            if (prepared != null) {
+                Files.deleteIfExists(prepared);
+            }
+        }
+    }
+
+    private String store(Path source, String type, String originalFilename) throws IOException {
         // Получаем расширение файла
-        String originalFilename = file.getOriginalFilename();
         String extension = "";
-        
+
         if (originalFilename != null && originalFilename.contains(".")) {
             extension = originalFilename.substring(originalFilename.lastIndexOf("."));
         }
-        
+
         // Генерируем уникальное имя файла
         String filename = UUID.randomUUID() + extension;
-        
+        String key = key(type, filename);
+
+        MediaInfo info = MediaProbe.probe(source);
+        String contentType = acceptedContentType(type, info.getContentType());
+        if ("photo".equals(type)) {
+            imagePreviewService.describe(source, info);
+        }
+
         // Сохраняем файл
-        Path targetPath = directory.resolve(filename);
-        Files.copy(file.getInputStream(), targetPath);
-        
+        try (InputStream in = Files.newInputStream(source)) {
+            mediaStore.put(key, in, info.getSize(), contentType);
+        }
+        info.setContentType(contentType);
+        try {
+            saveMetadata(type, filename, info);
+        } catch (RuntimeException e) {
+            mediaStore.delete(key);
+            throw e;
+        }
+        eventPublisher.publishEvent(new MediaStoredEvent(type, filename));
+
         return filename;
     }
-    
+
+    /**
+     * Переносит moov в начало видео во временный файл. Возвращает null, если
+     * видео уже подготовлено или не разбирается как MP4 (в том числе с
+     * поврежденными блоками) — тогда сохраняется как есть.
+     */
+    private Path faststart(Path source, String originalFilename) throws IOException {
+        Path rewritten = Files.createTempFile("faststart-", ".mp4");
+        try {
+            if (Mp4Faststart.rewrite(source, rewritten)) {
+                return rewritten;
+            }
+        } catch (RuntimeException e) {
+            // Поврежденные таблицы блоков: файл не переставляем и сохраняем как есть
+            log.warn("Видео {} не подготовлено к быстрому старту: {}", originalFilename, e.getMessage());
+        } catch (IOException e) {
+            Files.deleteIfExists(rewritten);
+            throw e;
+        }
+        Files.deleteIfExists(rewritten);
+        return null;
+    }
+
+    /**
+     * Путь к файлу на локальном диске, если хранилище держит его там
+     */
+    public Optional<Path> localPath(String type, String filename) {
+        return mediaStore.localPath(key(type, filename));
+    }
+
+    /**
+     * Передает обработчику путь к файлу на локальном диске: сам файл, если
+     * хранилище держит его на диске, иначе временную копию
+     */
+    public <T> T withLocalFile(String type, String filename, LocalFileProcessor<T> processor) throws IOException {
+        String key = key(type, filename);
+        Optional<Path> local = mediaStore.localPath(key);
+        if (local.isPresent()) {
+            return processor.process(local.get());
+        }
+        Path copy = Files.createTempFile("media-", ".tmp");
+        try {
+            try (InputStream in = mediaStore.openRange(key, 0, -1)) {
+                Files.copy(in, copy, StandardCopyOption.REPLACE_EXISTING);
+            }
+            return processor.process(copy);
+        } finally {
+            Files.deleteIfExists(copy);
+        }
+    }
+
+    /**
+     * Метаданные файла из кэша или таблицы media. Для файлов, загруженных до
+     * появления таблицы, метаданные вычисляются по содержимому и сохраняются.
+     */
+    public Optional<Media> getMetadata(String type, String filename) throws IOException {
+        String key = key(type, filename);
+        Cache.ValueWrapper cached = metadataCache.get(key);
+        if (cached != null) {
+            return Optional.of((Media) cached.get());
+        }
+
+        Optional<Media> media = mediaRepository.findByMediaTypeAndFilename(type, filename);
+        if (media.isEmpty()) {
+            media = backfill(type, filename);
+        }
+        media.ifPresent(m -> metadataCache.put(key, m));
+        return media;
+    }
+
+    /**
+     * Возвращает файл как ресурс для отдачи клиенту
+     */
+    public Resource load(String type, String filename) throws IOException {
+        return mediaStore.get(key(type, filename));
+    }
+
+    /**
+     * Файл как ресурс с размером из метаданных; хранилище открывается только при чтении
+     */
+    public Resource resource(Media media) {
+        return resource(media, 0);
+    }
+
     /**
-     * Получает полный путь к фото по имени файла
+     * Часть файла начиная с байта start как отдельный ресурс
      */
-    public Path getPhotoPath(String filename) {
-        return photosPath.resolve(filename);
+    public Resource resource(Media media, long start) {
+        return new SizedResource(media.getFilename(), media.getSizeBytes() - start, media.getCreatedAt().toEpochMilli(),
+                (offset, length) -> openRange(media.getMediaType(), media.getFilename(), start + offset, length));
     }
-    
+
     /**
-     * Получает полный путь к аудио по имени файла
+     * Открывает поток на диапазон байт файла
      */
-    public Path getAudioPath(String filename) {
-        return audioPath.resolve(filename);
+    public InputStream openRange(String type, String filename, long offset, long length) throws IOException {
+        return mediaStore.openRange(key(type, filename), offset, length);
     }
-    
+
     /**
-     * Получает полный путь к видео по имени файла
+     * Перечисляет файлы указанного типа. Поток нужно закрыть.
      */
-    public Path getVideoPath(String filename) {
-        return videoPath.resolve(filename);
+    public Stream<StoredObject> listFiles(String type) throws IOException {
+        return mediaStore.list(directory(type));
     }
-    
+
     /**
      * Удаляет файл по имени и типу
      */
     public boolean deleteFile(String filename, String type) throws IOException {
-        Path path;
-        
+        if (directory(type) == null) {
+            return false;
+        }
+
+        String key = key(type, filename);
+        boolean deleted = mediaStore.delete(key);
+        seekIndexRepository.deleteByMedia(type, filename);
+        mediaRepository.deleteByMediaTypeAndFilename(type, filename);
+        metadataCache.evict(key);
+        invalidationBus.broadcast(MEDIA_PREFIX + key);
+        return deleted;
+    }
+
+    /**
+     * Ключ файла в хранилище: каталог типа и имя файла
+     */
+    public String key(String type, String filename) {
+        String directory = directory(type);
+        if (directory == null) {
+            throw new IllegalArgumentException("Неизвестный тип медиа: " + type);
+        }
+        if (filename.contains("/") || filename.contains("\\") || filename.contains("..")) {
+            throw new IllegalArgumentException("Недопустимое имя файла: " + filename);
+        }
+        return directory + "/" + filename;
+    }
+
+    private Optional<Media> backfill(String type, String filename) throws IOException {
+        String key = key(type, filename);
+        if (!mediaStore.exists(key)) {
+            return Optional.empty();
+        }
+        MediaInfo info = withLocalFile(type, filename, file -> {
+            MediaInfo probed = MediaProbe.probe(file);
+            if ("photo".equals(type)) {
+                try {
+                    imagePreviewService.describe(file, probed);
+                } catch (IllegalArgumentException e) {
+                    // Старый файл уже сохранен: отдаем его, просто без превью
+                    log.warn("Превью для {} не построено: {}", key, e.getMessage());
+                }
+            }
+            return probed;
+        });
+        try {
+            log.info("Метаданные файла {} вычислены по содержимому", key);
+            return Optional.of(saveMetadata(type, filename, info));
+        } catch (DataIntegrityViolationException e) {
+            // Метаданные параллельно записал другой запрос или узел
+            return mediaRepository.findByMediaTypeAndFilename(type, filename);
+        }
+    }
+
+    private Media saveMetadata(String type, String filename, MediaInfo info) {
+        Media media = new Media();
+        media.setMediaType(type);
+        media.setFilename(filename);
+        media.setContentType(info.getContentType());
+        media.setSizeBytes(info.getSize());
+        media.setSha256(info.getSha256());
+        media.setWidth(info.getWidth());
+        media.setHeight(info.getHeight());
+        media.setDurationMillis(info.getDurationMillis());
+        media.setPlaceholder(info.getPlaceholder());
+        media.setCreatedAt(Instant.now());
+        return mediaRepository.save(media);
+    }
+
+    /**
+     * Проверяет, что содержимое соответствует типу медиа, и возвращает MIME-тип для хранения
+     */
+    private String acceptedContentType(String type, String sniffed) {
         switch (type) {
             case "photo":
-                path = getPhotoPath(filename);
+                if (sniffed.startsWith("image/")) {
+                    return sniffed;
+                }
                 break;
             case "audio":
-                path = getAudioPath(filename);
+                if (sniffed.startsWith("audio/")) {
+                    return sniffed;
+                }
+                // Контейнеры MP4 и WebM без видеодорожки по сигнатуре не отличить от видео
+                if (sniffed.equals("video/mp4") || sniffed.equals("video/webm")) {
+                    return "audio/" + sniffed.substring("video/".length());
+                }
                 break;
             case "video":
-                path = getVideoPath(filename);
+                if (sniffed.startsWith("video/")) {
+                    return sniffed;
+                }
                 break;
             default:
-                return false;
+                break;
         }
-        
-        if (Files.exists(path)) {
-            Files.delete(path);
-            return true;
+        throw new IllegalArgumentException("Содержимое файла не соответствует типу " + type + ": " + sniffed);
+    }
+
+    private void onRemoteInvalidation(String message) {
+        if (message.startsWith(MEDIA_PREFIX)) {
+            metadataCache.evict(message.substring(MEDIA_PREFIX.length()));
         }
-        
-        return false;
     }
-} 
\ No newline at end of file
+
+    /**
+     * Каталог для типа медиа ("photo", "audio", "video") или null
+     */
+    private String directory(String type) {
+        switch (type) {
+            case "photo":
+                return "photos";
+            case "audio":
+                return "audio";
+            case "video":
+                return "videos";
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Обработка файла, доступного по локальному пути
+     */
+    @FunctionalInterface
+    public interface LocalFileProcessor<T> {
+        T process(Path file) throws IOException;
+    }
+}
@@ -0,0 +1,253 @@
+package com.travelcompanion.service;
+
+import com.travelcompanion.cache.CacheNames;
+import com.travelcompanion.dto.GeofenceEventDto;
+import com.travelcompanion.dto.GeofenceSessionDto;
+import com.travelcompanion.dto.PointOfInterestDto;
+import com.travelcompanion.dto.PositionDto;
+import com.travelcompanion.event.ToursDeletedEvent;
+import com.travelcompanion.exception.CapacityExceededException;
+import com.travelcompanion.exception.ResourceNotFoundException;
+import com.travelcompanion.geo.GeofenceIndex;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Определение прихода туриста к точкам тура по потоку его позиций.
+ *
+ * Точки тура индексируются сеткой ({@link GeofenceIndex}), индекс кэшируется
+ * и сбрасывается вместе с точками тура. Переход в зону и из нее требует
+ * {@code app.geofence.confirmations} позиций подряд (подавление дрожания GPS),
+ * а выход считается только за радиусом {@code exit-radius-m}, который больше
+ * радиуса входа (гистерезис). Позиции с плохой точностью и пришедшие не по
+ * порядку пропускаются. Сессия хранит состояние не больше чем для
+ * {@code max-tracked-points} точек: новые зоны заводятся от ближайшей к
+ * позиции, пока есть место, а уже отслеживаемые не вытесняются более
+ * близкими. Сессии живут в памяти узла, поэтому позиции одной сессии
+ * должны попадать на один узел.
+ */
+@Slf4j
+@Service
+public class GeofenceService {
+
+    private final TourService tourService;
+    private final PointOfInterestService pointOfInterestService;
+    private final Cache indexCache;
+
+    private final Map<String, Session> sessions = new ConcurrentHashMap<>();
+
+    @Value("${app.geofence.enter-radius-m:30}")
+    private double enterRadius;
+
+    @Value("${app.geofence.exit-radius-m:50}")
+    private double exitRadius;
+
+    @Value("${app.geofence.confirmations:2}")
+    private int confirmations;
+
+    @Value("${app.geofence.max-accuracy-m:50}")
+    private double maxAccuracy;
+
+    @Value("${app.geofence.max-batch:200}")
+    private int maxBatch;
+
+    @Value("${app.geofence.max-sessions:100000}")
+    private int maxSessions;
+
+    @Value("${app.geofence.max-tracked-points:16}")
+    private int maxTrackedPoints;
+
+    @Value("${app.geofence.session-idle-ms:900000}")
+    private long sessionIdleMillis;
+
+    public GeofenceService(TourService tourService,
+                           PointOfInterestService pointOfInterestService,
+                           CacheManager cacheManager) {
+        this.tourService = tourService;
+        this.pointOfInterestService = pointOfInterestService;
+        this.indexCache = cacheManager.getCache(CacheNames.GEOFENCE);
+        if (indexCache == null) {
+            throw new IllegalStateException("Кэш не настроен: " + CacheNames.GEOFENCE);
+        }
+    }
+
+    public GeofenceSessionDto createSession(Long tourId) {
+        if (exitRadius < enterRadius) {
+            throw new IllegalStateException("Радиус выхода не может быть меньше радиуса входа");
+        }
+        // Заодно проверяем, что тур существует
+        tourService.getTourById(tourId);
+        if (sessions.size() >= maxSessions) {
+            removeIdleSessions();
+            if (sessions.size() >= maxSessions) {
+                throw new CapacityExceededException("Слишком много активных сессий, повторите позже");
+            }
+        }
+        String id = UUID.randomUUID().toString();
+        sessions.put(id, new Session(tourId, System.currentTimeMillis()));
+        return new GeofenceSessionDto(id, tourId, enterRadius, exitRadius);
+    }
+
+    /**
+     * Обрабатывает пачку позиций и возвращает входы и выходы, которые она подтвердила
+     */
+    public List<GeofenceEventDto> ingest(String sessionId, List<PositionDto> positions) {
+        if (positions.size() > maxBatch) {
+            throw new IllegalArgumentException("В пачке не больше " + maxBatch + " позиций");
+        }
+        Session session = sessions.get(sessionId);
+        if (session == null) {
+            throw new ResourceNotFoundException("Сессия не найдена: " + sessionId);
+        }
+        GeofenceIndex index = index(session.tourId);
+
+        List<PositionDto> ordered = new ArrayList<>(positions);
+        ordered.sort(Comparator.comparingLong(PositionDto::getTimestamp));
+        List<GeofenceEventDto> events = new ArrayList<>();
+        synchronized (session) {
+            for (PositionDto position : ordered) {
+                session.process(position, index, events);
+            }
+            session.lastSeen = System.currentTimeMillis();
+        }
+        return events;
+    }
+
+    public void closeSession(String sessionId) {
+        if (sessions.remove(sessionId) == null) {
+            throw new ResourceNotFoundException("Сессия не найдена: " + sessionId);
+        }
+    }
+
+    public int getSessionCount() {
+        return sessions.size();
+    }
+
+    @Scheduled(fixedDelayString = "${app.geofence.cleanup-ms:60000}")
+    public void removeIdleSessions() {
+        long threshold = System.currentTimeMillis() - sessionIdleMillis;
+        sessions.values().removeIf(session -> session.lastSeen < threshold);
+    }
+
+    @EventListener
+    public void onToursDeleted(ToursDeletedEvent event) {
+        Set<Long> deleted = new HashSet<>(event.getTourIds());
+        sessions.values().removeIf(session -> deleted.contains(session.tourId));
+    }
+
+    private GeofenceIndex index(Long tourId) {
+        Cache.ValueWrapper cached = indexCache.get(tourId);
+        if (cached != null) {
+            return (GeofenceIndex) cached.get();
+        }
+        List<GeofenceIndex.Location> locations = new ArrayList<>();
+        for (PointOfInterestDto point : pointOfInterestService.getPointsByTourId(tourId)) {
+            try {
+                locations.add(new GeofenceIndex.Location(point.getId(),
+                        Double.parseDouble(point.getLatitude()), Double.parseDouble(point.getLongitude())));
+            } catch (NumberFormatException | NullPointerException e) {
+                log.debug("Точка {} без числовых координат не участвует в геозонах", point.getId());
+            }
+        }
+        GeofenceIndex index = GeofenceIndex.build(locations, exitRadius);
+        indexCache.put(tourId, index);
+        return index;
+    }
+
+    /**
+     * Состояние сессии: последняя принятая позиция и зоны отслеживаемых точек
+     */
+    private class Session {
+        private final Long tourId;
+        private final Map<Long, Zone> zones = new HashMap<>();
+        private long lastTimestamp = Long.MIN_VALUE;
+        private volatile long lastSeen;
+
+        Session(Long tourId, long now) {
+            this.tourId = tourId;
+            this.lastSeen = now;
+        }
+
+        void process(PositionDto position, GeofenceIndex index, List<GeofenceEventDto> events) {
+            if (position.getTimestamp() <= lastTimestamp
+                    || (position.getAccuracy() != null && position.getAccuracy() > maxAccuracy)) {
+                return;
+            }
+            lastTimestamp = position.getTimestamp();
+            long at = position.getTimestamp();
+
+            Map<Long, Double> near = new HashMap<>();
+            index.within(position.getLat(), position.getLng(), exitRadius, near::put);
+
+            // От ближней к дальней: при заполненном лимите без зоны остаются самые дальние точки
+            List<Map.Entry<Long, Double>> byDistance = new ArrayList<>(near.entrySet());
+            byDistance.sort(Map.Entry.comparingByValue());
+            for (Map.Entry<Long, Double> entry : byDistance) {
+                Long pointId = entry.getKey();
+                double distance = entry.getValue();
+                Zone zone = zones.get(pointId);
+                if (distance <= enterRadius) {
+                    if (zone == null) {
+                        if (zones.size() >= maxTrackedPoints) {
+                            continue;
+                        }
+                        zone = new Zone();
+                        zones.put(pointId, zone);
+                    }
+                    if (zone.inside) {
+                        zone.streak = 0;
+                    } else if (++zone.streak >= confirmations) {
+                        zone.inside = true;
+                        zone.streak = 0;
+                        events.add(new GeofenceEventDto(GeofenceEventDto.Type.ENTER, pointId, at, distance));
+                    }
+                } else if (zone != null) {
+                    // Между радиусами входа и выхода состояние не меняется, серия сбрасывается
+                    zone.streak = 0;
+                    if (!zone.inside) {
+                        zones.remove(pointId);
+                    }
+                }
+            }
+
+            Iterator<Map.Entry<Long, Zone>> iterator = zones.entrySet().iterator();
+            while (iterator.hasNext()) {
+                Map.Entry<Long, Zone> entry = iterator.next();
+                if (near.containsKey(entry.getKey())) {
+                    continue;
+                }
+                Zone zone = entry.getValue();
+                if (!zone.inside) {
+                    iterator.remove();
+                } else if (++zone.streak >= confirmations) {
+                    iterator.remove();
+                    events.add(new GeofenceEventDto(GeofenceEventDto.Type.EXIT, entry.getKey(), at, null));
+                }
+            }
+        }
+    }
+
+    /**
+     * Состояние зоны точки: внутри ли турист и сколько позиций подряд говорят о смене состояния
+     */
+    private static class Zone {
+        private boolean inside;
+        private int streak;
+    }
+}
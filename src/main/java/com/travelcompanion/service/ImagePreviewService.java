@@ -0,0 +1,122 @@
+package com.travelcompanion.service;
+
+import com.travelcompanion.media.BlurHash;
+import com.travelcompanion.media.MediaInfo;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Превью загруженных фото (BlurHash) для мгновенной отрисовки без запроса файла.
+ *
+ * Изображения больше {@code app.media.image.max-pixels} отклоняются по размерам
+ * из заголовка, не начиная декодирование, — это защищает от «бомб
+ * распаковки». Остальные декодируются с прореживанием строк и столбцов прямо в
+ * декодере, так что в памяти оказывается картинка порядка
+ * {@link #PREVIEW_SIZE} пикселей. Декодирование идет в ограниченном пуле; при
+ * перегрузке или тайм-ауте фото сохраняется без превью.
+ */
+@Slf4j
+@Service
+public class ImagePreviewService {
+
+    private static final int PREVIEW_SIZE = 32;
+
+    private final long maxPixels;
+    private final long timeoutMillis;
+    private final ThreadPoolExecutor executor;
+
+    public ImagePreviewService(@Value("${app.media.image.max-pixels:40000000}") long maxPixels,
+                               @Value("${app.media.image.decode-threads:2}") int threads,
+                               @Value("${app.media.image.queue-capacity:32}") int queueCapacity,
+                               @Value("${app.media.image.timeout-ms:10000}") long timeoutMillis) {
+        this.maxPixels = maxPixels;
+        this.timeoutMillis = timeoutMillis;
+        AtomicInteger counter = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), r -> {
+            Thread thread = new Thread(r, "image-preview-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        // Без дискового кэша ImageIO не создает временных файлов при чтении из потоков
+        ImageIO.setUseCache(false);
+    }
+
+    /**
+     * Проверяет размеры изображения и дописывает в info превью.
+     * Слишком большое изображение — IllegalArgumentException.
+     */
+    public void describe(Path file, MediaInfo info) {
+        if (info.getWidth() == null || info.getHeight() == null) {
+            // Формат, который ImageIO не читает (например, HEIC): без размеров и превью
+            return;
+        }
+        if ((long) info.getWidth() * info.getHeight() > maxPixels) {
+            throw new IllegalArgumentException("Изображение слишком большое: "
+                    + info.getWidth() + "x" + info.getHeight() + " пикселей");
+        }
+
+        Future<String> placeholder;
+        try {
+            placeholder = executor.submit(() -> placeholder(file, info.getWidth(), info.getHeight()));
+        } catch (RejectedExecutionException e) {
+            log.warn("Очередь декодирования изображений заполнена, фото сохраняется без превью");
+            return;
+        }
+        try {
+            info.setPlaceholder(placeholder.get(timeoutMillis, TimeUnit.MILLISECONDS));
+        } catch (TimeoutException e) {
+            placeholder.cancel(true);
+            log.warn("Превью фото не построено за {} мс", timeoutMillis);
+        } catch (ExecutionException e) {
+            log.warn("Не удалось построить превью фото: {}", e.getCause().getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private String placeholder(Path file, int width, int height) throws IOException {
+        try (ImageInputStream in = ImageIO.createImageInputStream(file.toFile())) {
+            Iterator<ImageReader> readers = in != null ? ImageIO.getImageReaders(in) : null;
+            if (readers == null || !readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(in, true, true);
+                ImageReadParam param = reader.getDefaultReadParam();
+                int step = Math.max(1, Math.max(width, height) / PREVIEW_SIZE);
+                param.setSourceSubsampling(step, step, 0, 0);
+                BufferedImage image = reader.read(0, param);
+                boolean landscape = width >= height;
+                return BlurHash.encode(image, landscape ? 4 : 3, landscape ? 3 : 4);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,23 @@
+package com.travelcompanion.service;
+
+/**
+ * Обработчик фоновых задач одного типа из {@link JobQueueService}.
+ *
+ * Задача может быть выполнена повторно (узел упал после обработки, но до
+ * удаления записи), поэтому обработка должна быть идемпотентной. Исключение
+ * из {@link #handle} — повод повторить задачу позже.
+ */
+public interface JobHandler {
+
+    /**
+     * Тип задач, например "audio-seek-index"
+     */
+    String getJobType();
+
+    /**
+     * Сколько задач этого типа узел выполняет одновременно
+     */
+    int getConcurrency();
+
+    void handle(String payload) throws Exception;
+}
@@ -0,0 +1,377 @@
+package com.travelcompanion.service;
+
+import com.travelcompanion.model.BackgroundJob;
+import com.travelcompanion.repository.BackgroundJobRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Очередь фоновых задач в таблице {@code background_jobs}, общая для всех узлов.
+ *
+ * Задача ставится в очередь записью в базу (в транзакции вызывающего, если она
+ * есть), поэтому запрос не ждет обработки, а задача переживает перезапуск.
+ * Каждый узел забирает готовые задачи по типам, не больше свободных мест в
+ * пуле обработчика ({@link JobHandler#getConcurrency()}). На PostgreSQL захват
+ * идет одним UPDATE с {@code FOR UPDATE SKIP LOCKED}: узлы не ждут друг друга и
+ * не получают одну задачу дважды. На H2 задача захватывается условным UPDATE
+ * по статусу. Захваченная задача арендуется на {@code app.jobs.lease-ms}, и пока
+ * обработчик работает, узел продлевает аренду раз в {@code app.jobs.heartbeat-ms};
+ * если узел упал, после истечения аренды задача возвращается в очередь. Ошибка
+ * обработчика переносит задачу на время с экспоненциальной задержкой и
+ * разбросом; после {@code app.jobs.max-attempts} попыток задача помечается FAILED.
+ */
+@Slf4j
+@Service
+public class JobQueueService {
+
+    private static final String CLAIM_SKIP_LOCKED =
+            "UPDATE background_jobs SET status = 'RUNNING', locked_by = ?, locked_until = ?, attempts = attempts + 1 "
+            + "WHERE id IN (SELECT id FROM background_jobs WHERE status = 'PENDING' AND job_type = ? AND run_at <= ? "
+            + "ORDER BY run_at, id LIMIT ? FOR UPDATE SKIP LOCKED) "
+            + "RETURNING id, payload, attempts";
+    private static final String SELECT_READY =
+            "SELECT id FROM background_jobs WHERE status = 'PENDING' AND job_type = ? AND run_at <= ? "
+            + "ORDER BY run_at, id LIMIT ?";
+    private static final String CLAIM_ONE =
+            "UPDATE background_jobs SET status = 'RUNNING', locked_by = ?, locked_until = ?, attempts = attempts + 1 "
+            + "WHERE id = ? AND status = 'PENDING'";
+    private static final String SELECT_CLAIMED =
+            "SELECT id, payload, attempts FROM background_jobs WHERE id = ? AND locked_by = ?";
+    private static final String RENEW =
+            "UPDATE background_jobs SET locked_until = ? WHERE id = ? AND locked_by = ? AND status = 'RUNNING'";
+    private static final String COMPLETE =
+            "DELETE FROM background_jobs WHERE id = ? AND locked_by = ?";
+    private static final String RETRY =
+            "UPDATE background_jobs SET status = 'PENDING', run_at = ?, locked_by = NULL, locked_until = NULL, "
+            + "last_error = ? WHERE id = ? AND locked_by = ?";
+    private static final String FAIL =
+            "UPDATE background_jobs SET status = 'FAILED', locked_by = NULL, locked_until = NULL, failed_at = ?, "
+            + "last_error = ? WHERE id = ? AND locked_by = ?";
+    private static final String EXPIRE_EXHAUSTED =
+            "UPDATE background_jobs SET status = 'FAILED', locked_by = NULL, locked_until = NULL, failed_at = ?, "
+            + "last_error = 'Истекла аренда задачи' WHERE status = 'RUNNING' AND locked_until < ? AND attempts >= ?";
+    private static final String EXPIRE =
+            "UPDATE background_jobs SET status = 'PENDING', locked_by = NULL, locked_until = NULL, "
+            + "last_error = 'Истекла аренда задачи' WHERE status = 'RUNNING' AND locked_until < ?";
+    private static final String PURGE_FAILED =
+            "DELETE FROM background_jobs WHERE status = 'FAILED' AND failed_at < ?";
+
+    private static final int MAX_PAYLOAD = 1024;
+    private static final int MAX_ERROR = 1024;
+
+    private static final RowMapper<ClaimedJob> CLAIMED_JOB = (rs, row) ->
+            new ClaimedJob(rs.getLong("id"), rs.getString("payload"), rs.getInt("attempts"));
+
+    private final BackgroundJobRepository jobRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectProvider<JobHandler> handlers;
+    private final String nodeId;
+
+    private final Map<String, Worker> workers = new LinkedHashMap<>();
+    private final Set<Long> running = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean polling = new AtomicBoolean();
+    private final ExecutorService poller = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "job-poller");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private volatile boolean started;
+    private volatile boolean skipLocked;
+
+    @Value("${app.jobs.batch-size:10}")
+    private int batchSize;
+
+    @Value("${app.jobs.lease-ms:600000}")
+    private long leaseMillis;
+
+    @Value("${app.jobs.max-attempts:5}")
+    private int maxAttempts;
+
+    @Value("${app.jobs.backoff-ms:10000}")
+    private long backoffMillis;
+
+    @Value("${app.jobs.max-backoff-ms:3600000}")
+    private long maxBackoffMillis;
+
+    @Value("${app.jobs.failed-retention:P7D}")
+    private Duration failedRetention;
+
+    public JobQueueService(BackgroundJobRepository jobRepository,
+                           JdbcTemplate jdbcTemplate,
+                           ObjectProvider<JobHandler> handlers) {
+        this.jobRepository = jobRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        // Обработчики сами ставят задачи в очередь, поэтому получаем их после создания всех бинов
+        this.handlers = handlers;
+        this.nodeId = hostname() + "-" + UUID.randomUUID().toString().substring(0, 8);
+    }
+
+    /**
+     * Ставит задачу в очередь; в транзакции задача появится только после ее коммита
+     */
+    public void enqueue(String jobType, String payload) {
+        if (payload == null || payload.length() > MAX_PAYLOAD) {
+            throw new IllegalArgumentException("Параметр задачи не задан или длиннее " + MAX_PAYLOAD + " символов");
+        }
+        jobRepository.save(new BackgroundJob(jobType, payload));
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    wakeUp();
+                }
+            });
+        } else {
+            wakeUp();
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        handlers.orderedStream().forEach(handler -> {
+            if (workers.containsKey(handler.getJobType())) {
+                throw new IllegalStateException("Два обработчика задач типа " + handler.getJobType());
+            }
+            workers.put(handler.getJobType(), new Worker(handler));
+        });
+        String product = jdbcTemplate.execute((ConnectionCallback<String>) connection ->
+                connection.getMetaData().getDatabaseProductName());
+        skipLocked = "PostgreSQL".equalsIgnoreCase(product);
+        started = true;
+        log.info("Очередь задач запущена на узле {}: {}", nodeId, workers.keySet());
+        wakeUp();
+    }
+
+    /**
+     * Забирает готовые задачи в свободные места пулов. Вызывается по расписанию,
+     * после постановки задачи и после завершения каждой задачи.
+     */
+    @Scheduled(fixedDelayString = "${app.jobs.poll-ms:1000}")
+    public void poll() {
+        if (!started || !polling.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            for (Worker worker : workers.values()) {
+                int free = worker.concurrency - worker.inFlight.get();
+                if (free <= 0) {
+                    continue;
+                }
+                List<ClaimedJob> jobs;
+                try {
+                    jobs = claim(worker.handler.getJobType(), Math.min(free, batchSize));
+                } catch (DataAccessException e) {
+                    log.warn("Не удалось забрать задачи {}: {}", worker.handler.getJobType(), e.getMessage());
+                    continue;
+                }
+                for (ClaimedJob job : jobs) {
+                    worker.inFlight.incrementAndGet();
+                    worker.executor.execute(() -> run(worker, job));
+                }
+            }
+        } finally {
+            polling.set(false);
+        }
+    }
+
+    /**
+     * Продлевает аренду задач, которые сейчас выполняются на этом узле, чтобы
+     * долгая обработка не вернулась в очередь и не запустилась на другом узле
+     */
+    @Scheduled(fixedDelayString = "${app.jobs.heartbeat-ms:60000}")
+    public void heartbeat() {
+        if (!started || running.isEmpty()) {
+            return;
+        }
+        Timestamp lockedUntil = Timestamp.from(Instant.now().plusMillis(leaseMillis));
+        List<Long> ids = new ArrayList<>(running);
+        List<Object[]> batch = new ArrayList<>(ids.size());
+        ids.forEach(id -> batch.add(new Object[]{lockedUntil, id, nodeId}));
+        try {
+            int[] updated = jdbcTemplate.batchUpdate(RENEW, batch);
+            for (int i = 0; i < updated.length; i++) {
+                // Задача могла как раз завершиться; иначе аренда уже истекла и задачу забрал sweep
+                if (updated[i] == 0 && running.contains(ids.get(i))) {
+                    log.warn("Аренда задачи #{} потеряна, результат обработки может быть не записан", ids.get(i));
+                }
+            }
+        } catch (DataAccessException e) {
+            log.warn("Не удалось продлить аренду {} задач: {}", ids.size(), e.getMessage());
+        }
+    }
+
+    /**
+     * Возвращает в очередь задачи упавших узлов и удаляет старые неудачные
+     */
+    @Scheduled(fixedDelayString = "${app.jobs.sweep-ms:60000}")
+    public void sweep() {
+        if (!started) {
+            return;
+        }
+        Timestamp now = Timestamp.from(Instant.now());
+        try {
+            int failed = jdbcTemplate.update(EXPIRE_EXHAUSTED, now, now, maxAttempts);
+            int expired = jdbcTemplate.update(EXPIRE, now);
+            jdbcTemplate.update(PURGE_FAILED, Timestamp.from(Instant.now().minus(failedRetention)));
+            if (failed + expired > 0) {
+                log.warn("Истекла аренда {} задач: {} возвращено в очередь, {} исчерпали попытки",
+                        failed + expired, expired, failed);
+            }
+        } catch (DataAccessException e) {
+            log.warn("Не удалось проверить аренду задач: {}", e.getMessage());
+        }
+    }
+
+    private List<ClaimedJob> claim(String jobType, int limit) {
+        Timestamp now = Timestamp.from(Instant.now());
+        Timestamp lockedUntil = Timestamp.from(now.toInstant().plusMillis(leaseMillis));
+        if (skipLocked) {
+            return jdbcTemplate.query(CLAIM_SKIP_LOCKED, CLAIMED_JOB, nodeId, lockedUntil, jobType, now, limit);
+        }
+        // Без SKIP LOCKED: кандидаты читаются без блокировки, задачу получает узел, чей UPDATE изменил строку
+        List<ClaimedJob> claimed = new ArrayList<>();
+        for (Long id : jdbcTemplate.queryForList(SELECT_READY, Long.class, jobType, now, limit)) {
+            if (jdbcTemplate.update(CLAIM_ONE, nodeId, lockedUntil, id) == 1) {
+                claimed.addAll(jdbcTemplate.query(SELECT_CLAIMED, CLAIMED_JOB, id, nodeId));
+            }
+        }
+        return claimed;
+    }
+
+    private void run(Worker worker, ClaimedJob job) {
+        String jobType = worker.handler.getJobType();
+        running.add(job.id);
+        try {
+            worker.handler.handle(job.payload);
+            running.remove(job.id);
+            if (jdbcTemplate.update(COMPLETE, job.id, nodeId) == 0) {
+                log.warn("Задача {} #{} выполнена после потери аренды", jobType, job.id);
+            }
+        } catch (Exception e) {
+            try {
+                fail(jobType, job, e);
+            } catch (DataAccessException dbError) {
+                // Задача вернется в очередь по истечении аренды
+                log.warn("Не удалось записать результат задачи {} #{}: {}", jobType, job.id, dbError.getMessage());
+            }
+        } finally {
+            running.remove(job.id);
+            worker.inFlight.decrementAndGet();
+            wakeUp();
+        }
+    }
+
+    private void fail(String jobType, ClaimedJob job, Exception e) {
+        String error = e.getMessage() != null ? e.getMessage() : e.getClass().getName();
+        if (error.length() > MAX_ERROR) {
+            error = error.substring(0, MAX_ERROR);
+        }
+        if (job.attempts >= maxAttempts) {
+            log.warn("Задача {} #{} ({}) не выполнена после {} попыток: {}",
+                    jobType, job.id, job.payload, job.attempts, error);
+            jdbcTemplate.update(FAIL, Timestamp.from(Instant.now()), error, job.id, nodeId);
+            return;
+        }
+        long delay = backoff(job.attempts);
+        log.info("Задача {} #{} завершилась ошибкой, повтор через {} с: {}", jobType, job.id, delay / 1000, error);
+        jdbcTemplate.update(RETRY, Timestamp.from(Instant.now().plusMillis(delay)), error, job.id, nodeId);
+    }
+
+    // Удвоение задержки с каждой попыткой и случайный разброс в ее вторую половину,
+    // чтобы задачи, упавшие одновременно, не повторялись одной пачкой
+    private long backoff(int attempts) {
+        long delay = Math.min(maxBackoffMillis, backoffMillis << Math.min(attempts - 1, 30));
+        return delay / 2 + ThreadLocalRandom.current().nextLong(delay / 2 + 1);
+    }
+
+    private void wakeUp() {
+        if (!started) {
+            return;
+        }
+        try {
+            poller.execute(this::poll);
+        } catch (RejectedExecutionException e) {
+            // Узел останавливается
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        started = false;
+        poller.shutdownNow();
+        // Прерванные задачи вернутся в очередь по истечении аренды
+        workers.values().forEach(worker -> worker.executor.shutdownNow());
+    }
+
+    private static String hostname() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            return "node";
+        }
+    }
+
+    /**
+     * Пул обработчика: задач в работе не больше его concurrency, поэтому очередь пула не переполняется
+     */
+    private static class Worker {
+        private final JobHandler handler;
+        private final int concurrency;
+        private final ThreadPoolExecutor executor;
+        private final AtomicInteger inFlight = new AtomicInteger();
+
+        Worker(JobHandler handler) {
+            this.handler = handler;
+            this.concurrency = Math.max(1, handler.getConcurrency());
+            AtomicInteger counter = new AtomicInteger();
+            this.executor = new ThreadPoolExecutor(concurrency, concurrency, 0, TimeUnit.MILLISECONDS,
+                    new ArrayBlockingQueue<>(concurrency), r -> {
+                Thread thread = new Thread(r, "job-" + handler.getJobType() + "-" + counter.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    @AllArgsConstructor
+    private static class ClaimedJob {
+        private final long id;
+        private final String payload;
+        private final int attempts;
+    }
+}
@@ -0,0 +1,170 @@
+package com.travelcompanion.service;
+
+import com.travelcompanion.event.TourChangeType;
+import com.travelcompanion.event.TourChangedEvent;
+import com.travelcompanion.event.ToursDeletedEvent;
+import com.travelcompanion.model.MediaCleanupTask;
+import com.travelcompanion.model.PointOfInterest;
+import com.travelcompanion.repository.MediaCleanupTaskRepository;
+import com.travelcompanion.repository.PointOfInterestRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Удаление медиафайлов удаленных точек через outbox-таблицу.
+ *
+ * Запись о файле сохраняется в той же транзакции, что и удаление точки, поэтому
+ * при откате файл остается на месте. Сами файлы удаляются в фоне после коммита,
+ * не задерживая запрос.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class MediaCleanupService {
+
+    private final MediaCleanupTaskRepository cleanupTaskRepository;
+    private final PointOfInterestRepository pointOfInterestRepository;
+    private final FileStorageService fileStorageService;
+
+    private final ExecutorService reaperExecutor = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "media-reaper");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    @Value("${app.media.cleanup.batch-size:100}")
+    private int batchSize;
+
+    @Value("${app.media.cleanup.max-attempts:5}")
+    private int maxAttempts;
+
+    /**
+     * Ставит в очередь на удаление все медиафайлы точки
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void enqueue(PointOfInterest point) {
+        enqueue(point.getPhotoFilename(), "photo");
+        enqueue(point.getAudioFilename(), "audio");
+        enqueue(point.getVideoFilename(), "video");
+    }
+
+    /**
+     * Ставит в очередь файл, который был заменен новым при обновлении точки
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void enqueueReplaced(String previousFilename, String currentFilename, String type) {
+        if (!Objects.equals(previousFilename, currentFilename)) {
+            enqueue(previousFilename, type);
+        }
+    }
+
+    /**
+     * Ставит в очередь медиафайлы всех точек туров запросами INSERT ... SELECT.
+     * Вызывается до удаления точек.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public int enqueueForTours(Collection<Long> tourIds) {
+        Instant now = Instant.now();
+        return cleanupTaskRepository.enqueuePhotosOfTours(tourIds, now)
+                + cleanupTaskRepository.enqueueAudioOfTours(tourIds, now)
+                + cleanupTaskRepository.enqueueVideosOfTours(tourIds, now);
+    }
+
+    private void enqueue(String filename, String type) {
+        if (filename != null && !filename.isBlank()) {
+            cleanupTaskRepository.save(new MediaCleanupTask(filename, type));
+        }
+    }
+
+    @TransactionalEventListener
+    public void onTourChanged(TourChangedEvent event) {
+        if (event.getType() == TourChangeType.TOUR_DELETED
+                || event.getType() == TourChangeType.POINT_DELETED
+                || event.getType() == TourChangeType.POINT_UPDATED) {
+            reaperExecutor.execute(this::reap);
+        }
+    }
+
+    @TransactionalEventListener
+    public void onToursDeleted(ToursDeletedEvent event) {
+        reaperExecutor.execute(this::reap);
+    }
+
+    /**
+     * Удаляет файлы из outbox-таблицы. Запускается после коммита удаления
+     * и периодически, чтобы подобрать записи, оставшиеся после сбоев.
+     */
+    @Scheduled(fixedDelayString = "${app.media.cleanup.interval-ms:60000}")
+    public void reap() {
+        if (!running.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            List<MediaCleanupTask> tasks;
+            do {
+                tasks = cleanupTaskRepository.findByNextAttemptAtBeforeOrderByIdAsc(
+                        Instant.now(), PageRequest.of(0, batchSize));
+                tasks.forEach(this::process);
+            } while (tasks.size() == batchSize);
+        } finally {
+            running.set(false);
+        }
+    }
+
+    private void process(MediaCleanupTask task) {
+        try {
+            // Файл мог снова оказаться привязан к точке — тогда его не трогаем
+            if (!isReferenced(task.getFilename(), task.getMediaType())) {
+                fileStorageService.deleteFile(task.getFilename(), task.getMediaType());
+            }
+            cleanupTaskRepository.delete(task);
+        } catch (IOException e) {
+            task.setAttempts(task.getAttempts() + 1);
+            if (task.getAttempts() >= maxAttempts) {
+                log.warn("Не удалось удалить файл {} после {} попыток: {}",
+                        task.getFilename(), task.getAttempts(), e.getMessage());
+                cleanupTaskRepository.delete(task);
+                return;
+            }
+            task.setNextAttemptAt(Instant.now().plus(Duration.ofMinutes(1L << task.getAttempts())));
+            cleanupTaskRepository.save(task);
+        }
+    }
+
+    private boolean isReferenced(String filename, String type) {
+        switch (type) {
+            case "photo":
+                return pointOfInterestRepository.existsByPhotoFilename(filename);
+            case "audio":
+                return pointOfInterestRepository.existsByAudioFilename(filename);
+            case "video":
+                return pointOfInterestRepository.existsByVideoFilename(filename);
+            default:
+                return false;
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        reaperExecutor.shutdownNow();
+    }
+}
@@ -0,0 +1,92 @@
+package com.travelcompanion.service;
+
+import com.travelcompanion.repository.PointOfInterestRepository;
+import com.travelcompanion.storage.StoredObject;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Stream;
+
+/**
+ * Периодическая сверка файлов в хранилище со ссылками в базе.
+ *
+ * Подбирает файлы, которые не попали в outbox: загруженные, но так и не
+ * привязанные к точке, или оставшиеся после сбоя. Свежие файлы не трогаем,
+ * пока не истечет {@code app.media.reconcile.grace-period}.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class MediaReconciliationService {
+
+    private final PointOfInterestRepository pointOfInterestRepository;
+    private final FileStorageService fileStorageService;
+
+    @Value("${app.media.reconcile.grace-period:PT24H}")
+    private Duration gracePeriod;
+
+    @Value("${app.media.reconcile.parallelism:4}")
+    private int parallelism;
+
+    @Scheduled(fixedDelayString = "${app.media.reconcile.interval-ms:21600000}",
+            initialDelayString = "${app.media.reconcile.initial-delay-ms:600000}")
+    public void reconcile() {
+        Map<String, Set<String>> referenced = Map.of(
+                "photo", new HashSet<>(pointOfInterestRepository.findAllPhotoFilenames()),
+                "audio", new HashSet<>(pointOfInterestRepository.findAllAudioFilenames()),
+                "video", new HashSet<>(pointOfInterestRepository.findAllVideoFilenames()));
+        Instant cutoff = Instant.now().minus(gracePeriod);
+
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            long removed = pool.submit(() -> referenced.entrySet().parallelStream()
+                    .mapToLong(entry -> removeOrphans(entry.getKey(), entry.getValue(), cutoff))
+                    .sum()).get();
+            if (removed > 0) {
+                log.info("Сверка медиафайлов: удалено {} файлов без ссылок", removed);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            log.warn("Сверка медиафайлов прервана: {}", e.getCause().getMessage());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private long removeOrphans(String type, Set<String> referenced, Instant cutoff) {
+        try (Stream<StoredObject> files = fileStorageService.listFiles(type)) {
+            List<StoredObject> orphans = files
+                    .filter(file -> !referenced.contains(file.getFilename()))
+                    .filter(file -> file.getLastModified().isBefore(cutoff))
+                    .toList();
+            return orphans.parallelStream()
+                    .filter(file -> deleteQuietly(type, file.getFilename()))
+                    .count();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private boolean deleteQuietly(String type, String filename) {
+        try {
+            return fileStorageService.deleteFile(filename, type);
+        } catch (IOException e) {
+            log.debug("Не удалось удалить {}: {}", filename, e.getMessage());
+            return false;
+        }
+    }
+}
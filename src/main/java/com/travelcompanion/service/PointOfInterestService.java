@@ -1,18 +1,37 @@
 package com.travelcompanion.service;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.travelcompanion.cache.CacheNames;
+import com.travelcompanion.cache.NegativeLookupCache;
 import com.travelcompanion.dto.PointOfInterestDto;
+import com.travelcompanion.event.TourChangeType;
+import com.travelcompanion.event.TourChangedEvent;
+import com.travelcompanion.exception.PointNotFoundException;
+import com.travelcompanion.exception.TourNotFoundException;
+import com.travelcompanion.model.Media;
 import com.travelcompanion.model.PointOfInterest;
 import com.travelcompanion.model.Tour;
 import com.travelcompanion.repository.PointOfInterestRepository;
 import com.travelcompanion.repository.TourRepository;
+import lombok.AllArgsConstructor;
+import lombok.Data;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.modelmapper.ModelMapper;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.io.IOException;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 import java.util.stream.Collectors;
 
+@Slf4j
 @Service
 @RequiredArgsConstructor
 public class PointOfInterestService {
@@ -20,11 +39,17 @@ public class PointOfInterestService {
     private final PointOfInterestRepository pointOfInterestRepository;
     private final TourRepository tourRepository;
     private final ModelMapper modelMapper;
+    private final ApplicationEventPublisher eventPublisher;
+    private final MediaCleanupService mediaCleanupService;
+    private final PointOrderService pointOrderService;
+    private final NegativeLookupCache negativeLookupCache;
+    private final FileStorageService fileStorageService;
 
     @Transactional
     public PointOfInterestDto createPoint(PointOfInterestDto pointDto) {
-        Tour tour = tourRepository.findById(pointDto.getTourId())
-                .orElseThrow(() -> new RuntimeException("Тур не найден"));
+        Tour tour = negativeLookupCache.find(NegativeLookupCache.TOUR, pointDto.getTourId(),
+                        () -> tourRepository.findById(pointDto.getTourId()))
+                .orElseThrow(() -> new TourNotFoundException(pointDto.getTourId()));
 
         PointOfInterest point = new PointOfInterest();
         point.setTour(tour);
@@ -32,22 +57,26 @@ public class PointOfInterestService {
         point.setDescription(pointDto.getDescription());
         point.setLatitude(pointDto.getLatitude());
         point.setLongitude(pointDto.getLongitude());
-        point.setPhotoFilename(pointDto.getPhotoFilename());
+        setPhoto(point, pointDto.getPhotoFilename());
         point.setAudioFilename(pointDto.getAudioFilename());
         point.setVideoFilename(pointDto.getVideoFilename());
-        point.setOrder(pointDto.getOrder());
+        // Порядок задает только PointOrderService: новая точка встает в конец тура
+        point.setOrder(pointOrderService.nextKey(tour.getId()));
+        point.setRevision(0L);
 
         PointOfInterest savedPoint = pointOfInterestRepository.save(point);
+        negativeLookupCache.forget(NegativeLookupCache.POINT, savedPoint.getId());
+        eventPublisher.publishEvent(TourChangedEvent.point(tour.getId(), TourChangeType.POINT_CREATED, savedPoint.getId()));
         return modelMapper.map(savedPoint, PointOfInterestDto.class);
     }
 
     @Transactional(readOnly = true)
     public PointOfInterestDto getPointById(Long id) {
-        PointOfInterest point = pointOfInterestRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("Точка интереса не найдена"));
+        PointOfInterest point = findPoint(id);
         return modelMapper.map(point, PointOfInterestDto.class);
     }
 
+    @Cacheable(CacheNames.TOUR_POINTS)
     @Transactional(readOnly = true)
     public List<PointOfInterestDto> getPointsByTourId(Long tourId) {
         return pointOfInterestRepository.findByTourIdOrderByOrderAsc(tourId).stream()
@@ -57,13 +86,16 @@ public class PointOfInterestService {
 
     @Transactional
     public PointOfInterestDto updatePoint(Long id, PointOfInterestDto pointDto) {
-        PointOfInterest point = pointOfInterestRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("Точка интереса не найдена"));
+        PointOfInterest point = findPoint(id);
 
-        if (pointDto.getTourId() != null && !pointDto.getTourId().equals(point.getTour().getId())) {
-            Tour tour = tourRepository.findById(pointDto.getTourId())
-                    .orElseThrow(() -> new RuntimeException("Тур не найден"));
+        Long previousTourId = point.getTour().getId();
+        if (pointDto.getTourId() != null && !pointDto.getTourId().equals(previousTourId)) {
+            Tour tour = negativeLookupCache.find(NegativeLookupCache.TOUR, pointDto.getTourId(),
+                            () -> tourRepository.findById(pointDto.getTourId()))
+                    .orElseThrow(() -> new TourNotFoundException(pointDto.getTourId()));
             point.setTour(tour);
+            point.setOrder(pointOrderService.nextKey(tour.getId()));
+            eventPublisher.publishEvent(TourChangedEvent.point(previousTourId, TourChangeType.POINT_DELETED, id));
         }
 
         if (pointDto.getName() != null) {
@@ -80,21 +112,139 @@ public class PointOfInterestService {
             point.setLongitude(pointDto.getLongitude());
         }
 
-        point.setPhotoFilename(pointDto.getPhotoFilename());
+        mediaCleanupService.enqueueReplaced(point.getPhotoFilename(), pointDto.getPhotoFilename(), "photo");
+        mediaCleanupService.enqueueReplaced(point.getAudioFilename(), pointDto.getAudioFilename(), "audio");
+        mediaCleanupService.enqueueReplaced(point.getVideoFilename(), pointDto.getVideoFilename(), "video");
+
+        setPhoto(point, pointDto.getPhotoFilename());
         point.setAudioFilename(pointDto.getAudioFilename());
         point.setVideoFilename(pointDto.getVideoFilename());
-        point.setOrder(pointDto.getOrder());
+        // order из запроса игнорируется: переставить точку можно только через movePoint
+        point.setRevision(nextRevision(point, 0));
 
         PointOfInterest updatedPoint = pointOfInterestRepository.save(point);
+        eventPublisher.publishEvent(TourChangedEvent.point(updatedPoint.getTour().getId(), TourChangeType.POINT_UPDATED, id));
         return modelMapper.map(updatedPoint, PointOfInterestDto.class);
     }
+
+    /**
+     * Переставляет точку после {@code afterId} (или в начало тура). Меняется только строка самой точки.
+     */
+    @Transactional
+    public PointOfInterestDto movePoint(Long id, Long afterId) {
+        PointOfInterest point = findPoint(id);
+
+        pointOrderService.move(point, afterId);
+        point.setRevision(nextRevision(point, 0));
+        eventPublisher.publishEvent(TourChangedEvent.point(point.getTour().getId(), TourChangeType.POINT_UPDATED, id));
+        return modelMapper.map(point, PointOfInterestDto.class);
+    }
+
+    /**
+     * Записывает накопленную правку точки в отдельной транзакции. Благодаря
+     * {@code @DynamicUpdate} в UPDATE попадают только измененные столбцы.
+     * Точка, удаленная за время ожидания, пропускается.
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void applyPatch(Long pointId, PointPatch patch) {
+        pointOfInterestRepository.findById(pointId).ifPresent(point -> {
+            ObjectNode fields = patch.getFields();
+
+            if (fields.has("name")) {
+                point.setName(fields.get("name").asText());
+            }
+            if (fields.has("description")) {
+                point.setDescription(text(fields.get("description")));
+            }
+            if (fields.has("latitude")) {
+                point.setLatitude(fields.get("latitude").asText());
+            }
+            if (fields.has("longitude")) {
+                point.setLongitude(fields.get("longitude").asText());
+            }
+            if (fields.has("photoFilename")) {
+                String photo = text(fields.get("photoFilename"));
+                mediaCleanupService.enqueueReplaced(point.getPhotoFilename(), photo, "photo");
+                setPhoto(point, photo);
+            }
+            if (fields.has("audioFilename")) {
+                String audio = text(fields.get("audioFilename"));
+                mediaCleanupService.enqueueReplaced(point.getAudioFilename(), audio, "audio");
+                point.setAudioFilename(audio);
+            }
+            if (fields.has("videoFilename")) {
+                String video = text(fields.get("videoFilename"));
+                mediaCleanupService.enqueueReplaced(point.getVideoFilename(), video, "video");
+                point.setVideoFilename(video);
+            }
+            point.setRevision(nextRevision(point, patch.getVersion()));
+
+            eventPublisher.publishEvent(TourChangedEvent.point(point.getTour().getId(), TourChangeType.POINT_UPDATED, point.getId()));
+        });
+    }
+
     @Transactional
     public void deletePoint(Long id) {
-        pointOfInterestRepository.deleteById(id);
+        pointOfInterestRepository.findById(id).ifPresent(point -> {
+            mediaCleanupService.enqueue(point);
+            pointOfInterestRepository.delete(point);
+            eventPublisher.publishEvent(TourChangedEvent.point(point.getTour().getId(), TourChangeType.POINT_DELETED, id));
+        });
     }
     
+    /**
+     * Удаляет точки туров одним запросом, не загружая их. Медиафайлы
+     * переносятся в outbox тоже на стороне базы.
+     */
     @Transactional
-    public void deletePointsByTourId(Long tourId) {
-        pointOfInterestRepository.deleteByTourId(tourId);
+    public int deletePointsByTourIds(Collection<Long> tourIds) {
+        mediaCleanupService.enqueueForTours(tourIds);
+        return pointOfInterestRepository.deleteAllByTourIds(tourIds);
+    }
+
+    private PointOfInterest findPoint(Long id) {
+        return negativeLookupCache.find(NegativeLookupCache.POINT, id, () -> pointOfInterestRepository.findById(id))
+                .orElseThrow(() -> new PointNotFoundException(id));
+    }
+
+    /**
+     * Ставит фото точки и копирует в нее размеры и превью из метаданных файла
+     */
+    private void setPhoto(PointOfInterest point, String filename) {
+        if (filename != null && filename.equals(point.getPhotoFilename()) && point.getPhotoWidth() != null) {
+            return;
+        }
+        point.setPhotoFilename(filename);
+        Optional<Media> media = Optional.empty();
+        if (filename != null) {
+            try {
+                media = fileStorageService.getMetadata("photo", filename);
+            } catch (IOException | IllegalArgumentException e) {
+                log.warn("Нет метаданных фото {}: {}", filename, e.getMessage());
+            }
+        }
+        point.setPhotoWidth(media.map(Media::getWidth).orElse(null));
+        point.setPhotoHeight(media.map(Media::getHeight).orElse(null));
+        point.setPhotoPlaceholder(media.map(Media::getPlaceholder).orElse(null));
+    }
+
+    // Номер правки не уменьшается, даже если подтвержденная версия отстала от записанной в базе
+    private long nextRevision(PointOfInterest point, long acceptedVersion) {
+        long current = point.getRevision() != null ? point.getRevision() : 0;
+        return Math.max(current + 1, acceptedVersion);
+    }
+
+    private String text(JsonNode value) {
+        return value.isNull() ? null : value.asText();
+    }
+
+    /**
+     * Слитый патч точки и версия, под которой он был подтвержден клиенту
+     */
+    @Data
+    @AllArgsConstructor
+    public static class PointPatch {
+        private ObjectNode fields;
+        private long version;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,211 @@
+package com.travelcompanion.service;
+
+import com.travelcompanion.event.TourChangeType;
+import com.travelcompanion.event.TourChangedEvent;
+import com.travelcompanion.exception.TourNotFoundException;
+import com.travelcompanion.model.PointOfInterest;
+import com.travelcompanion.repository.PointOfInterestRepository;
+import com.travelcompanion.repository.TourRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Порядок точек в туре на ключах с промежутками.
+ *
+ * Ключи идут с шагом {@link #GAP}, поэтому точку можно переставить, записав ей
+ * ключ посередине между соседями, — остальные строки не меняются. Когда
+ * промежуток исчерпан, ключи тура перенумеровываются: сразу, если места нет
+ * совсем, и в фоне после коммита, если его осталось мало. Изменения порядка
+ * одного тура сериализуются блокировкой строки тура.
+ */
+@Slf4j
+@Service
+public class PointOrderService {
+
+    public static final int GAP = 1024;
+
+    // Промежуток, при котором тур перенумеровывается в фоне
+    private static final int MIN_GAP = 8;
+
+    private final PointOfInterestRepository pointOfInterestRepository;
+    private final TourRepository tourRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final Set<Long> queued = ConcurrentHashMap.newKeySet();
+    private final ExecutorService rebalanceExecutor = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "point-order-rebalance");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public PointOrderService(PointOfInterestRepository pointOfInterestRepository,
+                             TourRepository tourRepository,
+                             ApplicationEventPublisher eventPublisher,
+                             PlatformTransactionManager transactionManager) {
+        this.pointOfInterestRepository = pointOfInterestRepository;
+        this.tourRepository = tourRepository;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Ключ для новой точки в конце тура
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public int nextKey(Long tourId) {
+        lockTour(tourId);
+        Integer max = pointOfInterestRepository.findMaxOrderByTourId(tourId);
+        if (max == null) {
+            return GAP;
+        }
+        if (max > Integer.MAX_VALUE - GAP) {
+            rebalance(tourId);
+            max = pointOfInterestRepository.findMaxOrderByTourId(tourId);
+        }
+        return max + GAP;
+    }
+
+    /**
+     * Ставит точку после {@code afterId} (или первой) изменением одной строки
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void move(PointOfInterest point, Long afterId) {
+        Long tourId = point.getTour().getId();
+        lockTour(tourId);
+        if (point.getId().equals(afterId)) {
+            return;
+        }
+
+        Slot slot = slotAfter(tourId, point.getId(), afterId);
+        if (slot.key == null) {
+            rebalance(tourId);
+            slot = slotAfter(tourId, point.getId(), afterId);
+        }
+        point.setOrder(slot.key);
+
+        if (slot.crowded) {
+            eventPublisher.publishEvent(new RebalanceRequested(tourId));
+        }
+    }
+
+    /**
+     * Перенумеровывает точки тура с шагом {@link #GAP}, сохраняя текущий порядок.
+     * Точки без ключа оказываются в конце.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void rebalance(Long tourId) {
+        lockTour(tourId);
+        List<PointOfInterest> points = new ArrayList<>(pointOfInterestRepository.findByTourId(tourId));
+        points.sort(Comparator.comparing(PointOfInterest::getOrder, Comparator.nullsLast(Comparator.naturalOrder()))
+                .thenComparing(PointOfInterest::getId));
+        long key = GAP;
+        for (PointOfInterest point : points) {
+            // Больше двух миллионов точек в туре не ожидается; ключи ограничены int
+            point.setOrder((int) Math.min(key, Integer.MAX_VALUE));
+            key += GAP;
+        }
+        pointOfInterestRepository.flush();
+        eventPublisher.publishEvent(TourChangedEvent.tour(tourId, TourChangeType.POINTS_REORDERED));
+        log.debug("Перенумерованы точки тура {}: {}", tourId, points.size());
+    }
+
+    @TransactionalEventListener
+    public void onRebalanceRequested(RebalanceRequested event) {
+        Long tourId = event.getTourId();
+        if (queued.add(tourId)) {
+            rebalanceExecutor.execute(() -> {
+                queued.remove(tourId);
+                try {
+                    transactionTemplate.executeWithoutResult(status -> {
+                        if (tourRepository.existsById(tourId)) {
+                            rebalance(tourId);
+                        }
+                    });
+                } catch (RuntimeException e) {
+                    log.warn("Не удалось перенумеровать точки тура {}: {}", tourId, e.getMessage());
+                }
+            });
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        rebalanceExecutor.shutdownNow();
+    }
+
+    private Slot slotAfter(Long tourId, Long pointId, Long afterId) {
+        int lower = 0;
+        Optional<PointOfInterest> next;
+        if (afterId == null) {
+            next = pointOfInterestRepository.findFirstByTourIdAndIdNotOrderByOrderAsc(tourId, pointId);
+        } else {
+            PointOfInterest after = pointOfInterestRepository.findById(afterId)
+                    .filter(p -> p.getTour().getId().equals(tourId))
+                    .orElseThrow(() -> new IllegalArgumentException("Точка " + afterId + " не принадлежит туру " + tourId));
+            if (after.getOrder() == null) {
+                return Slot.NONE;
+            }
+            lower = after.getOrder();
+            next = pointOfInterestRepository.findFirstByTourIdAndIdNotAndOrderGreaterThanOrderByOrderAsc(
+                    tourId, pointId, lower);
+        }
+
+        long upper;
+        if (next.isEmpty()) {
+            upper = (long) lower + 2 * GAP;
+        } else if (next.get().getOrder() == null) {
+            return Slot.NONE;
+        } else {
+            upper = next.get().getOrder();
+        }
+        if (upper - lower < 2 || (long) lower + GAP > Integer.MAX_VALUE) {
+            return Slot.NONE;
+        }
+        int key = (int) (lower + (upper - lower) / 2);
+        return new Slot(key, key - lower <= MIN_GAP || upper - key <= MIN_GAP);
+    }
+
+    private void lockTour(Long tourId) {
+        tourRepository.findByIdForUpdate(tourId)
+                .orElseThrow(() -> new TourNotFoundException(tourId));
+    }
+
+    private static class Slot {
+        private static final Slot NONE = new Slot(null, false);
+
+        private final Integer key;
+        private final boolean crowded;
+
+        Slot(Integer key, boolean crowded) {
+            this.key = key;
+            this.crowded = crowded;
+        }
+    }
+
+    /**
+     * Запрос фоновой перенумерации тура, обрабатывается после коммита
+     */
+    @Data
+    @AllArgsConstructor
+    public static class RebalanceRequested {
+        private Long tourId;
+    }
+}
@@ -0,0 +1,215 @@
+package com.travelcompanion.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.travelcompanion.cache.NegativeLookupCache;
+import com.travelcompanion.exception.PointNotFoundException;
+import com.travelcompanion.repository.PointOfInterestRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Объединение частых правок точек (JSON Merge Patch) в одну запись в базу.
+ *
+ * Патч проверяется и сразу подтверждается номером версии, а в базу попадает
+ * при ближайшем сбросе: все патчи одной точки, пришедшие за окно
+ * {@code app.points.patch.coalesce-ms}, сливаются (последнее значение поля
+ * побеждает). Каждая точка окна пишется своей транзакцией, так что ошибка
+ * одной точки не откатывает правки остальных. Буфер локален для узла: в
+ * течение окна чтение может вернуть предыдущее состояние точки.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class PointWriteCoalescer {
+
+    public static final Set<String> PATCHABLE_FIELDS = Set.of(
+            "name", "description", "latitude", "longitude",
+            "photoFilename", "audioFilename", "videoFilename");
+
+    // Порядок меняется только через перестановку точки, в патче поле игнорируется
+    private static final String IGNORED_FIELD = "order";
+
+    private static final Set<String> REQUIRED_FIELDS = Set.of("name", "latitude", "longitude");
+
+    private static final Set<String> COORDINATE_FIELDS = Set.of("latitude", "longitude");
+
+    // Длины столбцов points_of_interest: координаты VARCHAR(50), имя и файлы VARCHAR(255), описание TEXT
+    private static final Map<String, Integer> MAX_LENGTH = Map.of(
+            "name", 255,
+            "latitude", 50,
+            "longitude", 50,
+            "photoFilename", 255,
+            "audioFilename", 255,
+            "videoFilename", 255);
+
+    private final PointOfInterestRepository pointOfInterestRepository;
+    private final PointOfInterestService pointOfInterestService;
+    private final NegativeLookupCache negativeLookupCache;
+
+    private final Map<Long, PendingPoint> points = new ConcurrentHashMap<>();
+
+    @Value("${app.points.patch.max-attempts:3}")
+    private int maxAttempts;
+
+    /**
+     * Принимает патч и возвращает присвоенный ему номер версии точки
+     */
+    public long submit(Long pointId, JsonNode patch) {
+        validate(patch);
+        ((ObjectNode) patch).remove(IGNORED_FIELD);
+        long[] version = new long[1];
+        Long persisted = null;
+        while (true) {
+            // Версию из базы читаем только для первой правки в серии; заодно проверяем, что точка есть
+            if (persisted == null && !points.containsKey(pointId)) {
+                persisted = negativeLookupCache.find(NegativeLookupCache.POINT, pointId,
+                                () -> pointOfInterestRepository.findRevisionById(pointId))
+                        .orElseThrow(() -> new PointNotFoundException(pointId));
+            }
+            Long base = persisted;
+            PendingPoint state = points.compute(pointId, (id, current) -> {
+                if (current == null && base == null) {
+                    // Серия успела записаться и уйти из буфера — перечитаем версию
+                    return null;
+                }
+                PendingPoint next = current != null ? current : new PendingPoint(base);
+                next.merge((ObjectNode) patch);
+                version[0] = next.acceptedVersion;
+                return next;
+            });
+            if (state != null) {
+                return version[0];
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.points.patch.coalesce-ms:200}")
+    public void flush() {
+        Map<Long, PointOfInterestService.PointPatch> batch = new HashMap<>();
+        for (Long pointId : points.keySet()) {
+            points.computeIfPresent(pointId, (id, state) -> {
+                if (state.patch != null) {
+                    batch.put(id, new PointOfInterestService.PointPatch(state.patch, state.acceptedVersion));
+                    state.patch = null;
+                }
+                return state;
+            });
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        Map<Long, PointOfInterestService.PointPatch> failed = new HashMap<>();
+        batch.forEach((pointId, patch) -> {
+            try {
+                pointOfInterestService.applyPatch(pointId, patch);
+            } catch (RuntimeException e) {
+                log.warn("Не удалось записать правку точки {}: {}", pointId, e.getMessage());
+                failed.put(pointId, patch);
+            }
+        });
+        requeue(failed);
+
+        // Версии больше не нужны, если новых правок не пришло: дальше их даст база
+        batch.forEach((pointId, applied) -> {
+            if (!failed.containsKey(pointId)) {
+                points.computeIfPresent(pointId, (id, state) ->
+                        state.patch == null && state.acceptedVersion == applied.getVersion() ? null : state);
+            }
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    private void requeue(Map<Long, PointOfInterestService.PointPatch> failed) {
+        failed.forEach((pointId, patch) -> points.computeIfPresent(pointId, (id, state) -> {
+            if (++state.attempts >= maxAttempts) {
+                log.error("Правка точки {} (версия {}) отброшена после {} попыток", id, patch.getVersion(), state.attempts);
+                return state.patch == null ? null : state;
+            }
+            // Более свежие поля, пришедшие во время записи, перекрывают вернувшиеся
+            ObjectNode merged = patch.getFields().deepCopy();
+            if (state.patch != null) {
+                merged.setAll(state.patch);
+            }
+            state.patch = merged;
+            return state;
+        }));
+    }
+
+    private void validate(JsonNode patch) {
+        if (patch == null || !patch.isObject()) {
+            throw new IllegalArgumentException("Патч должен быть JSON-объектом");
+        }
+        Iterator<Map.Entry<String, JsonNode>> fields = patch.fields();
+        while (fields.hasNext()) {
+            Map.Entry<String, JsonNode> field = fields.next();
+            String name = field.getKey();
+            JsonNode value = field.getValue();
+            if (IGNORED_FIELD.equals(name)) {
+                continue;
+            }
+            if (!PATCHABLE_FIELDS.contains(name)) {
+                throw new IllegalArgumentException("Поле нельзя изменить патчем: " + name);
+            }
+            if (value.isNull()) {
+                if (REQUIRED_FIELDS.contains(name)) {
+                    throw new IllegalArgumentException("Поле не может быть пустым: " + name);
+                }
+            } else if (!value.isTextual()) {
+                throw new IllegalArgumentException("Недопустимое значение поля " + name);
+            } else if (REQUIRED_FIELDS.contains(name) && value.asText().isBlank()) {
+                throw new IllegalArgumentException("Поле не может быть пустым: " + name);
+            } else if (MAX_LENGTH.containsKey(name) && value.asText().length() > MAX_LENGTH.get(name)) {
+                throw new IllegalArgumentException("Поле " + name + " длиннее " + MAX_LENGTH.get(name) + " символов");
+            } else if (COORDINATE_FIELDS.contains(name) && !isCoordinate(value.asText())) {
+                throw new IllegalArgumentException("Поле " + name + " должно быть числом");
+            }
+        }
+    }
+
+    private static boolean isCoordinate(String value) {
+        try {
+            return Double.isFinite(Double.parseDouble(value.trim()));
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Состояние точки в буфере: слитый патч, ожидающий записи, и последняя выданная версия
+     */
+    private static class PendingPoint {
+        private ObjectNode patch;
+        private long acceptedVersion;
+        private int attempts;
+
+        PendingPoint(long persistedVersion) {
+            this.acceptedVersion = persistedVersion;
+        }
+
+        void merge(ObjectNode update) {
+            if (patch == null) {
+                patch = update.deepCopy();
+            } else {
+                patch.setAll(update);
+            }
+            acceptedVersion++;
+            attempts = 0;
+        }
+    }
+}
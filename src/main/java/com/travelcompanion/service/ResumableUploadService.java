@@ -0,0 +1,279 @@
+package com.travelcompanion.service;
+
+import com.travelcompanion.exception.ChecksumMismatchException;
+import com.travelcompanion.exception.ResourceNotFoundException;
+import com.travelcompanion.exception.UploadConflictException;
+import com.travelcompanion.model.UploadSession;
+import com.travelcompanion.repository.UploadSessionRepository;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Возобновляемая загрузка больших файлов частями (по мотивам протокола tus).
+ *
+ * Клиент создает сессию с полным размером файла, затем отправляет части с
+ * указанием смещения; после обрыва он узнает принятое смещение и продолжает
+ * с него. Части пишутся позиционной записью в файл в каталоге
+ * {@code app.upload.staging-dir} и сбрасываются на диск до того, как смещение
+ * сохраняется в базе. Когда принят последний байт, файл целиком передается в
+ * {@link FileStorageService} и становится доступен под новым именем только
+ * после успешного сохранения в хранилище.
+ *
+ * Каталог частей локален для узла: запросы одной загрузки должны попадать на
+ * один узел (или каталог должен быть общим).
+ */
+@Slf4j
+@Service
+public class ResumableUploadService {
+
+    private static final Map<String, String> CHECKSUM_ALGORITHMS = Map.of(
+            "sha1", "SHA-1",
+            "sha256", "SHA-256",
+            "md5", "MD5");
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final UploadSessionRepository uploadSessionRepository;
+    private final FileStorageService fileStorageService;
+    private final Path stagingDir;
+    private final long maxSize;
+    private final Duration expiration;
+
+    private final Map<String, ReentrantLock> locks = new ConcurrentHashMap<>();
+
+    public ResumableUploadService(UploadSessionRepository uploadSessionRepository,
+                                  FileStorageService fileStorageService,
+                                  @Value("${app.upload.staging-dir:uploads-staging}") String stagingDir,
+                                  @Value("${app.upload.resumable.max-size:2147483648}") long maxSize,
+                                  @Value("${app.upload.resumable.expiration:PT24H}") Duration expiration) throws IOException {
+        this.uploadSessionRepository = uploadSessionRepository;
+        this.fileStorageService = fileStorageService;
+        this.stagingDir = Paths.get(stagingDir).toAbsolutePath().normalize();
+        this.maxSize = maxSize;
+        this.expiration = expiration;
+        Files.createDirectories(this.stagingDir);
+    }
+
+    public long getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * Создает сессию загрузки файла заданного размера
+     */
+    public UploadSession create(String type, long length, String originalFilename) throws IOException {
+        // Проверяем тип медиа заранее, чтобы не принимать файл, который потом некуда сохранить
+        fileStorageService.key(type, "upload");
+        if (length <= 0) {
+            throw new IllegalArgumentException("Размер загрузки должен быть положительным");
+        }
+        if (length > maxSize) {
+            throw new IllegalArgumentException("Размер загрузки больше допустимого: " + maxSize + " байт");
+        }
+
+        Instant now = Instant.now();
+        UploadSession session = new UploadSession();
+        session.setId(UUID.randomUUID().toString());
+        session.setMediaType(type);
+        session.setOriginalFilename(originalFilename);
+        session.setUploadLength(length);
+        session.setUploadOffset(0);
+        session.setCreatedAt(now);
+        session.setExpiresAt(now.plus(expiration));
+
+        Files.createFile(partPath(session.getId()));
+        return uploadSessionRepository.save(session);
+    }
+
+    /**
+     * Текущее состояние загрузки
+     */
+    public UploadSession get(String id) {
+        return uploadSessionRepository.findById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Загрузка не найдена: " + id));
+    }
+
+    /**
+     * Принимает часть файла с указанного смещения и возвращает результат:
+     * новое смещение и, если файл получен целиком, его имя в хранилище.
+     *
+     * @param checksum заголовок вида "sha1 &lt;base64&gt;" или null
+     */
+    public ChunkResult append(String id, long offset, InputStream body, String checksum) throws IOException {
+        MessageDigest digest = checksum != null ? checksumDigest(checksum) : null;
+        ReentrantLock lock = lock(id);
+        try {
+            UploadSession session = get(id);
+            if (session.getUploadOffset() != offset) {
+                throw new UploadConflictException("Ожидалось смещение " + session.getUploadOffset() + ", получено " + offset);
+            }
+
+            long next = write(session, offset, body, digest);
+            if (digest != null) {
+                byte[] expected = Base64.getDecoder().decode(checksum.substring(checksum.indexOf(' ') + 1).trim());
+                if (!MessageDigest.isEqual(expected, digest.digest())) {
+                    throw new ChecksumMismatchException("Контрольная сумма части не совпадает");
+                }
+            }
+
+            if (uploadSessionRepository.advance(id, offset, next, Instant.now().plus(expiration)) == 0) {
+                throw new UploadConflictException("Загрузка изменилась во время приема части");
+            }
+            session.setUploadOffset(next);
+            if (next < session.getUploadLength()) {
+                return new ChunkResult(session, null);
+            }
+            return new ChunkResult(session, complete(session));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Отменяет загрузку и удаляет принятую часть
+     */
+    public void terminate(String id) throws IOException {
+        ReentrantLock lock = lock(id);
+        try {
+            UploadSession session = get(id);
+            discard(session);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.upload.resumable.cleanup-interval-ms:3600000}")
+    public void removeExpired() {
+        for (UploadSession session : uploadSessionRepository.findByExpiresAtBefore(Instant.now())) {
+            ReentrantLock lock = locks.computeIfAbsent(session.getId(), k -> new ReentrantLock());
+            if (!lock.tryLock()) {
+                continue;
+            }
+            try {
+                discard(session);
+                log.info("Удалена незавершенная загрузка {} ({} из {} байт)",
+                        session.getId(), session.getUploadOffset(), session.getUploadLength());
+            } catch (IOException | RuntimeException e) {
+                log.warn("Не удалось удалить загрузку {}: {}", session.getId(), e.getMessage());
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Пишет тело запроса в файл частей с позиции offset, не выходя за объявленный размер.
+     * Хвост от оборванной ранее записи отрезается.
+     */
+    private long write(UploadSession session, long offset, InputStream body, MessageDigest digest) throws IOException {
+        long limit = session.getUploadLength();
+        long position = offset;
+        try (FileChannel channel = FileChannel.open(partPath(session.getId()), StandardOpenOption.WRITE)) {
+            byte[] bytes = new byte[BUFFER_SIZE];
+            ByteBuffer buffer = ByteBuffer.wrap(bytes);
+            int read;
+            while ((read = body.read(bytes)) != -1) {
+                if (position + read > limit) {
+                    throw new IllegalArgumentException("Часть выходит за объявленный размер загрузки");
+                }
+                if (digest != null) {
+                    digest.update(bytes, 0, read);
+                }
+                buffer.clear().limit(read);
+                while (buffer.hasRemaining()) {
+                    position += channel.write(buffer, position);
+                }
+            }
+            if (channel.size() > position) {
+                channel.truncate(position);
+            }
+            // Смещение в базе не должно опережать то, что уже лежит на диске
+            channel.force(false);
+        }
+        return position;
+    }
+
+    private String complete(UploadSession session) throws IOException {
+        Path part = partPath(session.getId());
+        String filename;
+        try {
+            filename = fileStorageService.storeFile(part, session.getMediaType(), session.getOriginalFilename());
+        } catch (IllegalArgumentException e) {
+            // Содержимое не подошло по типу: повторная отправка того же файла не поможет
+            discard(session);
+            throw e;
+        }
+        discard(session);
+        log.info("Загрузка {} завершена: {} ({} байт)", session.getId(), filename, session.getUploadLength());
+        return filename;
+    }
+
+    private void discard(UploadSession session) throws IOException {
+        uploadSessionRepository.deleteById(session.getId());
+        Files.deleteIfExists(partPath(session.getId()));
+        locks.remove(session.getId());
+    }
+
+    /**
+     * Захватывает блокировку загрузки; параллельная часть той же загрузки получает 409
+     */
+    private ReentrantLock lock(String id) {
+        // Блокировки заводятся только для существующих загрузок, чтобы перебор идентификаторов не копил их
+        get(id);
+        ReentrantLock lock = locks.computeIfAbsent(id, k -> new ReentrantLock());
+        if (!lock.tryLock()) {
+            throw new UploadConflictException("Часть этой загрузки уже принимается");
+        }
+        return lock;
+    }
+
+    private MessageDigest checksumDigest(String checksum) {
+        int separator = checksum.indexOf(' ');
+        String algorithm = separator > 0 ? CHECKSUM_ALGORITHMS.get(checksum.substring(0, separator)) : null;
+        if (algorithm == null) {
+            throw new IllegalArgumentException("Неподдерживаемая контрольная сумма: " + checksum);
+        }
+        try {
+            return MessageDigest.getInstance(algorithm);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private Path partPath(String id) {
+        // Идентификатор приходит из URL: принимаем только UUID
+        return stagingDir.resolve(UUID.fromString(id) + ".part");
+    }
+
+    /**
+     * Результат приема части: состояние загрузки и имя файла, если она завершена
+     */
+    @Data
+    @AllArgsConstructor
+    public static class ChunkResult {
+        private UploadSession session;
+        private String filename;
+    }
+}
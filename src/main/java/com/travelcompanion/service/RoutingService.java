@@ -0,0 +1,170 @@
+package com.travelcompanion.service;
+
+import com.travelcompanion.cache.CacheNames;
+import com.travelcompanion.dto.PointOfInterestDto;
+import com.travelcompanion.dto.RouteLegDto;
+import com.travelcompanion.dto.TourRouteDto;
+import com.travelcompanion.routing.OsmGraphImporter;
+import com.travelcompanion.routing.WalkingGraph;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Пешеходные маршруты между соседними точками тура по локальной выгрузке OSM.
+ *
+ * Граф ({@link WalkingGraph}) загружается в фоне после старта; если файла
+ * графа нет, он один раз собирается из {@code app.routing.osm-file}. Пока граф
+ * не готов (или путь не найден), участок отдается прямой с routed = false —
+ * клиент рисует его как раньше. Маршрут тура кэшируется и сбрасывается вместе
+ * с точками тура, но только если он построен по графу.
+ */
+@Slf4j
+@Service
+public class RoutingService {
+
+    private final TourService tourService;
+    private final PointOfInterestService pointOfInterestService;
+    private final Cache routeCache;
+    private volatile WalkingGraph graph;
+
+    @Value("${app.routing.graph-file:}")
+    private String graphFile;
+
+    @Value("${app.routing.osm-file:}")
+    private String osmFile;
+
+    @Value("${app.routing.max-concurrent:4}")
+    private int maxConcurrent;
+
+    @Value("${app.routing.max-settled:2000000}")
+    private int maxSettled;
+
+    @Value("${app.routing.snap-distance-m:200}")
+    private double snapDistance;
+
+    @Value("${app.routing.walking-speed-mps:1.3}")
+    private double walkingSpeed;
+
+    public RoutingService(TourService tourService,
+                          PointOfInterestService pointOfInterestService,
+                          CacheManager cacheManager) {
+        this.tourService = tourService;
+        this.pointOfInterestService = pointOfInterestService;
+        this.routeCache = cacheManager.getCache(CacheNames.ROUTES);
+        if (routeCache == null) {
+            throw new IllegalStateException("Кэш не настроен: " + CacheNames.ROUTES);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadGraph() {
+        if (graphFile.isBlank()) {
+            log.info("Пешеходный граф не задан (app.routing.graph-file), маршруты строятся прямыми");
+            return;
+        }
+        // Сборка графа из выгрузки города занимает минуты — запуск приложения ее не ждет
+        Thread loader = new Thread(this::load, "walking-graph-loader");
+        loader.setDaemon(true);
+        loader.start();
+    }
+
+    private void load() {
+        Path graphPath = Path.of(graphFile);
+        try {
+            if (!Files.exists(graphPath)) {
+                if (osmFile.isBlank()) {
+                    log.warn("Файл графа {} не найден, а выгрузка OSM (app.routing.osm-file) не задана", graphPath);
+                    return;
+                }
+                OsmGraphImporter.importGraph(Path.of(osmFile), graphPath);
+            }
+            graph = WalkingGraph.open(graphPath, maxConcurrent, maxSettled);
+            log.info("Пешеходный граф загружен: {} вершин", graph.getNodeCount());
+        } catch (IOException | RuntimeException e) {
+            log.error("Не удалось загрузить пешеходный граф {}", graphPath, e);
+        }
+    }
+
+    public TourRouteDto getTourRoute(Long tourId) {
+        // Заодно проверяем, что тур существует
+        tourService.getTourById(tourId);
+        WalkingGraph current = graph;
+        if (current != null) {
+            Cache.ValueWrapper cached = routeCache.get(tourId);
+            if (cached != null) {
+                return (TourRouteDto) cached.get();
+            }
+        }
+
+        List<PointOfInterestDto> points = new ArrayList<>();
+        for (PointOfInterestDto point : pointOfInterestService.getPointsByTourId(tourId)) {
+            if (coordinates(point) != null) {
+                points.add(point);
+            } else {
+                log.debug("Точка {} без числовых координат не участвует в маршруте", point.getId());
+            }
+        }
+        List<RouteLegDto> legs = new ArrayList<>();
+        double distance = 0;
+        long duration = 0;
+        for (int i = 1; i < points.size(); i++) {
+            RouteLegDto leg = leg(current, points.get(i - 1), points.get(i));
+            legs.add(leg);
+            distance += leg.getDistance();
+            duration += leg.getDuration();
+        }
+        TourRouteDto route = new TourRouteDto(tourId, distance, duration, legs);
+        if (current != null) {
+            routeCache.put(tourId, route);
+        }
+        return route;
+    }
+
+    private RouteLegDto leg(WalkingGraph current, PointOfInterestDto from, PointOfInterestDto to) {
+        double[] start = coordinates(from);
+        double[] end = coordinates(to);
+        if (current != null) {
+            int source = current.nearest(start[0], start[1], snapDistance);
+            int target = current.nearest(end[0], end[1], snapDistance);
+            WalkingGraph.Route route = source >= 0 && target >= 0 ? current.route(source, target) : null;
+            if (route != null) {
+                List<double[]> path = new ArrayList<>(route.getNodes().length + 2);
+                path.add(start);
+                for (int node : route.getNodes()) {
+                    path.add(new double[]{current.latitude(node), current.longitude(node)});
+                }
+                path.add(end);
+                // Путь от точки до ближайшей дороги и обратно идет по прямой
+                double distance = route.getMeters()
+                        + WalkingGraph.distance(start[0], start[1], current.latitude(source), current.longitude(source))
+                        + WalkingGraph.distance(end[0], end[1], current.latitude(target), current.longitude(target));
+                return new RouteLegDto(from.getId(), to.getId(), true, distance, duration(distance), path);
+            }
+        }
+        double distance = WalkingGraph.distance(start[0], start[1], end[0], end[1]);
+        return new RouteLegDto(from.getId(), to.getId(), false, distance, duration(distance), List.of(start, end));
+    }
+
+    private long duration(double distance) {
+        return Math.round(distance / walkingSpeed);
+    }
+
+    private static double[] coordinates(PointOfInterestDto point) {
+        try {
+            return new double[]{Double.parseDouble(point.getLatitude()), Double.parseDouble(point.getLongitude())};
+        } catch (NumberFormatException | NullPointerException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,202 @@
+package com.travelcompanion.service;
+
+import com.travelcompanion.exception.CapacityExceededException;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Дисковый кэш тайлов карты перед внешним тайловым сервером.
+ *
+ * Тайлы хранятся в каталогах {z}/{x}/{y}.png. Одновременные промахи по одному
+ * тайлу объединяются в один запрос к источнику, число параллельных запросов к
+ * источнику ограничено (правила OSM запрещают массовую загрузку), как и очередь
+ * ожидающих загрузок: при переполнении запрос отклоняется. Если источник
+ * недоступен, отдается устаревшая копия.
+ */
+@Slf4j
+@Service
+public class TileCacheService {
+
+    public static final int MAX_ZOOM = 19;
+
+    private final Path cacheDir;
+    private final String originUrl;
+    private final String userAgent;
+    private final Duration maxAge;
+    private final Duration fetchTimeout;
+    private final HttpClient httpClient;
+    private final ExecutorService fetchExecutor;
+    private final Map<String, CompletableFuture<Path>> inFlight = new ConcurrentHashMap<>();
+
+    public TileCacheService(@Value("${app.tiles.cache-dir:tiles}") String cacheDir,
+                            @Value("${app.tiles.origin-url:https://tile.openstreetmap.org/{z}/{x}/{y}.png}") String originUrl,
+                            @Value("${app.tiles.user-agent:TravelCompanion/1.0}") String userAgent,
+                            @Value("${app.tiles.max-age:P30D}") Duration maxAge,
+                            @Value("${app.tiles.fetch-timeout:PT10S}") Duration fetchTimeout,
+                            @Value("${app.tiles.origin-concurrency:2}") int originConcurrency,
+                            @Value("${app.tiles.origin-queue:200}") int originQueue) throws IOException {
+        this.cacheDir = Paths.get(cacheDir).toAbsolutePath().normalize();
+        this.originUrl = originUrl;
+        this.userAgent = userAgent;
+        this.maxAge = maxAge;
+        this.fetchTimeout = fetchTimeout;
+        this.httpClient = HttpClient.newBuilder()
+                .connectTimeout(fetchTimeout)
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .build();
+        this.fetchExecutor = new ThreadPoolExecutor(originConcurrency, originConcurrency, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(originQueue),
+                r -> {
+                    Thread thread = new Thread(r, "tile-fetch");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        Files.createDirectories(this.cacheDir);
+    }
+
+    /**
+     * Возвращает путь к тайлу в кэше, при необходимости загружая его из источника
+     */
+    public Path getTile(int z, int x, int y) throws IOException {
+        validate(z, x, y);
+        Path tile = tilePath(z, x, y);
+        if (isFresh(tile)) {
+            return tile;
+        }
+
+        String key = z + "/" + x + "/" + y;
+        CompletableFuture<Path> created = new CompletableFuture<>();
+        CompletableFuture<Path> download = inFlight.putIfAbsent(key, created);
+        if (download == null) {
+            download = created;
+            try {
+                fetchExecutor.execute(() -> {
+                    try {
+                        created.complete(fetch(z, x, y, tile));
+                    } catch (Exception e) {
+                        created.completeExceptionally(e);
+                    } finally {
+                        inFlight.remove(key, created);
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                inFlight.remove(key, created);
+                created.completeExceptionally(e);
+                if (Files.exists(tile)) {
+                    return tile;
+                }
+                throw new CapacityExceededException("Очередь загрузки тайлов переполнена, повторите позже");
+            }
+        }
+
+        try {
+            return download.get(fetchTimeout.toMillis() * 2, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Загрузка тайла прервана", e);
+        } catch (ExecutionException | TimeoutException e) {
+            if (Files.exists(tile)) {
+                log.debug("Источник тайлов недоступен, отдаем устаревший тайл {}: {}", key, e.getMessage());
+                return tile;
+            }
+            throw new IOException("Не удалось загрузить тайл " + key, e);
+        }
+    }
+
+    /**
+     * Загружает тайл в кэш, если его там нет или он устарел. Для фонового прогрева.
+     */
+    public boolean warm(int z, int x, int y) {
+        try {
+            if (isFresh(tilePath(z, x, y))) {
+                return false;
+            }
+            getTile(z, x, y);
+            return true;
+        } catch (IOException | CapacityExceededException e) {
+            log.debug("Прогрев тайла {}/{}/{} не удался: {}", z, x, y, e.getMessage());
+            return false;
+        }
+    }
+
+    public void validate(int z, int x, int y) {
+        int size = 1 << Math.min(Math.max(z, 0), MAX_ZOOM);
+        if (z < 0 || z > MAX_ZOOM || x < 0 || y < 0 || x >= size || y >= size) {
+            throw new IllegalArgumentException("Недопустимые координаты тайла: " + z + "/" + x + "/" + y);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        fetchExecutor.shutdownNow();
+    }
+
+    private Path fetch(int z, int x, int y, Path tile) throws IOException, InterruptedException {
+        // Пока запрос ждал в очереди, тайл мог загрузить другой поток
+        if (isFresh(tile)) {
+            return tile;
+        }
+        String url = originUrl
+                .replace("{z}", Integer.toString(z))
+                .replace("{x}", Integer.toString(x))
+                .replace("{y}", Integer.toString(y));
+        HttpRequest request = HttpRequest.newBuilder(URI.create(url))
+                .timeout(fetchTimeout)
+                .header("User-Agent", userAgent)
+                .GET()
+                .build();
+        HttpResponse<byte[]> response = httpClient.send(request, HttpResponse.BodyHandlers.ofByteArray());
+        if (response.statusCode() != 200) {
+            throw new IOException("Источник тайлов ответил " + response.statusCode() + " на " + url);
+        }
+
+        Files.createDirectories(tile.getParent());
+        Path temp = tile.resolveSibling("." + UUID.randomUUID() + ".tmp");
+        try {
+            Files.write(temp, response.body());
+            Files.move(temp, tile, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+        return tile;
+    }
+
+    private boolean isFresh(Path tile) {
+        try {
+            return Files.getLastModifiedTime(tile).toInstant().isAfter(Instant.now().minus(maxAge));
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private Path tilePath(int z, int x, int y) {
+        return cacheDir.resolve(Integer.toString(z))
+                .resolve(Integer.toString(x))
+                .resolve(y + ".png");
+    }
+}
@@ -0,0 +1,148 @@
+package com.travelcompanion.service;
+
+import com.travelcompanion.dto.PointOfInterestDto;
+import com.travelcompanion.event.TourChangeType;
+import com.travelcompanion.event.TourChangedEvent;
+import com.travelcompanion.repository.TourRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Прогрев кэша тайлов по области каждого тура.
+ *
+ * Для тура берется прямоугольник, охватывающий его точки (с запасом), и на
+ * уровнях {@code min-zoom..max-zoom} загружаются покрывающие его тайлы.
+ * Туры прогреваются после изменения точек и периодически целиком. По
+ * умолчанию выключен: правила публичных серверов OSM запрещают массовую
+ * загрузку, включать прогрев стоит только для собственного источника тайлов.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class TilePrefetchService {
+
+    private final TileCacheService tileCacheService;
+    private final PointOfInterestService pointOfInterestService;
+    private final TourRepository tourRepository;
+
+    private final Set<Long> queued = ConcurrentHashMap.newKeySet();
+    private final ExecutorService prefetchExecutor = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "tile-prefetch");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @Value("${app.tiles.prefetch.enabled:false}")
+    private boolean enabled;
+
+    @Value("${app.tiles.prefetch.min-zoom:12}")
+    private int minZoom;
+
+    @Value("${app.tiles.prefetch.max-zoom:16}")
+    private int maxZoom;
+
+    @Value("${app.tiles.prefetch.max-tiles-per-tour:400}")
+    private int maxTilesPerTour;
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTourChanged(TourChangedEvent event) {
+        if (event.getType() == TourChangeType.POINT_CREATED || event.getType() == TourChangeType.POINT_UPDATED) {
+            schedule(event.getTourId());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.tiles.prefetch.interval-ms:21600000}",
+            initialDelayString = "${app.tiles.prefetch.initial-delay-ms:300000}")
+    public void prefetchAll() {
+        tourRepository.findAllIds().forEach(this::schedule);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        prefetchExecutor.shutdownNow();
+    }
+
+    private void schedule(Long tourId) {
+        // Повторные изменения одного тура, пока он ждет в очереди, не создают новых задач
+        if (enabled && tourId != null && queued.add(tourId)) {
+            prefetchExecutor.execute(() -> {
+                queued.remove(tourId);
+                prefetchTour(tourId);
+            });
+        }
+    }
+
+    void prefetchTour(Long tourId) {
+        List<PointOfInterestDto> points = pointOfInterestService.getPointsByTourId(tourId);
+        double minLat = 90, maxLat = -90, minLng = 180, maxLng = -180;
+        int located = 0;
+        for (PointOfInterestDto point : points) {
+            try {
+                double lat = Double.parseDouble(point.getLatitude());
+                double lng = Double.parseDouble(point.getLongitude());
+                minLat = Math.min(minLat, lat);
+                maxLat = Math.max(maxLat, lat);
+                minLng = Math.min(minLng, lng);
+                maxLng = Math.max(maxLng, lng);
+                located++;
+            } catch (NumberFormatException | NullPointerException e) {
+                // Точка без корректных координат не влияет на область тура
+            }
+        }
+        if (located == 0) {
+            return;
+        }
+
+        // Запас 10% (и не меньше ~500 м), чтобы карта вокруг крайних точек тоже была в кэше
+        double padLat = Math.max((maxLat - minLat) * 0.1, 0.005);
+        double padLng = Math.max((maxLng - minLng) * 0.1, 0.005);
+        minLat = Math.max(minLat - padLat, -85.0511);
+        maxLat = Math.min(maxLat + padLat, 85.0511);
+        minLng = Math.max(minLng - padLng, -180);
+        maxLng = Math.min(maxLng + padLng, 179.9999);
+
+        int budget = maxTilesPerTour;
+        int fetched = 0;
+        for (int z = minZoom; z <= Math.min(maxZoom, TileCacheService.MAX_ZOOM); z++) {
+            int x0 = lngToTileX(minLng, z), x1 = lngToTileX(maxLng, z);
+            int y0 = latToTileY(maxLat, z), y1 = latToTileY(minLat, z);
+            long count = (long) (x1 - x0 + 1) * (y1 - y0 + 1);
+            if (count > budget) {
+                break;
+            }
+            budget -= count;
+            for (int x = x0; x <= x1; x++) {
+                for (int y = y0; y <= y1; y++) {
+                    if (tileCacheService.warm(z, x, y)) {
+                        fetched++;
+                    }
+                }
+            }
+        }
+        if (fetched > 0) {
+            log.debug("Тур {}: загружено {} тайлов", tourId, fetched);
+        }
+    }
+
+    static int lngToTileX(double lng, int zoom) {
+        int x = (int) Math.floor((lng + 180) / 360 * (1 << zoom));
+        return Math.max(0, Math.min(x, (1 << zoom) - 1));
+    }
+
+    static int latToTileY(double lat, int zoom) {
+        double rad = Math.toRadians(lat);
+        int y = (int) Math.floor((1 - Math.log(Math.tan(rad) + 1 / Math.cos(rad)) / Math.PI) / 2 * (1 << zoom));
+        return Math.max(0, Math.min(y, (1 << zoom) - 1));
+    }
+}
@@ -1,14 +1,25 @@
 package com.travelcompanion.service;
 
+import com.travelcompanion.cache.CacheNames;
+import com.travelcompanion.cache.NegativeLookupCache;
 import com.travelcompanion.dto.TourDto;
+import com.travelcompanion.dto.TourSummaryDto;
+import com.travelcompanion.event.TourChangeType;
+import com.travelcompanion.event.TourChangedEvent;
+import com.travelcompanion.event.ToursDeletedEvent;
+import com.travelcompanion.exception.TourNotFoundException;
 import com.travelcompanion.model.Tour;
 import com.travelcompanion.model.User;
 import com.travelcompanion.repository.TourRepository;
 import lombok.RequiredArgsConstructor;
 import org.modelmapper.ModelMapper;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -16,10 +27,14 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class TourService {
 
+    public static final int MAX_BULK_DELETE = 1000;
+
     private final TourRepository tourRepository;
     private final UserService userService;
     private final PointOfInterestService pointOfInterestService;
     private final ModelMapper modelMapper;
+    private final ApplicationEventPublisher eventPublisher;
+    private final NegativeLookupCache negativeLookupCache;
 
     @Transactional
     public TourDto createTour(TourDto tourDto) {
@@ -34,16 +49,20 @@ public class TourService {
         }
 
         Tour savedTour = tourRepository.save(tour);
+        negativeLookupCache.forget(NegativeLookupCache.TOUR, savedTour.getId());
+        eventPublisher.publishEvent(TourChangedEvent.tour(savedTour.getId(), TourChangeType.TOUR_CREATED));
         return modelMapper.map(savedTour, TourDto.class);
     }
 
+    @Cacheable(CacheNames.TOURS)
     @Transactional(readOnly = true)
     public TourDto getTourById(Long id) {
-        Tour tour = tourRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("Тур не найден"));
+        Tour tour = negativeLookupCache.find(NegativeLookupCache.TOUR, id, () -> tourRepository.findById(id))
+                .orElseThrow(() -> new TourNotFoundException(id));
         return modelMapper.map(tour, TourDto.class);
     }
 
+    @Cacheable(CacheNames.TOUR_LIST)
     @Transactional(readOnly = true)
     public List<TourDto> getAllTours() {
         return tourRepository.findAll().stream()
@@ -51,6 +70,25 @@ public class TourService {
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Каталог туров для списка: число точек и обложка одним запросом
+     */
+    @Cacheable(CacheNames.TOUR_SUMMARIES)
+    @Transactional(readOnly = true)
+    public List<TourSummaryDto> getTourSummaries() {
+        return tourRepository.findAllSummaries();
+    }
+
+    /**
+     * Туры пользователя в том же виде, что и каталог
+     */
+    @Transactional(readOnly = true)
+    public List<TourSummaryDto> getTourSummariesByUser(Long userId) {
+        // Заодно проверяем, что пользователь существует
+        userService.getUserEntityById(userId);
+        return tourRepository.findSummariesByCreatedById(userId);
+    }
+
     @Transactional(readOnly = true)
     public List<TourDto> getToursByUser(User user) {
         return tourRepository.findByCreatedBy(user).stream()
@@ -61,8 +99,8 @@ public class TourService {
     @Transactional
     public TourDto updateTour(Long id, TourDto tourDto) {
         // 1. Находим тур по ID
-        Tour tour = tourRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("Тур не найден"));
+        Tour tour = negativeLookupCache.find(NegativeLookupCache.TOUR, id, () -> tourRepository.findById(id))
+                .orElseThrow(() -> new TourNotFoundException(id));
 
         // 2. Обновляем основные поля
         if (tourDto.getName() != null) {
@@ -84,13 +122,33 @@ public class TourService {
 
         // 4. Сохраняем изменения
         Tour updatedTour = tourRepository.save(tour);
+        eventPublisher.publishEvent(TourChangedEvent.tour(id, TourChangeType.TOUR_UPDATED));
 
         // 5. Возвращаем DTO
         return modelMapper.map(updatedTour, TourDto.class);
     }
     @Transactional
     public void deleteTour(Long id) {
-        pointOfInterestService.deletePointsByTourId(id);
-        tourRepository.deleteById(id);
+        deleteTours(List.of(id));
+    }
+
+    /**
+     * Удаляет туры вместе с точками запросами DELETE ... WHERE ... IN, без
+     * загрузки сущностей. Несуществующие идентификаторы пропускаются.
+     * Возвращает число удаленных туров.
+     */
+    @Transactional
+    public int deleteTours(Collection<Long> ids) {
+        if (ids.size() > MAX_BULK_DELETE) {
+            throw new IllegalArgumentException("За один запрос можно удалить не больше " + MAX_BULK_DELETE + " туров");
+        }
+        List<Long> existing = tourRepository.findExistingIds(new LinkedHashSet<>(ids));
+        if (existing.isEmpty()) {
+            return 0;
+        }
+        pointOfInterestService.deletePointsByTourIds(existing);
+        int deleted = tourRepository.deleteAllByIds(existing);
+        eventPublisher.publishEvent(new ToursDeletedEvent(existing));
+        return deleted;
     }
 }
\ No newline at end of file
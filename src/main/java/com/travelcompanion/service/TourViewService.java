@@ -0,0 +1,219 @@
+package com.travelcompanion.service;
+
+import com.travelcompanion.dto.TourDto;
+import com.travelcompanion.dto.TrendingTourDto;
+import com.travelcompanion.event.ToursDeletedEvent;
+import com.travelcompanion.exception.TourNotFoundException;
+import com.travelcompanion.model.TourViewCount;
+import com.travelcompanion.repository.TourViewCountRepository;
+import com.travelcompanion.stats.WindowedTopK;
+import jakarta.annotation.PreDestroy;
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * Учет просмотров туров без записи в базу на каждый просмотр.
+ *
+ * Просмотр увеличивает LongAdder тура в памяти и счетчик в {@link WindowedTopK}.
+ * Раз в {@code app.tours.views.flush-ms} накопленные приращения пишутся в
+ * {@code tour_views} одним пакетом upsert-запросов; при ошибке они остаются в
+ * памяти до следующего сброса. Счетчики без новых просмотров удаляются, так
+ * что память зависит от числа туров, просмотренных за интервал, а не от
+ * размера каталога. Популярность считается по трафику этого узла.
+ */
+@Slf4j
+@Service
+public class TourViewService {
+
+    private static final String POSTGRES_UPSERT =
+            "INSERT INTO tour_views (tour_id, view_count, updated_at) "
+            + "SELECT t.id, ?, CURRENT_TIMESTAMP FROM tours t WHERE t.id = ? "
+            + "ON CONFLICT (tour_id) DO UPDATE SET view_count = tour_views.view_count + EXCLUDED.view_count, "
+            + "updated_at = EXCLUDED.updated_at";
+    private static final String MERGE_UPSERT =
+            "MERGE INTO tour_views v "
+            + "USING (SELECT t.id AS tour_id, CAST(? AS BIGINT) AS delta FROM tours t WHERE t.id = ?) s "
+            + "ON v.tour_id = s.tour_id "
+            + "WHEN MATCHED THEN UPDATE SET view_count = v.view_count + s.delta, updated_at = CURRENT_TIMESTAMP "
+            + "WHEN NOT MATCHED THEN INSERT (tour_id, view_count, updated_at) "
+            + "VALUES (s.tour_id, s.delta, CURRENT_TIMESTAMP)";
+
+    private static final int MAX_CACHED_WINDOWS = 64;
+
+    private final TourService tourService;
+    private final TourViewCountRepository viewCountRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final WindowedTopK trending;
+    private final long refreshMillis;
+
+    private final Map<Long, ViewCounter> counters = new ConcurrentHashMap<>();
+    private final Map<String, CachedTop> topCache = new ConcurrentHashMap<>();
+    private volatile String upsertSql;
+
+    public TourViewService(TourService tourService,
+                           TourViewCountRepository viewCountRepository,
+                           JdbcTemplate jdbcTemplate,
+                           TransactionTemplate transactionTemplate,
+                           @Value("${app.tours.trending.bucket-seconds:300}") long bucketSeconds,
+                           @Value("${app.tours.trending.buckets:288}") int buckets,
+                           @Value("${app.tours.trending.sketch-depth:4}") int depth,
+                           @Value("${app.tours.trending.sketch-width:512}") int width,
+                           @Value("${app.tours.trending.candidates:64}") int candidates,
+                           @Value("${app.tours.trending.refresh-ms:10000}") long refreshMillis) {
+        this.tourService = tourService;
+        this.viewCountRepository = viewCountRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.trending = new WindowedTopK(bucketSeconds * 1000, buckets, depth, width, candidates);
+        this.refreshMillis = refreshMillis;
+    }
+
+    /**
+     * Учитывает просмотр существующего тура
+     */
+    public void recordView(Long tourId) {
+        counters.computeIfAbsent(tourId, id -> new ViewCounter()).views.increment();
+        trending.add(tourId, System.currentTimeMillis());
+    }
+
+    /**
+     * Самые просматриваемые туры за окно вида "1h", "30m", "1d"
+     */
+    public List<TrendingTourDto> getTrending(String window, int limit) {
+        Duration duration = DurationStyle.detectAndParse(window);
+        if (duration.isNegative() || duration.isZero()) {
+            throw new IllegalArgumentException("Окно должно быть положительным: " + window);
+        }
+        if (limit < 1 || limit > trending.capacity()) {
+            throw new IllegalArgumentException("Число туров должно быть от 1 до " + trending.capacity());
+        }
+
+        long now = System.currentTimeMillis();
+        String key = duration.toMillis() + ":" + limit;
+        CachedTop cached = topCache.get(key);
+        if (cached != null && now - cached.computedAt < refreshMillis) {
+            return cached.tours;
+        }
+        List<TrendingTourDto> tours = computeTrending(duration.toMillis(), limit, now);
+        if (topCache.size() >= MAX_CACHED_WINDOWS) {
+            // Окна задает клиент — не даем кэшу расти от произвольных значений
+            topCache.clear();
+        }
+        topCache.put(key, new CachedTop(now, tours));
+        return tours;
+    }
+
+    private List<TrendingTourDto> computeTrending(long windowMillis, int limit, long now) {
+        // С запасом: удаленные туры остаются в счетчиках окна и пропускаются
+        List<WindowedTopK.Entry> top = trending.top(windowMillis, trending.capacity(), now);
+        Map<Long, Long> totals = viewCountRepository.findAllById(
+                        top.stream().map(WindowedTopK.Entry::getKey).collect(Collectors.toList())).stream()
+                .collect(Collectors.toMap(TourViewCount::getTourId, TourViewCount::getViewCount));
+
+        List<TrendingTourDto> tours = new ArrayList<>(limit);
+        for (WindowedTopK.Entry entry : top) {
+            if (tours.size() == limit) {
+                break;
+            }
+            TourDto tour;
+            try {
+                tour = tourService.getTourById(entry.getKey());
+            } catch (TourNotFoundException e) {
+                continue;
+            }
+            ViewCounter counter = counters.get(entry.getKey());
+            long unflushed = counter != null ? counter.views.sum() - counter.flushed : 0;
+            tours.add(new TrendingTourDto(tour.getId(), tour.getName(), tour.getLocation(), entry.getCount(),
+                    totals.getOrDefault(entry.getKey(), 0L) + unflushed));
+        }
+        return tours;
+    }
+
+    @Scheduled(fixedDelayString = "${app.tours.views.flush-ms:10000}")
+    public void flush() {
+        Map<ViewCounter, Long> totals = new HashMap<>();
+        List<Object[]> batch = new ArrayList<>();
+        for (Map.Entry<Long, ViewCounter> entry : counters.entrySet()) {
+            ViewCounter counter = entry.getValue();
+            long total = counter.views.sum();
+            long delta = total - counter.flushed;
+            if (delta > 0) {
+                totals.put(counter, total);
+                batch.add(new Object[]{delta, entry.getKey()});
+            } else {
+                // Просмотр, пришедший в момент удаления счетчика, может потеряться — учет приблизительный
+                counters.remove(entry.getKey(), counter);
+            }
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        // Одинаковый порядок строк на всех узлах исключает взаимные блокировки
+        batch.sort(Comparator.comparingLong(row -> (Long) row[1]));
+        try {
+            String sql = upsertSql();
+            transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(sql, batch));
+        } catch (RuntimeException e) {
+            log.warn("Не удалось записать просмотры {} туров: {}", batch.size(), e.getMessage());
+            return;
+        }
+        totals.forEach((counter, total) -> counter.flushed = total);
+    }
+
+    @EventListener
+    public void onToursDeleted(ToursDeletedEvent event) {
+        event.getTourIds().forEach(counters::remove);
+        viewCountRepository.deleteByTourIds(event.getTourIds());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    private String upsertSql() {
+        String sql = upsertSql;
+        if (sql == null) {
+            String product = jdbcTemplate.execute((ConnectionCallback<String>) connection ->
+                    connection.getMetaData().getDatabaseProductName());
+            // Стандартный MERGE поддерживают H2 и PostgreSQL 15+, ON CONFLICT — все версии PostgreSQL
+            sql = "PostgreSQL".equalsIgnoreCase(product) ? POSTGRES_UPSERT : MERGE_UPSERT;
+            upsertSql = sql;
+        }
+        return sql;
+    }
+
+    /**
+     * Счетчик просмотров тура и сколько из них уже записано в базу
+     */
+    private static class ViewCounter {
+        private final LongAdder views = new LongAdder();
+        private volatile long flushed;
+    }
+
+    @AllArgsConstructor
+    private static class CachedTop {
+        private final long computedAt;
+        private final List<TrendingTourDto> tours;
+    }
+}
@@ -1,7 +1,9 @@
 package com.travelcompanion.service;
 
+import com.travelcompanion.cache.NegativeLookupCache;
 import com.travelcompanion.dto.UserDto;
 import com.travelcompanion.dto.UserResponseDto;
+import com.travelcompanion.exception.UserNotFoundException;
 import com.travelcompanion.model.User;
 import com.travelcompanion.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
@@ -17,6 +19,7 @@ public class UserService {
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
     private final ModelMapper modelMapper;
+    private final NegativeLookupCache negativeLookupCache;
 
     @Transactional
     public UserResponseDto createUser(UserDto userDto) {
@@ -25,13 +28,13 @@ public class UserService {
         user.setPassword(passwordEncoder.encode(userDto.getPassword()));
 
         User savedUser = userRepository.save(user);
+        negativeLookupCache.forget(NegativeLookupCache.USER, savedUser.getId());
         return modelMapper.map(savedUser, UserResponseDto.class);
     }
 
     @Transactional(readOnly = true)
     public UserResponseDto getUserById(Long id) {
-        User user = userRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("Пользователь не найден"));
+        User user = findUser(id);
         return modelMapper.map(user, UserResponseDto.class);
     }
 
@@ -39,13 +42,12 @@ public class UserService {
     public User getUserByUsername(String username) {
         // Оставляем возврат User для Spring Security
         return userRepository.findByUsername(username)
-                .orElseThrow(() -> new RuntimeException("Пользователь не найден"));
+                .orElseThrow(() -> new UserNotFoundException(username));
     }
 
     @Transactional(readOnly = true)
     public User getUserEntityById(Long id) {
-        return userRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("Пользователь не найден"));
+        return findUser(id);
     }
 
     @Transactional
@@ -53,11 +55,18 @@ public class UserService {
         User user = new User();
         user.setUsername(userDto.getUsername());
         user.setPassword(passwordEncoder.encode(userDto.getPassword()));
-        return userRepository.save(user); // Возвращаем сущность
+        User savedUser = userRepository.save(user);
+        negativeLookupCache.forget(NegativeLookupCache.USER, savedUser.getId());
+        return savedUser; // Возвращаем сущность
     }
 
     @Transactional(readOnly = true)
     public boolean existsByUsername(String username) {
         return userRepository.existsByUsername(username);
     }
-} 
\ No newline at end of file
+
+    private User findUser(Long id) {
+        return negativeLookupCache.find(NegativeLookupCache.USER, id, () -> userRepository.findById(id))
+                .orElseThrow(() -> new UserNotFoundException(id));
+    }
+}
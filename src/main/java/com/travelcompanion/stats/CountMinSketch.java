@@ -0,0 +1,62 @@
+package com.travelcompanion.stats;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Count-Min: приблизительные счетчики для произвольного числа ключей в
+ * фиксированной памяти (depth * width ячеек).
+ *
+ * Оценка никогда не меньше точного значения и с вероятностью 1 - e^-depth
+ * превышает его не больше чем на e / width от суммы всех добавлений.
+ * Добавление — depth атомарных инкрементов без блокировок.
+ */
+public final class CountMinSketch {
+
+    private static final long[] SEEDS = {
+            0x9E3779B97F4A7C15L, 0xC2B2AE3D27D4EB4FL, 0x165667B19E3779F9L, 0xD6E8FEB86659FD93L,
+            0xFF51AFD7ED558CCDL, 0xC4CEB9FE1A85EC53L, 0x27D4EB2F165667C5L, 0x94D049BB133111EBL
+    };
+
+    private final int depth;
+    private final int mask;
+    private final AtomicLongArray counts;
+
+    /**
+     * @param width число ячеек в строке, округляется вверх до степени двойки
+     */
+    public CountMinSketch(int depth, int width) {
+        if (depth < 1 || depth > SEEDS.length) {
+            throw new IllegalArgumentException("Глубина Count-Min должна быть от 1 до " + SEEDS.length);
+        }
+        if (width < 1 || width > 1 << 24) {
+            throw new IllegalArgumentException("Недопустимая ширина Count-Min: " + width);
+        }
+        int rowSize = Integer.highestOneBit(width) == width ? width : Integer.highestOneBit(width) << 1;
+        this.depth = depth;
+        this.mask = rowSize - 1;
+        this.counts = new AtomicLongArray(depth * rowSize);
+    }
+
+    public void add(long key, long count) {
+        for (int row = 0; row < depth; row++) {
+            counts.addAndGet(cell(key, row), count);
+        }
+    }
+
+    public long estimate(long key) {
+        long min = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            min = Math.min(min, counts.get(cell(key, row)));
+        }
+        return min;
+    }
+
+    private int cell(long key, int row) {
+        // Финальное перемешивание SplitMix64 со своей солью для каждой строки
+        long h = key ^ SEEDS[row];
+        h = (h ^ (h >>> 30)) * 0xBF58476D1CE4E5B9L;
+        h = (h ^ (h >>> 27)) * 0x94D049BB133111EBL;
+        h ^= h >>> 31;
+        return row * (mask + 1) + (int) (h & mask);
+    }
+}
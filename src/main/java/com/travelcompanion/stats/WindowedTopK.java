@@ -0,0 +1,164 @@
+package com.travelcompanion.stats;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Самые частые ключи за скользящее окно в ограниченной памяти.
+ *
+ * Время делится на интервалы по bucketMillis; на интервал заводится
+ * Count-Min и список не больше capacity кандидатов с наибольшей оценкой.
+ * Кольцо из buckets интервалов переиспользуется, так что память не зависит
+ * ни от числа ключей, ни от нагрузки. Запрос за окно объединяет кандидатов
+ * попавших в него интервалов и складывает их оценки по всем интервалам.
+ */
+public final class WindowedTopK {
+
+    private final long bucketMillis;
+    private final int depth;
+    private final int width;
+    private final int capacity;
+    private final AtomicReferenceArray<Bucket> ring;
+
+    public WindowedTopK(long bucketMillis, int buckets, int depth, int width, int capacity) {
+        if (bucketMillis <= 0 || buckets < 1 || capacity < 1) {
+            throw new IllegalArgumentException("Недопустимые параметры окна: интервал " + bucketMillis
+                    + " мс, интервалов " + buckets + ", кандидатов " + capacity);
+        }
+        this.bucketMillis = bucketMillis;
+        this.depth = depth;
+        this.width = width;
+        this.capacity = capacity;
+        this.ring = new AtomicReferenceArray<>(buckets);
+    }
+
+    public void add(long key, long nowMillis) {
+        long epoch = nowMillis / bucketMillis;
+        Bucket bucket = bucket(epoch);
+        if (bucket != null) {
+            bucket.add(key);
+        }
+    }
+
+    /**
+     * До limit ключей с наибольшей оценкой за последние windowMillis, по убыванию
+     */
+    public List<Entry> top(long windowMillis, int limit, long nowMillis) {
+        if (windowMillis > maxWindowMillis()) {
+            throw new IllegalArgumentException("Окно не может быть больше " + maxWindowMillis() / 1000 + " с");
+        }
+        long current = nowMillis / bucketMillis;
+        long count = Math.max(1, (windowMillis + bucketMillis - 1) / bucketMillis);
+        List<Bucket> window = new ArrayList<>();
+        Set<Long> keys = new HashSet<>();
+        for (long epoch = current - count + 1; epoch <= current; epoch++) {
+            Bucket bucket = ring.get(slot(epoch));
+            if (bucket != null && bucket.epoch == epoch) {
+                window.add(bucket);
+                keys.addAll(bucket.candidates.keySet());
+            }
+        }
+
+        List<Entry> entries = new ArrayList<>(keys.size());
+        for (Long key : keys) {
+            long total = 0;
+            for (Bucket bucket : window) {
+                total += bucket.sketch.estimate(key);
+            }
+            entries.add(new Entry(key, total));
+        }
+        entries.sort((a, b) -> Long.compare(b.count, a.count));
+        return entries.size() > limit ? new ArrayList<>(entries.subList(0, limit)) : entries;
+    }
+
+    public long maxWindowMillis() {
+        return bucketMillis * ring.length();
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    private Bucket bucket(long epoch) {
+        int slot = slot(epoch);
+        while (true) {
+            Bucket bucket = ring.get(slot);
+            if (bucket != null && bucket.epoch == epoch) {
+                return bucket;
+            }
+            if (bucket != null && bucket.epoch > epoch) {
+                // Поток отстал от часов других потоков: интервал уже переиспользован
+                return null;
+            }
+            Bucket fresh = new Bucket(epoch, new CountMinSketch(depth, width));
+            if (ring.compareAndSet(slot, bucket, fresh)) {
+                return fresh;
+            }
+        }
+    }
+
+    private int slot(long epoch) {
+        return (int) Math.floorMod(epoch, (long) ring.length());
+    }
+
+    /**
+     * Интервал окна: счетчики и кандидаты в лидеры с последней оценкой
+     */
+    private final class Bucket {
+        private final long epoch;
+        private final CountMinSketch sketch;
+        private final Map<Long, Long> candidates = new ConcurrentHashMap<>();
+        // Наименьшая оценка среди кандидатов при заполненном списке
+        private volatile long floor;
+
+        Bucket(long epoch, CountMinSketch sketch) {
+            this.epoch = epoch;
+            this.sketch = sketch;
+        }
+
+        void add(long key) {
+            sketch.add(key, 1);
+            long estimate = sketch.estimate(key);
+            // Обновляем только присутствующего кандидата: computeIfPresent атомарен относительно
+            // вытеснения в admit, так что вытесненный ключ не вернется в список в обход лимита
+            if (candidates.computeIfPresent(key, (k, current) -> Math.max(current, estimate)) == null
+                    && (candidates.size() < capacity || estimate > floor)) {
+                admit(key, estimate);
+            }
+        }
+
+        private synchronized void admit(long key, long estimate) {
+            if (candidates.size() >= capacity && !candidates.containsKey(key)) {
+                Map.Entry<Long, Long> weakest = null;
+                for (Map.Entry<Long, Long> candidate : candidates.entrySet()) {
+                    if (weakest == null || candidate.getValue() < weakest.getValue()) {
+                        weakest = candidate;
+                    }
+                }
+                if (weakest == null || weakest.getValue() >= estimate) {
+                    return;
+                }
+                candidates.remove(weakest.getKey());
+            }
+            candidates.merge(key, estimate, Math::max);
+            if (candidates.size() >= capacity) {
+                floor = candidates.values().stream().mapToLong(Long::longValue).min().orElse(0);
+            }
+        }
+    }
+
+    @Data
+    @AllArgsConstructor
+    public static class Entry {
+        private long key;
+        private long count;
+    }
+}
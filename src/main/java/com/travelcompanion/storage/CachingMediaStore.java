@@ -0,0 +1,245 @@
+package com.travelcompanion.storage;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Локальный дисковый кэш перед удаленным хранилищем.
+ *
+ * Чтение: при промахе объект скачивается один раз (параллельные запросы одного
+ * ключа ждут общую загрузку), дальше отдается с диска. Запись сначала идет
+ * в кэш, затем из файла в удаленное хранилище, поэтому размер всегда известен.
+ * При превышении {@code maxBytes} вытесняются давно не читавшиеся файлы.
+ */
+@Slf4j
+public class CachingMediaStore implements MediaStore, AutoCloseable {
+
+    private final S3MediaStore remote;
+    private final Path cacheDir;
+    private final LocalMediaStore local;
+    private final long maxBytes;
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final Map<String, CompletableFuture<Path>> downloads = new ConcurrentHashMap<>();
+    private final AtomicLong usedBytes = new AtomicLong();
+    private final ExecutorService fillExecutor = Executors.newFixedThreadPool(2, r -> {
+        Thread thread = new Thread(r, "media-cache-fill");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public CachingMediaStore(S3MediaStore remote, Path cacheDir, long maxBytes) throws IOException {
+        this.remote = remote;
+        this.cacheDir = cacheDir.toAbsolutePath().normalize();
+        this.local = new LocalMediaStore(this.cacheDir);
+        this.maxBytes = maxBytes;
+        Files.createDirectories(this.cacheDir);
+        loadExisting();
+    }
+
+    @Override
+    public void put(String key, InputStream content, long size, String contentType) throws IOException {
+        Path cached = cachePath(key);
+        Files.createDirectories(cached.getParent());
+        Path temp = cached.resolveSibling("." + UUID.randomUUID() + ".tmp");
+        try {
+            long written = Files.copy(content, temp);
+            try (InputStream in = Files.newInputStream(temp)) {
+                remote.put(key, in, written, contentType);
+            }
+            Files.move(temp, cached, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            admit(key, written);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    @Override
+    public Resource get(String key) throws IOException {
+        return new FileSystemResource(fetch(key));
+    }
+
+    @Override
+    public InputStream openRange(String key, long offset, long length) throws IOException {
+        Entry entry = entries.get(key);
+        if (entry != null) {
+            entry.touch();
+            return local.openRange(key, offset, length);
+        }
+        // Для диапазона не ждем полной загрузки: отдаем его из удаленного хранилища, а кэш заполняем в фоне
+        if (!downloads.containsKey(key)) {
+            fillExecutor.execute(() -> {
+                try {
+                    fetch(key);
+                } catch (IOException e) {
+                    log.debug("Не удалось закэшировать {}: {}", key, e.getMessage());
+                }
+            });
+        }
+        return remote.openRange(key, offset, length);
+    }
+
+    @Override
+    public boolean exists(String key) throws IOException {
+        return entries.containsKey(key) || remote.exists(key);
+    }
+
+    @Override
+    public boolean delete(String key) throws IOException {
+        evict(key);
+        return remote.delete(key);
+    }
+
+    @Override
+    public Stream<StoredObject> list(String prefix) throws IOException {
+        return remote.list(prefix);
+    }
+
+    @Override
+    public Optional<Path> localPath(String key) {
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            return Optional.empty();
+        }
+        entry.touch();
+        return Optional.of(cachePath(key));
+    }
+
+    @Override
+    public void close() {
+        fillExecutor.shutdownNow();
+        remote.close();
+    }
+
+    private Path fetch(String key) throws IOException {
+        Entry entry = entries.get(key);
+        Path cached = cachePath(key);
+        if (entry != null) {
+            entry.touch();
+            return cached;
+        }
+
+        CompletableFuture<Path> download = new CompletableFuture<>();
+        CompletableFuture<Path> existing = downloads.putIfAbsent(key, download);
+        if (existing != null) {
+            return await(existing);
+        }
+        try {
+            Files.createDirectories(cached.getParent());
+            remote.download(key, cached);
+            admit(key, Files.size(cached));
+            download.complete(cached);
+            return cached;
+        } catch (IOException | RuntimeException e) {
+            download.completeExceptionally(e);
+            throw e;
+        } finally {
+            downloads.remove(key, download);
+        }
+    }
+
+    private Path await(CompletableFuture<Path> download) throws IOException {
+        try {
+            return download.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof IOException io) {
+                throw io;
+            }
+            throw e;
+        }
+    }
+
+    private void admit(String key, long size) {
+        Entry previous = entries.put(key, new Entry(size));
+        usedBytes.addAndGet(size - (previous != null ? previous.size : 0));
+        if (usedBytes.get() > maxBytes) {
+            evictLeastRecentlyUsed();
+        }
+    }
+
+    private synchronized void evictLeastRecentlyUsed() {
+        if (usedBytes.get() <= maxBytes) {
+            return;
+        }
+        // Вытесняем до 90% лимита, чтобы не запускать очистку на каждую запись
+        long target = maxBytes * 9 / 10;
+        List<Map.Entry<String, Entry>> candidates = entries.entrySet().stream()
+                .sorted(Comparator.comparingLong(candidate -> candidate.getValue().lastAccess))
+                .toList();
+        for (Map.Entry<String, Entry> candidate : candidates) {
+            if (usedBytes.get() <= target) {
+                break;
+            }
+            evict(candidate.getKey());
+        }
+    }
+
+    private void evict(String key) {
+        Entry removed = entries.remove(key);
+        if (removed != null) {
+            usedBytes.addAndGet(-removed.size);
+        }
+        try {
+            Files.deleteIfExists(cachePath(key));
+        } catch (IOException e) {
+            log.debug("Не удалось удалить {} из кэша: {}", key, e.getMessage());
+        }
+    }
+
+    private void loadExisting() throws IOException {
+        try (Stream<StoredObject> objects = local.list("")) {
+            objects.forEach(object -> {
+                entries.put(object.getKey(), new Entry(object.getSize(), object.getLastModified().toEpochMilli()));
+                usedBytes.addAndGet(object.getSize());
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private Path cachePath(String key) {
+        Path path = cacheDir.resolve(key).normalize();
+        if (!path.startsWith(cacheDir)) {
+            throw new IllegalArgumentException("Недопустимый ключ: " + key);
+        }
+        return path;
+    }
+
+    private static class Entry {
+        private final long size;
+        private volatile long lastAccess;
+
+        Entry(long size) {
+            this(size, System.currentTimeMillis());
+        }
+
+        Entry(long size, long lastAccess) {
+            this.size = size;
+            this.lastAccess = lastAccess;
+        }
+
+        void touch() {
+            lastAccess = System.currentTimeMillis();
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.travelcompanion.storage;
+
+import org.springframework.core.io.Resource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * Хранилище медиафайлов. Ключ — относительный путь вида "photos/uuid.jpg".
+ *
+ * Реализации: {@link LocalMediaStore} (файловая система), {@link S3MediaStore}
+ * (S3-совместимое объектное хранилище) и {@link CachingMediaStore}
+ * (локальный дисковый кэш перед удаленным хранилищем).
+ */
+public interface MediaStore {
+
+    /**
+     * Сохраняет содержимое под ключом. Размер -1 означает, что он неизвестен.
+     */
+    void put(String key, InputStream content, long size, String contentType) throws IOException;
+
+    /**
+     * Возвращает объект целиком в виде ресурса для отдачи клиенту
+     */
+    Resource get(String key) throws IOException;
+
+    /**
+     * Открывает поток на диапазон байт объекта. Длина -1 — до конца объекта.
+     */
+    InputStream openRange(String key, long offset, long length) throws IOException;
+
+    boolean exists(String key) throws IOException;
+
+    boolean delete(String key) throws IOException;
+
+    /**
+     * Перечисляет объекты с указанным префиксом. Поток нужно закрыть.
+     */
+    Stream<StoredObject> list(String prefix) throws IOException;
+
+    /**
+     * Путь к локальной копии объекта, если хранилище держит файлы на диске
+     */
+    default Optional<Path> localPath(String key) {
+        return Optional.empty();
+    }
+}
@@ -0,0 +1,344 @@
+package com.travelcompanion.storage;
+
+import org.springframework.core.io.AbstractResource;
+import org.springframework.core.io.Resource;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.S3ClientBuilder;
+import software.amazon.awssdk.services.s3.model.AbortMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompleteMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompletedMultipartUpload;
+import software.amazon.awssdk.services.s3.model.CompletedPart;
+import software.amazon.awssdk.services.s3.model.CreateMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.DeleteObjectRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.HeadObjectRequest;
+import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
+import software.amazon.awssdk.services.s3.model.ListObjectsV2Request;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+import software.amazon.awssdk.services.s3.model.UploadPartRequest;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.stream.Stream;
+
+/**
+ * Хранилище в S3-совместимом объектном хранилище (AWS S3, MinIO и т.п.).
+ *
+ * Большие файлы загружаются multipart-запросами, части отправляются
+ * параллельно; в памяти одновременно держится не больше
+ * {@code uploadConcurrency} частей. Чтение диапазонов идет через заголовок Range.
+ */
+public class S3MediaStore implements MediaStore, AutoCloseable {
+
+    private static final int MIN_PART_SIZE = 5 * 1024 * 1024;
+
+    private final S3Client client;
+    private final String bucket;
+    private final int partSize;
+    private final int uploadConcurrency;
+    private final ExecutorService uploadExecutor;
+
+    public S3MediaStore(String endpoint, String region, String bucket, String accessKey, String secretKey,
+                        int partSize, int uploadConcurrency) {
+        S3ClientBuilder builder = S3Client.builder()
+                .region(Region.of(region))
+                .credentialsProvider(StaticCredentialsProvider.create(AwsBasicCredentials.create(accessKey, secretKey)))
+                // MinIO и большинство совместимых хранилищ не поддерживают адресацию бакета через поддомен
+                .forcePathStyle(true);
+        if (endpoint != null && !endpoint.isBlank()) {
+            builder.endpointOverride(URI.create(endpoint));
+        }
+        this.client = builder.build();
+        this.bucket = bucket;
+        this.partSize = Math.max(partSize, MIN_PART_SIZE);
+        this.uploadConcurrency = Math.max(1, uploadConcurrency);
+        this.uploadExecutor = Executors.newFixedThreadPool(this.uploadConcurrency, r -> {
+            Thread thread = new Thread(r, "s3-upload");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    public void put(String key, InputStream content, long size, String contentType) throws IOException {
+        if (size >= 0 && size <= partSize) {
+            try {
+                client.putObject(PutObjectRequest.builder()
+                                .bucket(bucket)
+                                .key(key)
+                                .contentType(contentType)
+                                .contentLength(size)
+                                .build(),
+                        RequestBody.fromInputStream(content, size));
+            } catch (S3Exception e) {
+                throw new IOException("Не удалось сохранить объект " + key, e);
+            }
+            return;
+        }
+        putMultipart(key, content, contentType);
+    }
+
+    private void putMultipart(String key, InputStream content, String contentType) throws IOException {
+        String uploadId = client.createMultipartUpload(CreateMultipartUploadRequest.builder()
+                .bucket(bucket)
+                .key(key)
+                .contentType(contentType)
+                .build()).uploadId();
+
+        Semaphore inFlight = new Semaphore(uploadConcurrency);
+        List<Future<CompletedPart>> parts = new ArrayList<>();
+        try {
+            int partNumber = 1;
+            while (true) {
+                // Разрешение берем до чтения части, чтобы в памяти было не больше uploadConcurrency буферов
+                inFlight.acquire();
+                byte[] buffer = content.readNBytes(partSize);
+                if (buffer.length == 0) {
+                    inFlight.release();
+                    break;
+                }
+                final int number = partNumber++;
+                final byte[] part = buffer;
+                parts.add(uploadExecutor.submit(() -> {
+                    try {
+                        String eTag = client.uploadPart(UploadPartRequest.builder()
+                                        .bucket(bucket)
+                                        .key(key)
+                                        .uploadId(uploadId)
+                                        .partNumber(number)
+                                        .contentLength((long) part.length)
+                                        .build(),
+                                RequestBody.fromByteBuffer(ByteBuffer.wrap(part))).eTag();
+                        return CompletedPart.builder().partNumber(number).eTag(eTag).build();
+                    } finally {
+                        inFlight.release();
+                    }
+                }));
+                if (buffer.length < partSize) {
+                    break;
+                }
+            }
+
+            if (parts.isEmpty()) {
+                // Пустой объект нельзя собрать из частей
+                abort(key, uploadId, parts);
+                client.putObject(PutObjectRequest.builder().bucket(bucket).key(key).contentType(contentType).build(),
+                        RequestBody.empty());
+                return;
+            }
+
+            List<CompletedPart> completed = new ArrayList<>(parts.size());
+            for (Future<CompletedPart> part : parts) {
+                completed.add(part.get());
+            }
+            completed.sort(Comparator.comparing(CompletedPart::partNumber));
+
+            client.completeMultipartUpload(CompleteMultipartUploadRequest.builder()
+                    .bucket(bucket)
+                    .key(key)
+                    .uploadId(uploadId)
+                    .multipartUpload(CompletedMultipartUpload.builder().parts(completed).build())
+                    .build());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            abort(key, uploadId, parts);
+            throw new IOException("Загрузка объекта " + key + " прервана", e);
+        } catch (ExecutionException | S3Exception e) {
+            abort(key, uploadId, parts);
+            throw new IOException("Не удалось загрузить объект " + key, e);
+        } catch (IOException e) {
+            abort(key, uploadId, parts);
+            throw e;
+        }
+    }
+
+    private void abort(String key, String uploadId, List<Future<CompletedPart>> parts) {
+        parts.forEach(part -> part.cancel(true));
+        try {
+            client.abortMultipartUpload(AbortMultipartUploadRequest.builder()
+                    .bucket(bucket)
+                    .key(key)
+                    .uploadId(uploadId)
+                    .build());
+        } catch (S3Exception ignored) {
+            // Незавершенные части удалит правило жизненного цикла бакета
+        }
+    }
+
+    @Override
+    public Resource get(String key) {
+        return new S3ObjectResource(key);
+    }
+
+    @Override
+    public InputStream openRange(String key, long offset, long length) throws IOException {
+        String range = length < 0
+                ? "bytes=" + offset + "-"
+                : "bytes=" + offset + "-" + (offset + length - 1);
+        try {
+            return client.getObject(GetObjectRequest.builder()
+                    .bucket(bucket)
+                    .key(key)
+                    .range(range)
+                    .build());
+        } catch (S3Exception e) {
+            throw translate(key, e);
+        }
+    }
+
+    /**
+     * Скачивает объект в локальный файл
+     */
+    public void download(String key, Path target) throws IOException {
+        Path temp = target.resolveSibling(target.getFileName() + ".part");
+        try {
+            Files.deleteIfExists(temp);
+            client.getObject(GetObjectRequest.builder().bucket(bucket).key(key).build(), temp);
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (S3Exception e) {
+            throw translate(key, e);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    @Override
+    public boolean exists(String key) throws IOException {
+        return head(key) != null;
+    }
+
+    @Override
+    public boolean delete(String key) throws IOException {
+        if (head(key) == null) {
+            return false;
+        }
+        try {
+            client.deleteObject(DeleteObjectRequest.builder().bucket(bucket).key(key).build());
+            return true;
+        } catch (S3Exception e) {
+            throw translate(key, e);
+        }
+    }
+
+    @Override
+    public Stream<StoredObject> list(String prefix) {
+        String normalized = prefix.endsWith("/") ? prefix : prefix + "/";
+        return client.listObjectsV2Paginator(ListObjectsV2Request.builder()
+                        .bucket(bucket)
+                        .prefix(normalized)
+                        .build())
+                .contents()
+                .stream()
+                .map(object -> new StoredObject(object.key(), object.size(), object.lastModified()));
+    }
+
+    @Override
+    public void close() {
+        uploadExecutor.shutdownNow();
+        client.close();
+    }
+
+    private HeadObjectResponse head(String key) throws IOException {
+        try {
+            return client.headObject(HeadObjectRequest.builder().bucket(bucket).key(key).build());
+        } catch (S3Exception e) {
+            if (e.statusCode() == 404) {
+                return null;
+            }
+            throw translate(key, e);
+        }
+    }
+
+    private IOException translate(String key, S3Exception e) {
+        if (e.statusCode() == 404) {
+            return new FileNotFoundException("Объект не найден: " + key);
+        }
+        return new IOException("Ошибка обращения к объекту " + key, e);
+    }
+
+    /**
+     * Ресурс, читающий объект из S3 по требованию; размер берется из HEAD
+     */
+    private class S3ObjectResource extends AbstractResource {
+
+        private final String key;
+        private HeadObjectResponse metadata;
+
+        S3ObjectResource(String key) {
+            this.key = key;
+        }
+
+        @Override
+        public String getDescription() {
+            return "s3://" + bucket + "/" + key;
+        }
+
+        @Override
+        public String getFilename() {
+            return key.substring(key.lastIndexOf('/') + 1);
+        }
+
+        @Override
+        public boolean exists() {
+            try {
+                return metadata() != null;
+            } catch (IOException e) {
+                return false;
+            }
+        }
+
+        @Override
+        public boolean isReadable() {
+            return exists();
+        }
+
+        @Override
+        public long contentLength() throws IOException {
+            HeadObjectResponse head = metadata();
+            if (head == null) {
+                throw new FileNotFoundException(getDescription());
+            }
+            return head.contentLength();
+        }
+
+        @Override
+        public long lastModified() throws IOException {
+            HeadObjectResponse head = metadata();
+            if (head == null) {
+                throw new FileNotFoundException(getDescription());
+            }
+            return head.lastModified().toEpochMilli();
+        }
+
+        @Override
+        public InputStream getInputStream() throws IOException {
+            return openRange(key, 0, -1);
+        }
+
+        private HeadObjectResponse metadata() throws IOException {
+            if (metadata == null) {
+                metadata = head(key);
+            }
+            return metadata;
+        }
+    }
+}
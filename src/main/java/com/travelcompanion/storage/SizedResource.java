@@ -0,0 +1,113 @@
+package com.travelcompanion.storage;
+
+import org.springframework.core.io.AbstractResource;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Ресурс с заранее известными размером и временем изменения.
+ *
+ * Spring не обращается к хранилищу за размером, а поток открывается только
+ * при чтении: пропуск байт в начале (запрос диапазона) превращается в чтение
+ * объекта с нужного смещения.
+ */
+public class SizedResource extends AbstractResource {
+
+    private final String filename;
+    private final long contentLength;
+    private final long lastModified;
+    private final RangeOpener opener;
+
+    public SizedResource(String filename, long contentLength, long lastModified, RangeOpener opener) {
+        this.filename = filename;
+        this.contentLength = contentLength;
+        this.lastModified = lastModified;
+        this.opener = opener;
+    }
+
+    @Override
+    public InputStream getInputStream() {
+        return new LazyRangeInputStream();
+    }
+
+    @Override
+    public boolean exists() {
+        return true;
+    }
+
+    @Override
+    public boolean isReadable() {
+        return true;
+    }
+
+    @Override
+    public long contentLength() {
+        return contentLength;
+    }
+
+    @Override
+    public long lastModified() {
+        return lastModified;
+    }
+
+    @Override
+    public String getFilename() {
+        return filename;
+    }
+
+    @Override
+    public String getDescription() {
+        return "Media [" + filename + "]";
+    }
+
+    /**
+     * Открывает поток на диапазон байт объекта. Длина -1 — до конца объекта.
+     */
+    @FunctionalInterface
+    public interface RangeOpener {
+        InputStream open(long offset, long length) throws IOException;
+    }
+
+    /**
+     * Поток, который открывается при первом чтении с учетом пропущенных до него байт
+     */
+    private class LazyRangeInputStream extends InputStream {
+        private long offset;
+        private InputStream in;
+
+        @Override
+        public int read() throws IOException {
+            return stream().read();
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            return stream().read(b, off, len);
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            if (in != null) {
+                return in.skip(n);
+            }
+            long skipped = Math.max(0, Math.min(n, contentLength - offset));
+            offset += skipped;
+            return skipped;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (in != null) {
+                in.close();
+            }
+        }
+
+        private InputStream stream() throws IOException {
+            if (in == null) {
+                in = opener.open(offset, -1);
+            }
+            return in;
+        }
+    }
+}
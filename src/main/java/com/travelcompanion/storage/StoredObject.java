@@ -0,0 +1,24 @@
+package com.travelcompanion.storage;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.time.Instant;
+
+/**
+ * Описание объекта в хранилище, возвращаемое при перечислении
+ */
+@Data
+@AllArgsConstructor
+public class StoredObject {
+    private String key;
+    private long size;
+    private Instant lastModified;
+
+    /**
+     * Имя файла без префикса каталога
+     */
+    public String getFilename() {
+        return key.substring(key.lastIndexOf('/') + 1);
+    }
+}
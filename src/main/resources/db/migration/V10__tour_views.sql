@@ -0,0 +1,6 @@
+-- Накопленное число просмотров туров, пополняется пачками из счетчиков в памяти
+CREATE TABLE tour_views (
+    tour_id BIGINT PRIMARY KEY REFERENCES tours (id) ON DELETE CASCADE,
+    view_count BIGINT NOT NULL,
+    updated_at TIMESTAMP NOT NULL
+);
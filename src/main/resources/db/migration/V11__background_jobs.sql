@@ -0,0 +1,16 @@
+-- Очередь фоновых задач: узлы забирают готовые задачи через FOR UPDATE SKIP LOCKED
+CREATE TABLE background_jobs (
+    id BIGSERIAL PRIMARY KEY,
+    job_type VARCHAR(64) NOT NULL,
+    payload VARCHAR(1024) NOT NULL,
+    status VARCHAR(16) NOT NULL,
+    attempts INTEGER NOT NULL DEFAULT 0,
+    run_at TIMESTAMP WITH TIME ZONE NOT NULL,
+    locked_by VARCHAR(128),
+    locked_until TIMESTAMP WITH TIME ZONE,
+    last_error VARCHAR(1024),
+    created_at TIMESTAMP WITH TIME ZONE NOT NULL
+);
+
+CREATE INDEX idx_background_jobs_ready ON background_jobs (job_type, run_at, id) WHERE status = 'PENDING';
+CREATE INDEX idx_background_jobs_running ON background_jobs (locked_until) WHERE status = 'RUNNING';
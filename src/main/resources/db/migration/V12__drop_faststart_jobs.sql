@@ -0,0 +1,2 @@
+-- Видео переписываются (faststart) до записи в хранилище, фоновых задач для них больше нет
+DELETE FROM background_jobs WHERE job_type = 'video-faststart';
@@ -0,0 +1,3 @@
+-- updated_at соответствует Instant, как и остальные отметки времени в схеме; старые
+-- значения записаны CURRENT_TIMESTAMP в часовом поясе сессии и переводятся из него же
+ALTER TABLE tour_views ALTER COLUMN updated_at TYPE TIMESTAMP WITH TIME ZONE;
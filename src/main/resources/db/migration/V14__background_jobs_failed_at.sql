@@ -0,0 +1,4 @@
+-- Неудачные задачи хранятся app.jobs.failed-retention с момента перехода в FAILED, а не с постановки
+ALTER TABLE background_jobs ADD COLUMN failed_at TIMESTAMP WITH TIME ZONE;
+UPDATE background_jobs SET failed_at = now() WHERE status = 'FAILED';
+CREATE INDEX idx_background_jobs_failed ON background_jobs (failed_at) WHERE status = 'FAILED';
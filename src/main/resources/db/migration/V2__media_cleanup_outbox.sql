@@ -0,0 +1,11 @@
+-- Outbox для фонового удаления медиафайлов после удаления точек и туров
+CREATE TABLE media_cleanup_outbox (
+    id BIGSERIAL PRIMARY KEY,
+    filename VARCHAR(255) NOT NULL,
+    media_type VARCHAR(16) NOT NULL,
+    attempts INTEGER NOT NULL DEFAULT 0,
+    created_at TIMESTAMP WITH TIME ZONE NOT NULL,
+    next_attempt_at TIMESTAMP WITH TIME ZONE NOT NULL
+);
+
+CREATE INDEX idx_media_cleanup_outbox_next_attempt ON media_cleanup_outbox (next_attempt_at, id);
@@ -0,0 +1,9 @@
+-- Колонка порядка называется в сущности display_order: "order" — зарезервированное слово
+ALTER TABLE points_of_interest RENAME COLUMN "order" TO display_order;
+
+-- Точки тура в порядке обхода (findByTourIdOrderByOrderAsc); покрывает и поиск по tour_id
+CREATE INDEX idx_points_of_interest_tour_order ON points_of_interest (tour_id, display_order);
+
+-- Туры пользователя (findByCreatedBy) и поиск по локации
+CREATE INDEX idx_tours_created_by ON tours (created_by_id);
+CREATE INDEX idx_tours_location ON tours (location);
@@ -0,0 +1,8 @@
+-- Ключи порядка точек с шагом 1024: перестановка точки меняет одну строку
+UPDATE points_of_interest p
+SET display_order = r.position * 1024
+FROM (
+    SELECT id, ROW_NUMBER() OVER (PARTITION BY tour_id ORDER BY display_order NULLS LAST, id) AS position
+    FROM points_of_interest
+) r
+WHERE p.id = r.id;
@@ -0,0 +1,2 @@
+-- Номер правки точки для подтверждений PATCH
+ALTER TABLE points_of_interest ADD COLUMN revision BIGINT NOT NULL DEFAULT 0;
@@ -0,0 +1,14 @@
+-- Метаданные медиафайлов: отдача не обращается к файловой системе за размером и типом
+CREATE TABLE media (
+    id BIGSERIAL PRIMARY KEY,
+    media_type VARCHAR(16) NOT NULL,
+    filename VARCHAR(255) NOT NULL,
+    content_type VARCHAR(100) NOT NULL,
+    size_bytes BIGINT NOT NULL,
+    sha256 VARCHAR(64) NOT NULL,
+    width INTEGER,
+    height INTEGER,
+    duration_millis BIGINT,
+    created_at TIMESTAMP WITH TIME ZONE NOT NULL,
+    CONSTRAINT uk_media_type_filename UNIQUE (media_type, filename)
+);
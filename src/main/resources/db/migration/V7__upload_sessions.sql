@@ -0,0 +1,12 @@
+-- Сессии возобновляемой загрузки: принятая часть файла хранится в каталоге app.upload.staging-dir
+CREATE TABLE upload_sessions (
+    id VARCHAR(36) PRIMARY KEY,
+    media_type VARCHAR(16) NOT NULL,
+    original_filename VARCHAR(255),
+    upload_length BIGINT NOT NULL,
+    upload_offset BIGINT NOT NULL DEFAULT 0,
+    created_at TIMESTAMP WITH TIME ZONE NOT NULL,
+    expires_at TIMESTAMP WITH TIME ZONE NOT NULL
+);
+
+CREATE INDEX idx_upload_sessions_expires_at ON upload_sessions (expires_at);
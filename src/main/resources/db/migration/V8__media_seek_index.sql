@@ -0,0 +1,6 @@
+-- Таблица смещений кадров MP3 для перемотки аудиогидов по времени
+CREATE TABLE media_seek_index (
+    media_id BIGINT PRIMARY KEY REFERENCES media (id) ON DELETE CASCADE,
+    interval_millis INTEGER NOT NULL,
+    frame_offsets BYTEA NOT NULL
+);
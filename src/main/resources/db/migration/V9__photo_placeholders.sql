@@ -0,0 +1,11 @@
+-- Размеры и BlurHash-превью фото: в метаданных файла и копией в точке
+ALTER TABLE media ADD COLUMN placeholder VARCHAR(100);
+
+ALTER TABLE points_of_interest ADD COLUMN photo_width INTEGER;
+ALTER TABLE points_of_interest ADD COLUMN photo_height INTEGER;
+ALTER TABLE points_of_interest ADD COLUMN photo_placeholder VARCHAR(100);
+
+UPDATE points_of_interest p
+SET photo_width = m.width, photo_height = m.height, photo_placeholder = m.placeholder
+FROM media m
+WHERE m.media_type = 'photo' AND m.filename = p.photo_filename;
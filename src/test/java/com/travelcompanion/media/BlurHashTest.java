@@ -0,0 +1,58 @@
+package com.travelcompanion.media;
+
+import org.junit.jupiter.api.Test;
+
+import java.awt.image.BufferedImage;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Ожидаемые строки посчитаны эталонным алгоритмом BlurHash (woltapp/blurhash)
+ */
+class BlurHashTest {
+
+    @Test
+    void encodesSolidColorWithoutAcComponents() {
+        BufferedImage image = image(8, 6, (x, y) -> 0xFF0000);
+
+        assertEquals("00TI:j", BlurHash.encode(image, 1, 1));
+    }
+
+    @Test
+    void encodesGradient() {
+        BufferedImage image = image(8, 6, (x, y) -> (x * 32 << 16) | (y * 40 << 8) | 128);
+
+        assertEquals("LjF=ad3Ba|xuzONLfQnTeqf7fQf7", BlurHash.encode(image, 4, 3));
+    }
+
+    @Test
+    void encodesHardEdge() {
+        BufferedImage image = image(8, 6, (x, y) -> x < 4 ? 0xFFFFFF : 0x000000);
+
+        assertEquals("L~Lqe9~q-;Rj%M%Mt7ayfQfQfQfQ", BlurHash.encode(image, 4, 3));
+    }
+
+    @Test
+    void rejectsComponentCountOutOfRange() {
+        BufferedImage image = image(2, 2, (x, y) -> 0);
+
+        assertThrows(IllegalArgumentException.class, () -> BlurHash.encode(image, 10, 3));
+        assertThrows(IllegalArgumentException.class, () -> BlurHash.encode(image, 4, 0));
+    }
+
+    private static BufferedImage image(int width, int height, Pixel pixel) {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                image.setRGB(x, y, pixel.rgb(x, y));
+            }
+        }
+        return image;
+    }
+
+    @FunctionalInterface
+    private interface Pixel {
+        int rgb(int x, int y);
+    }
+}
@@ -0,0 +1,60 @@
+package com.travelcompanion.media;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static com.travelcompanion.media.Mp4TestFiles.box;
+import static com.travelcompanion.media.Mp4TestFiles.concat;
+import static com.travelcompanion.media.Mp4TestFiles.ftyp;
+import static com.travelcompanion.media.Mp4TestFiles.mdat;
+import static com.travelcompanion.media.Mp4TestFiles.moov;
+import static com.travelcompanion.media.Mp4TestFiles.mvhd;
+import static com.travelcompanion.media.Mp4TestFiles.stco;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class MediaProbeTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void readsDurationAndSizeFromMp4Header() throws Exception {
+        Path file = Files.write(dir.resolve("video.mp4"), concat(ftyp(), mdat(100), moov(mvhd(), stco(24))));
+
+        MediaInfo info = MediaProbe.probe(file);
+
+        assertEquals("video/mp4", info.getContentType());
+        assertEquals(Files.size(file), info.getSize());
+        assertEquals(Mp4TestFiles.DURATION * 1000L / Mp4TestFiles.TIMESCALE, info.getDurationMillis());
+        assertEquals(Mp4TestFiles.WIDTH, info.getWidth());
+        assertEquals(Mp4TestFiles.HEIGHT, info.getHeight());
+    }
+
+    @Test
+    void skipsTruncatedMovieHeader() throws Exception {
+        // mvhd обрезан до версии и флагов: длительность не читается, размеры из tkhd остаются
+        byte[] mvhd = box("mvhd", new byte[4]);
+        Path file = Files.write(dir.resolve("video.mp4"), concat(ftyp(), mdat(100), moov(mvhd, stco(24))));
+
+        MediaInfo info = MediaProbe.probe(file);
+
+        assertEquals("video/mp4", info.getContentType());
+        assertNull(info.getDurationMillis());
+        assertEquals(Mp4TestFiles.WIDTH, info.getWidth());
+    }
+
+    @Test
+    void skipsEmptyTrackHeader() throws Exception {
+        byte[] moov = box("moov", mvhd(), box("trak", box("tkhd")));
+        Path file = Files.write(dir.resolve("video.mp4"), concat(ftyp(), mdat(100), moov));
+
+        MediaInfo info = MediaProbe.probe(file);
+
+        assertEquals(Mp4TestFiles.DURATION * 1000L / Mp4TestFiles.TIMESCALE, info.getDurationMillis());
+        assertNull(info.getWidth());
+    }
+}
@@ -0,0 +1,91 @@
+package com.travelcompanion.media;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class Mp3FramesTest {
+
+    // MPEG-1 Layer III, 128 кбит/с, 44,1 кГц, стерео, без заполнения: кадр 417 байт, 1152 сэмпла
+    private static final byte[] HEADER = {(byte) 0xFF, (byte) 0xFB, (byte) 0x90, 0x00};
+    private static final int FRAME = 417;
+    private static final int FRAMES = 100;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void takesDurationFromXingHeader() throws Exception {
+        // Заявленное в Xing число кадров вдвое больше записанного: длительность берется из заголовка
+        Path file = Files.write(dir.resolve("vbr.mp3"), mp3(true, FRAMES * 2, new byte[0]));
+
+        assertEquals(FRAMES * 2 * 1152L * 1000 / 44100, Mp3Frames.estimateDurationMillis(file));
+    }
+
+    @Test
+    void estimatesCbrDurationFromBitrate() throws Exception {
+        Path file = Files.write(dir.resolve("cbr.mp3"), mp3(false, 0, new byte[0]));
+
+        assertEquals((long) FRAMES * FRAME * 8 / 128, Mp3Frames.estimateDurationMillis(file));
+    }
+
+    @Test
+    void seekIndexSkipsXingFrame() throws Exception {
+        Path file = Files.write(dir.resolve("vbr.mp3"), mp3(true, FRAMES, new byte[0]));
+
+        // Кадр длится 1152 / 44100 с ≈ 26,12 мс: секунды начинаются с кадров 0, 39 и 77 после Xing
+        long[] index = Mp3Frames.seekIndex(file, 1000);
+
+        assertArrayEquals(new long[]{FRAME, FRAME + 39L * FRAME, FRAME + 77L * FRAME}, index);
+    }
+
+    @Test
+    void seekIndexStartsAfterId3Tag() throws Exception {
+        byte[] tag = id3(300);
+        Path file = Files.write(dir.resolve("tagged.mp3"), mp3(true, FRAMES, tag));
+
+        long[] index = Mp3Frames.seekIndex(file, 1000);
+
+        assertEquals(tag.length + FRAME, index[0]);
+        assertEquals(3, index.length);
+    }
+
+    /**
+     * Файл из FRAMES кадров тишины; с xing перед ними идет служебный кадр Xing
+     */
+    private static byte[] mp3(boolean xing, int declaredFrames, byte[] prefix) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.writeBytes(prefix);
+        if (xing) {
+            // Заголовок Xing стоит после 32 байт side info стерео-кадра MPEG-1
+            ByteBuffer frame = ByteBuffer.allocate(FRAME).put(HEADER);
+            frame.position(4 + 32);
+            frame.put("Xing".getBytes(StandardCharsets.US_ASCII)).putInt(1).putInt(declaredFrames);
+            out.writeBytes(frame.array());
+        }
+        for (int i = 0; i < FRAMES; i++) {
+            out.writeBytes(ByteBuffer.allocate(FRAME).put(HEADER).array());
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] id3(int size) {
+        byte[] tag = new byte[10 + size];
+        tag[0] = 'I';
+        tag[1] = 'D';
+        tag[2] = '3';
+        tag[3] = 4;
+        // Размер тега без заголовка, по 7 бит в байте
+        tag[8] = (byte) (size >> 7);
+        tag[9] = (byte) (size & 0x7F);
+        return tag;
+    }
+}
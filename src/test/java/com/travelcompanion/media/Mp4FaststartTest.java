@@ -0,0 +1,108 @@
+package com.travelcompanion.media;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static com.travelcompanion.media.Mp4TestFiles.box;
+import static com.travelcompanion.media.Mp4TestFiles.concat;
+import static com.travelcompanion.media.Mp4TestFiles.ftyp;
+import static com.travelcompanion.media.Mp4TestFiles.mdat;
+import static com.travelcompanion.media.Mp4TestFiles.moov;
+import static com.travelcompanion.media.Mp4TestFiles.mvhd;
+import static com.travelcompanion.media.Mp4TestFiles.stco;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class Mp4FaststartTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void movesMoovBeforeMdatAndShiftsChunkOffsets() throws Exception {
+        byte[] ftyp = ftyp();
+        byte[] mdat = mdat(1000);
+        long firstChunk = ftyp.length + 8;
+        byte[] moov = moov(mvhd(), stco(firstChunk, firstChunk + 500));
+        Path source = write("source.mp4", concat(ftyp, mdat, moov));
+        Path target = dir.resolve("target.mp4");
+
+        assertTrue(Mp4Faststart.rewrite(source, target));
+
+        byte[] out = Files.readAllBytes(target);
+        assertEquals(Files.size(source), out.length);
+        assertArrayEquals(ftyp, Arrays.copyOfRange(out, 0, ftyp.length));
+        assertEquals("moov", new String(out, ftyp.length + 4, 4, StandardCharsets.ISO_8859_1));
+        assertArrayEquals(mdat, Arrays.copyOfRange(out, ftyp.length + moov.length, out.length));
+
+        // Смещения чанков указывают на те же байты данных, сдвинутые на размер moov
+        ByteBuffer buffer = ByteBuffer.wrap(out);
+        int table = indexOf(out, "stco") + 4;
+        long first = Integer.toUnsignedLong(buffer.getInt(table + 8));
+        long second = Integer.toUnsignedLong(buffer.getInt(table + 12));
+        assertEquals(firstChunk + moov.length, first);
+        assertEquals(firstChunk + 500 + moov.length, second);
+        assertEquals(0, out[(int) first]);
+        assertEquals((byte) 500, out[(int) second]);
+    }
+
+    @Test
+    void leavesFaststartFileAlone() throws Exception {
+        byte[] ftyp = ftyp();
+        byte[] moov = moov(mvhd(), stco(0));
+        Path source = write("source.mp4", concat(ftyp, moov, mdat(100)));
+        Path target = dir.resolve("target.mp4");
+
+        assertFalse(Mp4Faststart.rewrite(source, target));
+        assertFalse(Files.exists(target));
+    }
+
+    @Test
+    void rejectsChunkTableShorterThanItsEntryCount() throws Exception {
+        // Заявлено 1000 записей, а в блоке место под одну
+        byte[] truncated = box("stco", ByteBuffer.allocate(12).putInt(4, 1000).putInt(8, 24).array());
+        Path source = write("source.mp4", concat(ftyp(), mdat(100), moov(mvhd(), truncated)));
+        Path target = dir.resolve("target.mp4");
+
+        assertFalse(Mp4Faststart.rewrite(source, target));
+        assertFalse(Files.exists(target));
+    }
+
+    @Test
+    void rejectsChunkTableWithoutHeader() throws Exception {
+        byte[] truncated = box("co64", new byte[4]);
+        Path source = write("source.mp4", concat(ftyp(), mdat(100), moov(mvhd(), truncated)));
+
+        assertFalse(Mp4Faststart.rewrite(source, dir.resolve("target.mp4")));
+    }
+
+    @Test
+    void rejectsFileCutInsideMoov() throws Exception {
+        byte[] file = concat(ftyp(), mdat(100), moov(mvhd(), stco(24)));
+        Path source = write("source.mp4", Arrays.copyOf(file, file.length - 10));
+
+        assertFalse(Mp4Faststart.rewrite(source, dir.resolve("target.mp4")));
+    }
+
+    private Path write(String name, byte[] content) throws Exception {
+        return Files.write(dir.resolve(name), content);
+    }
+
+    private static int indexOf(byte[] bytes, String type) {
+        byte[] needle = Mp4TestFiles.ascii(type);
+        for (int i = 0; i + needle.length <= bytes.length; i++) {
+            if (Arrays.equals(bytes, i, i + needle.length, needle, 0, needle.length)) {
+                return i;
+            }
+        }
+        throw new AssertionError("Блок не найден: " + type);
+    }
+}
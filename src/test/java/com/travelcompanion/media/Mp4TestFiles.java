@@ -0,0 +1,80 @@
+package com.travelcompanion.media;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Сборка минимальных MP4 для тестов: ftyp, mdat с данными и moov после него,
+ * как пишут телефоны
+ */
+final class Mp4TestFiles {
+
+    static final int TIMESCALE = 1000;
+    static final int DURATION = 12_345;
+    static final int WIDTH = 1280;
+    static final int HEIGHT = 720;
+
+    private Mp4TestFiles() {
+    }
+
+    static byte[] box(String type, byte[]... children) {
+        ByteArrayOutputStream payload = new ByteArrayOutputStream();
+        for (byte[] child : children) {
+            payload.writeBytes(child);
+        }
+        return ByteBuffer.allocate(8 + payload.size())
+                .putInt(8 + payload.size())
+                .put(type.getBytes(StandardCharsets.ISO_8859_1))
+                .put(payload.toByteArray())
+                .array();
+    }
+
+    static byte[] ftyp() {
+        return box("ftyp", ascii("isom"), new byte[4], ascii("isom"));
+    }
+
+    static byte[] mdat(int size) {
+        byte[] data = new byte[size];
+        for (int i = 0; i < size; i++) {
+            data[i] = (byte) i;
+        }
+        return box("mdat", data);
+    }
+
+    static byte[] mvhd() {
+        // Версия 0: версия и флаги, два времени, timescale, duration, остальное нулями
+        return box("mvhd", ByteBuffer.allocate(100).putInt(12, TIMESCALE).putInt(16, DURATION).array());
+    }
+
+    static byte[] tkhd() {
+        // Версия 0: ширина и высота в формате 16.16 с 76-го байта
+        return box("tkhd", ByteBuffer.allocate(84).putInt(76, WIDTH << 16).putInt(80, HEIGHT << 16).array());
+    }
+
+    static byte[] stco(long... offsets) {
+        ByteBuffer payload = ByteBuffer.allocate(8 + 4 * offsets.length).putInt(4, offsets.length);
+        for (int i = 0; i < offsets.length; i++) {
+            payload.putInt(8 + 4 * i, (int) offsets[i]);
+        }
+        return box("stco", payload.array());
+    }
+
+    static byte[] moov(byte[] mvhd, byte[] chunkOffsets) {
+        return box("moov", mvhd,
+                box("trak", tkhd(),
+                        box("mdia", box("minf", box("stbl", chunkOffsets)))));
+    }
+
+    static byte[] concat(byte[]... parts) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (byte[] part : parts) {
+            out.writeBytes(part);
+        }
+        return out.toByteArray();
+    }
+
+    static byte[] ascii(String value) {
+        return value.getBytes(StandardCharsets.US_ASCII);
+    }
+}
@@ -0,0 +1,53 @@
+package com.travelcompanion.routing;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ProtoReaderTest {
+
+    @Test
+    void readsVarintsAndZigZag() {
+        // 150 = 0x96 0x01; ZigZag: 3 -> -2, 4 -> 2
+        ProtoReader reader = new ProtoReader(bytes(0x96, 0x01, 0x03, 0x04));
+
+        assertEquals(150, reader.readVarint());
+        assertEquals(-2, reader.readSignedVarint());
+        assertEquals(2, reader.readSignedVarint());
+        assertFalse(reader.hasNext());
+    }
+
+    @Test
+    void readsNestedMessageAndSkipsUnknownFields() {
+        // Поле 1 (fixed32) пропускается, поле 2 — вложенное сообщение со строкой "hi" в поле 1
+        ProtoReader reader = new ProtoReader(bytes(
+                0x0D, 0x01, 0x02, 0x03, 0x04,
+                0x12, 0x04, 0x0A, 0x02, 'h', 'i'));
+
+        int tag = reader.readTag();
+        reader.skip(tag & 7);
+        assertEquals(2, reader.readTag() >>> 3);
+        ProtoReader message = reader.readMessage();
+        assertEquals(1, message.readTag() >>> 3);
+        assertEquals("hi", message.readString());
+        assertFalse(reader.hasNext());
+    }
+
+    @Test
+    void rejectsTruncatedInput() {
+        assertThrows(IllegalArgumentException.class, () -> new ProtoReader(bytes(0x96)).readVarint());
+        // Заявлена длина 5, а данных 2 байта
+        assertThrows(IllegalArgumentException.class, () -> new ProtoReader(bytes(0x05, 'h', 'i')).readString());
+        assertThrows(IllegalArgumentException.class, () -> new ProtoReader(bytes(0x01)).skip(ProtoReader.FIXED64));
+    }
+
+    private static byte[] bytes(int... values) {
+        byte[] bytes = new byte[values.length];
+        for (int i = 0; i < values.length; i++) {
+            bytes[i] = (byte) values[i];
+        }
+        return bytes;
+    }
+}
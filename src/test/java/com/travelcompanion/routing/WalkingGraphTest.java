@@ -0,0 +1,166 @@
+package com.travelcompanion.routing;
+
+import com.travelcompanion.exception.CapacityExceededException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Граф-квадрат в одной ячейке сетки:
+ * <pre>
+ *   D(3) ---- C(2)
+ *    |      /  |
+ *    |    /    |
+ *   A(0) ---- B(1)      E(4) — отдельно, без ребер
+ * </pre>
+ * Диагональ A–C записана в десять раз длиннее расстояния (лестница), ребро D–C — вдвое,
+ * поэтому кратчайший путь из A в C идет через B.
+ */
+class WalkingGraphTest {
+
+    private static final int BASE_LAT = 557_500_000;
+    private static final int BASE_LON = 376_200_000;
+    private static final int STEP = 5_000;
+
+    private static final int A = 0;
+    private static final int B = 1;
+    private static final int C = 2;
+    private static final int D = 3;
+    private static final int E = 4;
+
+    private static final int[] LAT = {BASE_LAT, BASE_LAT, BASE_LAT + STEP, BASE_LAT + STEP, BASE_LAT + STEP / 2};
+    private static final int[] LON = {BASE_LON, BASE_LON + STEP, BASE_LON + STEP, BASE_LON, BASE_LON + 3 * STEP};
+
+    @TempDir
+    Path dir;
+
+    private Path file;
+
+    @BeforeEach
+    void writeGraph() throws IOException {
+        int[][] edges = {
+                {A, B, length(A, B)},
+                {B, C, length(B, C)},
+                {A, D, length(A, D)},
+                {D, C, 2 * length(D, C)},
+                {A, C, 10 * length(A, C)}
+        };
+        file = write(dir.resolve("walking.graph"), edges);
+    }
+
+    @Test
+    void findsShortestPathAroundExpensiveEdges() throws IOException {
+        WalkingGraph graph = WalkingGraph.open(file, 1, 100);
+
+        WalkingGraph.Route route = graph.route(A, C);
+
+        assertArrayEquals(new int[]{A, B, C}, route.getNodes());
+        assertEquals((length(A, B) + length(B, C)) / 10.0, route.getMeters(), 0.01);
+    }
+
+    @Test
+    void routesToItself() throws IOException {
+        WalkingGraph graph = WalkingGraph.open(file, 1, 100);
+
+        WalkingGraph.Route route = graph.route(D, D);
+
+        assertArrayEquals(new int[]{D}, route.getNodes());
+        assertEquals(0, route.getMeters(), 0.0);
+    }
+
+    @Test
+    void returnsNullForUnreachableNode() throws IOException {
+        WalkingGraph graph = WalkingGraph.open(file, 1, 100);
+
+        assertNull(graph.route(A, E));
+        // Рабочие массивы переиспользуются: следующий поиск не видит состояния предыдущего
+        assertArrayEquals(new int[]{A, B, C}, graph.route(A, C).getNodes());
+    }
+
+    @Test
+    void stopsAfterSettledLimit() throws IOException {
+        WalkingGraph graph = WalkingGraph.open(file, 1, 1);
+
+        assertNull(graph.route(A, C));
+    }
+
+    @Test
+    void findsNearestNodeWithinRadius() throws IOException {
+        WalkingGraph graph = WalkingGraph.open(file, 1, 100);
+
+        assertEquals(B, graph.nearest((BASE_LAT + 100) / 1e7, (BASE_LON + STEP - 100) / 1e7, 50));
+        assertEquals(-1, graph.nearest((BASE_LAT + STEP / 2) / 1e7, (BASE_LON + STEP / 2) / 1e7, 10));
+    }
+
+    @Test
+    void rejectsTruncatedFile() throws IOException {
+        byte[] content = Files.readAllBytes(file);
+        Path truncated = Files.write(dir.resolve("truncated.graph"), Arrays.copyOf(content, content.length - 4));
+
+        assertThrows(IOException.class, () -> WalkingGraph.open(truncated, 1, 100));
+    }
+
+    @Test
+    void rejectsRouteWhenWorkspacesAreBusy() throws IOException {
+        WalkingGraph graph = WalkingGraph.open(file, 0, 100);
+
+        assertThrows(CapacityExceededException.class, () -> graph.route(A, C));
+    }
+
+    // Длина ребра в дециметрах, как ее пишет импорт: с округлением вверх
+    private static int length(int u, int v) {
+        return (int) Math.ceil(WalkingGraph.distance(LAT[u], LON[u], LAT[v], LON[v]) * 10);
+    }
+
+    /**
+     * Файл графа в формате {@link OsmGraphImporter}: все вершины в одной ячейке сетки
+     */
+    private static Path write(Path target, int[][] edges) throws IOException {
+        int nodes = LAT.length;
+        int[] offsets = new int[nodes + 1];
+        for (int[] edge : edges) {
+            offsets[edge[0] + 1]++;
+            offsets[edge[1] + 1]++;
+        }
+        for (int n = 0; n < nodes; n++) {
+            offsets[n + 1] += offsets[n];
+        }
+        int directed = offsets[nodes];
+        int[] fill = Arrays.copyOf(offsets, nodes);
+        int[] targets = new int[directed];
+        int[] lengths = new int[directed];
+        for (int[] edge : edges) {
+            targets[fill[edge[0]]] = edge[1];
+            lengths[fill[edge[0]]++] = edge[2];
+            targets[fill[edge[1]]] = edge[0];
+            lengths[fill[edge[1]]++] = edge[2];
+        }
+
+        int cellOriginLat = Math.floorDiv(Arrays.stream(LAT).min().orElseThrow(), OsmGraphImporter.CELL_SIZE_E7);
+        int cellOriginLon = Math.floorDiv(Arrays.stream(LON).min().orElseThrow(), OsmGraphImporter.CELL_SIZE_E7);
+        ByteBuffer buffer = ByteBuffer.allocate(OsmGraphImporter.HEADER_SIZE + 4 * (3 * nodes + 1 + 2 * directed + 3))
+                .order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(OsmGraphImporter.MAGIC).putInt(OsmGraphImporter.VERSION).putInt(nodes).putInt(directed)
+                .putInt(1).putInt(OsmGraphImporter.CELL_SIZE_E7).putInt(cellOriginLat).putInt(cellOriginLon);
+        Arrays.stream(LAT).forEach(buffer::putInt);
+        Arrays.stream(LON).forEach(buffer::putInt);
+        Arrays.stream(offsets).forEach(buffer::putInt);
+        Arrays.stream(targets).forEach(buffer::putInt);
+        Arrays.stream(lengths).forEach(buffer::putInt);
+        // Одна ячейка с ключом 0 (строка и столбец от начала сетки) и все вершины в ней
+        buffer.putInt(0).putInt(0).putInt(nodes);
+        return Files.write(target, buffer.array());
+    }
+}
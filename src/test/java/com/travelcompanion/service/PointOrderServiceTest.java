@@ -0,0 +1,186 @@
+package com.travelcompanion.service;
+
+import com.travelcompanion.event.TourChangedEvent;
+import com.travelcompanion.exception.TourNotFoundException;
+import com.travelcompanion.model.PointOfInterest;
+import com.travelcompanion.model.Tour;
+import com.travelcompanion.repository.PointOfInterestRepository;
+import com.travelcompanion.repository.TourRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Репозиторий точек подменен списком в памяти: запросы отвечают по текущим ключам точек
+ */
+class PointOrderServiceTest {
+
+    private static final long TOUR_ID = 1L;
+
+    private final PointOfInterestRepository pointRepository = mock(PointOfInterestRepository.class);
+    private final TourRepository tourRepository = mock(TourRepository.class);
+    private final ApplicationEventPublisher eventPublisher = mock(ApplicationEventPublisher.class);
+    private final List<PointOfInterest> points = new ArrayList<>();
+    private final Tour tour = new Tour();
+
+    private PointOrderService service;
+
+    @BeforeEach
+    void setUp() {
+        tour.setId(TOUR_ID);
+        when(tourRepository.findByIdForUpdate(TOUR_ID)).thenReturn(Optional.of(tour));
+        when(pointRepository.findById(anyLong())).thenAnswer(call -> points.stream()
+                .filter(p -> p.getId().equals(call.getArgument(0)))
+                .findFirst());
+        when(pointRepository.findByTourId(TOUR_ID)).thenAnswer(call -> new ArrayList<>(points));
+        when(pointRepository.findMaxOrderByTourId(TOUR_ID)).thenAnswer(call -> points.stream()
+                .map(PointOfInterest::getOrder)
+                .filter(Objects::nonNull)
+                .max(Integer::compare)
+                .orElse(null));
+        when(pointRepository.findFirstByTourIdAndIdNotOrderByOrderAsc(eq(TOUR_ID), anyLong()))
+                .thenAnswer(call -> firstAfter(call.getArgument(1), Integer.MIN_VALUE));
+        when(pointRepository.findFirstByTourIdAndIdNotAndOrderGreaterThanOrderByOrderAsc(eq(TOUR_ID), anyLong(), anyInt()))
+                .thenAnswer(call -> firstAfter(call.getArgument(1), call.getArgument(2)));
+        service = new PointOrderService(pointRepository, tourRepository, eventPublisher,
+                mock(PlatformTransactionManager.class));
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+    }
+
+    @Test
+    void nextKeyAppendsWithGap() {
+        assertEquals(PointOrderService.GAP, service.nextKey(TOUR_ID));
+
+        point(10L, 3 * PointOrderService.GAP);
+        assertEquals(4 * PointOrderService.GAP, service.nextKey(TOUR_ID));
+    }
+
+    @Test
+    void movesBetweenNeighboursByChangingOnlyTheMovedPoint() {
+        PointOfInterest first = point(1L, 1024);
+        PointOfInterest second = point(2L, 2048);
+        PointOfInterest moved = point(3L, 3072);
+
+        service.move(moved, first.getId());
+
+        assertEquals(1536, moved.getOrder());
+        assertEquals(1024, first.getOrder());
+        assertEquals(2048, second.getOrder());
+        verify(eventPublisher, never()).publishEvent(any(Object.class));
+    }
+
+    @Test
+    void movesToFrontAndToEnd() {
+        PointOfInterest first = point(1L, 1024);
+        PointOfInterest last = point(2L, 2048);
+
+        service.move(last, null);
+        assertEquals(512, last.getOrder());
+
+        service.move(first, last.getId());
+        assertEquals(512 + PointOrderService.GAP, first.getOrder());
+        assertEquals(List.of(2L, 1L), order());
+    }
+
+    @Test
+    void requestsBackgroundRebalanceWhenGapRunsLow() {
+        PointOfInterest first = point(1L, 1000);
+        point(2L, 1010);
+        PointOfInterest moved = point(3L, 2048);
+
+        service.move(moved, first.getId());
+
+        assertEquals(1005, moved.getOrder());
+        verify(eventPublisher).publishEvent(new PointOrderService.RebalanceRequested(TOUR_ID));
+    }
+
+    @Test
+    void rebalancesInPlaceWhenNoGapIsLeft() {
+        PointOfInterest first = point(1L, 1000);
+        point(2L, 1001);
+        PointOfInterest moved = point(3L, 2048);
+
+        service.move(moved, first.getId());
+
+        // После перенумерации 1024, 2048, 3072 точка встает между первыми двумя
+        assertEquals(List.of(1L, 3L, 2L), order());
+        assertEquals(1536, moved.getOrder());
+        verify(eventPublisher).publishEvent(any(TourChangedEvent.class));
+    }
+
+    @Test
+    void rebalanceKeepsOrderAndPutsUnorderedPointsLast() {
+        point(1L, null);
+        point(2L, 5);
+        point(3L, 3);
+
+        service.rebalance(TOUR_ID);
+
+        assertEquals(List.of(3L, 2L, 1L), order());
+        assertEquals(List.of(1024, 2048, 3072), points.stream()
+                .map(PointOfInterest::getOrder).sorted().collect(Collectors.toList()));
+    }
+
+    @Test
+    void rejectsAnchorFromAnotherTour() {
+        PointOfInterest moved = point(1L, 1024);
+        Tour other = new Tour();
+        other.setId(2L);
+        PointOfInterest foreign = point(2L, 2048);
+        foreign.setTour(other);
+
+        assertThrows(IllegalArgumentException.class, () -> service.move(moved, foreign.getId()));
+    }
+
+    @Test
+    void rejectsUnknownTour() {
+        assertThrows(TourNotFoundException.class, () -> service.nextKey(99L));
+    }
+
+    private PointOfInterest point(Long id, Integer order) {
+        PointOfInterest point = new PointOfInterest();
+        point.setId(id);
+        point.setTour(tour);
+        point.setOrder(order);
+        points.add(point);
+        return point;
+    }
+
+    private Optional<PointOfInterest> firstAfter(Long excludedId, int lower) {
+        return points.stream()
+                .filter(p -> p.getTour() == tour && !p.getId().equals(excludedId))
+                .filter(p -> p.getOrder() != null && p.getOrder() > lower)
+                .min(Comparator.comparing(PointOfInterest::getOrder));
+    }
+
+    private List<Long> order() {
+        return points.stream()
+                .sorted(Comparator.comparing(PointOfInterest::getOrder))
+                .map(PointOfInterest::getId)
+                .collect(Collectors.toList());
+    }
+}
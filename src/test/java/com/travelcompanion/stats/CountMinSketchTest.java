@@ -0,0 +1,59 @@
+package com.travelcompanion.stats;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CountMinSketchTest {
+
+    @Test
+    void neverUnderestimatesAndStaysWithinErrorBound() {
+        CountMinSketch sketch = new CountMinSketch(4, 1024);
+        Map<Long, Long> exact = new HashMap<>();
+        Random random = new Random(7);
+        long total = 0;
+        for (int i = 0; i < 50_000; i++) {
+            long key = random.nextInt(5_000);
+            sketch.add(key, 1);
+            exact.merge(key, 1L, Long::sum);
+            total++;
+        }
+
+        // e / width от суммы добавлений; при depth 4 превышение возможно примерно у 2% ключей
+        long bound = (long) Math.ceil(Math.E / 1024 * total);
+        int outside = 0;
+        for (Map.Entry<Long, Long> entry : exact.entrySet()) {
+            long estimate = sketch.estimate(entry.getKey());
+            assertTrue(estimate >= entry.getValue(), "Оценка меньше точного значения для " + entry.getKey());
+            if (estimate - entry.getValue() > bound) {
+                outside++;
+            }
+        }
+        assertTrue(outside < exact.size() / 20, "Слишком много оценок за границей ошибки: " + outside);
+    }
+
+    @Test
+    void countsExactlyWithoutCollisions() {
+        CountMinSketch sketch = new CountMinSketch(4, 1 << 16);
+        sketch.add(1, 5);
+        sketch.add(2, 3);
+        sketch.add(1, 2);
+
+        assertEquals(7, sketch.estimate(1));
+        assertEquals(3, sketch.estimate(2));
+        assertEquals(0, sketch.estimate(3));
+    }
+
+    @Test
+    void rejectsInvalidDimensions() {
+        assertThrows(IllegalArgumentException.class, () -> new CountMinSketch(0, 64));
+        assertThrows(IllegalArgumentException.class, () -> new CountMinSketch(9, 64));
+        assertThrows(IllegalArgumentException.class, () -> new CountMinSketch(4, 0));
+    }
+}
@@ -0,0 +1,112 @@
+package com.travelcompanion.stats;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class WindowedTopKTest {
+
+    private static final long BUCKET = 1_000;
+
+    @Test
+    void returnsHeaviestKeysInDescendingOrder() {
+        WindowedTopK topK = new WindowedTopK(BUCKET, 10, 4, 1024, 8);
+        add(topK, 1, 30, 0);
+        add(topK, 2, 10, 0);
+        add(topK, 3, 20, 0);
+        for (long key = 100; key < 150; key++) {
+            add(topK, key, 1, 0);
+        }
+
+        List<WindowedTopK.Entry> top = topK.top(BUCKET, 3, 0);
+
+        assertEquals(List.of(1L, 3L, 2L), keys(top));
+        assertEquals(30, top.get(0).getCount());
+    }
+
+    @Test
+    void sumsBucketsInsideWindowOnly() {
+        WindowedTopK topK = new WindowedTopK(BUCKET, 10, 4, 1024, 8);
+        add(topK, 1, 5, 0);
+        add(topK, 2, 3, 2 * BUCKET);
+        add(topK, 1, 1, 4 * BUCKET);
+
+        // Окно из трех последних интервалов (2..4) не видит ранних просмотров ключа 1
+        List<WindowedTopK.Entry> recent = topK.top(3 * BUCKET, 10, 4 * BUCKET);
+        assertEquals(List.of(2L, 1L), keys(recent));
+        assertEquals(1, recent.get(1).getCount());
+
+        List<WindowedTopK.Entry> all = topK.top(5 * BUCKET, 10, 4 * BUCKET);
+        assertEquals(List.of(1L, 2L), keys(all));
+        assertEquals(6, all.get(0).getCount());
+    }
+
+    @Test
+    void reusesRingSlotsForNewIntervals() {
+        WindowedTopK topK = new WindowedTopK(BUCKET, 2, 4, 1024, 8);
+        add(topK, 1, 5, 0);
+        add(topK, 2, 1, 2 * BUCKET);
+
+        assertEquals(List.of(2L), keys(topK.top(2 * BUCKET, 10, 2 * BUCKET)));
+        assertThrows(IllegalArgumentException.class, () -> topK.top(3 * BUCKET, 10, 2 * BUCKET));
+    }
+
+    @Test
+    void keepsCandidateListWithinCapacityUnderConcurrentUpdates() throws Exception {
+        int capacity = 16;
+        WindowedTopK topK = new WindowedTopK(60_000, 1, 4, 4096, capacity);
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            Future<?>[] workers = new Future<?>[threads];
+            for (int t = 0; t < threads; t++) {
+                workers[t] = executor.submit(() -> {
+                    start.await();
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    // Повторы одних ключей гоняют обновление кандидата наперегонки с вытеснением
+                    for (int i = 0; i < 50_000; i++) {
+                        topK.add(random.nextInt(64), 0);
+                    }
+                    return null;
+                });
+            }
+            start.countDown();
+            for (Future<?> worker : workers) {
+                worker.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        List<WindowedTopK.Entry> top = topK.top(60_000, Integer.MAX_VALUE, 0);
+        assertTrue(top.size() <= capacity, "Кандидатов больше лимита: " + top.size());
+    }
+
+    @Test
+    void rejectsInvalidParameters() {
+        assertThrows(IllegalArgumentException.class, () -> new WindowedTopK(0, 10, 4, 1024, 8));
+        assertThrows(IllegalArgumentException.class, () -> new WindowedTopK(BUCKET, 0, 4, 1024, 8));
+        assertThrows(IllegalArgumentException.class, () -> new WindowedTopK(BUCKET, 10, 4, 1024, 0));
+    }
+
+    private static void add(WindowedTopK topK, long key, int times, long now) {
+        for (int i = 0; i < times; i++) {
+            topK.add(key, now);
+        }
+    }
+
+    private static List<Long> keys(List<WindowedTopK.Entry> entries) {
+        return entries.stream().map(WindowedTopK.Entry::getKey).collect(Collectors.toList());
+    }
+}
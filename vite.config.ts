@@ -1,12 +1,40 @@
-import { defineConfig } from "vite";
+import { defineConfig, type Plugin } from "vite";
 import react from "@vitejs/plugin-react";
 import path from "path";
+import fs from "fs";
+import { brotliCompressSync, constants, gzipSync } from "zlib";
 import runtimeErrorOverlay from "@replit/vite-plugin-runtime-error-modal";
 
+// Writes .gz and .br siblings for text assets so the Spring app can serve
+// them precompressed without compressing on every request.
+function precompress(): Plugin {
+  return {
+    name: "precompress",
+    apply: "build",
+    writeBundle(options, bundle) {
+      const outDir = options.dir ?? path.dirname(options.file ?? "");
+      for (const fileName of Object.keys(bundle)) {
+        if (!/\.(js|css|html|svg|json)$/.test(fileName)) continue;
+        const file = path.join(outDir, fileName);
+        const source = fs.readFileSync(file);
+        if (source.length < 1024) continue;
+        fs.writeFileSync(`${file}.gz`, gzipSync(source, { level: 9 }));
+        fs.writeFileSync(
+          `${file}.br`,
+          brotliCompressSync(source, {
+            params: { [constants.BROTLI_PARAM_QUALITY]: 11 },
+          }),
+        );
+      }
+    },
+  };
+}
+
 export default defineConfig({
   plugins: [
     react(),
     runtimeErrorOverlay(),
+    precompress(),
     ...(process.env.NODE_ENV !== "production" &&
     process.env.REPL_ID !== undefined
       ? [